@@ -0,0 +1,110 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment;
+
+import com.speedment.annotation.Api;
+import com.speedment.exception.SpeedmentException;
+import com.speedment.stream.StreamDecorator;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * An asynchronous view of a {@link Manager}. Every operation is run on an
+ * executor instead of the calling thread and its result is delivered through
+ * a {@link CompletableFuture}. If the operation fails, the future is
+ * completed exceptionally with the {@link SpeedmentException} that the
+ * corresponding {@link Manager} method would have thrown. As usual for a
+ * {@link CompletableFuture}, {@code get()} and {@code join()} report it as
+ * the cause of the exception they throw, while functions passed to
+ * {@code exceptionally} or {@code handle} on the returned future receive it
+ * directly.
+ * <p>
+ * An instance is obtained by calling {@link Manager#async()}.
+ *
+ * @author pemi
+ * @param <ENTITY> Entity type for this AsyncManager
+ */
+@Api(version = "2.2")
+public interface AsyncManager<ENTITY> {
+
+    /**
+     * Returns the Manager that the operations are delegated to.
+     *
+     * @return the Manager that the operations are delegated to
+     */
+    Manager<ENTITY> getManager();
+
+    /**
+     * Asynchronously persists the provided entity.
+     *
+     * @param entity to persist
+     * @return a future that completes with the entity reflecting the result
+     * of the persisted entity
+     * @see Manager#persist(java.lang.Object)
+     */
+    CompletableFuture<ENTITY> persistAsync(ENTITY entity);
+
+    /**
+     * Asynchronously updates the provided entity.
+     *
+     * @param entity to update
+     * @return a future that completes with the entity reflecting the result
+     * of the updated entity
+     * @see Manager#update(java.lang.Object)
+     */
+    CompletableFuture<ENTITY> updateAsync(ENTITY entity);
+
+    /**
+     * Asynchronously removes the provided entity.
+     *
+     * @param entity to remove
+     * @return a future that completes with the provided entity instance
+     * @see Manager#remove(java.lang.Object)
+     */
+    CompletableFuture<ENTITY> removeAsync(ENTITY entity);
+
+    /**
+     * Asynchronously creates a stream over all entities and applies the
+     * given terminator to it. The stream is closed when the terminator
+     * returns, so the terminator should invoke a terminal operation rather
+     * than return the stream or a lazy view of it.
+     *
+     * @param <R> the result type
+     * @param terminator the function that consumes the stream
+     * @return a future that completes with the result of the terminator
+     * @see Manager#stream()
+     */
+    default <R> CompletableFuture<R> streamAsync(Function<Stream<ENTITY>, R> terminator) {
+        return streamAsync(StreamDecorator.IDENTITY, terminator);
+    }
+
+    /**
+     * Asynchronously creates a decorated stream over all entities and applies
+     * the given terminator to it. The stream is closed when the terminator
+     * returns, so the terminator should invoke a terminal operation rather
+     * than return the stream or a lazy view of it.
+     *
+     * @param <R> the result type
+     * @param decorator the decorator to apply to the stream
+     * @param terminator the function that consumes the stream
+     * @return a future that completes with the result of the terminator
+     * @see Manager#stream(com.speedment.stream.StreamDecorator)
+     */
+    <R> CompletableFuture<R> streamAsync(StreamDecorator decorator, Function<Stream<ENTITY>, R> terminator);
+
+}
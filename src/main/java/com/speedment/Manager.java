@@ -23,7 +23,9 @@ import com.speedment.config.Table;
 import com.speedment.encoder.Encoder;
 import com.speedment.exception.SpeedmentException;
 import com.speedment.internal.core.runtime.Lifecyclable;
+import com.speedment.stream.Flow;
 import com.speedment.stream.StreamDecorator;
+import java.io.IOException;
 import java.util.function.Consumer;
 import java.util.stream.Stream;
 
@@ -130,6 +132,20 @@ public interface Manager<ENTITY> extends Lifecyclable<Manager<ENTITY>> {
      */
     String toJson(ENTITY entity);
 
+    /**
+     * Writes the given entity in the JSON format into the given
+     * {@code Appendable}. The result is the same as appending the string
+     * returned by {@link #toJson(Object)}, but implementations may render the
+     * entity directly into the target without creating intermediate strings.
+     *
+     * @param entity to use
+     * @param out the target to write to
+     * @throws IOException if the target throws an exception
+     */
+    default void writeJson(ENTITY entity, Appendable out) throws IOException {
+        out.append(toJson(entity));
+    }
+
     // Queries
     /**
      * Creates and returns a new {@link Stream} over all entities in the
@@ -333,6 +349,30 @@ public interface Manager<ENTITY> extends Lifecyclable<Manager<ENTITY>> {
      * @see Stream
      */
     Stream<ENTITY> nativeStream(StreamDecorator decorator);
+
+    /**
+     * Returns an {@link AsyncManager} that runs the operations of this Manager
+     * without blocking the calling thread. The operations are run on the
+     * {@link com.speedment.component.ConnectionPoolComponent#getAsyncExecutor()
+     * asynchronous executor} of the connection pool so that no more
+     * operations are in flight than there are connections to serve them.
+     *
+     * @return an asynchronous view of this Manager
+     */
+    AsyncManager<ENTITY> async();
+
+    /**
+     * Returns a {@link Flow.Publisher} of all entities in the underlying
+     * database. Entities are read in batches no larger than the demand of the
+     * subscriber, and database resources are only held while a batch is read.
+     * A slow subscriber therefore does not keep a connection open, unless the
+     * table cannot be read one batch at a time, in which case a single
+     * stream is kept open until the subscriber is done. The publisher
+     * completes after the last entity or when the subscription is cancelled.
+     *
+     * @return a publisher of all entities in this table
+     */
+    Flow.Publisher<ENTITY> publisher();
     
     // TBI: Shall we expose this method in the API?
     
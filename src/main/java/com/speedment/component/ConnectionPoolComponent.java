@@ -20,6 +20,7 @@ import com.speedment.annotation.Api;
 import com.speedment.internal.core.pool.PoolableConnection;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.concurrent.Executor;
 
 /**
  * This Component interface is used for holding the connection pool that is
@@ -86,6 +87,15 @@ public interface ConnectionPoolComponent extends Component {
      */
     int leaseSize();
 
+    /**
+     * Returns the current number of leased connections from the pool that
+     * were obtained for the given connection URI.
+     *
+     * @param uri the connection URI for the connector
+     * @return the current number of leased connections for the given URI
+     */
+    int leaseSize(String uri);
+
     /**
      * Returns the maximum number of connection this pool will retain when
      * connections are returned. If the number of connections in the pool
@@ -124,4 +134,49 @@ public interface ConnectionPoolComponent extends Component {
      */
     void setMaxAge(long maxAge);
 
+    /**
+     * Returns the maximum number of connections that asynchronous database
+     * operations may hold at the same time. This is the number of operations
+     * that the executor returned by {@link #getAsyncExecutor()} lets run
+     * concurrently.
+     *
+     * @return the maximum number of connections for asynchronous operations
+     */
+    int getMaxConnections();
+
+    /**
+     * Sets the maximum number of connections that asynchronous database
+     * operations may hold at the same time. The value is read when the
+     * asynchronous executor is created or set, so it should be set before
+     * {@link #getAsyncExecutor()} is first called.
+     *
+     * @param maxConnections the maximum number of connections for
+     * asynchronous operations
+     * @throws IllegalArgumentException if {@code maxConnections} is not
+     * positive
+     */
+    void setMaxConnections(int maxConnections);
+
+    /**
+     * Returns the executor that asynchronous database operations are run on.
+     * The executor never runs more operations at the same time than
+     * {@link #getMaxConnections()} so that operations wait for their turn
+     * rather than for a connection. Unless another executor has been set, a
+     * pool of daemon threads of that size is created on first use.
+     *
+     * @return the executor for asynchronous database operations
+     */
+    Executor getAsyncExecutor();
+
+    /**
+     * Sets the executor that asynchronous database operations are run on. No
+     * more than {@link #getMaxConnections()} operations are handed over to the
+     * executor at the same time. Operations that are still queued for the
+     * previous executor are completed on it before any thread pool created by
+     * this component is shut down.
+     *
+     * @param executor the executor for asynchronous database operations
+     */
+    void setAsyncExecutor(Executor executor);
+
 }
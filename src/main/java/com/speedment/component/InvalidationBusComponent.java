@@ -0,0 +1,164 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.component;
+
+import com.speedment.annotation.Api;
+import java.util.List;
+import java.util.Objects;
+import static java.util.Objects.requireNonNull;
+import java.util.function.Consumer;
+
+/**
+ * This Component interface is used to tell other Speedment instances, for
+ * example on other nodes in a cluster, that rows have been changed so that
+ * they can invalidate their cached copies of those rows.
+ * <p>
+ * The managers publish an {@link Invalidation} after each successful update
+ * of the database. Implementations may coalesce and batch invalidations
+ * before they are delivered, but must deliver them to the subscribers of all
+ * other Speedment instances on the bus. Invalidations published by a
+ * Speedment instance are not delivered to its own subscribers.
+ * <p>
+ * No bus is installed by default. To use one, it is added to the application
+ * with
+ * {@code .with(speedment -> new LoopbackInvalidationBusComponentImpl(speedment))}
+ * or similar.
+ *
+ * @author pemi
+ * @since 2.2
+ */
+@Api(version = "2.2")
+public interface InvalidationBusComponent extends Component {
+
+    @Override
+    default Class<InvalidationBusComponent> getComponentClass() {
+        return InvalidationBusComponent.class;
+    }
+
+    /**
+     * Publishes the given invalidation to the other Speedment instances on
+     * the bus. This method must only be called after the change has been
+     * committed.
+     *
+     * @param invalidation the invalidation to publish
+     */
+    void publish(Invalidation invalidation);
+
+    /**
+     * Adds a subscriber that is called with each batch of invalidations that
+     * is received from the bus.
+     *
+     * @param subscriber the subscriber
+     */
+    void subscribe(Consumer<? super List<Invalidation>> subscriber);
+
+    /**
+     * Removes a subscriber that was added with
+     * {@link #subscribe(java.util.function.Consumer)}. If the subscriber is
+     * not subscribed, nothing happens.
+     *
+     * @param subscriber the subscriber
+     */
+    void unsubscribe(Consumer<? super List<Invalidation>> subscriber);
+
+    /**
+     * An event telling that a row of a table, or the whole table, has been
+     * changed.
+     */
+    final class Invalidation {
+
+        private final String table;
+        private final Object primaryKey;
+
+        private Invalidation(String table, Object primaryKey) {
+            this.table = requireNonNull(table);
+            this.primaryKey = primaryKey;
+        }
+
+        /**
+         * Creates an invalidation of the row with the given primary key.
+         *
+         * @param table the name of the table, relative to the project
+         * @param primaryKey the primary key on the form returned by
+         * {@link com.speedment.Manager#primaryKeyFor(java.lang.Object)}
+         * @return the invalidation
+         */
+        public static Invalidation of(String table, Object primaryKey) {
+            return new Invalidation(table, requireNonNull(primaryKey));
+        }
+
+        /**
+         * Creates an invalidation of all rows of the given table.
+         *
+         * @param table the name of the table, relative to the project
+         * @return the invalidation
+         */
+        public static Invalidation ofTable(String table) {
+            return new Invalidation(table, null);
+        }
+
+        /**
+         * Returns the name of the changed table, relative to the project.
+         *
+         * @return the table name
+         */
+        public String getTable() {
+            return table;
+        }
+
+        /**
+         * Returns the primary key of the changed row, or {@code null} if all
+         * rows of the table may have been changed.
+         *
+         * @return the primary key or {@code null}
+         */
+        public Object getPrimaryKey() {
+            return primaryKey;
+        }
+
+        /**
+         * Returns whether all rows of the table may have been changed.
+         *
+         * @return {@code true} if the whole table is invalidated
+         */
+        public boolean isWholeTable() {
+            return primaryKey == null;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * table.hashCode() + Objects.hashCode(primaryKey);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Invalidation)) {
+                return false;
+            }
+            final Invalidation other = (Invalidation) obj;
+            return table.equals(other.table) && Objects.equals(primaryKey, other.primaryKey);
+        }
+
+        @Override
+        public String toString() {
+            return table + (primaryKey == null ? "" : "[" + primaryKey + "]");
+        }
+    }
+}
@@ -18,6 +18,7 @@ package com.speedment.component;
 
 import com.speedment.annotation.Api;
 import com.speedment.stream.StreamDecorator;
+import java.util.Collection;
 import java.util.stream.Stream;
 
 /**
@@ -43,4 +44,62 @@ public interface StreamSupplierComponent extends Component {
      * @return a stream for the given entity class
      */
     <ENTITY> Stream<ENTITY> stream(Class<ENTITY> entityClass, StreamDecorator decorator);
+
+    /**
+     * Called by the manager of the given entity class after the entity has
+     * been persisted to the database. Implementations that keep a copy of the
+     * table may use this to write the entity through.
+     *
+     * @param <ENTITY> entity type
+     * @param entityClass the entity class
+     * @param entity the persisted entity
+     */
+    default <ENTITY> void persisted(Class<ENTITY> entityClass, ENTITY entity) {
+        // Nothing to do for streams that are read from the database
+    }
+
+    /**
+     * Called by the manager of the given entity class after the entity has
+     * been updated in the database. Implementations that keep a copy of the
+     * table may use this to write the entity through.
+     *
+     * @param <ENTITY> entity type
+     * @param entityClass the entity class
+     * @param entity the updated entity
+     */
+    default <ENTITY> void updated(Class<ENTITY> entityClass, ENTITY entity) {
+        // Nothing to do for streams that are read from the database
+    }
+
+    /**
+     * Called by the manager of the given entity class after the entity has
+     * been removed from the database. Implementations that keep a copy of the
+     * table may use this to remove the entity from the copy.
+     *
+     * @param <ENTITY> entity type
+     * @param entityClass the entity class
+     * @param entity the removed entity
+     */
+    default <ENTITY> void removed(Class<ENTITY> entityClass, ENTITY entity) {
+        // Nothing to do for streams that are read from the database
+    }
+
+    /**
+     * Called by the manager of the given entity class when another Speedment
+     * instance has changed some rows of the table, or the whole table if the
+     * given collection of primary keys is {@code null}. The manager calls this
+     * method once for each batch of invalidations it receives, so
+     * implementations that keep a copy of the table may reload all the
+     * changed rows at once.
+     *
+     * @param <ENTITY> entity type
+     * @param entityClass the entity class
+     * @param primaryKeys the primary keys of the changed rows, or
+     * {@code null} if the whole table has changed
+     *
+     * @see InvalidationBusComponent
+     */
+    default <ENTITY> void invalidated(Class<ENTITY> entityClass, Collection<?> primaryKeys) {
+        // Nothing to do for streams that are read from the database
+    }
 }
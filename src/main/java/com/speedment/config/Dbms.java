@@ -23,6 +23,7 @@ import com.speedment.config.aspects.Parent;
 import com.speedment.config.aspects.Child;
 import com.speedment.config.aspects.Enableable;
 import com.speedment.config.aspects.DbmsTypeable;
+import com.speedment.config.parameters.ReplicaRoutingPolicy;
 import com.speedment.internal.core.config.DbmsImpl;
 import groovy.lang.Closure;
 import static java.util.Objects.requireNonNull;
@@ -181,6 +182,47 @@ public interface Dbms extends Node, Enableable, DbmsTypeable, Child<Project>, Pa
     @External(type = String.class, isSecret = true)
     void setPassword(String password);
 
+    /**
+     * Returns a comma separated list of read replicas of this dbms on the form
+     * {@code host[:port]}. Read-only queries may be routed to these replicas
+     * while all updates are sent to the primary host. If no replicas are
+     * specified, {@code empty} is returned.
+     * <p>
+     * This property is editable in the GUI through reflection.
+     *
+     * @return the replica endpoints or {@code empty}
+     */
+    @External(type = String.class)
+    Optional<String> getReplicas();
+
+    /**
+     * Sets a comma separated list of read replicas of this dbms on the form
+     * {@code host[:port]}. If no port is given for a replica, the port of the
+     * primary host is used. If no replicas should be used, enter {@code null}.
+     * <p>
+     * This property is editable in the GUI through reflection.
+     *
+     * @param replicas the replica endpoints or {@code null}
+     */
+    @External(type = String.class)
+    void setReplicas(String replicas);
+
+    /**
+     * Returns the policy used to select a replica for read-only queries.
+     *
+     * @return the replica routing policy
+     */
+    @External(type = ReplicaRoutingPolicy.class, isVisibleInGui = false)
+    ReplicaRoutingPolicy getReplicaRoutingPolicy();
+
+    /**
+     * Sets the policy used to select a replica for read-only queries.
+     *
+     * @param replicaRoutingPolicy the new replica routing policy
+     */
+    @External(type = ReplicaRoutingPolicy.class, isVisibleInGui = false)
+    void setReplicaRoutingPolicy(ReplicaRoutingPolicy replicaRoutingPolicy);
+
     /**
      * Creates and returns a new Schema.
      * <p>
@@ -86,6 +86,15 @@ public interface DbmsType {
      */
     boolean isSupported();
 
+    /**
+     * Returns if this {@code DbmsType} accepts a LIMIT clause at the end of a
+     * select statement, as in "SELECT * FROM user ORDER BY id LIMIT 10". For
+     * example MySQL does whereas Oracle does not.
+     *
+     * @return if this {@code DbmsType} accepts a LIMIT clause
+     */
+    boolean isLimitSupported();
+
     // Implementation specifics
     /**
      * Returns the non-null fully qualified JDBC class name for this
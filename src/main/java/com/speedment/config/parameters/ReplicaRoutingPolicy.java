@@ -0,0 +1,39 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.config.parameters;
+
+import com.speedment.annotation.Api;
+
+/**
+ * Determines how read-only queries are distributed over the replicas declared
+ * for a {@link com.speedment.config.Dbms}.
+ *
+ * @author pemi
+ */
+@Api(version = "2.2")
+public enum ReplicaRoutingPolicy {
+
+    /**
+     * Replicas are selected in turn.
+     */
+    ROUND_ROBIN,
+    /**
+     * The replica with the fewest connections currently leased from the
+     * connection pool is selected.
+     */
+    LEAST_LEASED;
+}
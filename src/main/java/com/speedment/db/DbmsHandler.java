@@ -17,6 +17,7 @@
 package com.speedment.db;
 
 import com.speedment.annotation.Api;
+import com.speedment.component.InvalidationBusComponent.Invalidation;
 import com.speedment.config.Dbms;
 import com.speedment.config.Schema;
 import java.sql.ResultSet;
@@ -26,6 +27,7 @@ import java.util.List;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 
 /**
@@ -184,4 +186,49 @@ public interface DbmsHandler {
         final List<?> values, 
         final Consumer<List<Long>> generatedKeyConsumer
     ) throws SQLException;
-}
\ No newline at end of file
+
+    /**
+     * Executes a SQL update command. Generated key(s) following an insert
+     * command (if any) will be feed to the provided Consumer. Once the update
+     * has been committed, the invalidation returned by the given supplier is
+     * published on the {@link com.speedment.component.InvalidationBusComponent}
+     * of the Speedment instance, if there is one. The supplier is called after
+     * the generated keys have been consumed.
+     * <p>
+     * The default implementation ignores the invalidation.
+     *
+     * @param sql                   the non-null SQL command to execute
+     * @param values                a non-null list
+     * @param generatedKeyConsumer  non-null List of objects to use for "?"
+     *                              parameters in the SQL command
+     * @param invalidation          the non-null supplier of the invalidation
+     *                              to publish
+     * @throws SQLException         if an error occurs
+     */
+    default void executeUpdate(
+        final String sql,
+        final List<?> values,
+        final Consumer<List<Long>> generatedKeyConsumer,
+        final Supplier<Invalidation> invalidation
+    ) throws SQLException {
+
+        executeUpdate(sql, values, generatedKeyConsumer);
+    }
+
+    /**
+     * Opens a new {@link TransactionScope} for the current thread. Queries are
+     * normally allowed to be served by any of the read replicas of the
+     * {@link Dbms}, but once an update has been executed within the returned
+     * scope, the current thread will read from the primary host until the
+     * scope is closed. This guarantees that the thread observes its own
+     * writes.
+     * <p>
+     * Implementations that do not route queries to replicas may return a scope
+     * that does nothing.
+     *
+     * @return  a new scope that must be closed by the caller
+     */
+    default TransactionScope transactionScope() {
+        return () -> {};
+    }
+}
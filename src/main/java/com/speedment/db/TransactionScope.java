@@ -0,0 +1,41 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.db;
+
+import com.speedment.annotation.Api;
+
+/**
+ * A scope that, for as long as it is open, provides read-your-writes semantics
+ * for the current thread. Once an update has been executed within the scope,
+ * all subsequent queries issued by the same thread are sent to the primary
+ * host of the {@link com.speedment.config.Dbms} rather than to one of its
+ * read replicas. Scopes are intended to be used in try-with-resources
+ * statements and may be nested.
+ *
+ * @author pemi
+ * @see DbmsHandler#transactionScope()
+ */
+@Api(version = "2.2")
+public interface TransactionScope extends AutoCloseable {
+
+    /**
+     * Closes this scope. Queries issued by the current thread after the
+     * outermost scope has been closed may be routed to replicas again.
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,44 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.encoder;
+
+import com.speedment.annotation.Api;
+import java.io.IOException;
+
+/**
+ * An encoder that can write its output for an entity straight into an
+ * {@link Appendable}. Encoders that implement this interface are written
+ * without an intermediate {@code String} when they are used to render a
+ * nested entity within a {@link JsonEncoder}.
+ *
+ * @author Emil Forslund
+ * @param <ENTITY> Entity type
+ */
+@Api(version = "2.2")
+@FunctionalInterface
+public interface AppendableEncoder<ENTITY> {
+
+    /**
+     * Writes the specified entity into the specified {@code Appendable}.
+     *
+     * @param entity the entity to encode
+     * @param out the target to write to
+     * @throws IOException if the target throws an exception
+     */
+    void write(ENTITY entity, Appendable out) throws IOException;
+
+}
@@ -20,30 +20,50 @@ import com.speedment.config.Column;
 import com.speedment.config.Table;
 import com.speedment.Manager;
 import com.speedment.annotation.Api;
+import com.speedment.exception.SpeedmentException;
+import com.speedment.field.DoubleField;
+import com.speedment.field.IntField;
+import com.speedment.field.LongField;
 import com.speedment.field.trait.FieldTrait;
 import com.speedment.field.trait.ReferenceFieldTrait;
 import com.speedment.field.trait.ReferenceForeignKeyFieldTrait;
 import static com.speedment.util.NullUtil.requireNonNulls;
 import static com.speedment.internal.util.JavaLanguage.javaVariableName;
+import static com.speedment.util.JsonUtil.appendDouble;
+import static com.speedment.util.JsonUtil.appendInt;
+import static com.speedment.util.JsonUtil.appendLong;
+import static com.speedment.util.JsonUtil.appendValue;
+import static com.speedment.util.JsonUtil.labelOf;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 import java.util.Set;
 import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
 import java.util.stream.Stream;
 import static java.util.stream.Collectors.toSet;
 import static java.util.Objects.requireNonNull;
-import static java.util.stream.Collectors.joining;
 
 /**
+ * Encodes entities as json objects. Besides returning a {@code String} for
+ * every entity, the encoder can write an entity straight into an
+ * {@link Appendable} using the {@link #write(Object, Appendable)} method. The
+ * label of every field is rendered once when the field is added and primitive
+ * fields are written without boxing.
  *
  * @author Emil Forslund
  * @param <ENTITY> Entity type
  */
 @Api(version = "2.2")
-public final class JsonEncoder<ENTITY> implements Encoder<ENTITY, JsonEncoder<ENTITY>, String> {
+public final class JsonEncoder<ENTITY> implements Encoder<ENTITY, JsonEncoder<ENTITY>, String>, AppendableEncoder<ENTITY> {
 
-    protected final Map<String, Function<ENTITY, String>> getters;
+    protected final Map<String, FieldWriter<ENTITY>> getters;
+    private volatile List<FieldWriter<ENTITY>> writers; // Built on first write
 
     /**
      * Constructs an empty JsonEncoder with no fields added to the output
@@ -58,6 +78,19 @@ public final class JsonEncoder<ENTITY> implements Encoder<ENTITY, JsonEncoder<EN
     public <T, I extends FieldTrait & ReferenceFieldTrait<ENTITY, T>> JsonEncoder<ENTITY> put(I field) {
         requireNonNull(field);
         final String columnName = jsonField((FieldTrait) field);
+        if (field instanceof IntField) {
+            @SuppressWarnings("unchecked")
+            final IntField<ENTITY> intField = (IntField<ENTITY>) field;
+            return putInt(columnName, intField.intGetter());
+        } else if (field instanceof LongField) {
+            @SuppressWarnings("unchecked")
+            final LongField<ENTITY> longField = (LongField<ENTITY>) field;
+            return putLong(columnName, longField.longGetter());
+        } else if (field instanceof DoubleField) {
+            @SuppressWarnings("unchecked")
+            final DoubleField<ENTITY> doubleField = (DoubleField<ENTITY>) field;
+            return putDouble(columnName, doubleField.doubleGetter());
+        }
         final Function<ENTITY, T> getter = ((ReferenceFieldTrait<ENTITY, T>) field).getter(); // Workaround bugg
         return put(columnName, getter);
     }
@@ -78,8 +111,65 @@ public final class JsonEncoder<ENTITY> implements Encoder<ENTITY, JsonEncoder<EN
     public <T> JsonEncoder<ENTITY> put(String label, Function<ENTITY, T> getter) {
         requireNonNull(label);
         requireNonNull(getter);
-        getters.put(label, e -> "\"" + label + "\":" + jsonValue(getter.apply(e)));
-        return this;
+        final String prefix = labelOf(label);
+        return putWriter(label, (e, out) -> {
+            out.append(prefix);
+            appendValue(out, getter.apply(e));
+        });
+    }
+
+    /**
+     * Adds a field that corresponds to the label to the output renderer. The
+     * value is written as a number without being boxed.
+     *
+     * @param label the name of the field to add to the output renderer
+     * @param getter to apply to the Entity
+     * @return a reference to this encoder
+     */
+    public JsonEncoder<ENTITY> putInt(String label, ToIntFunction<ENTITY> getter) {
+        requireNonNull(label);
+        requireNonNull(getter);
+        final String prefix = labelOf(label);
+        return putWriter(label, (e, out) -> {
+            out.append(prefix);
+            appendInt(out, getter.applyAsInt(e));
+        });
+    }
+
+    /**
+     * Adds a field that corresponds to the label to the output renderer. The
+     * value is written as a number without being boxed.
+     *
+     * @param label the name of the field to add to the output renderer
+     * @param getter to apply to the Entity
+     * @return a reference to this encoder
+     */
+    public JsonEncoder<ENTITY> putLong(String label, ToLongFunction<ENTITY> getter) {
+        requireNonNull(label);
+        requireNonNull(getter);
+        final String prefix = labelOf(label);
+        return putWriter(label, (e, out) -> {
+            out.append(prefix);
+            appendLong(out, getter.applyAsLong(e));
+        });
+    }
+
+    /**
+     * Adds a field that corresponds to the label to the output renderer. The
+     * value is written as a number without being boxed.
+     *
+     * @param label the name of the field to add to the output renderer
+     * @param getter to apply to the Entity
+     * @return a reference to this encoder
+     */
+    public JsonEncoder<ENTITY> putDouble(String label, ToDoubleFunction<ENTITY> getter) {
+        requireNonNull(label);
+        requireNonNull(getter);
+        final String prefix = labelOf(label);
+        return putWriter(label, (e, out) -> {
+            out.append(prefix);
+            appendDouble(out, getter.applyAsDouble(e));
+        });
     }
 
     // Label-and-getter with custom formatter
@@ -88,8 +178,11 @@ public final class JsonEncoder<ENTITY> implements Encoder<ENTITY, JsonEncoder<EN
         requireNonNull(label);
         requireNonNull(getter);
         requireNonNull(builder);
-        getters.put(label, e -> "\"" + label + "\":" + builder.apply(getter.apply(e)));
-        return this;
+        final String prefix = labelOf(label);
+        return putWriter(label, (e, out) -> {
+            out.append(prefix);
+            writeWith(builder, getter.apply(e), out);
+        });
     }
 
     // Label-and-streamer with custom formatter.
@@ -98,8 +191,7 @@ public final class JsonEncoder<ENTITY> implements Encoder<ENTITY, JsonEncoder<EN
         requireNonNull(label);
         requireNonNull(streamer);
         requireNonNull(builder);
-        getters.put(label, e -> "\"" + label + "\":[" + streamer.apply(e).map(builder::apply).collect(joining(",")) + "]");
-        return this;
+        return putElements(label, streamer, (fk, out) -> writeWith(builder, fk, out));
     }
 
     @Override
@@ -107,8 +199,30 @@ public final class JsonEncoder<ENTITY> implements Encoder<ENTITY, JsonEncoder<EN
         requireNonNull(label);
         requireNonNull(streamer);
         requireNonNull(encoder);
-        getters.put(label, e -> "\"" + label + "\":[" + streamer.apply(e).map(encoder).collect(joining(",")) + "]");
-        return this;
+        if (encoder instanceof AppendableEncoder) {
+            @SuppressWarnings("unchecked")
+            final AppendableEncoder<FK_ENTITY> appendable = (AppendableEncoder<FK_ENTITY>) encoder;
+            return putElements(label, streamer, appendable::write);
+        }
+        return putElements(label, streamer, (fk, out) -> out.append(encoder.apply(fk)));
+    }
+
+    private <FK_ENTITY> JsonEncoder<ENTITY> putElements(String label, Function<ENTITY, Stream<FK_ENTITY>> streamer, FieldWriter<FK_ENTITY> element) {
+        final String prefix = labelOf(label) + "[";
+        return putWriter(label, (e, out) -> {
+            out.append(prefix);
+            try (final Stream<FK_ENTITY> stream = streamer.apply(e)) {
+                final Iterator<FK_ENTITY> it = stream.iterator();
+                if (it.hasNext()) {
+                    element.write(it.next(), out);
+                    while (it.hasNext()) {
+                        out.append(',');
+                        element.write(it.next(), out);
+                    }
+                }
+            }
+            out.append(']');
+        });
     }
 
     // Removers by label
@@ -116,6 +230,7 @@ public final class JsonEncoder<ENTITY> implements Encoder<ENTITY, JsonEncoder<EN
     public JsonEncoder<ENTITY> remove(String label) {
         requireNonNull(label);
         getters.remove(label);
+        writers = null;
         return this;
     }
 
@@ -123,17 +238,81 @@ public final class JsonEncoder<ENTITY> implements Encoder<ENTITY, JsonEncoder<EN
     public JsonEncoder<ENTITY> remove(FieldTrait field) {
         requireNonNull(field);
         getters.remove(jsonField(field));
+        writers = null;
         return this;
     }
 
     @Override
     public String apply(ENTITY entity) {
         requireNonNull(entity);
-        return "{"
-            + getters.values().stream()
-            .map(g -> g.apply(entity))
-            .collect(joining(","))
-            + "}";
+        final StringBuilder sb = new StringBuilder();
+        try {
+            write(entity, sb);
+        } catch (final IOException ex) {
+            throw new SpeedmentException(ex); // A StringBuilder never throws
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Writes the specified entity as a json object into the specified
+     * {@code Appendable}. No intermediate {@code String} is created for the
+     * entity or for its fields, unless a field has been added with an encoder
+     * that does not implement {@link AppendableEncoder} and therefore only
+     * produces strings.
+     *
+     * @param entity the entity to encode
+     * @param out the target to write to
+     * @throws IOException if the target throws an exception
+     */
+    @Override
+    public void write(ENTITY entity, Appendable out) throws IOException {
+        requireNonNull(entity);
+        requireNonNull(out);
+        final List<FieldWriter<ENTITY>> ws = writers();
+        out.append('{');
+        for (int i = 0; i < ws.size(); i++) {
+            if (i > 0) {
+                out.append(',');
+            }
+            ws.get(i).write(entity, out);
+        }
+        out.append('}');
+    }
+
+    private JsonEncoder<ENTITY> putWriter(String label, FieldWriter<ENTITY> writer) {
+        getters.put(label, writer);
+        writers = null;
+        return this;
+    }
+
+    private List<FieldWriter<ENTITY>> writers() {
+        List<FieldWriter<ENTITY>> ws = writers;
+        if (ws == null) {
+            writers = ws = new ArrayList<>(getters.values());
+        }
+        return ws;
+    }
+
+    private static <T> void writeWith(Encoder<T, ?, String> encoder, T value, Appendable out) throws IOException {
+        if (encoder instanceof AppendableEncoder) {
+            @SuppressWarnings("unchecked")
+            final AppendableEncoder<T> appendable = (AppendableEncoder<T>) encoder;
+            appendable.write(value, out);
+        } else {
+            out.append(encoder.apply(value));
+        }
+    }
+
+    /**
+     * Writes a single field of an entity.
+     *
+     * @param <ENTITY> the entity type
+     */
+    @FunctionalInterface
+    protected interface FieldWriter<ENTITY> {
+
+        void write(ENTITY entity, Appendable out) throws IOException;
     }
 
     protected static String jsonField(FieldTrait field) {
@@ -143,26 +322,13 @@ public final class JsonEncoder<ENTITY> implements Encoder<ENTITY, JsonEncoder<EN
 
     protected static String jsonValue(Object in) {
         // in is nullable, a field can certainly be null
-        final String value;
-
-        if (in instanceof Optional<?>) {
-            final Optional<?> o = (Optional<?>) in;
-            return o.map(JsonEncoder::jsonValue).orElse("null");
-        } else if (in == null) {
-            value = "null";
-        } else if (in instanceof Byte
-            || in instanceof Short
-            || in instanceof Integer
-            || in instanceof Long
-            || in instanceof Boolean
-            || in instanceof Float
-            || in instanceof Double) {
-            value = String.valueOf(in);
-        } else {
-            value = "\"" + String.valueOf(in).replace("\"", "\\\"") + "\"";
+        final StringBuilder sb = new StringBuilder();
+        try {
+            appendValue(sb, in);
+        } catch (final IOException ex) {
+            throw new SpeedmentException(ex); // A StringBuilder never throws
         }
-
-        return value;
+        return sb.toString();
     }
 
     /**
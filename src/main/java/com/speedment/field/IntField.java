@@ -0,0 +1,69 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.field;
+
+import com.speedment.annotation.Api;
+import com.speedment.field.methods.IntGetter;
+import com.speedment.field.predicate.ComparableSpeedmentPredicate;
+
+/**
+ * A representation of an Entity field that can not be {@code null} and that
+ * holds a {@code int}. Predicates created from a primitive operand evaluate
+ * the field in memory without boxing it, but can still be rendered to SQL
+ * like any other {@link ComparableField} predicate.
+ *
+ * @author pemi
+ * @param <ENTITY> the entity type
+ */
+@Api(version = "2.2")
+public interface IntField<ENTITY> extends ComparableField<ENTITY, Integer> {
+
+    /**
+     * Returns the primitive getter of this field.
+     *
+     * @return the primitive getter
+     */
+    IntGetter<ENTITY> intGetter();
+
+    /**
+     * Returns the value of this field for the given entity.
+     *
+     * @param entity the entity
+     * @return the field value
+     */
+    default int getAsInt(ENTITY entity) {
+        return intGetter().applyAsInt(entity);
+    }
+
+    ComparableSpeedmentPredicate<ENTITY, Integer> equal(int value);
+
+    ComparableSpeedmentPredicate<ENTITY, Integer> notEqual(int value);
+
+    ComparableSpeedmentPredicate<ENTITY, Integer> lessThan(int value);
+
+    ComparableSpeedmentPredicate<ENTITY, Integer> lessOrEqual(int value);
+
+    ComparableSpeedmentPredicate<ENTITY, Integer> greaterThan(int value);
+
+    ComparableSpeedmentPredicate<ENTITY, Integer> greaterOrEqual(int value);
+
+    default ComparableSpeedmentPredicate<ENTITY, Integer> between(int start, int end) {
+        return between(start, end, Inclusion.START_INCLUSIVE_END_EXCLUSIVE);
+    }
+
+    ComparableSpeedmentPredicate<ENTITY, Integer> between(int start, int end, Inclusion inclusion);
+}
@@ -0,0 +1,69 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.field;
+
+import com.speedment.annotation.Api;
+import com.speedment.field.methods.LongGetter;
+import com.speedment.field.predicate.ComparableSpeedmentPredicate;
+
+/**
+ * A representation of an Entity field that can not be {@code null} and that
+ * holds a {@code long}. Predicates created from a primitive operand evaluate
+ * the field in memory without boxing it, but can still be rendered to SQL
+ * like any other {@link ComparableField} predicate.
+ *
+ * @author pemi
+ * @param <ENTITY> the entity type
+ */
+@Api(version = "2.2")
+public interface LongField<ENTITY> extends ComparableField<ENTITY, Long> {
+
+    /**
+     * Returns the primitive getter of this field.
+     *
+     * @return the primitive getter
+     */
+    LongGetter<ENTITY> longGetter();
+
+    /**
+     * Returns the value of this field for the given entity.
+     *
+     * @param entity the entity
+     * @return the field value
+     */
+    default long getAsLong(ENTITY entity) {
+        return longGetter().applyAsLong(entity);
+    }
+
+    ComparableSpeedmentPredicate<ENTITY, Long> equal(long value);
+
+    ComparableSpeedmentPredicate<ENTITY, Long> notEqual(long value);
+
+    ComparableSpeedmentPredicate<ENTITY, Long> lessThan(long value);
+
+    ComparableSpeedmentPredicate<ENTITY, Long> lessOrEqual(long value);
+
+    ComparableSpeedmentPredicate<ENTITY, Long> greaterThan(long value);
+
+    ComparableSpeedmentPredicate<ENTITY, Long> greaterOrEqual(long value);
+
+    default ComparableSpeedmentPredicate<ENTITY, Long> between(long start, long end) {
+        return between(start, end, Inclusion.START_INCLUSIVE_END_EXCLUSIVE);
+    }
+
+    ComparableSpeedmentPredicate<ENTITY, Long> between(long start, long end, Inclusion inclusion);
+}
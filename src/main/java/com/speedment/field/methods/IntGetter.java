@@ -0,0 +1,29 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.field.methods;
+
+import com.speedment.annotation.Api;
+import java.util.function.ToIntFunction;
+
+/**
+ * A getter that returns a primitive {@code int} without boxing it.
+ *
+ * @author pemi
+ * @param <ENTITY> the entity
+ */
+@Api(version = "2.2")
+public interface IntGetter<ENTITY> extends ToIntFunction<ENTITY> {}
@@ -0,0 +1,81 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.internal.comparator.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A {@link Comparator} that compares using a number of comparators in order,
+ * consulting the next one only if all previous comparators considered the
+ * elements equal. Unlike the lambda returned by the default
+ * {@link Comparator#thenComparing(java.util.Comparator)}, the individual
+ * comparators can be inspected which allows sorts to extract the keys of
+ * every comparator in advance.
+ *
+ * @author pemi
+ * @param <ENTITY> entity type
+ */
+public final class CombinedComparator<ENTITY> implements Comparator<ENTITY> {
+
+    private final List<Comparator<? super ENTITY>> comparators;
+
+    public CombinedComparator(Comparator<? super ENTITY> first, Comparator<? super ENTITY> second) {
+        requireNonNull(first);
+        requireNonNull(second);
+        final List<Comparator<? super ENTITY>> list = new ArrayList<>();
+        list.add(first);
+        list.add(second);
+        this.comparators = Collections.unmodifiableList(list);
+    }
+
+    private CombinedComparator(List<Comparator<? super ENTITY>> comparators) {
+        this.comparators = Collections.unmodifiableList(comparators);
+    }
+
+    /**
+     * Returns the comparators that are used, in the order they are consulted.
+     *
+     * @return the comparators
+     */
+    public List<Comparator<? super ENTITY>> getComparators() {
+        return comparators;
+    }
+
+    @Override
+    public Comparator<ENTITY> thenComparing(Comparator<? super ENTITY> other) {
+        requireNonNull(other);
+        final List<Comparator<? super ENTITY>> list = new ArrayList<>(comparators);
+        list.add(other);
+        return new CombinedComparator<>(list);
+    }
+
+    @Override
+    public int compare(ENTITY o1, ENTITY o2) {
+        for (final Comparator<? super ENTITY> comparator : comparators) {
+            final int result = comparator.compare(o1, o2);
+            if (result != 0) {
+                return result;
+            }
+        }
+        return 0;
+    }
+
+}
@@ -0,0 +1,442 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.internal.comparator.impl;
+
+import com.speedment.field.DoubleField;
+import com.speedment.field.IntField;
+import com.speedment.field.LongField;
+import com.speedment.field.methods.DoubleGetter;
+import com.speedment.field.methods.Getter;
+import com.speedment.field.methods.IntGetter;
+import com.speedment.field.methods.LongGetter;
+import com.speedment.field.trait.ReferenceFieldTrait;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import static java.util.Objects.requireNonNull;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import static com.speedment.util.StaticClassUtil.instanceNotAllowed;
+
+/**
+ * Sorts streams ordered by field comparators without invoking the field
+ * getters from within the comparisons. The key of every comparator is read
+ * once per element into a parallel array (a primitive array for
+ * {@code int}, {@code long} and {@code double} keys) whereafter an array of
+ * indices is sorted and the elements are emitted in that order. The sort is
+ * stable, just like {@link Stream#sorted(java.util.Comparator)} on an ordered
+ * stream.
+ * <p>
+ * Only {@link SpeedmentComparatorImpl} comparators and
+ * {@link CombinedComparator} chains of them are supported. Use
+ * {@link #isSupported(java.util.Comparator)} to find out if a comparator can
+ * be handled.
+ *
+ * @author pemi
+ */
+public final class KeyExtractingSorter {
+
+    /**
+     * The number of elements from which the index array is sorted in
+     * parallel. This is the same granularity as used by
+     * {@link Arrays#parallelSort(long[])}.
+     */
+    static final int PARALLEL_THRESHOLD = 1 << 13;
+
+    private static final int INSERTION_THRESHOLD = 32;
+
+    /**
+     * Returns if the given comparator can be used with
+     * {@link #sorted(java.util.stream.Stream, java.util.Comparator)}.
+     *
+     * @param comparator the comparator
+     * @return if the comparator is supported
+     */
+    public static boolean isSupported(Comparator<?> comparator) {
+        return flatten(requireNonNull(comparator), new ArrayList<>());
+    }
+
+    /**
+     * Returns a stream with the elements of the given stream sorted according
+     * to the given comparator. The given stream is not consumed until a
+     * terminal operation is invoked on the returned stream.
+     *
+     * @param <T> the type of the stream elements
+     * @param stream the stream to sort
+     * @param comparator a supported comparator
+     * @return the sorted stream
+     * @throws IllegalArgumentException if the comparator is not supported
+     */
+    public static <T> Stream<T> sorted(Stream<T> stream, Comparator<? super T> comparator) {
+        requireNonNull(stream);
+        requireNonNull(comparator);
+        final List<SpeedmentComparatorImpl<?, ?>> comparators = new ArrayList<>();
+        if (!flatten(comparator, comparators)) {
+            throw new IllegalArgumentException("The comparator " + comparator + " is not supported");
+        }
+        @SuppressWarnings("unchecked")
+        final Stream<T> result = (Stream<T>) StreamSupport.stream(
+            () -> Spliterators.spliterator(sort(stream.toArray(), comparators), Spliterator.ORDERED | Spliterator.IMMUTABLE),
+            Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.IMMUTABLE,
+            stream.isParallel()
+        );
+        return result.onClose(stream::close);
+    }
+
+    static Object[] sort(Object[] elements, List<SpeedmentComparatorImpl<?, ?>> comparators) {
+        final int length = elements.length;
+        if (length < 2) {
+            return elements;
+        }
+        final Keys[] keys = new Keys[comparators.size()];
+        for (int k = 0; k < keys.length; k++) {
+            keys[k] = extract(comparators.get(k), elements);
+        }
+        final int[] indices = keys.length == 1 && keys[0] instanceof IntKeys
+            ? sortPacked((IntKeys) keys[0], length)
+            : sortIndices(keys, length);
+        final Object[] result = new Object[length];
+        for (int i = 0; i < length; i++) {
+            result[i] = elements[indices[i]];
+        }
+        return result;
+    }
+
+    /**
+     * Sorts a single {@code int} key by packing the key and the index into
+     * one {@code long} so that a primitive sort can be used. The index in the
+     * lower bits makes the sort stable.
+     */
+    private static int[] sortPacked(IntKeys keys, int length) {
+        final long[] packed = new long[length];
+        for (int i = 0; i < length; i++) {
+            final int key = keys.reversed ? ~keys.values[i] : keys.values[i];
+            packed[i] = ((long) key << 32) | i;
+        }
+        if (length >= PARALLEL_THRESHOLD) {
+            Arrays.parallelSort(packed);
+        } else {
+            Arrays.sort(packed);
+        }
+        final int[] indices = new int[length];
+        for (int i = 0; i < length; i++) {
+            indices[i] = (int) packed[i];
+        }
+        return indices;
+    }
+
+    private static int[] sortIndices(Keys[] keys, int length) {
+        final int[] indices = new int[length];
+        for (int i = 0; i < length; i++) {
+            indices[i] = i;
+        }
+        final int[] buffer = new int[length];
+        if (length >= PARALLEL_THRESHOLD) {
+            ForkJoinPool.commonPool().invoke(new SortTask(indices, buffer, 0, length, keys));
+        } else {
+            mergeSort(indices, buffer, 0, length, keys);
+        }
+        return indices;
+    }
+
+    private static int compare(Keys[] keys, int i, int j) {
+        for (final Keys key : keys) {
+            final int result = key.compare(i, j);
+            if (result != 0) {
+                return result;
+            }
+        }
+        return 0;
+    }
+
+    private static void mergeSort(int[] indices, int[] buffer, int from, int to, Keys[] keys) {
+        if (to - from <= INSERTION_THRESHOLD) {
+            insertionSort(indices, from, to, keys);
+            return;
+        }
+        final int middle = (from + to) >>> 1;
+        mergeSort(indices, buffer, from, middle, keys);
+        mergeSort(indices, buffer, middle, to, keys);
+        merge(indices, buffer, from, middle, to, keys);
+    }
+
+    private static void insertionSort(int[] indices, int from, int to, Keys[] keys) {
+        for (int i = from + 1; i < to; i++) {
+            final int index = indices[i];
+            int j = i - 1;
+            while (j >= from && compare(keys, indices[j], index) > 0) {
+                indices[j + 1] = indices[j];
+                j--;
+            }
+            indices[j + 1] = index;
+        }
+    }
+
+    private static void merge(int[] indices, int[] buffer, int from, int middle, int to, Keys[] keys) {
+        if (compare(keys, indices[middle - 1], indices[middle]) <= 0) {
+            return;
+        }
+        System.arraycopy(indices, from, buffer, from, to - from);
+        int left = from, right = middle, target = from;
+        while (left < middle && right < to) {
+            if (compare(keys, buffer[right], buffer[left]) < 0) {
+                indices[target++] = buffer[right++];
+            } else {
+                indices[target++] = buffer[left++];
+            }
+        }
+        while (left < middle) {
+            indices[target++] = buffer[left++];
+        }
+        while (right < to) {
+            indices[target++] = buffer[right++];
+        }
+    }
+
+    private static final class SortTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int[] indices;
+        private final int[] buffer;
+        private final int from;
+        private final int to;
+        private final Keys[] keys;
+
+        private SortTask(int[] indices, int[] buffer, int from, int to, Keys[] keys) {
+            this.indices = indices;
+            this.buffer = buffer;
+            this.from = from;
+            this.to = to;
+            this.keys = keys;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= PARALLEL_THRESHOLD) {
+                mergeSort(indices, buffer, from, to, keys);
+                return;
+            }
+            final int middle = (from + to) >>> 1;
+            invokeAll(
+                new SortTask(indices, buffer, from, middle, keys),
+                new SortTask(indices, buffer, middle, to, keys)
+            );
+            merge(indices, buffer, from, middle, to, keys);
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Keys extract(SpeedmentComparatorImpl<?, ?> comparator, Object[] elements) {
+        final boolean reversed = comparator.isReversed();
+        final ReferenceFieldTrait<?, ?> field = comparator.getReferenceField();
+        final int length = elements.length;
+
+        if (field instanceof IntField) {
+            final IntGetter<Object> getter = ((IntField) field).intGetter();
+            final int[] values = new int[length];
+            for (int i = 0; i < length; i++) {
+                values[i] = getter.applyAsInt(requireNonNull(elements[i]));
+            }
+            return new IntKeys(values, reversed);
+        }
+        if (field instanceof LongField) {
+            final LongGetter<Object> getter = ((LongField) field).longGetter();
+            final long[] values = new long[length];
+            for (int i = 0; i < length; i++) {
+                values[i] = getter.applyAsLong(requireNonNull(elements[i]));
+            }
+            return new LongKeys(values, reversed);
+        }
+        if (field instanceof DoubleField) {
+            final DoubleGetter<Object> getter = ((DoubleField) field).doubleGetter();
+            final double[] values = new double[length];
+            for (int i = 0; i < length; i++) {
+                values[i] = getter.applyAsDouble(requireNonNull(elements[i]));
+            }
+            return new DoubleKeys(values, reversed);
+        }
+
+        final Getter<Object, Comparable> getter = (Getter<Object, Comparable>) field.getter();
+        final Comparable[] values = new Comparable[length];
+        boolean hasNulls = false;
+        for (int i = 0; i < length; i++) {
+            values[i] = getter.apply(requireNonNull(elements[i]));
+            hasNulls |= values[i] == null;
+        }
+        if (hasNulls) {
+            if (comparator.getNullOrder() == NullOrder.NONE) {
+                throw new NullPointerException("A field was null and null fields not allowed");
+            }
+            return new ComparableKeys(values, comparator.getNullOrder(), reversed);
+        }
+        return unboxed(values, reversed);
+    }
+
+    /**
+     * Boxed keys without nulls that all have the same wrapper type are
+     * compared as primitives.
+     */
+    @SuppressWarnings("rawtypes")
+    private static Keys unboxed(Comparable[] values, boolean reversed) {
+        final Class<?> type = values[0].getClass();
+        for (final Comparable value : values) {
+            if (value.getClass() != type) {
+                return new ComparableKeys(values, NullOrder.NONE, reversed);
+            }
+        }
+        final int length = values.length;
+        if (type == Integer.class) {
+            final int[] ints = new int[length];
+            for (int i = 0; i < length; i++) {
+                ints[i] = (Integer) values[i];
+            }
+            return new IntKeys(ints, reversed);
+        }
+        if (type == Long.class) {
+            final long[] longs = new long[length];
+            for (int i = 0; i < length; i++) {
+                longs[i] = (Long) values[i];
+            }
+            return new LongKeys(longs, reversed);
+        }
+        if (type == Double.class) {
+            final double[] doubles = new double[length];
+            for (int i = 0; i < length; i++) {
+                doubles[i] = (Double) values[i];
+            }
+            return new DoubleKeys(doubles, reversed);
+        }
+        return new ComparableKeys(values, NullOrder.NONE, reversed);
+    }
+
+    private static boolean flatten(Comparator<?> comparator, List<SpeedmentComparatorImpl<?, ?>> comparators) {
+        if (comparator instanceof SpeedmentComparatorImpl) {
+            comparators.add((SpeedmentComparatorImpl<?, ?>) comparator);
+            return true;
+        }
+        if (comparator instanceof CombinedComparator) {
+            for (final Comparator<?> part : ((CombinedComparator<?>) comparator).getComparators()) {
+                if (!flatten(part, comparators)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private abstract static class Keys {
+
+        protected final boolean reversed;
+
+        protected Keys(boolean reversed) {
+            this.reversed = reversed;
+        }
+
+        protected abstract int compareAscending(int i, int j);
+
+        final int compare(int i, int j) {
+            final int result = compareAscending(i, j);
+            return reversed ? -result : result;
+        }
+    }
+
+    private static final class IntKeys extends Keys {
+
+        private final int[] values;
+
+        private IntKeys(int[] values, boolean reversed) {
+            super(reversed);
+            this.values = values;
+        }
+
+        @Override
+        protected int compareAscending(int i, int j) {
+            return Integer.compare(values[i], values[j]);
+        }
+    }
+
+    private static final class LongKeys extends Keys {
+
+        private final long[] values;
+
+        private LongKeys(long[] values, boolean reversed) {
+            super(reversed);
+            this.values = values;
+        }
+
+        @Override
+        protected int compareAscending(int i, int j) {
+            return Long.compare(values[i], values[j]);
+        }
+    }
+
+    private static final class DoubleKeys extends Keys {
+
+        private final double[] values;
+
+        private DoubleKeys(double[] values, boolean reversed) {
+            super(reversed);
+            this.values = values;
+        }
+
+        @Override
+        protected int compareAscending(int i, int j) {
+            return Double.compare(values[i], values[j]);
+        }
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static final class ComparableKeys extends Keys {
+
+        private final Comparable[] values;
+        private final int nullFirst;
+
+        private ComparableKeys(Comparable[] values, NullOrder nullOrder, boolean reversed) {
+            super(reversed);
+            this.values = values;
+            this.nullFirst = nullOrder == NullOrder.LAST ? 1 : -1;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        protected int compareAscending(int i, int j) {
+            final Comparable a = values[i];
+            final Comparable b = values[j];
+            if (a == null) {
+                return b == null ? 0 : nullFirst;
+            }
+            if (b == null) {
+                return -nullFirst;
+            }
+            return Integer.signum(a.compareTo(b));
+        }
+    }
+
+    /**
+     * Utility classes should not be instantiated.
+     */
+    private KeyExtractingSorter() {
+        instanceNotAllowed(getClass());
+    }
+}
@@ -46,6 +46,24 @@ public class SpeedmentComparatorImpl<ENTITY, V extends Comparable<? super V>> im
         return field;
     }
 
+    /**
+     * Returns the field that this comparator reads its values from.
+     *
+     * @return the reference field
+     */
+    public ReferenceFieldTrait<ENTITY, V> getReferenceField() {
+        return referenceField;
+    }
+
+    /**
+     * Returns how {@code null} values are ordered by this comparator.
+     *
+     * @return the null order
+     */
+    public NullOrder getNullOrder() {
+        return nullOrder;
+    }
+
     @Override
     public boolean isReversed() {
         return reversed;
@@ -57,6 +75,11 @@ public class SpeedmentComparatorImpl<ENTITY, V extends Comparable<? super V>> im
         return this;
     }
 
+    @Override
+    public Comparator<ENTITY> thenComparing(Comparator<? super ENTITY> other) {
+        return new CombinedComparator<>(this, requireNonNull(other));
+    }
+
     @Override
     public int compare(ENTITY o1, ENTITY o2) {
         final V o1Value = referenceField.getter().apply(requireNonNull(o1));
@@ -0,0 +1,365 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.internal.core.cache;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * A thread safe cache that holds at most a fixed number of entries. A cache may
+ * also be given a maximum total weight, where the weight of each value is
+ * determined by a weigher function. When the cache is full, entries are
+ * evicted according to the {@link EvictionPolicy}.
+ * Entries may also be given a time to live, after which they are discarded.
+ * Hits, misses, evictions and expirations are counted and can be obtained
+ * using {@link #getStatistics()}.
+ * <p>
+ * Values that are read from a slower source while the source may be written
+ * to should be cached with {@link #putIfUnchanged(Object, Object, long)}, so
+ * that a value read before a concurrent write is not cached after the write
+ * has replaced or invalidated the entry.
+ *
+ * @author pemi
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public final class BoundedCache<K, V> {
+
+    private final int maxSize;
+    private final long maxWeight;
+    private final ToLongFunction<? super V> weigher;
+    private final EvictionPolicy policy;
+    private final long timeToLiveMillis;
+    private final LongSupplier clock;
+
+    private final LinkedHashMap<K, Entry<V>> entries;
+    private final TreeMap<Long, LinkedHashSet<K>> frequencies; // Only used by LFU
+
+    private long totalWeight;
+    private long generation; // Incremented by every put and invalidation
+    private long hitCount, missCount, evictionCount, expirationCount;
+
+    /**
+     * Creates a new cache where entries never expire.
+     *
+     * @param maxSize  the maximum number of entries
+     * @param policy   the eviction policy
+     */
+    public BoundedCache(int maxSize, EvictionPolicy policy) {
+        this(maxSize, policy, 0, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Creates a new cache where entries expire after the given time to live.
+     * A time to live that is zero or negative means that entries never
+     * expire.
+     *
+     * @param maxSize     the maximum number of entries
+     * @param policy      the eviction policy
+     * @param timeToLive  the time to live of an entry
+     * @param unit        the unit of the time to live
+     */
+    public BoundedCache(int maxSize, EvictionPolicy policy, long timeToLive, TimeUnit unit) {
+        this(maxSize, Long.MAX_VALUE, v -> 0L, policy, timeToLive, unit);
+    }
+
+    /**
+     * Creates a new cache that is bounded both by the number of entries and
+     * by the total weight of its values. A value that alone weighs more than
+     * the maximum weight is never cached. A time to live that is zero or
+     * negative means that entries never expire.
+     *
+     * @param maxSize     the maximum number of entries
+     * @param maxWeight   the maximum total weight of all values
+     * @param weigher     the function that determines the weight of a value
+     * @param policy      the eviction policy
+     * @param timeToLive  the time to live of an entry
+     * @param unit        the unit of the time to live
+     */
+    public BoundedCache(int maxSize, long maxWeight, ToLongFunction<? super V> weigher, EvictionPolicy policy, long timeToLive, TimeUnit unit) {
+        this(maxSize, maxWeight, weigher, policy, requireNonNull(unit).toMillis(timeToLive), System::currentTimeMillis);
+    }
+
+    BoundedCache(int maxSize, long maxWeight, ToLongFunction<? super V> weigher, EvictionPolicy policy, long timeToLiveMillis, LongSupplier clock) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("The maximum size of a cache must be positive, was " + maxSize);
+        }
+        if (maxWeight < 0) {
+            throw new IllegalArgumentException("The maximum weight of a cache must not be negative, was " + maxWeight);
+        }
+        this.maxSize = maxSize;
+        this.maxWeight = maxWeight;
+        this.weigher = requireNonNull(weigher);
+        this.policy = requireNonNull(policy);
+        this.timeToLiveMillis = timeToLiveMillis;
+        this.clock = requireNonNull(clock);
+        this.entries = new LinkedHashMap<>(16, 0.75f, policy == EvictionPolicy.LRU);
+        this.frequencies = new TreeMap<>();
+    }
+
+    /**
+     * Returns the value for the given key, or {@code empty} if the key is not
+     * present or its entry has expired.
+     *
+     * @param key  the key
+     * @return     the value or {@code empty}
+     */
+    public synchronized Optional<V> get(K key) {
+        requireNonNull(key);
+        final Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            missCount++;
+            return Optional.empty();
+        }
+        if (isExpired(entry)) {
+            removeEntry(key, entry);
+            expirationCount++;
+            missCount++;
+            return Optional.empty();
+        }
+        touch(key, entry);
+        hitCount++;
+        return Optional.of(entry.value);
+    }
+
+    /**
+     * Returns the current generation of this cache. The generation changes
+     * whenever a value is put with {@link #put(Object, Object)} or an entry is
+     * invalidated. It should be obtained before a value is read from the
+     * source, and then passed to {@link #putIfUnchanged(Object, Object, long)}.
+     *
+     * @return  the current generation
+     */
+    public synchronized long generation() {
+        return generation;
+    }
+
+    /**
+     * Associates the given value with the given key, replacing any previous
+     * value. If the cache is full, entries are evicted first. If the value
+     * alone weighs more than the maximum weight, it is not cached and any
+     * previous value is removed.
+     *
+     * @param key    the key
+     * @param value  the value
+     */
+    public synchronized void put(K key, V value) {
+        requireNonNull(key);
+        requireNonNull(value);
+        generation++;
+        store(key, value);
+    }
+
+    /**
+     * Associates the given value with the given key like
+     * {@link #put(Object, Object)}, unless a value has been put or an entry
+     * has been invalidated since the given generation was obtained. In that
+     * case the value may be older than the current content and is dropped.
+     *
+     * @param key         the key
+     * @param value       the value
+     * @param generation  the {@link #generation()} before the value was read
+     * @return            {@code true} if the value was cached
+     */
+    public synchronized boolean putIfUnchanged(K key, V value, long generation) {
+        requireNonNull(key);
+        requireNonNull(value);
+        if (this.generation != generation) {
+            return false;
+        }
+        store(key, value);
+        return true;
+    }
+
+    private void store(K key, V value) {
+        final long weight = weigher.applyAsLong(value);
+        final Entry<V> existing = entries.get(key);
+        final long frequency = existing == null ? 0 : existing.frequency;
+        if (existing != null) {
+            removeEntry(key, existing);
+        }
+        if (weight > maxWeight) {
+            return;
+        }
+        while (entries.size() >= maxSize || totalWeight + weight > maxWeight) {
+            evict();
+        }
+        final Entry<V> entry = new Entry<>(value, expiry(), weight, frequency + 1);
+        entries.put(key, entry);
+        totalWeight += weight;
+        if (policy == EvictionPolicy.LFU) {
+            bucket(entry.frequency).add(key);
+        }
+    }
+
+    /**
+     * Removes the entry for the given key, if any.
+     *
+     * @param key  the key
+     */
+    public synchronized void invalidate(K key) {
+        requireNonNull(key);
+        generation++;
+        final Entry<V> entry = entries.get(key);
+        if (entry != null) {
+            removeEntry(key, entry);
+        }
+    }
+
+    /**
+     * Removes all entries with a key that matches the given predicate.
+     *
+     * @param keyPredicate  the predicate that selects the keys to remove
+     */
+    public synchronized void invalidateAll(Predicate<? super K> keyPredicate) {
+        requireNonNull(keyPredicate);
+        generation++;
+        entries.entrySet().stream()
+            .filter(e -> keyPredicate.test(e.getKey()))
+            .collect(toList())
+            .forEach(e -> removeEntry(e.getKey(), e.getValue()));
+    }
+
+    /**
+     * Removes all entries from this cache. The statistics are retained.
+     */
+    public synchronized void invalidateAll() {
+        generation++;
+        entries.clear();
+        frequencies.clear();
+        totalWeight = 0;
+    }
+
+    /**
+     * Returns the number of entries in this cache, including entries that have
+     * expired but not yet been discarded.
+     *
+     * @return the number of entries
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns a snapshot of the statistics of this cache.
+     *
+     * @return the statistics
+     */
+    public synchronized CacheStatistics getStatistics() {
+        return new CacheStatistics(hitCount, missCount, evictionCount, expirationCount, entries.size(), totalWeight);
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public long getMaxWeight() {
+        return maxWeight;
+    }
+
+    public EvictionPolicy getEvictionPolicy() {
+        return policy;
+    }
+
+    public long getTimeToLiveMillis() {
+        return timeToLiveMillis;
+    }
+
+    private long expiry() {
+        return timeToLiveMillis > 0 ? clock.getAsLong() + timeToLiveMillis : Long.MAX_VALUE;
+    }
+
+    private boolean isExpired(Entry<V> entry) {
+        return entry.expires != Long.MAX_VALUE && entry.expires <= clock.getAsLong();
+    }
+
+    private void touch(K key, Entry<V> entry) {
+        // LRU order is maintained by the LinkedHashMap itself
+        if (policy == EvictionPolicy.LFU) {
+            unbucket(key, entry.frequency);
+            entry.frequency++;
+            bucket(entry.frequency).add(key);
+        }
+    }
+
+    private void evict() {
+        final K victim;
+        if (policy == EvictionPolicy.LFU) {
+            victim = frequencies.firstEntry().getValue().iterator().next();
+        } else {
+            victim = entries.keySet().iterator().next();
+        }
+        removeEntry(victim, entries.get(victim));
+        evictionCount++;
+    }
+
+    private void removeEntry(K key, Entry<V> entry) {
+        entries.remove(key);
+        totalWeight -= entry.weight;
+        if (policy == EvictionPolicy.LFU) {
+            unbucket(key, entry.frequency);
+        }
+    }
+
+    private LinkedHashSet<K> bucket(long frequency) {
+        return frequencies.computeIfAbsent(frequency, f -> new LinkedHashSet<>());
+    }
+
+    private void unbucket(K key, long frequency) {
+        final LinkedHashSet<K> keys = frequencies.get(frequency);
+        if (keys != null) {
+            keys.remove(key);
+            if (keys.isEmpty()) {
+                frequencies.remove(frequency);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName()
+            + " {maxSize=" + maxSize
+            + ", maxWeight=" + maxWeight
+            + ", policy=" + policy
+            + ", timeToLiveMillis=" + timeToLiveMillis
+            + ", " + getStatistics()
+            + "}";
+    }
+
+    private static final class Entry<V> {
+
+        private final V value;
+        private final long expires;
+        private final long weight;
+        private long frequency;
+
+        private Entry(V value, long expires, long weight, long frequency) {
+            this.value = value;
+            this.expires = expires;
+            this.weight = weight;
+            this.frequency = frequency;
+        }
+    }
+}
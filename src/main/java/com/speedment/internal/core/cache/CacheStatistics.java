@@ -0,0 +1,120 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.internal.core.cache;
+
+/**
+ * An immutable snapshot of the statistics of a {@link BoundedCache}.
+ *
+ * @author pemi
+ */
+public final class CacheStatistics {
+
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+    private final long expirationCount;
+    private final int size;
+    private final long weight;
+
+    public CacheStatistics(long hitCount, long missCount, long evictionCount, long expirationCount, int size, long weight) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+        this.expirationCount = expirationCount;
+        this.size = size;
+        this.weight = weight;
+    }
+
+    /**
+     * Returns the number of lookups that were served by the cache.
+     *
+     * @return the number of hits
+     */
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Returns the number of lookups that were not served by the cache,
+     * including lookups of expired entries.
+     *
+     * @return the number of misses
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Returns the number of entries that were evicted to make room for new
+     * entries.
+     *
+     * @return the number of evictions
+     */
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Returns the number of entries that were discarded because their time to
+     * live had passed.
+     *
+     * @return the number of expirations
+     */
+    public long getExpirationCount() {
+        return expirationCount;
+    }
+
+    /**
+     * Returns the number of entries in the cache.
+     *
+     * @return the number of entries
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the total weight of the entries in the cache.
+     *
+     * @return the total weight
+     */
+    public long getWeight() {
+        return weight;
+    }
+
+    /**
+     * Returns the ratio of hits to lookups, or 0 if there has been no lookups.
+     *
+     * @return the hit ratio
+     */
+    public double getHitRatio() {
+        final long lookups = hitCount + missCount;
+        return lookups == 0 ? 0d : (double) hitCount / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName()
+            + " {hits=" + hitCount
+            + ", misses=" + missCount
+            + ", evictions=" + evictionCount
+            + ", expirations=" + expirationCount
+            + ", size=" + size
+            + ", weight=" + weight
+            + "}";
+    }
+}
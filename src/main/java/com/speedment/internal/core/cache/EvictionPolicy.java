@@ -0,0 +1,35 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.internal.core.cache;
+
+/**
+ * Determines which entry a {@link BoundedCache} evicts when it is full.
+ *
+ * @author pemi
+ */
+public enum EvictionPolicy {
+
+    /**
+     * The least recently used entry is evicted.
+     */
+    LRU,
+    /**
+     * The least frequently used entry is evicted. Among entries used equally
+     * often, the one that has been in that state the longest is evicted.
+     */
+    LFU;
+}
@@ -0,0 +1,252 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.internal.core.cache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A cache of materialized query results and row counts, keyed by the table,
+ * the rendered SQL and the parameter values of the query. The cache is bounded
+ * both by the number of entries and by the estimated number of bytes held by
+ * the cached results.
+ * <p>
+ * All entries for a table are invalidated by {@link #invalidate(String)}. To
+ * avoid caching results that were read while a write to the same table was in
+ * progress, results are only cached if the table has not been invalidated
+ * since the {@link #generationOf(String) generation} that was obtained before
+ * the query was executed.
+ * <p>
+ * A single instance may be shared by several managers so that the bounds
+ * apply to all of them together.
+ *
+ * @author pemi
+ */
+public final class QueryResultCache {
+
+    private static final long COUNT_BYTES = 64;
+
+    private final BoundedCache<Key, Result> cache;
+    private final Map<String, AtomicLong> generations;
+
+    /**
+     * Creates a new query result cache.
+     *
+     * @param maxEntries  the maximum number of cached results
+     * @param maxBytes    the maximum estimated number of bytes of all cached
+     *                    results
+     * @param timeToLive  the time to live of a cached result, or zero if
+     *                    results should only be discarded when invalidated
+     *                    or evicted
+     * @param unit        the unit of the time to live
+     */
+    public QueryResultCache(int maxEntries, long maxBytes, long timeToLive, TimeUnit unit) {
+        this.cache = new BoundedCache<>(maxEntries, maxBytes, Result::getBytes, EvictionPolicy.LRU, timeToLive, unit);
+        this.generations = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Returns the current generation of the given table. The generation is
+     * incremented every time the table is invalidated.
+     *
+     * @param table  the table reference
+     * @return       the current generation
+     */
+    public long generationOf(String table) {
+        requireNonNull(table);
+        return acquireGeneration(table).get();
+    }
+
+    /**
+     * Returns the cached rows of the given query, or {@code empty} if they are
+     * not cached.
+     *
+     * @param table   the table reference
+     * @param sql     the rendered SQL
+     * @param values  the parameter values
+     * @return        the cached rows or {@code empty}
+     */
+    public Optional<List<?>> getRows(String table, String sql, List<?> values) {
+        return cache.get(new Key(table, sql, values, false)).map(Result::getRows);
+    }
+
+    /**
+     * Caches the rows of the given query, provided that the table has not been
+     * invalidated since the given generation.
+     *
+     * @param table           the table reference
+     * @param generation      the generation of the table before the query was
+     *                        executed
+     * @param sql             the rendered SQL
+     * @param values          the parameter values
+     * @param rows            the rows
+     * @param estimatedBytes  the estimated number of bytes held by the rows
+     */
+    public synchronized void putRows(String table, long generation, String sql, List<?> values, List<?> rows, long estimatedBytes) {
+        requireNonNull(rows);
+        if (generationOf(table) == generation) {
+            cache.put(new Key(table, sql, values, false), new Result(Collections.unmodifiableList(new ArrayList<>(rows)), 0, estimatedBytes));
+        }
+    }
+
+    /**
+     * Returns the cached row count of the given query, or {@code empty} if it
+     * is not cached.
+     *
+     * @param table   the table reference
+     * @param sql     the rendered SQL
+     * @param values  the parameter values
+     * @return        the cached count or {@code empty}
+     */
+    public OptionalLong getCount(String table, String sql, List<?> values) {
+        return cache.get(new Key(table, sql, values, true))
+            .map(r -> OptionalLong.of(r.getCount()))
+            .orElse(OptionalLong.empty());
+    }
+
+    /**
+     * Caches the row count of the given query, provided that the table has not
+     * been invalidated since the given generation.
+     *
+     * @param table       the table reference
+     * @param generation  the generation of the table before the query was
+     *                    executed
+     * @param sql         the rendered SQL
+     * @param values      the parameter values
+     * @param count       the row count
+     */
+    public synchronized void putCount(String table, long generation, String sql, List<?> values, long count) {
+        if (generationOf(table) == generation) {
+            cache.put(new Key(table, sql, values, true), new Result(null, count, COUNT_BYTES));
+        }
+    }
+
+    /**
+     * Invalidates all cached results for the given table.
+     *
+     * @param table  the table reference
+     */
+    public synchronized void invalidate(String table) {
+        requireNonNull(table);
+        acquireGeneration(table).incrementAndGet();
+        cache.invalidateAll(k -> k.table.equals(table));
+    }
+
+    /**
+     * Invalidates all cached results.
+     */
+    public synchronized void invalidateAll() {
+        generations.values().forEach(AtomicLong::incrementAndGet);
+        cache.invalidateAll();
+    }
+
+    /**
+     * Returns the maximum estimated number of bytes of all cached results. A
+     * result that is estimated to be larger can never be cached.
+     *
+     * @return the maximum estimated number of bytes
+     */
+    public long getMaxBytes() {
+        return cache.getMaxWeight();
+    }
+
+    /**
+     * Returns a snapshot of the statistics of this cache. The weight of the
+     * statistics is the estimated number of bytes held.
+     *
+     * @return the statistics
+     */
+    public CacheStatistics getStatistics() {
+        return cache.getStatistics();
+    }
+
+    private AtomicLong acquireGeneration(String table) {
+        return generations.computeIfAbsent(table, t -> new AtomicLong());
+    }
+
+    private static final class Key {
+
+        private final String table;
+        private final String sql;
+        private final List<?> values;
+        private final boolean count;
+        private final int hashCode;
+
+        private Key(String table, String sql, List<?> values, boolean count) {
+            this.table = requireNonNull(table);
+            this.sql = requireNonNull(sql);
+            this.values = new ArrayList<>(requireNonNull(values));
+            this.count = count;
+            this.hashCode = Objects.hash(table, sql, this.values, count);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            final Key that = (Key) obj;
+            return count == that.count
+                && hashCode == that.hashCode
+                && sql.equals(that.sql)
+                && table.equals(that.table)
+                && values.equals(that.values);
+        }
+    }
+
+    private static final class Result {
+
+        private final List<?> rows;
+        private final long count;
+        private final long bytes;
+
+        private Result(List<?> rows, long count, long bytes) {
+            this.rows = rows;
+            this.count = count;
+            this.bytes = bytes;
+        }
+
+        private List<?> getRows() {
+            return rows;
+        }
+
+        private long getCount() {
+            return count;
+        }
+
+        private long getBytes() {
+            return bytes;
+        }
+    }
+}
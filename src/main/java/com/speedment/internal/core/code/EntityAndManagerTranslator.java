@@ -22,11 +22,14 @@ import com.speedment.internal.codegen.base.Generator;
 import com.speedment.internal.codegen.lang.models.ClassOrInterface;
 import com.speedment.internal.codegen.lang.models.Generic;
 import com.speedment.internal.codegen.lang.models.Type;
-import com.speedment.internal.codegen.lang.models.constants.DefaultType;
+import com.speedment.internal.codegen.lang.models.File;
+import com.speedment.internal.codegen.lang.models.Import;
 import com.speedment.internal.codegen.lang.models.implementation.GenericImpl;
+import com.speedment.config.PrimaryKeyColumn;
 import com.speedment.config.Table;
 import static java.util.Objects.requireNonNull;
 import java.util.Optional;
+import static java.util.stream.Collectors.joining;
 
 /**
  *
@@ -75,7 +78,8 @@ public abstract class EntityAndManagerTranslator<T extends ClassOrInterface<T>>
     public final ClassType ENTITY = new ClassType("", "Impl"),
             BUILDER = new ClassType("Builder", "Impl"),
             CONFIG = new ClassType("Config", "Impl"),
-            MANAGER = new ClassType("Manager", "Impl");
+            MANAGER = new ClassType("Manager", "Impl"),
+            PRIMARY_KEY = new ClassType("PrimaryKey", "Impl");
 //            FIELD = new ClassType("Field", "Impl");
 
     public final Generic GENERIC_OF_PK = Generic.of().add(typeOfPK()),
@@ -99,11 +103,29 @@ public abstract class EntityAndManagerTranslator<T extends ClassOrInterface<T>>
         if (pks == 1) {
             return Type.of(first);
         } else {
-            if (primaryKeyColumns().allMatch(c -> c.getColumn().getTypeMapper().getJavaType().equals(first))) {
-                return DefaultType.list(Type.of(first));
-            } else {
-                return DefaultType.list(DefaultType.WILDCARD);
-            }
+            return PRIMARY_KEY.getType();
         }
     }
+
+    /**
+     * Returns an expression that creates the primary key of the entity held
+     * by the variable with the given name. Composite keys are instances of
+     * the generated primary key class.
+     *
+     * @param file        the file to add imports to
+     * @param entityName  the name of the entity variable
+     * @return            the expression
+     */
+    protected String primaryKeyExpression(File file, String entityName) {
+        requireNonNull(file);
+        requireNonNull(entityName);
+        if (primaryKeyColumns().count() == 1) {
+            return entityName + "." + GETTER_METHOD_PREFIX + typeName(primaryKeyColumns().findAny().get().getColumn()) + "()";
+        }
+        file.add(Import.of(PRIMARY_KEY.getType()));
+        return primaryKeyColumns()
+            .map(PrimaryKeyColumn::getColumn)
+            .map(c -> entityName + "." + GETTER_METHOD_PREFIX + typeName(c) + "()" + (c.isNullable() ? ".orElse(null)" : ""))
+            .collect(joining(", ", "new " + PRIMARY_KEY.getName() + "(", ")"));
+    }
 }
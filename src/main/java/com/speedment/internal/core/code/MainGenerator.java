@@ -23,10 +23,12 @@ import com.speedment.internal.codegen.base.Meta;
 import com.speedment.internal.codegen.java.JavaGenerator;
 import com.speedment.internal.codegen.lang.models.File;
 import com.speedment.internal.core.code.entity.EntityImplTranslator;
+import com.speedment.internal.core.code.entity.EntityPrimaryKeyTranslator;
 import com.speedment.internal.core.code.manager.EntityManagerImplTranslator;
 import com.speedment.internal.core.code.entity.EntityTranslator;
 import com.speedment.internal.core.code.lifecycle.SpeedmentApplicationMetadataTranslator;
 import com.speedment.internal.core.code.lifecycle.SpeedmentApplicationTranslator;
+import com.speedment.config.PrimaryKeyColumn;
 import com.speedment.config.Project;
 import com.speedment.config.Table;
 import com.speedment.internal.logging.Logger;
@@ -82,6 +84,9 @@ public final class MainGenerator implements Consumer<Project> {
                 translators.add(new EntityTranslator(speedment, gen, table));
                 translators.add(new EntityImplTranslator(speedment, gen, table));
                 translators.add(new EntityManagerImplTranslator(speedment, gen, table));
+                if (table.streamOf(PrimaryKeyColumn.class).count() > 1) {
+                    translators.add(new EntityPrimaryKeyTranslator(speedment, gen, table));
+                }
             });
 
         Formatting.tab("    ");
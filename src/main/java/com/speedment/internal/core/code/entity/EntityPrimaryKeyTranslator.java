@@ -0,0 +1,194 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.internal.core.code.entity;
+
+import com.speedment.Speedment;
+import com.speedment.config.Column;
+import com.speedment.config.PrimaryKeyColumn;
+import com.speedment.config.Table;
+import com.speedment.internal.codegen.base.Generator;
+import com.speedment.internal.codegen.lang.models.Class;
+import com.speedment.internal.codegen.lang.models.Constructor;
+import com.speedment.internal.codegen.lang.models.Field;
+import com.speedment.internal.codegen.lang.models.File;
+import com.speedment.internal.codegen.lang.models.Generic;
+import com.speedment.internal.codegen.lang.models.Import;
+import com.speedment.internal.codegen.lang.models.Javadoc;
+import com.speedment.internal.codegen.lang.models.Method;
+import com.speedment.internal.codegen.lang.models.Type;
+import static com.speedment.internal.codegen.lang.models.constants.DefaultAnnotationUsage.OVERRIDE;
+import static com.speedment.internal.codegen.lang.models.constants.DefaultJavadocTag.AUTHOR;
+import static com.speedment.internal.codegen.lang.models.constants.DefaultType.BOOLEAN_PRIMITIVE;
+import static com.speedment.internal.codegen.lang.models.constants.DefaultType.INT_PRIMITIVE;
+import static com.speedment.internal.codegen.lang.models.constants.DefaultType.OBJECT;
+import static com.speedment.internal.codegen.lang.models.constants.DefaultType.STRING;
+import com.speedment.internal.codegen.lang.models.implementation.JavadocImpl;
+import static com.speedment.internal.codegen.util.Formatting.nl;
+import static com.speedment.internal.codegen.util.Formatting.tab;
+import com.speedment.internal.core.code.EntityAndManagerTranslator;
+import com.speedment.internal.core.manager.CompositeKey;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import static java.util.Objects.requireNonNull;
+import java.util.stream.Collectors;
+
+/**
+ * Generates an immutable key class for a table with a composite primary key.
+ * Non-nullable columns are held in primitive fields where possible and the
+ * hash code is computed once, when the key is created.
+ *
+ * @author pemi
+ */
+public final class EntityPrimaryKeyTranslator extends EntityAndManagerTranslator<Class> {
+
+    private static final String HASH_FIELD_NAME = "hash";
+
+    private static final Map<java.lang.Class<?>, java.lang.Class<?>> PRIMITIVES = new HashMap<>();
+
+    static {
+        PRIMITIVES.put(Boolean.class, boolean.class);
+        PRIMITIVES.put(Byte.class, byte.class);
+        PRIMITIVES.put(Short.class, short.class);
+        PRIMITIVES.put(Character.class, char.class);
+        PRIMITIVES.put(Integer.class, int.class);
+        PRIMITIVES.put(Long.class, long.class);
+        PRIMITIVES.put(Float.class, float.class);
+        PRIMITIVES.put(Double.class, double.class);
+    }
+
+    public EntityPrimaryKeyTranslator(Speedment speedment, Generator cg, Table configEntity) {
+        super(speedment, cg, configEntity);
+    }
+
+    @Override
+    protected Class make(File file) {
+        requireNonNull(file);
+        file.add(Import.of(Type.of(CompositeKey.class)));
+
+        final List<Column> columns = primaryKeyColumns()
+            .map(PrimaryKeyColumn::getColumn)
+            .collect(Collectors.toList());
+
+        final Class clazz = Class.of(PRIMARY_KEY.getName())
+            .public_().final_()
+            .add(Type.of(CompositeKey.class));
+
+        final Constructor constructor = Constructor.of().public_();
+
+        columns.forEach(c -> {
+            clazz.add(Field.of(variableName(c), Type.of(fieldTypeOf(c))).private_().final_());
+            constructor.add(Field.of(variableName(c), Type.of(fieldTypeOf(c))));
+        });
+        clazz.add(Field.of(HASH_FIELD_NAME, INT_PRIMITIVE).private_().final_());
+
+        columns.forEach(c -> constructor.add("this." + variableName(c) + " = " + variableName(c) + ";"));
+        constructor.add("int h = 7;");
+        columns.forEach(c -> constructor.add("h = 31 * h + " + hashOf(file, c, variableName(c)) + ";"));
+        constructor.add("this." + HASH_FIELD_NAME + " = h;");
+        clazz.add(constructor);
+
+        columns.forEach(c -> clazz.add(
+            Method.of(GETTER_METHOD_PREFIX + typeName(c), Type.of(fieldTypeOf(c))).public_()
+                .add("return " + variableName(c) + ";")
+        ));
+
+        file.add(Import.of(Type.of(List.class)));
+        file.add(Import.of(Type.of(Arrays.class)));
+        clazz.add(Method.of("values", Type.of(List.class).add(Generic.of().add(OBJECT))).public_().add(OVERRIDE)
+            .add("return Arrays.asList(" + columns.stream().map(this::variableName).collect(Collectors.joining(", ")) + ");")
+        );
+
+        clazz.add(Method.of("hashCode", INT_PRIMITIVE).public_().add(OVERRIDE)
+            .add("return " + HASH_FIELD_NAME + ";")
+        );
+
+        final String thatName = "that";
+        final String thatCastedName = thatName + PRIMARY_KEY.getName();
+        clazz.add(Method.of("equals", BOOLEAN_PRIMITIVE).public_().add(OVERRIDE)
+            .add(Field.of(thatName, OBJECT))
+            .add("if (this == " + thatName + ") { return true; }")
+            .add("if (!(" + thatName + " instanceof " + PRIMARY_KEY.getName() + ")) { return false; }")
+            .add("final " + PRIMARY_KEY.getName() + " " + thatCastedName + " = (" + PRIMARY_KEY.getName() + ") " + thatName + ";")
+            .add("return " + HASH_FIELD_NAME + " == " + thatCastedName + "." + HASH_FIELD_NAME
+                + columns.stream()
+                .map(c -> nl() + tab() + "&& " + equalsOf(file, c, variableName(c), thatCastedName + "." + variableName(c)))
+                .collect(Collectors.joining())
+                + ";")
+        );
+
+        clazz.add(Method.of("toString", STRING).public_().add(OVERRIDE)
+            .add("return \"" + PRIMARY_KEY.getName() + " \" + values();")
+        );
+
+        return clazz;
+    }
+
+    private static java.lang.Class<?> fieldTypeOf(Column c) {
+        final java.lang.Class<?> javaType = c.getTypeMapper().getJavaType();
+        if (c.isNullable()) {
+            return javaType;
+        }
+        return PRIMITIVES.getOrDefault(javaType, javaType);
+    }
+
+    private static String hashOf(File file, Column c, String name) {
+        final java.lang.Class<?> type = fieldTypeOf(c);
+        if (type.isPrimitive()) {
+            return boxedNameOf(type) + ".hashCode(" + name + ")";
+        }
+        file.add(Import.of(Type.of(Objects.class)));
+        return "Objects.hashCode(" + name + ")";
+    }
+
+    private static String equalsOf(File file, Column c, String first, String second) {
+        final java.lang.Class<?> type = fieldTypeOf(c);
+        if (type == float.class || type == double.class) {
+            return boxedNameOf(type) + ".compare(" + first + ", " + second + ") == 0";
+        } else if (type.isPrimitive()) {
+            return first + " == " + second;
+        }
+        file.add(Import.of(Type.of(Objects.class)));
+        return "Objects.equals(" + first + ", " + second + ")";
+    }
+
+    private static String boxedNameOf(java.lang.Class<?> primitive) {
+        return PRIMITIVES.entrySet().stream()
+            .filter(e -> e.getValue() == primitive)
+            .map(e -> e.getKey().getSimpleName())
+            .findAny()
+            .get();
+    }
+
+    @Override
+    protected Javadoc getJavaDoc() {
+        return new JavadocImpl("The primary key of an entity (for example, a row) in the " + getNode().toString() + "." + GENERATED_JAVADOC_MESSAGE)
+            .add(AUTHOR.setValue("Speedment"));
+    }
+
+    @Override
+    protected String getJavadocRepresentText() {
+        return "The primary key";
+    }
+
+    @Override
+    protected String getFileName() {
+        return PRIMARY_KEY.getName();
+    }
+}
@@ -35,6 +35,9 @@ import com.speedment.config.Project;
 import com.speedment.config.Table;
 import com.speedment.field.ComparableField;
 import com.speedment.field.ComparableForeignKeyField;
+import com.speedment.field.DoubleField;
+import com.speedment.field.IntField;
+import com.speedment.field.LongField;
 import com.speedment.field.StringForeignKeyField;
 import com.speedment.field.StringField;
 import com.speedment.field.ReferenceField;
@@ -43,6 +46,9 @@ import com.speedment.exception.SpeedmentException;
 
 import com.speedment.internal.core.field.ComparableFieldImpl;
 import com.speedment.internal.core.field.ComparableForeignKeyFieldImpl;
+import com.speedment.internal.core.field.DoubleFieldImpl;
+import com.speedment.internal.core.field.IntFieldImpl;
+import com.speedment.internal.core.field.LongFieldImpl;
 import com.speedment.internal.core.field.StringForeignKeyFieldImpl;
 import com.speedment.internal.core.field.StringFieldImpl;
 import com.speedment.internal.core.field.ReferenceFieldImpl;
@@ -150,6 +156,24 @@ public final class EntityTranslatorSupport {
 
                 implType = Type.of(StringFieldImpl.class)
                     .add(Generic.of().add(entityType));
+            } else if (!column.isNullable() && Integer.class.equals(mapping)) {
+                type = Type.of(IntField.class)
+                    .add(Generic.of().add(entityType));
+
+                implType = Type.of(IntFieldImpl.class)
+                    .add(Generic.of().add(entityType));
+            } else if (!column.isNullable() && Long.class.equals(mapping)) {
+                type = Type.of(LongField.class)
+                    .add(Generic.of().add(entityType));
+
+                implType = Type.of(LongFieldImpl.class)
+                    .add(Generic.of().add(entityType));
+            } else if (!column.isNullable() && Double.class.equals(mapping)) {
+                type = Type.of(DoubleField.class)
+                    .add(Generic.of().add(entityType));
+
+                implType = Type.of(DoubleFieldImpl.class)
+                    .add(Generic.of().add(entityType));
             } else if (Comparable.class.isAssignableFrom(mapping)) {
                 type = Type.of(ComparableField.class)
                     .add(Generic.of().add(entityType))
@@ -27,30 +27,34 @@ import com.speedment.internal.codegen.lang.models.Constructor;
 import com.speedment.internal.codegen.lang.models.Generic;
 import com.speedment.internal.codegen.lang.models.Method;
 import com.speedment.internal.codegen.lang.models.Type;
+import com.speedment.internal.codegen.lang.models.constants.DefaultType;
 import static com.speedment.internal.codegen.lang.models.constants.DefaultAnnotationUsage.OVERRIDE;
-import static com.speedment.internal.codegen.lang.models.constants.DefaultType.OBJECT;
-import static com.speedment.internal.codegen.lang.models.constants.DefaultType.VOID;
 import com.speedment.internal.codegen.util.Formatting;
 import static com.speedment.internal.core.code.DefaultJavaClassTranslator.GETTER_METHOD_PREFIX;
 import static com.speedment.internal.core.code.DefaultJavaClassTranslator.SETTER_METHOD_PREFIX;
 import com.speedment.config.Column;
 import com.speedment.config.Dbms;
+import com.speedment.config.PrimaryKeyColumn;
 import com.speedment.config.Table;
 import com.speedment.internal.core.manager.sql.AbstractSqlManager;
 import com.speedment.exception.SpeedmentException;
 import com.speedment.component.JavaTypeMapperComponent;
 import com.speedment.config.mapper.TypeMapper;
 import com.speedment.internal.codegen.lang.models.values.ReferenceValue;
+import com.speedment.internal.core.config.mapper.identity.AbstractIdentityMapper;
 import com.speedment.internal.core.runtime.typemapping.JavaTypeMapping;
+import com.speedment.util.JsonUtil;
+import java.io.IOException;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.Arrays;
+import java.util.List;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 import com.speedment.internal.core.platform.SpeedmentFactory;
 import static com.speedment.internal.codegen.util.Formatting.block;
-import static com.speedment.internal.codegen.util.Formatting.nl;
 
 /**
  *
@@ -74,6 +78,11 @@ public final class EntityManagerImplTranslator extends EntityAndManagerTranslato
             
             .addColumnConsumer((i, c) -> {
                 
+                if (isIdentityMapper(c)) {
+                    // Values are read directly from the result set
+                    return;
+                }
+                
                 final TypeMapper<?, ?> mapper = c.getTypeMapper();
                 final java.lang.Class<?> javaType = mapper.getJavaType();
                 final java.lang.Class<?> dbType = mapper.getDatabaseType();
@@ -107,7 +116,8 @@ public final class EntityManagerImplTranslator extends EntityAndManagerTranslato
                 .public_()
                 .add(Field.of(SPEEDMENT_VARIABLE_NAME, Type.of(Speedment.class)))
                 .add("super(" + SPEEDMENT_VARIABLE_NAME + ");")
-                .add("setSqlEntityMapper(this::defaultReadEntity);"))
+                .add("setSqlEntityMapper(this::defaultReadEntity);")
+                .call(c -> columns().forEachOrdered(col -> c.add(columnAccessor(col)))))
             //            .add(Method.of("builder", BUILDER.getType()).public_().add(OVERRIDE)
             //                .add("return new " + ENTITY.getImplName() + "();"))
             //            .add(Method.of("toBuilder", BUILDER.getType()).public_().add(OVERRIDE)
@@ -116,8 +126,6 @@ public final class EntityManagerImplTranslator extends EntityAndManagerTranslato
 
             .add(Method.of("getEntityClass", Type.of(java.lang.Class.class).add(GENERIC_OF_ENTITY)).public_().add(OVERRIDE)
                 .add("return " + ENTITY.getName() + ".class;"))
-            .add(generateGet(file))
-            .add(generateSet(file))
             .add(Method.of("getTable", Type.of(Table.class)).public_().add(OVERRIDE)
                 .add("return " + SPEEDMENT_VARIABLE_NAME
                     + ".getProjectComponent()"
@@ -141,7 +149,13 @@ public final class EntityManagerImplTranslator extends EntityAndManagerTranslato
                 .add("return new " + Formatting.shortName(ENTITY.getImplType().getName()) + "(" + SPEEDMENT_VARIABLE_NAME + ");")
                 .call($ -> file.add(Import.of(ENTITY.getImplType())))
             )
-            .add(generatePrimaryKeyFor(file));
+            .add(generateWriteJson(file))
+            .add(generatePrimaryKeyFor(file))
+            .call(c -> {
+                if (primaryKeyColumns().count() > 1) {
+                    c.add(generatePrimaryKeyOf(file));
+                }
+            });
     }
 
     private static enum Primitive {
@@ -181,46 +195,8 @@ public final class EntityManagerImplTranslator extends EntityAndManagerTranslato
         final Stream.Builder<String> streamBuilder = Stream.builder();
 
         columns().forEachOrdered(c -> {
-
             final JavaTypeMapping<?> mapping = mapperComponent.apply(dbms().getType(), c.getTypeMapper().getDatabaseType());
-            final StringBuilder sb = new StringBuilder()
-                .append("entity.set")
-                .append(typeName(c))
-                .append("(")
-                .append(typeMapperName(c))
-                .append(".toJavaType(");
-
-            final String getterName = "get" + mapping.getResultSetMethodName(dbms());
-
-            final boolean isResultSetMethod = Stream.of(ResultSet.class.getMethods())
-                .map(java.lang.reflect.Method::getName)
-                .anyMatch(getterName::equals);
-
-            final boolean isResultSetMethodReturnsPrimitive = Stream.of(ResultSet.class.getMethods())
-                .filter(m -> m.getName().equals(getterName))
-                .anyMatch(m -> m.getReturnType().isPrimitive());
-
-            if (isResultSetMethod && !(c.isNullable() && isResultSetMethodReturnsPrimitive)) {
-                sb
-                    .append("resultSet.")
-                    .append("get")
-                    .append(mapping.getResultSetMethodName(dbms()))
-                    .append("(").append(c.getOrdinalPosition()).append(")");
-            } else {
-                sb
-                    .append("get")
-                    .append(mapping.getResultSetMethodName(dbms()))
-                    .append("(resultSet, ")
-                    .append(c.getOrdinalPosition()).append(")");
-            }
-            sb.append("));");
-            streamBuilder.add(sb.toString());
-
-//            if (isResultSetMethod && c.isNullable() && isResultSetMethodReturnsPrimitive) {
-//                streamBuilder.add("if (resultSet.wasNull()) {");
-//                streamBuilder.add(indent("entity.set"+typeName(c)+"(null);"));
-//                streamBuilder.add("}");
-//            }
+            readColumn(file, c, "get" + mapping.getResultSetMethodName(dbms())).forEach(streamBuilder::add);
         });
 
         method
@@ -233,6 +209,107 @@ public final class EntityManagerImplTranslator extends EntityAndManagerTranslato
         return method;
     }
 
+    /**
+     * Returns the statements that read the given column from the
+     * {@code resultSet} and set it on the {@code entity} using the given
+     * {@code ResultSet} getter.
+     *
+     * @param file the file to add imports to
+     * @param c the column
+     * @param getterName the name of the getter
+     * @return the statements
+     */
+    List<String> readColumn(File file, Column c, String getterName) {
+        final boolean isResultSetMethod = Stream.of(ResultSet.class.getMethods())
+            .map(java.lang.reflect.Method::getName)
+            .anyMatch(getterName::equals);
+
+        final boolean isResultSetMethodReturnsPrimitive = Stream.of(ResultSet.class.getMethods())
+            .filter(m -> m.getName().equals(getterName))
+            .anyMatch(m -> m.getReturnType().isPrimitive());
+
+        final String setter = "entity." + SETTER_METHOD_PREFIX + typeName(c);
+        final String directGet = "resultSet." + getterName + "(" + c.getOrdinalPosition() + ")";
+
+        if (isIdentityMapper(c)) {
+            if (!isResultSetMethod) {
+                // Identity mappers have no type mapper field, so values
+                // without a getter of their own are read as objects
+                final java.lang.Class<?> javaType = c.getTypeMapper().getJavaType();
+                file.add(Import.of(Type.of(javaType)));
+                return Arrays.asList(setter + "((" + javaType.getSimpleName() + ") getObject(resultSet, " + c.getOrdinalPosition() + "));");
+            }
+            // Identity mappers are bypassed. Nullable primitives are read
+            // without the lambda of getNullableFrom by checking wasNull()
+            // after the value has been set.
+            if (c.isNullable() && isResultSetMethodReturnsPrimitive) {
+                return Arrays.asList(
+                    setter + "(" + directGet + ");",
+                    "if (resultSet.wasNull()) " + block(setter + "(null);")
+                );
+            }
+            return Arrays.asList(setter + "(" + directGet + ");");
+        }
+
+        final StringBuilder sb = new StringBuilder()
+            .append(setter)
+            .append("(")
+            .append(typeMapperName(c))
+            .append(".toJavaType(");
+
+        if (isResultSetMethod && !(c.isNullable() && isResultSetMethodReturnsPrimitive)) {
+            sb.append(directGet);
+        } else {
+            sb
+                .append(getterName)
+                .append("(resultSet, ")
+                .append(c.getOrdinalPosition()).append(")");
+        }
+        sb.append("));");
+        return Arrays.asList(sb.toString());
+    }
+
+    private Method generateWriteJson(File file) {
+        file.add(Import.of(Type.of(IOException.class)));
+        file.add(Import.of(Type.of(JsonUtil.class)));
+
+        final Method method = Method.of("writeJson", DefaultType.VOID)
+            .public_().add(OVERRIDE)
+            .add(Field.of("entity", ENTITY.getType()))
+            .add(Field.of("out", Type.of(Appendable.class)))
+            .add(Type.of(IOException.class));
+
+        // The labels are constant, so every label is rendered together with
+        // the separator that precedes it when the code is generated.
+        final List<Column> cols = columns().collect(Collectors.toList());
+        for (int i = 0; i < cols.size(); i++) {
+            final Column c = cols.get(i);
+            final String fragment = (i == 0 ? "{" : ",") + JsonUtil.labelOf(variableName(c));
+            method.add("out.append(\"" + fragment.replace("\\", "\\\\").replace("\"", "\\\"") + "\");");
+            method.add(JsonUtil.class.getSimpleName() + "." + jsonWriterName(c) + "(out, entity."
+                + GETTER_METHOD_PREFIX + typeName(c) + "()" + (c.isNullable() ? ".orElse(null)" : "") + ");");
+        }
+
+        return method.add(cols.isEmpty() ? "out.append(\"{}\");" : "out.append('}');");
+    }
+
+    private static String jsonWriterName(Column c) {
+        final java.lang.Class<?> javaType = c.getTypeMapper().getJavaType();
+        if (Integer.class.equals(javaType)) {
+            return "appendInt";
+        } else if (Long.class.equals(javaType)) {
+            return "appendLong";
+        } else if (Double.class.equals(javaType)) {
+            return "appendDouble";
+        } else if (Boolean.class.equals(javaType)) {
+            return "appendBoolean";
+        } else if (String.class.equals(javaType)) {
+            return "appendString";
+        } else {
+            return "appendValue";
+        }
+    }
+
     @Override
     protected String getJavadocRepresentText() {
         return "A manager implementation";
@@ -252,46 +329,36 @@ public final class EntityManagerImplTranslator extends EntityAndManagerTranslato
         return MANAGER.getImplType();
     }
 
-    protected Method generateGet(File file) {
-        file.add(Import.of(Type.of(IllegalArgumentException.class)));
-        return Method.of("get", OBJECT).public_().add(OVERRIDE)
-            .add(Field.of("entity", ENTITY.getType()))
-            .add(Field.of("column", Type.of(Column.class)))
-            .add("switch (column.getName()) " + block(
-                columns().map(c -> "case \"" + c.getName() + "\" : return entity." + GETTER_METHOD_PREFIX + typeName(c) + "();").collect(Collectors.joining(nl()))
-                + nl() + "default : throw new IllegalArgumentException(\"Unknown column '\" + column.getName() + \"'.\");"
-            ));
-    }
-
-    protected Method generateSet(File file) {
-        file.add(Import.of(Type.of(IllegalArgumentException.class)));
-        return Method.of("set", VOID).public_().add(OVERRIDE)
-            .add(Field.of("entity", ENTITY.getType()))
-            .add(Field.of("column", Type.of(Column.class)))
-            .add(Field.of("value", Type.of(Object.class)))
-            .add("switch (column.getName()) " + block(
-                columns()
-                .peek(c -> file.add(Import.of(Type.of(c.getTypeMapper().getJavaType()))))
-                .map(c -> "case \"" + c.getName() + "\" : entity." + SETTER_METHOD_PREFIX + typeName(c) + "((" + c.getTypeMapper().getJavaType().getSimpleName() + ") value); break;").collect(Collectors.joining(nl()))
-                + nl() + "default : throw new IllegalArgumentException(\"Unknown column '\" + column.getName() + \"'.\");"
-            ));
+    private String columnAccessor(Column c) {
+        return "addColumnAccessor(" + c.getOrdinalPosition() + ", "
+            + ENTITY.getName() + "::" + GETTER_METHOD_PREFIX + typeName(c) + ", "
+            + ENTITY.getName() + "::" + SETTER_METHOD_PREFIX + typeName(c) + ");";
     }
 
     protected Method generatePrimaryKeyFor(File file) {
         final Method method = Method.of("primaryKeyFor", typeOfPK()).public_().add(OVERRIDE)
             .add(Field.of("entity", ENTITY.getType()));
 
-        if (primaryKeyColumns().count() == 1) {
-            method.add("return entity.get" + typeName(primaryKeyColumns().findAny().get().getColumn()) + "();");
-        } else {
-            file.add(Import.of(Type.of(Arrays.class)));
-            method.add(primaryKeyColumns()
-                .map(pkc -> "entity.get" + typeName(pkc.getColumn()) + "()")
-                .collect(Collectors.joining(", ", "return Arrays.asList(", ");"))
+        return method.add("return " + primaryKeyExpression(file, "entity") + ";");
+    }
+
+    private Method generatePrimaryKeyOf(File file) {
+        file.add(Import.of(Type.of(List.class)));
+        final List<Column> columns = primaryKeyColumns()
+            .map(PrimaryKeyColumn::getColumn)
+            .collect(Collectors.toList());
+        columns.forEach(c -> file.add(Import.of(Type.of(c.getTypeMapper().getJavaType()))));
+
+        return Method.of("primaryKeyOf", typeOfPK()).public_().add(OVERRIDE)
+            .add(Field.of("values", DefaultType.list(DefaultType.WILDCARD)))
+            .add("return new " + PRIMARY_KEY.getName() + "(" + IntStream.range(0, columns.size())
+                .mapToObj(i -> "(" + columns.get(i).getTypeMapper().getJavaType().getSimpleName() + ") values.get(" + i + ")")
+                .collect(Collectors.joining(", ")) + ");"
             );
-        }
+    }
 
-        return method;
+    private static boolean isIdentityMapper(Column c) {
+        return c.getTypeMapper() instanceof AbstractIdentityMapper;
     }
 
     private String typeMapperName(Column c) {
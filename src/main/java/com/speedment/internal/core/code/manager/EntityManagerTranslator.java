@@ -36,7 +36,6 @@ import com.speedment.config.Table;
 import com.speedment.internal.core.manager.sql.SqlManager;
 import com.speedment.component.ManagerComponent;
 import com.speedment.component.ProjectComponent;
-import java.util.Arrays;
 import java.util.stream.Collectors;
 
 /**
@@ -84,17 +83,7 @@ public final class EntityManagerTranslator extends EntityAndManagerTranslator<In
         final Method method = Method.of("primaryKeyFor", typeOfPK()).default_().add(OVERRIDE)
             .add(Field.of("entity", ENTITY.getType()));
 
-        if (primaryKeyColumns().count() == 1) {
-            method.add("return entity.get" + typeName(primaryKeyColumns().findAny().get().getColumn()) + "();");
-        } else {
-            file.add(Import.of(Type.of(Arrays.class)));
-            method.add(primaryKeyColumns()
-                .map(pkc -> "entity.get" + typeName(pkc.getColumn()) + "()")
-                .collect(Collectors.joining(", ", "return Arrays.asList(", ");"))
-            );
-        }
-
-        return method;
+        return method.add("return " + primaryKeyExpression(file, "entity") + ";");
     }
 
     protected Method generateGet(File file) {
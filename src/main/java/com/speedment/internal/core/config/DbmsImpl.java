@@ -23,6 +23,7 @@ import com.speedment.config.Project;
 import com.speedment.config.Schema;
 import com.speedment.config.aspects.Parent;
 import com.speedment.config.parameters.DbmsType;
+import com.speedment.config.parameters.ReplicaRoutingPolicy;
 import com.speedment.internal.core.config.dbms.StandardDbmsType;
 import com.speedment.internal.core.config.aspects.DbmsTypeableHelper;
 import com.speedment.internal.core.config.utils.ConfigUtil;
@@ -44,6 +45,8 @@ public final class DbmsImpl extends AbstractNamedConfigEntity implements Dbms, D
     private String ipAddress;
     private Integer port;
     private String username, password;
+    private String replicas;
+    private ReplicaRoutingPolicy replicaRoutingPolicy;
 
     public DbmsImpl(Speedment speedment) {
         this.speedment = requireNonNull(speedment);
@@ -57,6 +60,8 @@ public final class DbmsImpl extends AbstractNamedConfigEntity implements Dbms, D
         setPort(getType().getDefaultPort());
         setUsername("root");
         setPassword("");
+        setReplicas(null);
+        setReplicaRoutingPolicy(ReplicaRoutingPolicy.ROUND_ROBIN);
     }
 
     @Override
@@ -109,6 +114,26 @@ public final class DbmsImpl extends AbstractNamedConfigEntity implements Dbms, D
         this.password = password;
     }
 
+    @Override
+    public Optional<String> getReplicas() {
+        return Optional.ofNullable(replicas);
+    }
+
+    @Override
+    public void setReplicas(String replicas) {
+        this.replicas = replicas;
+    }
+
+    @Override
+    public ReplicaRoutingPolicy getReplicaRoutingPolicy() {
+        return replicaRoutingPolicy;
+    }
+
+    @Override
+    public void setReplicaRoutingPolicy(ReplicaRoutingPolicy replicaRoutingPolicy) {
+        this.replicaRoutingPolicy = replicaRoutingPolicy;
+    }
+
     @Override
     public void setParent(Parent<?> parent) {
         this.parent = Cast.castOrFail(parent, Project.class);
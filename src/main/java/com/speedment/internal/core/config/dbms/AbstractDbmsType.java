@@ -147,6 +147,11 @@ public abstract class AbstractDbmsType implements DbmsType {
         return true;
     }
 
+    @Override
+    public boolean isLimitSupported() {
+        return true;
+    }
+
     private String escapeIfQuote(String item, boolean isWithinQuotes) {
         if (isWithinQuotes && "\"".equals(item)) {
             return "\\" + item;
@@ -23,6 +23,7 @@ import com.speedment.config.Project;
 import com.speedment.config.Schema;
 import com.speedment.config.aspects.Parent;
 import com.speedment.config.parameters.DbmsType;
+import com.speedment.config.parameters.ReplicaRoutingPolicy;
 import com.speedment.internal.core.config.aspects.DbmsTypeableHelper;
 import groovy.lang.Closure;
 import java.util.Optional;
@@ -42,6 +43,8 @@ public final class ImmutableDbms extends ImmutableAbstractNamedConfigEntity impl
     private final Optional<String> ipAddress;
     private final Optional<Integer> port;
     private final Optional<String> username, password;
+    private final Optional<String> replicas;
+    private final ReplicaRoutingPolicy replicaRoutingPolicy;
 
     public ImmutableDbms(Project parent, Dbms dbms) {
         super(requireNonNull(dbms).getName(), dbms.isEnabled());
@@ -54,6 +57,8 @@ public final class ImmutableDbms extends ImmutableAbstractNamedConfigEntity impl
         this.port = dbms.getPort();
         this.username = dbms.getUsername();
         this.password = dbms.getPassword();
+        this.replicas = dbms.getReplicas();
+        this.replicaRoutingPolicy = dbms.getReplicaRoutingPolicy();
         // Children
         children = childHolderOf(dbms.stream().map(p -> new ImmutableSchema(this, p)));
     }
@@ -108,6 +113,26 @@ public final class ImmutableDbms extends ImmutableAbstractNamedConfigEntity impl
         throwNewUnsupportedOperationExceptionImmutable();
     }
 
+    @Override
+    public Optional<String> getReplicas() {
+        return replicas;
+    }
+
+    @Override
+    public void setReplicas(String replicas) {
+        throwNewUnsupportedOperationExceptionImmutable();
+    }
+
+    @Override
+    public ReplicaRoutingPolicy getReplicaRoutingPolicy() {
+        return replicaRoutingPolicy;
+    }
+
+    @Override
+    public void setReplicaRoutingPolicy(ReplicaRoutingPolicy replicaRoutingPolicy) {
+        throwNewUnsupportedOperationExceptionImmutable();
+    }
+
     @Override
     public void setParent(Parent<?> parent) {
         throwNewUnsupportedOperationExceptionImmutable();
@@ -19,6 +19,7 @@ package com.speedment.internal.core.db;
 import com.speedment.db.SqlFunction;
 import com.speedment.db.SqlSupplier;
 import com.speedment.Speedment;
+import com.speedment.component.InvalidationBusComponent;
 import com.speedment.config.Column;
 import com.speedment.config.Dbms;
 import com.speedment.config.ForeignKey;
@@ -30,10 +31,12 @@ import com.speedment.config.Schema;
 import com.speedment.config.Table;
 import com.speedment.config.parameters.DbmsType;
 import com.speedment.config.parameters.OrderType;
+import com.speedment.config.parameters.ReplicaRoutingPolicy;
 import com.speedment.internal.core.manager.sql.SqlStatement;
 import com.speedment.internal.core.manager.sql.SqlUpdateStatement;
 import com.speedment.db.AsynchronousQueryResult;
 import com.speedment.db.DbmsHandler;
+import com.speedment.db.TransactionScope;
 import com.speedment.exception.SpeedmentException;
 import com.speedment.config.mapper.TypeMapper;
 import com.speedment.internal.logging.Logger;
@@ -74,6 +77,7 @@ public abstract class AbstractRelationalDbmsHandler implements DbmsHandler {
     private static final Boolean SHOW_METADATA = false;
 
     private final Speedment speedment;
+    private volatile ReplicaRouter replicaRouter;
 
     public AbstractRelationalDbmsHandler(Speedment speedment, Dbms dbms) {
         this.speedment = requireNonNull(speedment);
@@ -88,11 +92,30 @@ public abstract class AbstractRelationalDbmsHandler implements DbmsHandler {
 
     // Todo: Use DataSoruce instead: http://docs.oracle.com/javase/tutorial/jdbc/basics/sqldatasources.html
     public Connection getConnection() {
+        return getConnection(getUrl());
+    }
+
+    /**
+     * Returns a connection that may be used for read-only queries. If the
+     * {@link Dbms} declares read replicas and the current thread has not
+     * written within an open {@link TransactionScope}, the connection is
+     * obtained from one of the replicas. Otherwise, a connection to the
+     * primary host is returned.
+     *
+     * @return a connection for read-only queries
+     */
+    public Connection getReadConnection() {
+        return getReplicaRouter().readUrl()
+            .map(this::getConnection)
+            .orElseGet(this::getConnection);
+    }
+
+    protected Connection getConnection(String url) {
+        requireNonNull(url);
         Connection conn;
 //        final Properties connectionProps = new Properties();
 //        dbms.getUsername().ifPresent(u -> connectionProps.put(USER, u));
 //        dbms.getPassword().ifPresent(p -> connectionProps.put(PASSWORD, p));
-        final String url = getUrl();
         final String user = unwrap(dbms.getUsername());
         final String password = unwrap(dbms.getPassword());
         try {
@@ -110,13 +133,23 @@ public abstract class AbstractRelationalDbmsHandler implements DbmsHandler {
     }
 
     public String getUrl() {
+        return getUrl(getDbms().getIpAddress().orElse(null), getDbms().getPort().orElse(null));
+    }
+
+    protected String getUrl(String ipAddress, Integer port) {
+        // ipAddress nullable
+        // port nullable
         final DbmsType dbmsType = getDbms().getType();
         final StringBuilder result = new StringBuilder();
         result.append("jdbc:");
         result.append(dbmsType.getJdbcConnectorName());
         result.append("://");
-        getDbms().getIpAddress().ifPresent(ip -> result.append(ip));
-        getDbms().getPort().ifPresent(p -> result.append(":").append(p));
+        if (ipAddress != null) {
+            result.append(ipAddress);
+        }
+        if (port != null) {
+            result.append(":").append(port);
+        }
         result.append("/");
 
         dbmsType.getDefaultConnectorParameters().ifPresent(d -> result.append("?").append(d));
@@ -124,6 +157,64 @@ public abstract class AbstractRelationalDbmsHandler implements DbmsHandler {
         return result.toString();
     }
 
+    /**
+     * Returns the connection URLs of the read replicas declared for the
+     * {@link Dbms}. Replicas are declared as a comma separated list on the
+     * form {@code host[:port]}. If a replica has no port, the port of the
+     * primary host is used.
+     *
+     * @return the connection URLs of the read replicas
+     */
+    public List<String> getReplicaUrls() {
+        return getReplicaRouter().getReplicaUrls();
+    }
+
+    @Override
+    public TransactionScope transactionScope() {
+        return getReplicaRouter().openScope();
+    }
+
+    protected ReplicaRouter getReplicaRouter() {
+        ReplicaRouter router = replicaRouter;
+        if (router == null) {
+            synchronized (this) {
+                router = replicaRouter;
+                if (router == null) {
+                    router = newReplicaRouter();
+                    replicaRouter = router;
+                }
+            }
+        }
+        return router;
+    }
+
+    private ReplicaRouter newReplicaRouter() {
+        final List<String> urls = dbms.getReplicas()
+            .map(r -> Stream.of(r.split(",")))
+            .orElse(Stream.empty())
+            .map(String::trim)
+            .filter(r -> !r.isEmpty())
+            .map(this::replicaUrl)
+            .collect(toList());
+
+        final ReplicaRoutingPolicy policy = Optional.ofNullable(dbms.getReplicaRoutingPolicy())
+            .orElse(ReplicaRoutingPolicy.ROUND_ROBIN);
+
+        return new ReplicaRouter(urls, policy, speedment.getConnectionPoolComponent()::leaseSize);
+    }
+
+    private String replicaUrl(String endpoint) {
+        final int colon = endpoint.lastIndexOf(':');
+        if (colon < 0) {
+            return getUrl(endpoint, getDbms().getPort().orElse(null));
+        }
+        try {
+            return getUrl(endpoint.substring(0, colon), Integer.parseInt(endpoint.substring(colon + 1).trim()));
+        } catch (NumberFormatException nfe) {
+            throw new SpeedmentException("Illegal replica endpoint \"" + endpoint + "\" for " + dbms, nfe);
+        }
+    }
+
     protected Map<String, Class<?>> readTypeMapFromDB(Connection connection) throws SQLException {
         requireNonNull(connection);
         final Map<String, Class<?>> result = new ConcurrentHashMap<>();
@@ -433,7 +524,7 @@ public abstract class AbstractRelationalDbmsHandler implements DbmsHandler {
         requireNonNull(sql);
         requireNonNull(values);
         requireNonNull(rsMapper);
-        try (final Connection connection = getConnection(); final PreparedStatement ps = connection.prepareStatement(sql)) {
+        try (final Connection connection = getReadConnection(); final PreparedStatement ps = connection.prepareStatement(sql)) {
             int i = 1;
             for (final Object o : values) {
                 ps.setObject(i++, o);
@@ -458,11 +549,13 @@ public abstract class AbstractRelationalDbmsHandler implements DbmsHandler {
         final List<?> values,
         final Function<ResultSet, T> rsMapper
     ) {
+        // Stickiness is decided by the calling thread, not the consuming one
+        final boolean pinned = getReplicaRouter().isPinned();
         return new AsynchronousQueryResultImpl<>(
             Objects.requireNonNull(sql),
             Objects.requireNonNull(values),
             Objects.requireNonNull(rsMapper),
-            () -> getConnection());
+            () -> pinned ? getConnection() : getReadConnection());
     }
 
     @Override
@@ -470,15 +563,26 @@ public abstract class AbstractRelationalDbmsHandler implements DbmsHandler {
         final String sql,
         final List<?> values,
         final Consumer<List<Long>> generatedKeysConsumer
+    ) throws SQLException {
+        executeUpdate(sql, values, generatedKeysConsumer, null);
+    }
+
+    @Override
+    public void executeUpdate(
+        final String sql,
+        final List<?> values,
+        final Consumer<List<Long>> generatedKeysConsumer,
+        final Supplier<InvalidationBusComponent.Invalidation> invalidation
     ) throws SQLException {
         final List<SqlUpdateStatement> sqlStatementList = new ArrayList<>();
-        final SqlUpdateStatement sqlUpdateStatement = new SqlUpdateStatement(sql, values, generatedKeysConsumer);
+        final SqlUpdateStatement sqlUpdateStatement = new SqlUpdateStatement(sql, values, generatedKeysConsumer, invalidation);
         sqlStatementList.add(sqlUpdateStatement);
         executeUpdate(sqlStatementList);
     }
 
     private void executeUpdate(final List<SqlUpdateStatement> sqlStatementList) throws SQLException {
         requireNonNull(sqlStatementList);
+        getReplicaRouter().onWrite();
         int retryCount = 5;
         boolean transactionCompleted = false;
 
@@ -556,6 +660,21 @@ public abstract class AbstractRelationalDbmsHandler implements DbmsHandler {
 
         if (transactionCompleted) {
             sqlStatementList.forEach(SqlUpdateStatement::acceptGeneratedKeys);
+            publishInvalidations(sqlStatementList);
+        }
+    }
+
+    private void publishInvalidations(final List<SqlUpdateStatement> sqlStatementList) {
+        final InvalidationBusComponent bus = speedment.get(InvalidationBusComponent.class);
+        if (bus != null) {
+            for (final SqlUpdateStatement sqlStatement : sqlStatementList) {
+                try {
+                    sqlStatement.getInvalidation().ifPresent(bus::publish);
+                } catch (RuntimeException re) {
+                    // The update is already committed, so it must not fail
+                    LOGGER.error(re, "Unable to publish invalidation for " + sqlStatement.getSql());
+                }
+            }
         }
     }
 
@@ -32,6 +32,7 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.List;
 import static java.util.Objects.requireNonNull;
+import java.util.OptionalLong;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Stream;
@@ -53,6 +54,7 @@ public final class AsynchronousQueryResultImpl<T> implements AsynchronousQueryRe
     private PreparedStatement ps;
     private ResultSet rs;
     private State state;
+    private OptionalLong estimatedSize;
 
     public enum State {
         INIT, ESTABLISH, OPEN, CLOSED;
@@ -69,6 +71,7 @@ public final class AsynchronousQueryResultImpl<T> implements AsynchronousQueryRe
         setRsMapper(rsMapper);
         this.connectionSupplier = requireNonNull(connectionSupplier);
         setState(State.INIT);
+        this.estimatedSize = OptionalLong.empty();
         debug();
     }
 
@@ -89,6 +92,9 @@ public final class AsynchronousQueryResultImpl<T> implements AsynchronousQueryRe
             throw new SpeedmentException(sqle);
         }
         setState(State.OPEN);
+        if (estimatedSize.isPresent()) {
+            return StreamUtil.asStream(rs, getRsMapper(), estimatedSize.getAsLong());
+        }
         return StreamUtil.asStream(rs, getRsMapper());
     }
 
@@ -146,6 +152,30 @@ public final class AsynchronousQueryResultImpl<T> implements AsynchronousQueryRe
         this.rsMapper = requireNonNull(rsMapper);
     }
 
+    /**
+     * Returns the estimated number of rows of this query, or {@code empty} if
+     * it is not known.
+     *
+     * @return the estimated number of rows
+     */
+    public OptionalLong getEstimatedSize() {
+        return estimatedSize;
+    }
+
+    /**
+     * Sets the estimated number of rows of this query, for example a row
+     * count from an earlier query. The estimate is used to split the stream
+     * evenly if it is made parallel.
+     *
+     * @param estimatedSize the estimated number of rows
+     */
+    public void setEstimatedSize(long estimatedSize) {
+        if (estimatedSize < 0) {
+            throw new IllegalArgumentException("The estimated size must not be negative but was " + estimatedSize);
+        }
+        this.estimatedSize = OptionalLong.of(estimatedSize);
+    }
+
     public State getState() {
         return state;
     }
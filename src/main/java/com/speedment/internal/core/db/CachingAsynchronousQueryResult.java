@@ -0,0 +1,199 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.internal.core.db;
+
+import com.speedment.db.AsynchronousQueryResult;
+import com.speedment.internal.core.cache.QueryResultCache;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * An {@link AsynchronousQueryResult} that serves its rows from a
+ * {@link QueryResultCache} when possible. On a cache miss, the rows are
+ * streamed from the underlying query result and buffered on the side. The
+ * buffer is put in the cache only if the stream is consumed to its end and
+ * the estimated size of the rows stays within the bounds of the cache, so a
+ * short-circuiting or very large query never materializes its result.
+ * <p>
+ * Rows are never handed out as the instances held by the cache. Every row is
+ * passed through a copier, both when it is buffered and when it is served
+ * from the cache, so that callers may modify the rows they receive.
+ *
+ * @author pemi
+ * @param <T> The type that the ResultSet shall be mapped to
+ */
+public final class CachingAsynchronousQueryResult<T> implements AsynchronousQueryResult<T> {
+
+    private final AsynchronousQueryResult<T> inner;
+    private final QueryResultCache cache;
+    private final String table;
+    private final long estimatedBytesPerRow;
+    private final UnaryOperator<T> copier;
+
+    public CachingAsynchronousQueryResult(AsynchronousQueryResult<T> inner, QueryResultCache cache, String table, long estimatedBytesPerRow, UnaryOperator<T> copier) {
+        this.inner = requireNonNull(inner);
+        this.cache = requireNonNull(cache);
+        this.table = requireNonNull(table);
+        this.estimatedBytesPerRow = estimatedBytesPerRow;
+        this.copier = requireNonNull(copier);
+    }
+
+    @Override
+    public Stream<T> stream() {
+        final Optional<List<?>> cached = cache.getRows(table, getSql(), getValues());
+        if (cached.isPresent()) {
+            @SuppressWarnings("unchecked")
+            final List<T> rows = (List<T>) cached.get();
+            return rows.stream().map(copier);
+        }
+        final BufferingSpliterator spliterator = new BufferingSpliterator(
+            cache.generationOf(table), inner.stream().spliterator()
+        );
+        return StreamSupport.stream(spliterator, false)
+            .onClose(spliterator::release);
+    }
+
+    @Override
+    public void close() {
+        inner.close();
+    }
+
+    @Override
+    public String getSql() {
+        return inner.getSql();
+    }
+
+    @Override
+    public void setSql(String sql) {
+        inner.setSql(sql);
+    }
+
+    @Override
+    public List<?> getValues() {
+        return inner.getValues();
+    }
+
+    @Override
+    public void setValues(List<?> values) {
+        inner.setValues(values);
+    }
+
+    @Override
+    public Function<ResultSet, T> getRsMapper() {
+        return inner.getRsMapper();
+    }
+
+    @Override
+    public void setRsMapper(Function<ResultSet, T> rsMapper) {
+        inner.setRsMapper(rsMapper);
+    }
+
+    @Override
+    public String toString() {
+        return "Cached " + inner;
+    }
+
+    private final class BufferingSpliterator implements Spliterator<T> {
+
+        private final long generation;
+        private final Spliterator<T> source;
+        private final long maxRows;
+        private final AtomicBoolean released;
+        private List<T> buffer; // null when the result can not be cached
+
+        private BufferingSpliterator(long generation, Spliterator<T> source) {
+            this.generation = generation;
+            this.source = requireNonNull(source);
+            this.maxRows = cache.getMaxBytes() / Math.max(1, estimatedBytesPerRow);
+            this.released = new AtomicBoolean();
+            this.buffer = maxRows > 0 ? new ArrayList<>() : null;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            requireNonNull(action);
+            if (source.tryAdvance(t -> {
+                buffer(t);
+                action.accept(t);
+            })) {
+                return true;
+            }
+            finish();
+            return false;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super T> action) {
+            requireNonNull(action);
+            source.forEachRemaining(t -> {
+                buffer(t);
+                action.accept(t);
+            });
+            finish();
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            return null; // Rows must be buffered in encounter order
+        }
+
+        @Override
+        public long estimateSize() {
+            return source.estimateSize();
+        }
+
+        @Override
+        public int characteristics() {
+            return source.characteristics() & ~(SUBSIZED | CONCURRENT);
+        }
+
+        private void buffer(T row) {
+            if (buffer != null) {
+                if (buffer.size() < maxRows) {
+                    buffer.add(copier.apply(row));
+                } else {
+                    buffer = null; // Too large to be cached
+                }
+            }
+        }
+
+        private void finish() {
+            final List<T> rows = buffer;
+            buffer = null;
+            release(); // Release the connection as soon as possible
+            if (rows != null) {
+                cache.putRows(table, generation, getSql(), getValues(), rows, rows.size() * estimatedBytesPerRow);
+            }
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                inner.close();
+            }
+        }
+    }
+}
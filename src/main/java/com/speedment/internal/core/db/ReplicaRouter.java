@@ -0,0 +1,156 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.internal.core.db;
+
+import com.speedment.config.parameters.ReplicaRoutingPolicy;
+import com.speedment.db.TransactionScope;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToIntFunction;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Selects the connection URL to use for read-only queries when a
+ * {@link com.speedment.config.Dbms} declares read replicas. Updates are always
+ * sent to the primary host. A thread that has executed an update within an
+ * open {@link TransactionScope} will read from the primary host until the
+ * scope is closed.
+ *
+ * @author pemi
+ */
+public final class ReplicaRouter {
+
+    private final List<String> replicaUrls;
+    private final ReplicaRoutingPolicy policy;
+    private final ToIntFunction<String> leaseCounter;
+    private final AtomicInteger next;
+    private final ThreadLocal<Scope> scope;
+
+    /**
+     * Creates a new router.
+     *
+     * @param replicaUrls   the connection URLs of the replicas
+     * @param policy        the policy used to select among the replicas
+     * @param leaseCounter  returns the number of connections currently leased
+     *                      for a given URL
+     */
+    public ReplicaRouter(List<String> replicaUrls, ReplicaRoutingPolicy policy, ToIntFunction<String> leaseCounter) {
+        this.replicaUrls = Collections.unmodifiableList(new ArrayList<>(requireNonNull(replicaUrls)));
+        this.policy = requireNonNull(policy);
+        this.leaseCounter = requireNonNull(leaseCounter);
+        this.next = new AtomicInteger();
+        this.scope = new ThreadLocal<>();
+    }
+
+    /**
+     * Returns the connection URL of the replica that shall serve the next
+     * read-only query issued by the current thread, or {@code empty} if the
+     * query should be sent to the primary host.
+     *
+     * @return the replica URL or {@code empty}
+     */
+    public Optional<String> readUrl() {
+        if (replicaUrls.isEmpty() || isPinned()) {
+            return Optional.empty();
+        }
+        final int start = Math.floorMod(next.getAndIncrement(), replicaUrls.size());
+        switch (policy) {
+            case ROUND_ROBIN:
+                return Optional.of(replicaUrls.get(start));
+            case LEAST_LEASED: {
+                // Start at the round robin position so that ties are spread
+                String best = null;
+                int bestLeases = Integer.MAX_VALUE;
+                for (int i = 0; i < replicaUrls.size(); i++) {
+                    final String url = replicaUrls.get((start + i) % replicaUrls.size());
+                    final int leases = leaseCounter.applyAsInt(url);
+                    if (leases < bestLeases) {
+                        best = url;
+                        bestLeases = leases;
+                    }
+                }
+                return Optional.ofNullable(best);
+            }
+        }
+        throw new IllegalStateException("Unknown ReplicaRoutingPolicy: " + policy);
+    }
+
+    /**
+     * Returns if the current thread has written within an open scope and
+     * therefore must read from the primary host.
+     *
+     * @return if reads of the current thread are pinned to the primary host
+     */
+    public boolean isPinned() {
+        final Scope current = scope.get();
+        return current != null && current.written;
+    }
+
+    /**
+     * Notifies this router that the current thread is about to execute an
+     * update.
+     */
+    public void onWrite() {
+        final Scope current = scope.get();
+        if (current != null) {
+            current.written = true;
+        }
+    }
+
+    /**
+     * Opens a scope for the current thread. If a scope is already open, it is
+     * joined and will not be closed until the returned handle has also been
+     * closed.
+     *
+     * @return the scope
+     */
+    public TransactionScope openScope() {
+        final Scope current = scope.get();
+        if (current == null) {
+            final Scope created = new Scope();
+            scope.set(created);
+            return created;
+        }
+        current.depth++;
+        return current;
+    }
+
+    /**
+     * Returns the connection URLs of the replicas.
+     *
+     * @return the replica URLs
+     */
+    public List<String> getReplicaUrls() {
+        return replicaUrls;
+    }
+
+    private final class Scope implements TransactionScope {
+
+        private int depth = 1;
+        private boolean written;
+
+        @Override
+        public void close() {
+            if (depth > 0 && --depth == 0) {
+                scope.remove();
+            }
+        }
+    }
+}
@@ -67,6 +67,17 @@ public final class JoinImpl implements Join {
     public Table getOtherTable() {
         return otherTable;
     }
-    
-    // TODO figure out how the join should be instantiated...
+
+    /**
+     * Creates a new Join between the specified column of this table and the
+     * specified column of the other table.
+     * 
+     * @param columnName       the name of the local column
+     * @param otherColumnName  the name of the foreign column
+     * @param otherTable       the foreign table
+     * @return                 the new join
+     */
+    public static Join of(String columnName, String otherColumnName, Table otherTable) {
+        return new JoinImpl(columnName, otherColumnName, otherTable);
+    }
 }
\ No newline at end of file
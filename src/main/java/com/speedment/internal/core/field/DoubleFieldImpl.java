@@ -0,0 +1,114 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.internal.core.field;
+
+import com.speedment.field.DoubleField;
+import com.speedment.field.Inclusion;
+import com.speedment.field.methods.DoubleGetter;
+import com.speedment.field.methods.Setter;
+import com.speedment.field.predicate.ComparableSpeedmentPredicate;
+import static com.speedment.field.predicate.PredicateType.EQUAL;
+import static com.speedment.field.predicate.PredicateType.GREATER_OR_EQUAL;
+import static com.speedment.field.predicate.PredicateType.GREATER_THAN;
+import static com.speedment.field.predicate.PredicateType.LESS_OR_EQUAL;
+import static com.speedment.field.predicate.PredicateType.LESS_THAN;
+import static com.speedment.field.predicate.PredicateType.NOT_EQUAL;
+import com.speedment.internal.core.field.predicate.impl.primitive.DoubleBetweenPredicate;
+import com.speedment.internal.core.field.predicate.impl.primitive.DoubleComparePredicate;
+import com.speedment.internal.comparator.impl.NullOrder;
+import com.speedment.internal.comparator.impl.SpeedmentComparatorImpl;
+import java.util.Comparator;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * This class represents a non-nullable {@code double} field. The boxed methods
+ * inherited from {@link ComparableFieldImpl} work as before while predicates
+ * created from a primitive operand read the field through the primitive
+ * getter.
+ *
+ * @author pemi
+ * @param <ENTITY> The entity type
+ */
+public class DoubleFieldImpl<ENTITY> extends ComparableFieldImpl<ENTITY, Double> implements DoubleField<ENTITY> {
+
+    private final DoubleGetter<ENTITY> doubleGetter;
+
+    public DoubleFieldImpl(
+        String columnName,
+        DoubleGetter<ENTITY> getter,
+        Setter<ENTITY, Double> setter
+    ) {
+        super(columnName, requireNonNull(getter)::applyAsDouble, setter);
+        this.doubleGetter = getter;
+    }
+
+    @Override
+    public DoubleGetter<ENTITY> doubleGetter() {
+        return doubleGetter;
+    }
+
+    @Override
+    public ComparableSpeedmentPredicate<ENTITY, Double> equal(double value) {
+        return new DoubleComparePredicate<>(EQUAL, this, this, doubleGetter, value);
+    }
+
+    @Override
+    public ComparableSpeedmentPredicate<ENTITY, Double> notEqual(double value) {
+        return new DoubleComparePredicate<>(NOT_EQUAL, this, this, doubleGetter, value);
+    }
+
+    @Override
+    public ComparableSpeedmentPredicate<ENTITY, Double> lessThan(double value) {
+        return new DoubleComparePredicate<>(LESS_THAN, this, this, doubleGetter, value);
+    }
+
+    @Override
+    public ComparableSpeedmentPredicate<ENTITY, Double> lessOrEqual(double value) {
+        return new DoubleComparePredicate<>(LESS_OR_EQUAL, this, this, doubleGetter, value);
+    }
+
+    @Override
+    public ComparableSpeedmentPredicate<ENTITY, Double> greaterThan(double value) {
+        return new DoubleComparePredicate<>(GREATER_THAN, this, this, doubleGetter, value);
+    }
+
+    @Override
+    public ComparableSpeedmentPredicate<ENTITY, Double> greaterOrEqual(double value) {
+        return new DoubleComparePredicate<>(GREATER_OR_EQUAL, this, this, doubleGetter, value);
+    }
+
+    @Override
+    public ComparableSpeedmentPredicate<ENTITY, Double> between(double start, double end, Inclusion inclusion) {
+        return new DoubleBetweenPredicate<>(this, this, doubleGetter, start, end, requireNonNull(inclusion));
+    }
+
+    @Override
+    public Comparator<ENTITY> comparator() {
+        return new SpeedmentComparatorImpl<>(this, this, NullOrder.NONE);
+    }
+
+    @Override
+    public Comparator<ENTITY> comparatorNullFieldsFirst() {
+        return new SpeedmentComparatorImpl<>(this, this, NullOrder.FIRST);
+    }
+
+    @Override
+    public Comparator<ENTITY> comparatorNullFieldsLast() {
+        return new SpeedmentComparatorImpl<>(this, this, NullOrder.LAST);
+    }
+
+}
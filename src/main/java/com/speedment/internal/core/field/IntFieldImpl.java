@@ -0,0 +1,114 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.internal.core.field;
+
+import com.speedment.field.IntField;
+import com.speedment.field.Inclusion;
+import com.speedment.field.methods.IntGetter;
+import com.speedment.field.methods.Setter;
+import com.speedment.field.predicate.ComparableSpeedmentPredicate;
+import static com.speedment.field.predicate.PredicateType.EQUAL;
+import static com.speedment.field.predicate.PredicateType.GREATER_OR_EQUAL;
+import static com.speedment.field.predicate.PredicateType.GREATER_THAN;
+import static com.speedment.field.predicate.PredicateType.LESS_OR_EQUAL;
+import static com.speedment.field.predicate.PredicateType.LESS_THAN;
+import static com.speedment.field.predicate.PredicateType.NOT_EQUAL;
+import com.speedment.internal.core.field.predicate.impl.primitive.IntBetweenPredicate;
+import com.speedment.internal.core.field.predicate.impl.primitive.IntComparePredicate;
+import com.speedment.internal.comparator.impl.NullOrder;
+import com.speedment.internal.comparator.impl.SpeedmentComparatorImpl;
+import java.util.Comparator;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * This class represents a non-nullable {@code int} field. The boxed methods
+ * inherited from {@link ComparableFieldImpl} work as before while predicates
+ * created from a primitive operand read the field through the primitive
+ * getter.
+ *
+ * @author pemi
+ * @param <ENTITY> The entity type
+ */
+public class IntFieldImpl<ENTITY> extends ComparableFieldImpl<ENTITY, Integer> implements IntField<ENTITY> {
+
+    private final IntGetter<ENTITY> intGetter;
+
+    public IntFieldImpl(
+        String columnName,
+        IntGetter<ENTITY> getter,
+        Setter<ENTITY, Integer> setter
+    ) {
+        super(columnName, requireNonNull(getter)::applyAsInt, setter);
+        this.intGetter = getter;
+    }
+
+    @Override
+    public IntGetter<ENTITY> intGetter() {
+        return intGetter;
+    }
+
+    @Override
+    public ComparableSpeedmentPredicate<ENTITY, Integer> equal(int value) {
+        return new IntComparePredicate<>(EQUAL, this, this, intGetter, value);
+    }
+
+    @Override
+    public ComparableSpeedmentPredicate<ENTITY, Integer> notEqual(int value) {
+        return new IntComparePredicate<>(NOT_EQUAL, this, this, intGetter, value);
+    }
+
+    @Override
+    public ComparableSpeedmentPredicate<ENTITY, Integer> lessThan(int value) {
+        return new IntComparePredicate<>(LESS_THAN, this, this, intGetter, value);
+    }
+
+    @Override
+    public ComparableSpeedmentPredicate<ENTITY, Integer> lessOrEqual(int value) {
+        return new IntComparePredicate<>(LESS_OR_EQUAL, this, this, intGetter, value);
+    }
+
+    @Override
+    public ComparableSpeedmentPredicate<ENTITY, Integer> greaterThan(int value) {
+        return new IntComparePredicate<>(GREATER_THAN, this, this, intGetter, value);
+    }
+
+    @Override
+    public ComparableSpeedmentPredicate<ENTITY, Integer> greaterOrEqual(int value) {
+        return new IntComparePredicate<>(GREATER_OR_EQUAL, this, this, intGetter, value);
+    }
+
+    @Override
+    public ComparableSpeedmentPredicate<ENTITY, Integer> between(int start, int end, Inclusion inclusion) {
+        return new IntBetweenPredicate<>(this, this, intGetter, start, end, requireNonNull(inclusion));
+    }
+
+    @Override
+    public Comparator<ENTITY> comparator() {
+        return new SpeedmentComparatorImpl<>(this, this, NullOrder.NONE);
+    }
+
+    @Override
+    public Comparator<ENTITY> comparatorNullFieldsFirst() {
+        return new SpeedmentComparatorImpl<>(this, this, NullOrder.FIRST);
+    }
+
+    @Override
+    public Comparator<ENTITY> comparatorNullFieldsLast() {
+        return new SpeedmentComparatorImpl<>(this, this, NullOrder.LAST);
+    }
+
+}
@@ -0,0 +1,114 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.internal.core.field;
+
+import com.speedment.field.LongField;
+import com.speedment.field.Inclusion;
+import com.speedment.field.methods.LongGetter;
+import com.speedment.field.methods.Setter;
+import com.speedment.field.predicate.ComparableSpeedmentPredicate;
+import static com.speedment.field.predicate.PredicateType.EQUAL;
+import static com.speedment.field.predicate.PredicateType.GREATER_OR_EQUAL;
+import static com.speedment.field.predicate.PredicateType.GREATER_THAN;
+import static com.speedment.field.predicate.PredicateType.LESS_OR_EQUAL;
+import static com.speedment.field.predicate.PredicateType.LESS_THAN;
+import static com.speedment.field.predicate.PredicateType.NOT_EQUAL;
+import com.speedment.internal.core.field.predicate.impl.primitive.LongBetweenPredicate;
+import com.speedment.internal.core.field.predicate.impl.primitive.LongComparePredicate;
+import com.speedment.internal.comparator.impl.NullOrder;
+import com.speedment.internal.comparator.impl.SpeedmentComparatorImpl;
+import java.util.Comparator;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * This class represents a non-nullable {@code long} field. The boxed methods
+ * inherited from {@link ComparableFieldImpl} work as before while predicates
+ * created from a primitive operand read the field through the primitive
+ * getter.
+ *
+ * @author pemi
+ * @param <ENTITY> The entity type
+ */
+public class LongFieldImpl<ENTITY> extends ComparableFieldImpl<ENTITY, Long> implements LongField<ENTITY> {
+
+    private final LongGetter<ENTITY> longGetter;
+
+    public LongFieldImpl(
+        String columnName,
+        LongGetter<ENTITY> getter,
+        Setter<ENTITY, Long> setter
+    ) {
+        super(columnName, requireNonNull(getter)::applyAsLong, setter);
+        this.longGetter = getter;
+    }
+
+    @Override
+    public LongGetter<ENTITY> longGetter() {
+        return longGetter;
+    }
+
+    @Override
+    public ComparableSpeedmentPredicate<ENTITY, Long> equal(long value) {
+        return new LongComparePredicate<>(EQUAL, this, this, longGetter, value);
+    }
+
+    @Override
+    public ComparableSpeedmentPredicate<ENTITY, Long> notEqual(long value) {
+        return new LongComparePredicate<>(NOT_EQUAL, this, this, longGetter, value);
+    }
+
+    @Override
+    public ComparableSpeedmentPredicate<ENTITY, Long> lessThan(long value) {
+        return new LongComparePredicate<>(LESS_THAN, this, this, longGetter, value);
+    }
+
+    @Override
+    public ComparableSpeedmentPredicate<ENTITY, Long> lessOrEqual(long value) {
+        return new LongComparePredicate<>(LESS_OR_EQUAL, this, this, longGetter, value);
+    }
+
+    @Override
+    public ComparableSpeedmentPredicate<ENTITY, Long> greaterThan(long value) {
+        return new LongComparePredicate<>(GREATER_THAN, this, this, longGetter, value);
+    }
+
+    @Override
+    public ComparableSpeedmentPredicate<ENTITY, Long> greaterOrEqual(long value) {
+        return new LongComparePredicate<>(GREATER_OR_EQUAL, this, this, longGetter, value);
+    }
+
+    @Override
+    public ComparableSpeedmentPredicate<ENTITY, Long> between(long start, long end, Inclusion inclusion) {
+        return new LongBetweenPredicate<>(this, this, longGetter, start, end, requireNonNull(inclusion));
+    }
+
+    @Override
+    public Comparator<ENTITY> comparator() {
+        return new SpeedmentComparatorImpl<>(this, this, NullOrder.NONE);
+    }
+
+    @Override
+    public Comparator<ENTITY> comparatorNullFieldsFirst() {
+        return new SpeedmentComparatorImpl<>(this, this, NullOrder.FIRST);
+    }
+
+    @Override
+    public Comparator<ENTITY> comparatorNullFieldsLast() {
+        return new SpeedmentComparatorImpl<>(this, this, NullOrder.LAST);
+    }
+
+}
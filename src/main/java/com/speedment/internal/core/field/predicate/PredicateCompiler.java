@@ -0,0 +1,503 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.internal.core.field.predicate;
+
+import com.speedment.field.DoubleField;
+import com.speedment.field.IntField;
+import com.speedment.field.LongField;
+import com.speedment.field.predicate.PredicateType;
+import com.speedment.field.predicate.SpeedmentPredicate;
+import com.speedment.field.trait.ReferenceFieldTrait;
+import com.speedment.internal.core.field.predicate.AbstractCombinedBasePredicate.AndCombinedBasePredicate;
+import com.speedment.internal.core.field.predicate.impl.SpeedmentPredicateImpl;
+import static com.speedment.util.StaticClassUtil.instanceNotAllowed;
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import static java.util.Objects.requireNonNull;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Compiles a number of predicates that are combined with AND into a single
+ * predicate.
+ * <p>
+ * Nested {@link AndCombinedBasePredicate AND-predicates} are flattened. Runs
+ * of consecutive {@link SpeedmentPredicate SpeedmentPredicates} are then
+ * ordered so that cheap and selective predicates are tested first. The cost
+ * of a predicate is estimated from its {@link PredicateType} and its
+ * selectivity from the pass rates that previous executions have recorded in
+ * a {@link PredicateStatistics} instance. Predicates on the same reference
+ * field share a single invocation of the getter.
+ * <p>
+ * Other predicates are never moved since they may depend on the predicates
+ * before them. If a reordered run throws an exception for a row, that row is
+ * tested again with the run in declaration order so that the result is the
+ * same as for the original predicates.
+ *
+ * @author pemi
+ */
+public final class PredicateCompiler {
+
+    /**
+     * The number of rows per compiled predicate that are tested against all
+     * predicates of a run and recorded in the statistics.
+     */
+    static final int SAMPLE_SIZE = 256;
+
+    private static final double READ_COST = 1;
+    private static final double MIN_REJECT_RATE = 0.01;
+
+    /**
+     * Compiles the given predicates into a single predicate that is
+     * equivalent to combining them with AND.
+     *
+     * @param <ENTITY>    the entity type
+     * @param predicates  the predicates in declaration order
+     * @param statistics  the statistics to read and record pass rates in
+     * @return            the compiled predicate
+     */
+    public static <ENTITY> Predicate<ENTITY> compile(List<? extends Predicate<? super ENTITY>> predicates, PredicateStatistics statistics) {
+        requireNonNull(predicates);
+        requireNonNull(statistics);
+
+        final List<Predicate<? super ENTITY>> conjuncts = new ArrayList<>();
+        predicates.forEach(p -> flatten(requireNonNull(p), conjuncts));
+
+        final List<Step<ENTITY>> steps = new ArrayList<>();
+        final List<SpeedmentPredicate<ENTITY, ?>> run = new ArrayList<>();
+        for (final Predicate<? super ENTITY> conjunct : conjuncts) {
+            if (conjunct instanceof SpeedmentPredicate) {
+                @SuppressWarnings("unchecked")
+                final SpeedmentPredicate<ENTITY, ?> speedmentPredicate = (SpeedmentPredicate<ENTITY, ?>) conjunct;
+                run.add(speedmentPredicate);
+            } else {
+                addRun(steps, run, statistics);
+                steps.add(new OpaqueStep<>(conjunct));
+            }
+        }
+        addRun(steps, run, statistics);
+
+        return new CompiledPredicate<>(steps, statistics);
+    }
+
+    /**
+     * Returns the key that pass rates of the given predicate are recorded
+     * under.
+     *
+     * @param predicate  the predicate
+     * @return           the statistics key
+     */
+    public static String keyOf(SpeedmentPredicate<?, ?> predicate) {
+        requireNonNull(predicate);
+        return predicate.getField().getColumnName() + ":" + predicate.getEffectivePredicateType().name();
+    }
+
+    static double costOf(SpeedmentPredicate<?, ?> predicate) {
+        if (isPrimitive(predicate)) {
+            return 0.5;
+        }
+        switch (predicate.getPredicateType()) {
+            case ALWAYS_TRUE:
+            case ALWAYS_FALSE:
+            case IS_NULL:
+            case IS_NOT_NULL:
+                return 0.5;
+            case EQUAL:
+            case NOT_EQUAL:
+            case GREATER_THAN:
+            case GREATER_OR_EQUAL:
+            case LESS_THAN:
+            case LESS_OR_EQUAL:
+            case IS_EMPTY:
+            case IS_NOT_EMPTY:
+                return 1;
+            case BETWEEN:
+            case NOT_BETWEEN:
+                return 2;
+            case IN:
+            case NOT_IN:
+            case EQUAL_IGNORE_CASE:
+            case NOT_EQUAL_IGNORE_CASE:
+                return 3;
+            case STARTS_WITH:
+            case NOT_STARTS_WITH:
+                return 4;
+            case ENDS_WITH:
+            case NOT_ENDS_WITH:
+                return 5;
+            case CONTAINS:
+            case NOT_CONTAINS:
+                return 8;
+            default:
+                return 8;
+        }
+    }
+
+    static double priorOf(PredicateType effectiveType) {
+        switch (effectiveType) {
+            case ALWAYS_TRUE:
+                return 1;
+            case ALWAYS_FALSE:
+                return 0;
+            case EQUAL:
+            case IS_NULL:
+            case EQUAL_IGNORE_CASE:
+            case IS_EMPTY:
+                return 0.1;
+            case NOT_EQUAL:
+            case IS_NOT_NULL:
+            case NOT_EQUAL_IGNORE_CASE:
+            case IS_NOT_EMPTY:
+                return 0.9;
+            case IN:
+                return 0.2;
+            case NOT_IN:
+                return 0.8;
+            case BETWEEN:
+            case STARTS_WITH:
+            case ENDS_WITH:
+            case CONTAINS:
+                return 0.3;
+            case NOT_BETWEEN:
+            case NOT_STARTS_WITH:
+            case NOT_ENDS_WITH:
+            case NOT_CONTAINS:
+                return 0.7;
+            default:
+                return 0.5;
+        }
+    }
+
+    private static boolean isPrimitive(SpeedmentPredicate<?, ?> predicate) {
+        final ReferenceFieldTrait<?, ?> field = predicate.getReferenceField();
+        return field instanceof IntField
+            || field instanceof LongField
+            || field instanceof DoubleField;
+    }
+
+    private static <ENTITY> void flatten(Predicate<? super ENTITY> predicate, List<Predicate<? super ENTITY>> conjuncts) {
+        if (predicate instanceof AndCombinedBasePredicate && !((AndCombinedBasePredicate<?>) predicate).isNegated()) {
+            @SuppressWarnings("unchecked")
+            final AndCombinedBasePredicate<ENTITY> and = (AndCombinedBasePredicate<ENTITY>) predicate;
+            and.stream().forEachOrdered(p -> flatten(p, conjuncts));
+        } else {
+            conjuncts.add(predicate);
+        }
+    }
+
+    private static <ENTITY> void addRun(List<Step<ENTITY>> steps, List<SpeedmentPredicate<ENTITY, ?>> run, PredicateStatistics statistics) {
+        if (run.isEmpty()) {
+            return;
+        }
+        final Map<ReferenceFieldTrait<?, ?>, List<SpeedmentPredicate<ENTITY, ?>>> byField = new IdentityHashMap<>();
+        final List<Unit<ENTITY>> units = new ArrayList<>();
+        for (final SpeedmentPredicate<ENTITY, ?> predicate : run) {
+            if (predicate instanceof SpeedmentPredicateImpl && !isPrimitive(predicate)) {
+                byField.computeIfAbsent(predicate.getReferenceField(), f -> new ArrayList<>()).add(predicate);
+            } else {
+                units.add(new PredicateUnit<>(predicate, statistics));
+            }
+        }
+        byField.values().forEach(predicates -> {
+            if (predicates.size() == 1) {
+                units.add(new PredicateUnit<>(predicates.get(0), statistics));
+            } else {
+                units.add(new ColumnUnit<>(predicates, statistics));
+            }
+        });
+        units.sort(Comparator.comparingDouble(Unit::rank));
+        steps.add(new RunStep<>(units, new ArrayList<>(run)));
+        run.clear();
+    }
+
+    private static double rankOf(double cost, double passRate) {
+        return cost / Math.max(1 - passRate, MIN_REJECT_RATE);
+    }
+
+    /**
+     * Creates an array of a generic element type from the erased class of
+     * the elements.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T[] newArray(Class<?> erasedType, int length) {
+        return (T[]) Array.newInstance(erasedType, length);
+    }
+
+    private static final class CompiledPredicate<ENTITY> implements Predicate<ENTITY> {
+
+        private final Step<ENTITY>[] steps;
+        private final PredicateStatistics statistics;
+        private final AtomicInteger samples;
+
+        private CompiledPredicate(List<Step<ENTITY>> steps, PredicateStatistics statistics) {
+            this.steps = steps.toArray(newArray(Step.class, steps.size()));
+            this.statistics = statistics;
+            this.samples = new AtomicInteger();
+        }
+
+        @Override
+        public boolean test(ENTITY entity) {
+            if (samples.get() < SAMPLE_SIZE && samples.getAndIncrement() < SAMPLE_SIZE) {
+                for (final Step<ENTITY> step : steps) {
+                    if (!step.sample(entity, statistics)) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+            for (final Step<ENTITY> step : steps) {
+                if (!step.test(entity)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            final StringBuilder sb = new StringBuilder("CompiledPredicate {steps: [");
+            for (int i = 0; i < steps.length; i++) {
+                if (i > 0) {
+                    sb.append(", ");
+                }
+                sb.append(steps[i]);
+            }
+            return sb.append("]}").toString();
+        }
+    }
+
+    private interface Step<ENTITY> {
+
+        boolean test(ENTITY entity);
+
+        boolean sample(ENTITY entity, PredicateStatistics statistics);
+    }
+
+    private static final class OpaqueStep<ENTITY> implements Step<ENTITY> {
+
+        private final Predicate<? super ENTITY> predicate;
+
+        private OpaqueStep(Predicate<? super ENTITY> predicate) {
+            this.predicate = predicate;
+        }
+
+        @Override
+        public boolean test(ENTITY entity) {
+            return predicate.test(entity);
+        }
+
+        @Override
+        public boolean sample(ENTITY entity, PredicateStatistics statistics) {
+            return predicate.test(entity);
+        }
+
+        @Override
+        public String toString() {
+            return predicate.toString();
+        }
+    }
+
+    private static final class RunStep<ENTITY> implements Step<ENTITY> {
+
+        private final Unit<ENTITY>[] units;
+        private final List<SpeedmentPredicate<ENTITY, ?>> declared;
+
+        private RunStep(List<Unit<ENTITY>> units, List<SpeedmentPredicate<ENTITY, ?>> declared) {
+            this.units = units.toArray(newArray(Unit.class, units.size()));
+            this.declared = declared;
+        }
+
+        @Override
+        public boolean test(ENTITY entity) {
+            try {
+                for (final Unit<ENTITY> unit : units) {
+                    if (!unit.test(entity)) {
+                        return false;
+                    }
+                }
+                return true;
+            } catch (RuntimeException ex) {
+                return testDeclared(entity);
+            }
+        }
+
+        @Override
+        public boolean sample(ENTITY entity, PredicateStatistics statistics) {
+            try {
+                boolean result = true;
+                for (final Unit<ENTITY> unit : units) {
+                    result &= unit.sample(entity, statistics);
+                }
+                return result;
+            } catch (RuntimeException ex) {
+                return testDeclared(entity);
+            }
+        }
+
+        private boolean testDeclared(ENTITY entity) {
+            for (final SpeedmentPredicate<ENTITY, ?> predicate : declared) {
+                if (!predicate.test(entity)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            final StringBuilder sb = new StringBuilder("[");
+            for (int i = 0; i < units.length; i++) {
+                if (i > 0) {
+                    sb.append(", ");
+                }
+                sb.append(units[i]);
+            }
+            return sb.append("]").toString();
+        }
+    }
+
+    private static abstract class Unit<ENTITY> {
+
+        abstract boolean test(ENTITY entity);
+
+        abstract boolean sample(ENTITY entity, PredicateStatistics statistics);
+
+        abstract double rank();
+    }
+
+    private static final class PredicateUnit<ENTITY> extends Unit<ENTITY> {
+
+        private final SpeedmentPredicate<ENTITY, ?> predicate;
+        private final String key;
+        private final double rank;
+
+        private PredicateUnit(SpeedmentPredicate<ENTITY, ?> predicate, PredicateStatistics statistics) {
+            this.predicate = predicate;
+            this.key = keyOf(predicate);
+            this.rank = rankOf(
+                READ_COST + costOf(predicate),
+                statistics.passRate(key, priorOf(predicate.getEffectivePredicateType()))
+            );
+        }
+
+        @Override
+        boolean test(ENTITY entity) {
+            return predicate.test(entity);
+        }
+
+        @Override
+        boolean sample(ENTITY entity, PredicateStatistics statistics) {
+            final boolean result = predicate.test(entity);
+            statistics.record(key, result);
+            return result;
+        }
+
+        @Override
+        double rank() {
+            return rank;
+        }
+
+        @Override
+        public String toString() {
+            return key;
+        }
+    }
+
+    private static final class ColumnUnit<ENTITY> extends Unit<ENTITY> {
+
+        private final Function<ENTITY, ?> getter;
+        private final SpeedmentPredicateImpl<ENTITY, Object>[] predicates;
+        private final String[] keys;
+        private final double rank;
+
+        @SuppressWarnings("unchecked")
+        private ColumnUnit(List<SpeedmentPredicate<ENTITY, ?>> predicates, PredicateStatistics statistics) {
+            final List<SpeedmentPredicate<ENTITY, ?>> sorted = new ArrayList<>(predicates);
+            sorted.sort(Comparator.comparingDouble(p -> rankOf(
+                costOf(p),
+                statistics.passRate(keyOf(p), priorOf(p.getEffectivePredicateType()))
+            )));
+
+            this.getter = sorted.get(0).getter();
+            this.predicates = newArray(SpeedmentPredicateImpl.class, sorted.size());
+            this.keys = new String[sorted.size()];
+
+            double cost = READ_COST;
+            double passRate = 1;
+            for (int i = 0; i < sorted.size(); i++) {
+                final SpeedmentPredicate<ENTITY, ?> predicate = sorted.get(i);
+                this.predicates[i] = (SpeedmentPredicateImpl<ENTITY, Object>) predicate;
+                this.keys[i] = keyOf(predicate);
+                cost += costOf(predicate) * passRate;
+                passRate *= statistics.passRate(keys[i], priorOf(predicate.getEffectivePredicateType()));
+            }
+            this.rank = rankOf(cost, passRate);
+        }
+
+        @Override
+        boolean test(ENTITY entity) {
+            final Object value = getter.apply(entity);
+            for (final SpeedmentPredicateImpl<ENTITY, Object> predicate : predicates) {
+                if (!(predicate.testField(value) ^ predicate.isNegated())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        boolean sample(ENTITY entity, PredicateStatistics statistics) {
+            final Object value = getter.apply(entity);
+            boolean result = true;
+            for (int i = 0; i < predicates.length; i++) {
+                final boolean passed = predicates[i].testField(value) ^ predicates[i].isNegated();
+                statistics.record(keys[i], passed);
+                result &= passed;
+            }
+            return result;
+        }
+
+        @Override
+        double rank() {
+            return rank;
+        }
+
+        @Override
+        public String toString() {
+            final StringBuilder sb = new StringBuilder("{");
+            for (int i = 0; i < keys.length; i++) {
+                if (i > 0) {
+                    sb.append(", ");
+                }
+                sb.append(keys[i]);
+            }
+            return sb.append("}").toString();
+        }
+    }
+
+    /**
+     * Utility classes should not be instantiated.
+     */
+    private PredicateCompiler() {
+        instanceNotAllowed(getClass());
+    }
+}
@@ -0,0 +1,116 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.internal.core.field.predicate;
+
+import java.util.Map;
+import static java.util.Objects.requireNonNull;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pass rates of predicates observed while evaluating compiled filters. The
+ * {@link PredicateCompiler} samples a number of rows of every execution and
+ * uses the collected rates to order the conjuncts of the next one.
+ * <p>
+ * Rates are kept per key, typically a column name combined with a predicate
+ * type. Old observations are halved once a key has seen enough rows so that
+ * the rates follow changes in the data.
+ *
+ * @author pemi
+ */
+public final class PredicateStatistics {
+
+    static final int MAX_TESTED = 1 << 16;
+    private static final double PRIOR_WEIGHT = 16;
+
+    private final Map<String, Entry> entries;
+
+    public PredicateStatistics() {
+        this.entries = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Records the outcome of testing a row.
+     *
+     * @param key     the key of the predicate
+     * @param passed  {@code true} if the row passed the predicate
+     */
+    public void record(String key, boolean passed) {
+        requireNonNull(key);
+        entries.computeIfAbsent(key, k -> new Entry()).record(passed);
+    }
+
+    /**
+     * Returns the estimated share of rows that pass the predicate with the
+     * given key. The estimate is blended with the given prior until enough
+     * rows have been observed.
+     *
+     * @param key    the key of the predicate
+     * @param prior  the pass rate to assume when nothing is known
+     * @return       the estimated pass rate between 0 and 1
+     */
+    public double passRate(String key, double prior) {
+        requireNonNull(key);
+        final Entry entry = entries.get(key);
+        if (entry == null) {
+            return prior;
+        }
+        return entry.passRate(prior);
+    }
+
+    /**
+     * Returns the number of rows that has been observed for the given key
+     * since it was last halved.
+     *
+     * @param key  the key of the predicate
+     * @return     the number of observed rows
+     */
+    public long tested(String key) {
+        requireNonNull(key);
+        final Entry entry = entries.get(key);
+        return entry == null ? 0 : entry.tested();
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    private static final class Entry {
+
+        private long tested;
+        private long passed;
+
+        synchronized void record(boolean pass) {
+            if (tested >= MAX_TESTED) {
+                tested >>>= 1;
+                passed >>>= 1;
+            }
+            tested++;
+            if (pass) {
+                passed++;
+            }
+        }
+
+        synchronized double passRate(double prior) {
+            return (passed + prior * PRIOR_WEIGHT) / (tested + PRIOR_WEIGHT);
+        }
+
+        synchronized long tested() {
+            return tested;
+        }
+    }
+
+}
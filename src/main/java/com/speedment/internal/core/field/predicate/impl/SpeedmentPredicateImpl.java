@@ -63,7 +63,7 @@ public abstract class SpeedmentPredicateImpl<ENTITY, V> extends AbstractBasePred
     public abstract boolean testField(V fieldValue);
 
     @Override
-    public final boolean test(ENTITY t) {
+    public boolean test(ENTITY t) {
         return testField(getter().apply(t)) ^ isNegated();
     }
 
@@ -24,9 +24,18 @@ import com.speedment.field.trait.FieldTrait;
 import com.speedment.field.trait.ReferenceFieldTrait;
 import com.speedment.internal.core.field.predicate.impl.SpeedmentPredicateImpl;
 import java.util.Set;
+import com.speedment.internal.util.LongHashSet;
 import com.speedment.internal.core.field.predicate.iface.type.BinarySetOperation;
 
 /**
+ * A predicate that tests if a field value is in a set of values.
+ * <p>
+ * If all the values are of the same numeric wrapper type, they are copied
+ * into a {@link LongHashSet} when the predicate is created. Field values of
+ * that type are then tested without calling {@code equals} or
+ * {@code compareTo}, regardless of what kind of set that was given. Floating
+ * point values are compared by their bits, which is the same as comparing
+ * them using {@link Double#equals(java.lang.Object)}.
  *
  * @author pemi
  * @param <ENTITY> the entity type
@@ -37,10 +46,19 @@ public class InPredicate<ENTITY, V extends Comparable<? super V>>
     implements SpeedmentPredicate<ENTITY, V>, BinarySetOperation<V>, ComparableSpeedmentPredicate<ENTITY, V> {
 
     private final Set<V> operand0;
+    private final Class<?> primitiveType;
+    private final LongHashSet primitiveSet;
 
     public InPredicate(FieldTrait field, ReferenceFieldTrait<ENTITY, V> referenceField, Set<V> values) {
         super(IN, field, referenceField);
         this.operand0 = values;
+        this.primitiveType = commonNumericType(values);
+        if (primitiveType == null) {
+            this.primitiveSet = null;
+        } else {
+            this.primitiveSet = new LongHashSet(values.size());
+            values.forEach(v -> primitiveSet.add(bitsOf(v)));
+        }
     }
 
     @Override
@@ -50,7 +68,52 @@ public class InPredicate<ENTITY, V extends Comparable<? super V>>
 
     @Override
     public boolean testField(V fieldValue) {
+        if (primitiveSet != null) {
+            if (fieldValue == null) {
+                return false;
+            }
+            if (fieldValue.getClass() == primitiveType) {
+                return primitiveSet.contains(bitsOf(fieldValue));
+            }
+        }
         return operand0.contains(fieldValue);
     }
 
+    private static Class<?> commonNumericType(Set<?> values) {
+        Class<?> type = null;
+        for (final Object value : values) {
+            if (value == null) {
+                return null;
+            }
+            final Class<?> valueType = value.getClass();
+            if (type == null) {
+                if (!isNumeric(valueType)) {
+                    return null;
+                }
+                type = valueType;
+            } else if (type != valueType) {
+                return null;
+            }
+        }
+        return type;
+    }
+
+    private static boolean isNumeric(Class<?> type) {
+        return type == Long.class
+            || type == Integer.class
+            || type == Short.class
+            || type == Byte.class
+            || type == Double.class
+            || type == Float.class;
+    }
+
+    private static long bitsOf(Object value) {
+        if (value instanceof Double) {
+            return Double.doubleToLongBits((Double) value);
+        } else if (value instanceof Float) {
+            return Float.floatToIntBits((Float) value);
+        }
+        return ((Number) value).longValue();
+    }
+
 }
@@ -0,0 +1,100 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.internal.core.field.predicate.impl.primitive;
+
+import com.speedment.field.methods.DoubleGetter;
+import com.speedment.field.predicate.ComparableSpeedmentPredicate;
+import com.speedment.field.predicate.PredicateType;
+import com.speedment.field.predicate.SpeedmentPredicate;
+import com.speedment.field.trait.FieldTrait;
+import com.speedment.field.trait.ReferenceFieldTrait;
+import com.speedment.internal.core.field.predicate.iface.type.BinaryOperation;
+import com.speedment.internal.core.field.predicate.impl.SpeedmentPredicateImpl;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A comparison between a {@code double} field and a constant that is evaluated
+ * without boxing the field value. Values are compared using {@link Double#compare(double, double)} so that
+ * the result is the same as for the boxed predicates.
+ *
+ * @author pemi
+ * @param <ENTITY> the entity type
+ */
+public class DoubleComparePredicate<ENTITY>
+    extends SpeedmentPredicateImpl<ENTITY, Double>
+    implements SpeedmentPredicate<ENTITY, Double>, BinaryOperation<Double>, ComparableSpeedmentPredicate<ENTITY, Double> {
+
+    private final DoubleGetter<ENTITY> getter;
+    private final double operand0;
+    private final Double boxedOperand0;
+    private final DoubleBiPredicate innerPredicate;
+
+    public DoubleComparePredicate(
+        PredicateType predicateType,
+        FieldTrait field,
+        ReferenceFieldTrait<ENTITY, Double> referenceField,
+        DoubleGetter<ENTITY> getter,
+        double operand0
+    ) {
+        super(predicateType, field, referenceField);
+        this.getter = requireNonNull(getter);
+        this.operand0 = operand0;
+        this.boxedOperand0 = operand0;
+        this.innerPredicate = innerPredicateOf(predicateType);
+    }
+
+    @Override
+    public Double getFirstOperand() {
+        return boxedOperand0;
+    }
+
+    @Override
+    public boolean testField(Double fieldValue) {
+        return fieldValue != null && innerPredicate.test(fieldValue, operand0);
+    }
+
+    @Override
+    public boolean test(ENTITY entity) {
+        return innerPredicate.test(getter.applyAsDouble(entity), operand0) ^ isNegated();
+    }
+
+    private static DoubleBiPredicate innerPredicateOf(PredicateType predicateType) {
+        switch (requireNonNull(predicateType)) {
+            case EQUAL:
+                return (a, b) -> Double.compare(a, b) == 0;
+            case NOT_EQUAL:
+                return (a, b) -> Double.compare(a, b) != 0;
+            case GREATER_THAN:
+                return (a, b) -> Double.compare(a, b) > 0;
+            case GREATER_OR_EQUAL:
+                return (a, b) -> Double.compare(a, b) >= 0;
+            case LESS_THAN:
+                return (a, b) -> Double.compare(a, b) < 0;
+            case LESS_OR_EQUAL:
+                return (a, b) -> Double.compare(a, b) <= 0;
+            default:
+                throw new IllegalArgumentException("Unsupported predicate type " + predicateType + ".");
+        }
+    }
+
+    @FunctionalInterface
+    private interface DoubleBiPredicate {
+
+        boolean test(double fieldValue, double operand);
+    }
+
+}
@@ -0,0 +1,97 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.internal.core.field.predicate.impl.primitive;
+
+import com.speedment.field.Inclusion;
+import static com.speedment.field.predicate.PredicateType.BETWEEN;
+import com.speedment.field.methods.LongGetter;
+import com.speedment.field.predicate.ComparableSpeedmentPredicate;
+import com.speedment.field.predicate.SpeedmentPredicate;
+import com.speedment.field.trait.FieldTrait;
+import com.speedment.field.trait.ReferenceFieldTrait;
+import com.speedment.internal.core.field.predicate.iface.type.QuaternaryInclusionOperation;
+import com.speedment.internal.core.field.predicate.impl.SpeedmentPredicateImpl;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A range check of a {@code long} field that is evaluated without boxing the
+ * field value.
+ *
+ * @author pemi
+ * @param <ENTITY> the entity type
+ */
+public class LongBetweenPredicate<ENTITY>
+    extends SpeedmentPredicateImpl<ENTITY, Long>
+    implements SpeedmentPredicate<ENTITY, Long>, QuaternaryInclusionOperation<Long, Long>, ComparableSpeedmentPredicate<ENTITY, Long> {
+
+    private final LongGetter<ENTITY> getter;
+    private final long start;
+    private final long end;
+    private final boolean startInclusive;
+    private final boolean endInclusive;
+    private final Inclusion operand2;
+
+    public LongBetweenPredicate(
+        FieldTrait field,
+        ReferenceFieldTrait<ENTITY, Long> referenceField,
+        LongGetter<ENTITY> getter,
+        long start,
+        long end,
+        Inclusion inclusion
+    ) {
+        super(BETWEEN, field, referenceField);
+        this.getter = requireNonNull(getter);
+        this.start = start;
+        this.end = end;
+        this.operand2 = requireNonNull(inclusion);
+        this.startInclusive = inclusion == Inclusion.START_INCLUSIVE_END_EXCLUSIVE
+            || inclusion == Inclusion.START_INCLUSIVE_END_INCLUSIVE;
+        this.endInclusive = inclusion == Inclusion.START_EXCLUSIVE_END_INCLUSIVE
+            || inclusion == Inclusion.START_INCLUSIVE_END_INCLUSIVE;
+    }
+
+    @Override
+    public Long getFirstOperand() {
+        return start;
+    }
+
+    @Override
+    public Long getSecondOperand() {
+        return end;
+    }
+
+    @Override
+    public Inclusion getThirdOperand() {
+        return operand2;
+    }
+
+    @Override
+    public boolean testField(Long fieldValue) {
+        return fieldValue != null && inRange(fieldValue);
+    }
+
+    @Override
+    public boolean test(ENTITY entity) {
+        return inRange(getter.applyAsLong(entity)) ^ isNegated();
+    }
+
+    private boolean inRange(long v) {
+        return (startInclusive ? start <= v : start < v)
+            && (endInclusive ? end >= v : end > v);
+    }
+
+}
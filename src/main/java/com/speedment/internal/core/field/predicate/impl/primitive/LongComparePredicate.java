@@ -0,0 +1,99 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.internal.core.field.predicate.impl.primitive;
+
+import com.speedment.field.methods.LongGetter;
+import com.speedment.field.predicate.ComparableSpeedmentPredicate;
+import com.speedment.field.predicate.PredicateType;
+import com.speedment.field.predicate.SpeedmentPredicate;
+import com.speedment.field.trait.FieldTrait;
+import com.speedment.field.trait.ReferenceFieldTrait;
+import com.speedment.internal.core.field.predicate.iface.type.BinaryOperation;
+import com.speedment.internal.core.field.predicate.impl.SpeedmentPredicateImpl;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A comparison between a {@code long} field and a constant that is evaluated
+ * without boxing the field value.
+ *
+ * @author pemi
+ * @param <ENTITY> the entity type
+ */
+public class LongComparePredicate<ENTITY>
+    extends SpeedmentPredicateImpl<ENTITY, Long>
+    implements SpeedmentPredicate<ENTITY, Long>, BinaryOperation<Long>, ComparableSpeedmentPredicate<ENTITY, Long> {
+
+    private final LongGetter<ENTITY> getter;
+    private final long operand0;
+    private final Long boxedOperand0;
+    private final LongBiPredicate innerPredicate;
+
+    public LongComparePredicate(
+        PredicateType predicateType,
+        FieldTrait field,
+        ReferenceFieldTrait<ENTITY, Long> referenceField,
+        LongGetter<ENTITY> getter,
+        long operand0
+    ) {
+        super(predicateType, field, referenceField);
+        this.getter = requireNonNull(getter);
+        this.operand0 = operand0;
+        this.boxedOperand0 = operand0;
+        this.innerPredicate = innerPredicateOf(predicateType);
+    }
+
+    @Override
+    public Long getFirstOperand() {
+        return boxedOperand0;
+    }
+
+    @Override
+    public boolean testField(Long fieldValue) {
+        return fieldValue != null && innerPredicate.test(fieldValue, operand0);
+    }
+
+    @Override
+    public boolean test(ENTITY entity) {
+        return innerPredicate.test(getter.applyAsLong(entity), operand0) ^ isNegated();
+    }
+
+    private static LongBiPredicate innerPredicateOf(PredicateType predicateType) {
+        switch (requireNonNull(predicateType)) {
+            case EQUAL:
+                return (a, b) -> a == b;
+            case NOT_EQUAL:
+                return (a, b) -> a != b;
+            case GREATER_THAN:
+                return (a, b) -> a > b;
+            case GREATER_OR_EQUAL:
+                return (a, b) -> a >= b;
+            case LESS_THAN:
+                return (a, b) -> a < b;
+            case LESS_OR_EQUAL:
+                return (a, b) -> a <= b;
+            default:
+                throw new IllegalArgumentException("Unsupported predicate type " + predicateType + ".");
+        }
+    }
+
+    @FunctionalInterface
+    private interface LongBiPredicate {
+
+        boolean test(long fieldValue, long operand);
+    }
+
+}
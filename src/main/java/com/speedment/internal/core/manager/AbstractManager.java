@@ -16,13 +16,19 @@
  */
 package com.speedment.internal.core.manager;
 
+import com.speedment.AsyncManager;
 import com.speedment.Manager;
 import com.speedment.Speedment;
 import com.speedment.component.StreamSupplierComponent;
 import com.speedment.encoder.JsonEncoder;
+import com.speedment.exception.SpeedmentException;
 import com.speedment.internal.core.runtime.Lifecyclable;
+import com.speedment.internal.core.stream.PagingPublisher;
+import com.speedment.stream.Flow;
 import com.speedment.stream.StreamDecorator;
+import java.io.IOException;
 import static java.util.Objects.requireNonNull;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Stream;
 
 /**
@@ -48,7 +54,27 @@ public abstract class AbstractManager<ENTITY> implements Manager<ENTITY> {
     @Override
     public String toJson(ENTITY entity) {
         requireNonNull(entity);
-        return sharedJasonFormatter.apply(entity);
+        final StringBuilder sb = new StringBuilder();
+        try {
+            writeJson(entity, sb);
+        } catch (final IOException ex) {
+            throw new SpeedmentException(ex); // A StringBuilder never throws
+        }
+        return sb.toString();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * This implementation renders all columns using a shared
+     * {@link JsonEncoder}. Generated managers override this method with a
+     * straight-line implementation.
+     */
+    @Override
+    public void writeJson(ENTITY entity, Appendable out) throws IOException {
+        requireNonNull(entity);
+        requireNonNull(out);
+        sharedJasonFormatter.write(entity, out);
     }
 
     @Override
@@ -57,6 +83,30 @@ public abstract class AbstractManager<ENTITY> implements Manager<ENTITY> {
             .stream(getEntityClass(), decorator);
     }
 
+    @Override
+    public AsyncManager<ENTITY> async() {
+        return new AsyncManagerImpl<>(this, speedment.getConnectionPoolComponent().getAsyncExecutor());
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * This implementation gives each subscriber the entities of a new
+     * {@link #stream()}, read one page at a time as they are requested. The
+     * stream is kept open between pages until all entities have been
+     * delivered or the subscription is cancelled. Managers that can read
+     * each page with a separate query should override this method.
+     */
+    @Override
+    public Flow.Publisher<ENTITY> publisher() {
+        return PagingPublisher.ofStream(
+            this::stream,
+            speedment.getConnectionPoolComponent().getAsyncExecutor(),
+            ForkJoinPool.commonPool(),
+            PagingPublisher.DEFAULT_MAX_PAGE_SIZE
+        );
+    }
+
 //    @Override
 //    @SuppressWarnings("unchecked")
 //    public Optional<Object> find(ENTITY entity, Column column) {
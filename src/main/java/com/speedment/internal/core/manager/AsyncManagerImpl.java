@@ -0,0 +1,104 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.internal.core.manager;
+
+import com.speedment.AsyncManager;
+import com.speedment.Manager;
+import com.speedment.stream.StreamDecorator;
+import static java.util.Objects.requireNonNull;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * An {@link AsyncManager} that runs the blocking operations of a
+ * {@link Manager} on an {@link Executor}.
+ *
+ * @author pemi
+ * @param <ENTITY> Entity type for this AsyncManager
+ */
+public final class AsyncManagerImpl<ENTITY> implements AsyncManager<ENTITY> {
+
+    private final Manager<ENTITY> manager;
+    private final Executor executor;
+
+    public AsyncManagerImpl(Manager<ENTITY> manager, Executor executor) {
+        this.manager = requireNonNull(manager);
+        this.executor = requireNonNull(executor);
+    }
+
+    @Override
+    public Manager<ENTITY> getManager() {
+        return manager;
+    }
+
+    @Override
+    public CompletableFuture<ENTITY> persistAsync(ENTITY entity) {
+        requireNonNull(entity);
+        return supply(() -> manager.persist(entity));
+    }
+
+    @Override
+    public CompletableFuture<ENTITY> updateAsync(ENTITY entity) {
+        requireNonNull(entity);
+        return supply(() -> manager.update(entity));
+    }
+
+    @Override
+    public CompletableFuture<ENTITY> removeAsync(ENTITY entity) {
+        requireNonNull(entity);
+        return supply(() -> manager.remove(entity));
+    }
+
+    @Override
+    public <R> CompletableFuture<R> streamAsync(StreamDecorator decorator, Function<Stream<ENTITY>, R> terminator) {
+        requireNonNull(decorator);
+        requireNonNull(terminator);
+        return supply(() -> {
+            try (final Stream<ENTITY> stream = manager.stream(decorator)) {
+                return terminator.apply(stream);
+            }
+        });
+    }
+
+    /**
+     * Runs the supplier on the executor. Unlike
+     * {@link CompletableFuture#supplyAsync(Supplier, Executor)}, the returned
+     * future is completed exceptionally with the exception thrown by the
+     * supplier itself rather than with a {@link CompletionException} wrapping
+     * it.
+     *
+     * @param <T> the result type
+     * @param supplier the operation to run
+     * @return a future that completes with the result of the operation
+     */
+    private <T> CompletableFuture<T> supply(Supplier<T> supplier) {
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        executor.execute(() -> {
+            try {
+                future.complete(supplier.get());
+            } catch (final Throwable t) {
+                future.completeExceptionally(t);
+            }
+        });
+        return future;
+    }
+
+}
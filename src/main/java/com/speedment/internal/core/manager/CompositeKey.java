@@ -0,0 +1,38 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.internal.core.manager;
+
+import java.util.List;
+
+/**
+ * A primary key made up of several column values. Generated managers of
+ * tables with composite primary keys return an immutable implementation of
+ * this interface from {@link com.speedment.Manager#primaryKeyFor(java.lang.Object) primaryKeyFor},
+ * with the hash code computed once when the key is created.
+ *
+ * @author pemi
+ */
+public interface CompositeKey {
+
+    /**
+     * Returns the column values of this key, in the order of the primary key
+     * columns of the table.
+     *
+     * @return the column values
+     */
+    List<Object> values();
+}
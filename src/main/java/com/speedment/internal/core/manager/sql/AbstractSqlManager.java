@@ -16,24 +16,42 @@
  */
 package com.speedment.internal.core.manager.sql;
 
+import com.speedment.Manager;
 import com.speedment.Speedment;
 import com.speedment.config.Column;
 import com.speedment.config.Dbms;
+import com.speedment.config.ForeignKey;
+import com.speedment.config.ForeignKeyColumn;
 import com.speedment.config.PrimaryKeyColumn;
 import com.speedment.config.Schema;
 import com.speedment.config.Table;
 import com.speedment.config.parameters.DbmsType;
+import com.speedment.internal.core.field.predicate.PredicateStatistics;
 import com.speedment.internal.core.manager.AbstractManager;
 import com.speedment.db.MetaResult;
 import com.speedment.internal.core.manager.metaresult.SqlMetaResultImpl;
 import com.speedment.db.AsynchronousQueryResult;
 import com.speedment.db.DbmsHandler;
 import com.speedment.db.SqlFunction;
+import com.speedment.db.crud.Join;
 import com.speedment.exception.SpeedmentException;
+import com.speedment.field.trait.FieldTrait;
+import com.speedment.field.trait.ReferenceForeignKeyFieldTrait;
+import com.speedment.internal.util.Cast;
+import com.speedment.internal.util.tuple.Tuple2;
+import com.speedment.internal.util.tuple.Tuples;
 import com.speedment.component.DbmsHandlerComponent;
+import com.speedment.component.InvalidationBusComponent;
+import com.speedment.component.InvalidationBusComponent.Invalidation;
 import com.speedment.component.JavaTypeMapperComponent;
 import com.speedment.config.mapper.TypeMapper;
+import com.speedment.internal.core.cache.BoundedCache;
+import com.speedment.internal.core.cache.QueryResultCache;
+import com.speedment.internal.core.db.AsynchronousQueryResultImpl;
+import com.speedment.internal.core.db.CachingAsynchronousQueryResult;
+import com.speedment.internal.core.db.crud.JoinImpl;
 import com.speedment.internal.core.stream.builder.ReferenceStreamBuilder;
+import com.speedment.internal.core.stream.PagingPublisher;
 import com.speedment.internal.core.stream.builder.pipeline.PipelineImpl;
 import java.math.BigDecimal;
 import java.net.URL;
@@ -49,9 +67,17 @@ import java.sql.SQLException;
 import java.sql.SQLXML;
 import java.sql.Time;
 import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
@@ -60,6 +86,7 @@ import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.Optional;
 import static com.speedment.internal.core.stream.OptionalUtil.unwrap;
+import com.speedment.stream.Flow;
 import com.speedment.stream.StreamDecorator;
 import static java.util.Objects.requireNonNull;
 
@@ -71,15 +98,102 @@ import static java.util.Objects.requireNonNull;
  */
 public abstract class AbstractSqlManager<ENTITY> extends AbstractManager<ENTITY> implements SqlManager<ENTITY> {
 
-    private SqlFunction<ResultSet, ENTITY> sqlEntityMapper;
+    private static final long ROW_OVERHEAD_BYTES = 16;
+    private static final long COLUMN_BYTES = 32;
+
+    /**
+     * The default maximum number of elements of an IN-list in a single
+     * statement.
+     */
+    public static final int DEFAULT_MAX_IN_ELEMENTS = 1000;
 
+    private SqlFunction<ResultSet, ENTITY> sqlEntityMapper;
+    private volatile BoundedCache<Object, ENTITY> entityCache;
+    private volatile QueryResultCache queryCache;
+    private Function<ENTITY, ?>[] getters;
+    private BiConsumer<ENTITY, Object>[] setters;
+    private final PredicateStatistics predicateStatistics;
+    private volatile int maxInElements;
+    private final Consumer<List<Invalidation>> invalidationSubscriber = this::onInvalidations;
+
+    @SuppressWarnings("unchecked")
     public AbstractSqlManager(Speedment speedment) {
         super(speedment);
+        this.predicateStatistics = new PredicateStatistics();
+        this.maxInElements = DEFAULT_MAX_IN_ELEMENTS;
+        this.getters = (Function<ENTITY, ?>[]) new Function<?, ?>[0];
+        this.setters = (BiConsumer<ENTITY, Object>[]) new BiConsumer<?, ?>[0];
+    }
+
+    /**
+     * Registers the getter and setter of the entity property of the column
+     * at the given ordinal position. The accessors are kept in arrays indexed
+     * by the ordinal position, so that {@link #get(java.lang.Object, com.speedment.config.Column) get}
+     * and {@link #set(java.lang.Object, com.speedment.config.Column, java.lang.Object) set}
+     * do not have to look the column up by name. This method is called from
+     * the constructor of generated managers.
+     *
+     * @param <T>              the Java type of the column
+     * @param ordinalPosition  the ordinal position of the column
+     * @param getter           the getter of the entity property
+     * @param setter           the setter of the entity property
+     */
+    @SuppressWarnings("unchecked")
+    protected final <T> void addColumnAccessor(int ordinalPosition, Function<ENTITY, ?> getter, BiConsumer<ENTITY, T> setter) {
+        requireNonNull(getter);
+        requireNonNull(setter);
+        if (ordinalPosition < 0) {
+            throw new IllegalArgumentException("The ordinal position must not be negative, was " + ordinalPosition);
+        }
+        if (ordinalPosition >= getters.length) {
+            getters = Arrays.copyOf(getters, ordinalPosition + 1);
+            setters = Arrays.copyOf(setters, ordinalPosition + 1);
+        }
+        getters[ordinalPosition] = getter;
+        setters[ordinalPosition] = (BiConsumer<ENTITY, Object>) setter;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The column is looked up by its ordinal position among the accessors
+     * registered by {@link #addColumnAccessor(int, java.util.function.Function, java.util.function.BiConsumer) addColumnAccessor}.
+     */
+    @Override
+    public Object get(ENTITY entity, Column column) {
+        final int ordinalPosition = column.getOrdinalPosition();
+        if (ordinalPosition < 0 || ordinalPosition >= getters.length || getters[ordinalPosition] == null) {
+            throw unknownColumn(column);
+        }
+        return getters[ordinalPosition].apply(entity);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The column is looked up by its ordinal position among the accessors
+     * registered by {@link #addColumnAccessor(int, java.util.function.Function, java.util.function.BiConsumer) addColumnAccessor}.
+     */
+    @Override
+    public void set(ENTITY entity, Column column, Object value) {
+        final int ordinalPosition = column.getOrdinalPosition();
+        if (ordinalPosition < 0 || ordinalPosition >= setters.length || setters[ordinalPosition] == null) {
+            throw unknownColumn(column);
+        }
+        setters[ordinalPosition].accept(entity, value);
+    }
+
+    private static IllegalArgumentException unknownColumn(Column column) {
+        return new IllegalArgumentException("Unknown column '" + column.getName() + "'.");
     }
 
     @Override
     public Stream<ENTITY> nativeStream(StreamDecorator decorator) {
-        final AsynchronousQueryResult<ENTITY> asynchronousQueryResult = dbmsHandler().executeQueryAsync(sqlSelect(""), Collections.emptyList(), sqlEntityMapper.unWrap());
+        final AsynchronousQueryResult<ENTITY> query = dbmsHandler().executeQueryAsync(sqlSelect(""), Collections.emptyList(), sqlEntityMapper.unWrap());
+        if (query instanceof AsynchronousQueryResultImpl) {
+            cachedCount().ifPresent(((AsynchronousQueryResultImpl<ENTITY>) query)::setEstimatedSize);
+        }
+        final AsynchronousQueryResult<ENTITY> asynchronousQueryResult = withQueryCache(query);
         final SqlStreamTerminator<ENTITY> terminator = new SqlStreamTerminator<>(this, asynchronousQueryResult, decorator);
         final Supplier<BaseStream<?, ?>> initialSupplier = () -> asynchronousQueryResult.stream();
         final Stream<ENTITY> result = decorator.apply(new ReferenceStreamBuilder<>(new PipelineImpl<>(initialSupplier), terminator));
@@ -87,6 +201,113 @@ public abstract class AbstractSqlManager<ENTITY> extends AbstractManager<ENTITY>
         return result;
     }
 
+    /**
+     * Returns the row count of the table if it has been cached by an earlier
+     * count operation.
+     */
+    private OptionalLong cachedCount() {
+        final QueryResultCache cache = queryCache;
+        if (cache == null) {
+            return OptionalLong.empty();
+        }
+        return cache.getCount(sqlTableReference(), sqlCount(), Collections.emptyList());
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Entities are read in primary key order, one page at a time, with a
+     * query that continues after the primary key of the last entity of the
+     * previous page. A connection is only held while a page is read. If the
+     * table has no primary key or the dbms does not accept a LIMIT clause,
+     * the entities are published from a single stream as described by
+     * {@link AbstractManager#publisher()}.
+     */
+    @Override
+    public Flow.Publisher<ENTITY> publisher() {
+        final List<Column> keys = getTable().streamOf(PrimaryKeyColumn.class)
+            .map(PrimaryKeyColumn::getColumn)
+            .collect(Collectors.toList());
+        if (keys.isEmpty() || !getDbmsType().isLimitSupported()) {
+            return super.publisher();
+        }
+        return new PagingPublisher<>(
+            (last, size) -> readPage(keys, last, size),
+            speedment.getConnectionPoolComponent().getAsyncExecutor(),
+            ForkJoinPool.commonPool(),
+            PagingPublisher.DEFAULT_MAX_PAGE_SIZE
+        );
+    }
+
+    private List<ENTITY> readPage(List<Column> keys, ENTITY last, int size) {
+        final String keyList = keys.stream()
+            .map(Column::getName)
+            .map(this::quoteField)
+            .collect(Collectors.joining(", "));
+        final StringBuilder suffix = new StringBuilder();
+        final List<Object> values = new ArrayList<>(keys.size());
+        if (last != null) {
+            if (keys.size() == 1) {
+                suffix.append(" where ").append(keyList).append(" > ?");
+            } else {
+                suffix.append(" where (").append(keyList).append(") > (")
+                    .append(String.join(", ", Collections.nCopies(keys.size(), "?")))
+                    .append(")");
+            }
+            keys.forEach(c -> values.add(toDatabaseType(c, last)));
+        }
+        suffix.append(" order by ").append(keyList).append(" limit ").append(size);
+        final List<ENTITY> page = new ArrayList<>(size);
+        synchronousStreamOf(sqlSelect(suffix.toString()), values, sqlEntityMapper).forEachOrdered(page::add);
+        return page;
+    }
+
+    /**
+     * Returns the given query result, answered from the query cache of this
+     * manager if one is set.
+     *
+     * @param asynchronousQueryResult  the query result to wrap
+     * @return                         the wrapped query result
+     */
+    AsynchronousQueryResult<ENTITY> withQueryCache(AsynchronousQueryResult<ENTITY> asynchronousQueryResult) {
+        final QueryResultCache cache = queryCache;
+        if (cache == null) {
+            return asynchronousQueryResult;
+        }
+        return new CachingAsynchronousQueryResult<>(asynchronousQueryResult, cache, sqlTableReference(), estimatedBytesPerRow(), this::copyOf);
+    }
+
+    /**
+     * Returns a new entity with the same column values as the given entity.
+     * It is used to keep the entities held by a {@link QueryResultCache}, by
+     * the entity cache or by an in-memory store separate from the entities
+     * handed out to callers.
+     *
+     * @param entity  the entity to copy
+     * @return        the copy
+     */
+    public ENTITY copyOf(ENTITY entity) {
+        requireNonNull(entity);
+        final ENTITY copy = newInstance();
+        for (int i = 0; i < getters.length; i++) {
+            if (getters[i] != null && setters[i] != null) {
+                setters[i].accept(copy, unwrap(getters[i].apply(entity)));
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Returns a rough estimate of the number of bytes held by an entity of
+     * this manager. It is used to bound the memory held by a
+     * {@link QueryResultCache}.
+     *
+     * @return the estimated number of bytes per entity
+     */
+    protected long estimatedBytesPerRow() {
+        return ROW_OVERHEAD_BYTES + COLUMN_BYTES * getTable().streamOf(Column.class).count();
+    }
+
     public <T> Stream<T> synchronousStreamOf(final String sql, final List<Object> values, SqlFunction<ResultSet, T> rsMapper) {
         //LOGGER.debug(sql + " <- " + values);
         requireNonNull(sql);
@@ -95,6 +316,225 @@ public abstract class AbstractSqlManager<ENTITY> extends AbstractManager<ENTITY>
         return dbmsHandler().executeQuery(sql, values, rsMapper);
     }
 
+    /**
+     * Returns a stream of the mapped rows of the given query. The rows are
+     * read from the database as the stream is consumed, so the stream must be
+     * closed to release the underlying database resources unless it is fully
+     * consumed.
+     *
+     * @param <T>       the type of the mapped rows
+     * @param sql       the query
+     * @param values    the parameter values of the query
+     * @param rsMapper  the mapper of each row
+     * @return          a stream of the mapped rows
+     */
+    public <T> Stream<T> asynchronousStreamOf(final String sql, final List<?> values, SqlFunction<ResultSet, T> rsMapper) {
+        requireNonNull(sql);
+        requireNonNull(values);
+        requireNonNull(rsMapper);
+        final AsynchronousQueryResult<T> result = dbmsHandler().executeQueryAsync(sql, values, rsMapper.unWrap());
+        return result.stream().onClose(result::close);
+    }
+
+    @Override
+    public <FK, F extends FieldTrait & ReferenceForeignKeyFieldTrait<ENTITY, FK>> Stream<ENTITY> batchFetch(Stream<ENTITY> stream, F field, int chunkSize) {
+        requireNonNull(stream);
+        requireNonNull(field);
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("The chunk size must be positive, was " + chunkSize);
+        }
+
+        final ForeignKeyColumn foreignKeyColumn = singleForeignKeyColumn(field, "batch fetch");
+        final Column column = foreignKeyColumn.getColumn();
+        @SuppressWarnings("unchecked")
+        final AbstractSqlManager<FK> foreignManager = Cast.castOrFail(
+            speedment.getManagerComponent().findByTable(foreignKeyColumn.getForeignTable()),
+            AbstractSqlManager.class
+        );
+
+        final BatchFetchAction<ENTITY, FK> action = new BatchFetchAction<>(
+            chunkSize,
+            entity -> unwrap(get(entity, column)),
+            foreignManager,
+            foreignKeyColumn.getForeignColumn()
+        );
+
+        if (stream instanceof ReferenceStreamBuilder) {
+            // Speedment streams do not expose their iterator, so the action is applied to the underlying stream
+            @SuppressWarnings("unchecked")
+            final ReferenceStreamBuilder<ENTITY> builder = (ReferenceStreamBuilder<ENTITY>) stream;
+            return builder.appendAction(action).onClose(action::close);
+        }
+        return action.get().apply(stream).onClose(action::close);
+    }
+
+    @Override
+    public <FK, F extends FieldTrait & ReferenceForeignKeyFieldTrait<ENTITY, FK>> Stream<Tuple2<ENTITY, FK>> join(F field) {
+        requireNonNull(field);
+        final ForeignKeyColumn foreignKeyColumn = singleForeignKeyColumn(field, "join");
+        return join(JoinImpl.of(
+            foreignKeyColumn.getColumn().getName(),
+            foreignKeyColumn.getForeignColumn().getName(),
+            foreignKeyColumn.getForeignTable()
+        ));
+    }
+
+    @Override
+    public <T> Stream<Tuple2<ENTITY, T>> join(Join join) {
+        requireNonNull(join);
+        @SuppressWarnings("unchecked")
+        final AbstractSqlManager<T> otherManager = Cast.castOrFail(
+            speedment.getManagerComponent().findByTable(join.getOtherTable()),
+            AbstractSqlManager.class
+        );
+
+        final String sql = "select "
+            + sqlColumnList(c -> "a." + c) + ","
+            + otherManager.sqlColumnList(c -> "b." + c)
+            + " from " + sqlTableReference() + " a"
+            + " join " + otherManager.sqlTableReference() + " b"
+            + " on a." + quoteField(join.getColumnName())
+            + " = b." + quoteField(join.getOtherColumnName());
+
+        final int offset = (int) getTable().streamOf(Column.class).count();
+        final SqlFunction<ResultSet, ENTITY> mapper = sqlEntityMapper;
+        final SqlFunction<ResultSet, T> otherMapper = otherManager.getSqlEntityMapper();
+        final SqlFunction<ResultSet, Tuple2<ENTITY, T>> rsMapper
+            = rs -> Tuples.of(mapper.apply(rs), otherMapper.apply(OffsetResultSet.of(rs, offset)));
+
+        return asynchronousStreamOf(sql, Collections.emptyList(), rsMapper);
+    }
+
+    private ForeignKeyColumn singleForeignKeyColumn(FieldTrait field, String operation) {
+        final List<ForeignKeyColumn> foreignKeyColumns = getTable().streamOf(ForeignKey.class)
+            .filter(ForeignKey::isEnabled)
+            .filter(fk -> fk.streamOf(ForeignKeyColumn.class).anyMatch(fkc -> fkc.getName().equals(field.getColumnName())))
+            .flatMap(fk -> fk.streamOf(ForeignKeyColumn.class))
+            .collect(Collectors.toList());
+
+        if (foreignKeyColumns.size() != 1) {
+            throw new SpeedmentException(
+                "Unable to " + operation + " " + field.getColumnName() + " of " + getTable().getName()
+                + ". Only foreign keys with exactly one column are supported."
+            );
+        }
+        return foreignKeyColumns.get(0);
+    }
+
+    @Override
+    public List<ENTITY> selectIn(Column column, Collection<?> values) {
+        requireNonNull(column);
+        requireNonNull(values);
+        if (values.isEmpty()) {
+            return Collections.emptyList();
+        }
+        @SuppressWarnings("unchecked")
+        final TypeMapper<Object, Object> typeMapper = (TypeMapper<Object, Object>) column.getTypeMapper();
+        final BoundedCache<Object, ENTITY> cache = isPrimaryKey(column) ? entityCache : null;
+        final long generation = cache == null ? 0 : cache.generation();
+        final List<ENTITY> result = new ArrayList<>(values.size());
+        final List<Object> dbValues = new ArrayList<>(values.size());
+        for (final Object value : new LinkedHashSet<>(values)) {
+            final Optional<ENTITY> cached = cache == null ? Optional.empty() : cache.get(value);
+            if (cached.isPresent()) {
+                result.add(copyOf(cached.get()));
+            } else {
+                dbValues.add(typeMapper.toDatabaseType(value));
+            }
+        }
+        for (final List<Object> chunk : chunksOf(dbValues, maxInElements)) {
+            final String sql = sqlSelect(" where " + sqlIn(column.getName(), chunk.size()));
+            final AsynchronousQueryResult<ENTITY> query = withQueryCache(
+                dbmsHandler().executeQueryAsync(sql, new ArrayList<>(chunk), sqlEntityMapper.unWrap())
+            );
+            try (final Stream<ENTITY> entities = query.stream().onClose(query::close)) {
+                entities.forEachOrdered(entity -> {
+                    if (cache != null) {
+                        cache.putIfUnchanged(primaryKeyFor(entity), copyOf(entity), generation);
+                    }
+                    result.add(entity);
+                });
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns {@code true} if the given column is the only primary key column
+     * of the table.
+     */
+    private boolean isPrimaryKey(Column column) {
+        final List<PrimaryKeyColumn> keys = getTable().streamOf(PrimaryKeyColumn.class)
+            .collect(Collectors.toList());
+        return keys.size() == 1 && keys.get(0).getName().equals(column.getName());
+    }
+
+    /**
+     * Returns the maximum number of elements of an IN-list in a single
+     * statement. Larger lists are split into several statements.
+     *
+     * @return the maximum number of elements of an IN-list
+     */
+    public int getMaxInElements() {
+        return maxInElements;
+    }
+
+    /**
+     * Sets the maximum number of elements of an IN-list in a single
+     * statement. Larger lists are split into several statements.
+     *
+     * @param maxInElements  the maximum number of elements of an IN-list
+     */
+    public void setMaxInElements(int maxInElements) {
+        if (maxInElements <= 0) {
+            throw new IllegalArgumentException("The maximum number of IN elements must be positive, was " + maxInElements + ".");
+        }
+        this.maxInElements = maxInElements;
+    }
+
+    /**
+     * Returns an SQL condition that tests if the given column is in a list
+     * of the given number of parameters.
+     *
+     * @param columnName  the name of the column
+     * @param size        the number of parameters
+     * @return            the SQL condition
+     */
+    public String sqlIn(String columnName, int size) {
+        requireNonNull(columnName);
+        final StringBuilder sb = new StringBuilder("(")
+            .append(quoteField(columnName))
+            .append(" in (");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                sb.append(",");
+            }
+            sb.append("?");
+        }
+        return sb.append("))").toString();
+    }
+
+    /**
+     * Splits the given values into consecutive lists of at most the given
+     * size.
+     *
+     * @param <T>        the value type
+     * @param values     the values to split
+     * @param chunkSize  the maximum size of each list
+     * @return           the lists of values
+     */
+    public static <T> List<List<T>> chunksOf(List<T> values, int chunkSize) {
+        requireNonNull(values);
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive, was " + chunkSize + ".");
+        }
+        final List<List<T>> chunks = new ArrayList<>((values.size() + chunkSize - 1) / chunkSize);
+        for (int i = 0; i < values.size(); i += chunkSize) {
+            chunks.add(values.subList(i, Math.min(values.size(), i + chunkSize)));
+        }
+        return chunks;
+    }
+
     public String sqlColumnList() {
         return sqlColumnList(Function.identity());
     }
@@ -121,12 +561,30 @@ public abstract class AbstractSqlManager<ENTITY> extends AbstractManager<ENTITY>
         return getTable().getRelativeName(Schema.class, this::quoteField);
     }
 
+    public String sqlCount() {
+        return "select count(*) from " + sqlTableReference();
+    }
+
     public String sqlSelect(String suffix) {
         requireNonNull(suffix);
         final String sql = "select " + sqlColumnList() + " from " + sqlTableReference() + suffix;
         return sql;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The default implementation returns the single value for tables with
+     * one primary key column and a list of the values otherwise. Generated
+     * managers of tables with composite primary keys override this method to
+     * create their key class.
+     */
+    @Override
+    public Object primaryKeyOf(List<?> values) {
+        requireNonNull(values);
+        return values.size() == 1 ? values.get(0) : Arrays.asList(values.toArray());
+    }
+
     @Override
     public SqlFunction<ResultSet, ENTITY> getSqlEntityMapper() {
         return sqlEntityMapper;
@@ -137,6 +595,37 @@ public abstract class AbstractSqlManager<ENTITY> extends AbstractManager<ENTITY>
         this.sqlEntityMapper = requireNonNull(sqlEntityMapper);
     }
 
+    @Override
+    public Optional<BoundedCache<Object, ENTITY>> getEntityCache() {
+        return Optional.ofNullable(entityCache);
+    }
+
+    @Override
+    public void setEntityCache(BoundedCache<Object, ENTITY> entityCache) {
+        this.entityCache = entityCache;
+    }
+
+    /**
+     * Returns the pass rates of predicates that have been sampled from
+     * streams of this manager. They are used to order the filters of new
+     * streams that are evaluated in the JVM.
+     *
+     * @return the predicate statistics of this manager
+     */
+    public PredicateStatistics getPredicateStatistics() {
+        return predicateStatistics;
+    }
+
+    @Override
+    public Optional<QueryResultCache> getQueryCache() {
+        return Optional.ofNullable(queryCache);
+    }
+
+    @Override
+    public void setQueryCache(QueryResultCache queryCache) {
+        this.queryCache = queryCache;
+    }
+
     @Override
     public ENTITY persist(ENTITY entity) throws SpeedmentException {
         return persistHelp(entity, Optional.empty());
@@ -183,7 +672,7 @@ public abstract class AbstractSqlManager<ENTITY> extends AbstractManager<ENTITY>
         return getDbms().getType();
     }
 
-    private String quoteField(final String s) {
+    public String quoteField(final String s) {
         final DbmsType dbmsType = getDbms().getType();
         return dbmsType.getFieldEncloserStart() + s + dbmsType.getFieldEncloserEnd();
     }
@@ -422,6 +911,8 @@ public abstract class AbstractSqlManager<ENTITY> extends AbstractManager<ENTITY>
         };
 
         executeUpdate(entity, sb.toString(), values, generatedKeyconsumer, listener);
+        getEntityCache().ifPresent(c -> c.put(primaryKeyFor(entity), copyOf(entity)));
+        speedment.getStreamSupplierComponent().persisted(getEntityClass(), entity);
         return entity;
     }
 
@@ -441,6 +932,8 @@ public abstract class AbstractSqlManager<ENTITY> extends AbstractManager<ENTITY>
         table.streamOf(PrimaryKeyColumn.class).map(pkc -> pkc.getColumn()).forEachOrdered(c -> values.add(get(entity, c)));
 
         executeUpdate(entity, sb.toString(), values, NOTHING, listener);
+        getEntityCache().ifPresent(c -> c.put(primaryKeyFor(entity), copyOf(entity)));
+        speedment.getStreamSupplierComponent().updated(getEntityClass(), entity);
         return entity;
     }
 
@@ -455,6 +948,8 @@ public abstract class AbstractSqlManager<ENTITY> extends AbstractManager<ENTITY>
             .collect(Collectors.toList());
 
         executeUpdate(entity, sb.toString(), values, NOTHING, listener);
+        getEntityCache().ifPresent(c -> c.invalidate(primaryKeyFor(entity)));
+        speedment.getStreamSupplierComponent().removed(getEntityClass(), entity);
         return entity;
     }
 
@@ -487,6 +982,7 @@ public abstract class AbstractSqlManager<ENTITY> extends AbstractManager<ENTITY>
             }
             throw new SpeedmentException(sqle);
         } finally {
+            getQueryCache().ifPresent(c -> c.invalidate(sqlTableReference()));
             listener.ifPresent(c -> c.accept(meta));
         }
     }
@@ -498,10 +994,55 @@ public abstract class AbstractSqlManager<ENTITY> extends AbstractManager<ENTITY>
         final Function<ENTITY, Consumer<List<Long>>> generatedKeyconsumer
     ) throws SQLException {
         //final ENTITY builder = toBuilder(entity);
-        dbmsHandler().executeUpdate(sql, values, generatedKeyconsumer.apply(entity));
+        dbmsHandler().executeUpdate(sql, values, generatedKeyconsumer.apply(entity),
+            () -> Invalidation.of(sqlTableReference(), primaryKeyFor(entity))
+        );
         //return entity;
     }
 
+    @Override
+    public Manager<ENTITY> start() {
+        final InvalidationBusComponent bus = speedment.get(InvalidationBusComponent.class);
+        if (bus != null) {
+            bus.subscribe(invalidationSubscriber);
+        }
+        return super.start();
+    }
+
+    @Override
+    public Manager<ENTITY> stop() {
+        final InvalidationBusComponent bus = speedment.get(InvalidationBusComponent.class);
+        if (bus != null) {
+            bus.unsubscribe(invalidationSubscriber);
+        }
+        return super.stop();
+    }
+
+    private void onInvalidations(List<Invalidation> invalidations) {
+        final String table = sqlTableReference();
+        final List<Invalidation> own = invalidations.stream()
+            .filter(i -> table.equals(i.getTable()))
+            .collect(Collectors.toList());
+
+        if (own.isEmpty()) {
+            return;
+        }
+        getQueryCache().ifPresent(c -> c.invalidate(table));
+        if (own.stream().anyMatch(Invalidation::isWholeTable)) {
+            getEntityCache().ifPresent(BoundedCache::invalidateAll);
+            speedment.getStreamSupplierComponent().invalidated(getEntityClass(), null);
+            return;
+        }
+        // Composite keys are received as the list of their values
+        final Set<Object> primaryKeys = own.stream()
+            .map(Invalidation::getPrimaryKey)
+            .map(k -> k instanceof List ? primaryKeyOf((List<?>) k) : k)
+            .collect(Collectors.toCollection(LinkedHashSet::new));
+
+        getEntityCache().ifPresent(c -> primaryKeys.forEach(c::invalidate));
+        speedment.getStreamSupplierComponent().invalidated(getEntityClass(), primaryKeys);
+    }
+
     private String sqlQuote(Object o) {
         if (o == null) {
             return "null";
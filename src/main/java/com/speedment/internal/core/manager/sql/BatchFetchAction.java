@@ -0,0 +1,89 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.internal.core.manager.sql;
+
+import com.speedment.config.Column;
+import com.speedment.internal.core.stream.builder.action.Action;
+import static com.speedment.internal.core.stream.builder.action.StandardBasicAction.PEEK;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * An action that reads the stream in chunks and loads the foreign entities
+ * referenced by each chunk in bulk.
+ *
+ * @author pemi
+ * @param <ENTITY> the entity type
+ * @param <FK> the foreign entity type
+ * @see ForeignKeyBatchSpliterator
+ */
+final class BatchFetchAction<ENTITY, FK> extends Action<Stream<ENTITY>, Stream<ENTITY>> {
+
+    private final Batcher<ENTITY, FK> batcher;
+
+    BatchFetchAction(int chunkSize, Function<ENTITY, Object> keyExtractor, AbstractSqlManager<FK> foreignManager, Column foreignColumn) {
+        this(new Batcher<>(chunkSize, keyExtractor, foreignManager, foreignColumn));
+    }
+
+    private BatchFetchAction(Batcher<ENTITY, FK> batcher) {
+        super(batcher, Stream.class, PEEK);
+        this.batcher = batcher;
+    }
+
+    /**
+     * Releases the chunk that is currently installed, if any.
+     */
+    void close() {
+        batcher.close();
+    }
+
+    private static final class Batcher<ENTITY, FK> implements Function<Stream<ENTITY>, Stream<ENTITY>> {
+
+        private final int chunkSize;
+        private final Function<ENTITY, Object> keyExtractor;
+        private final AbstractSqlManager<FK> foreignManager;
+        private final Column foreignColumn;
+        private ForeignKeyBatchSpliterator<ENTITY, FK> current;
+
+        private Batcher(int chunkSize, Function<ENTITY, Object> keyExtractor, AbstractSqlManager<FK> foreignManager, Column foreignColumn) {
+            this.chunkSize = chunkSize;
+            this.keyExtractor = requireNonNull(keyExtractor);
+            this.foreignManager = requireNonNull(foreignManager);
+            this.foreignColumn = requireNonNull(foreignColumn);
+        }
+
+        @Override
+        public Stream<ENTITY> apply(Stream<ENTITY> stream) {
+            requireNonNull(stream);
+            close();
+            final ForeignKeyBatchSpliterator<ENTITY, FK> spliterator
+                = new ForeignKeyBatchSpliterator<>(stream.iterator(), chunkSize, keyExtractor, foreignManager, foreignColumn);
+            current = spliterator;
+            return StreamSupport.stream(spliterator, false)
+                .onClose(spliterator::close)
+                .onClose(stream::close);
+        }
+
+        private void close() {
+            if (current != null) {
+                current.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.internal.core.manager.sql;
+
+import com.speedment.Manager;
+import com.speedment.field.predicate.PredicateType;
+import com.speedment.field.predicate.SpeedmentPredicate;
+import com.speedment.internal.core.field.predicate.PredicateUtil;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Holds the foreign entities that have been loaded in bulk by a
+ * {@link ForeignKeyBatchSpliterator} for the current thread. Lookups of a
+ * single foreign entity by one of the batched keys can then be served without
+ * querying the database.
+ *
+ * @author pemi
+ */
+final class BatchFetchContext {
+
+    private static final ThreadLocal<Map<Manager<?>, Map<String, Batch>>> BATCHES
+        = ThreadLocal.withInitial(HashMap::new);
+
+    static void install(Manager<?> manager, String columnName, Set<Object> keys, Map<Object, ?> entities) {
+        requireNonNull(manager);
+        requireNonNull(columnName);
+        BATCHES.get()
+            .computeIfAbsent(manager, m -> new HashMap<>())
+            .put(columnName, new Batch(keys, entities));
+    }
+
+    static void uninstall(Manager<?> manager, String columnName) {
+        requireNonNull(manager);
+        requireNonNull(columnName);
+        final Map<Manager<?>, Map<String, Batch>> batches = BATCHES.get();
+        final Map<String, Batch> managerBatches = batches.get(manager);
+        if (managerBatches != null) {
+            managerBatches.remove(columnName);
+            if (managerBatches.isEmpty()) {
+                batches.remove(manager);
+            }
+        }
+        if (batches.isEmpty()) {
+            BATCHES.remove();
+        }
+    }
+
+    /**
+     * Returns the entities that match an equality predicate among the given
+     * predicates on a batched column of the manager, or {@code empty} if no
+     * such predicate exists. The returned list has at most one element.
+     *
+     * @param <ENTITY>    the entity type
+     * @param manager     the manager of the entities
+     * @param predicates  the top level and-predicates of a stream
+     * @return            the batched entities or {@code empty}
+     */
+    static <ENTITY> Optional<List<ENTITY>> lookup(Manager<ENTITY> manager, List<SpeedmentPredicate<ENTITY, ?>> predicates) {
+        final Map<String, Batch> managerBatches = BATCHES.get().get(manager);
+        if (managerBatches == null) {
+            return Optional.empty();
+        }
+        for (final SpeedmentPredicate<ENTITY, ?> predicate : predicates) {
+            if (predicate.getEffectivePredicateType() == PredicateType.EQUAL) {
+                final Batch batch = managerBatches.get(predicate.getField().getColumnName());
+                if (batch != null) {
+                    final Object key = PredicateUtil.getFirstOperandAsRaw(predicate);
+                    if (batch.keys.contains(key)) {
+                        @SuppressWarnings("unchecked")
+                        final ENTITY entity = (ENTITY) batch.entities.get(key);
+                        return Optional.of(entity == null ? Collections.emptyList() : Collections.singletonList(entity));
+                    }
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static final class Batch {
+
+        private final Set<Object> keys;
+        private final Map<Object, ?> entities;
+
+        private Batch(Set<Object> keys, Map<Object, ?> entities) {
+            this.keys = requireNonNull(keys);
+            this.entities = requireNonNull(entities);
+        }
+    }
+
+    private BatchFetchContext() {
+    }
+}
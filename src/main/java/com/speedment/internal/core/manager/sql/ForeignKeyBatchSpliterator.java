@@ -0,0 +1,126 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.internal.core.manager.sql;
+
+import com.speedment.config.Column;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import static com.speedment.internal.core.stream.OptionalUtil.unwrap;
+import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.toSet;
+
+/**
+ * A spliterator that reads its source in chunks and, for each chunk, loads
+ * all the foreign entities referenced by the chunk in a single query. While
+ * the elements of a chunk are consumed, lookups of the foreign entities by
+ * the referenced column are served from the loaded chunk.
+ *
+ * @author pemi
+ * @param <ENTITY> the entity type
+ * @param <FK> the foreign entity type
+ */
+final class ForeignKeyBatchSpliterator<ENTITY, FK> implements Spliterator<ENTITY> {
+
+    private final Iterator<ENTITY> source;
+    private final int chunkSize;
+    private final Function<ENTITY, Object> keyExtractor;
+    private final AbstractSqlManager<FK> foreignManager;
+    private final Column foreignColumn;
+    private final List<ENTITY> chunk;
+    private int position;
+    private boolean installed;
+
+    ForeignKeyBatchSpliterator(
+        Iterator<ENTITY> source,
+        int chunkSize,
+        Function<ENTITY, Object> keyExtractor,
+        AbstractSqlManager<FK> foreignManager,
+        Column foreignColumn
+    ) {
+        this.source = requireNonNull(source);
+        this.chunkSize = chunkSize;
+        this.keyExtractor = requireNonNull(keyExtractor);
+        this.foreignManager = requireNonNull(foreignManager);
+        this.foreignColumn = requireNonNull(foreignColumn);
+        this.chunk = new ArrayList<>(chunkSize);
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super ENTITY> action) {
+        requireNonNull(action);
+        if (position == chunk.size() && !nextChunk()) {
+            close();
+            return false;
+        }
+        action.accept(chunk.get(position++));
+        return true;
+    }
+
+    @Override
+    public Spliterator<ENTITY> trySplit() {
+        return null;
+    }
+
+    @Override
+    public long estimateSize() {
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED;
+    }
+
+    void close() {
+        if (installed) {
+            BatchFetchContext.uninstall(foreignManager, foreignColumn.getName());
+            installed = false;
+        }
+    }
+
+    private boolean nextChunk() {
+        chunk.clear();
+        position = 0;
+        while (chunk.size() < chunkSize && source.hasNext()) {
+            chunk.add(source.next());
+        }
+        if (chunk.isEmpty()) {
+            return false;
+        }
+
+        final Set<Object> keys = chunk.stream()
+            .map(keyExtractor)
+            .filter(Objects::nonNull)
+            .collect(toSet());
+
+        final Map<Object, FK> entities = new HashMap<>();
+        foreignManager.selectIn(foreignColumn, keys)
+            .forEach(fk -> entities.putIfAbsent(unwrap(foreignManager.get(fk, foreignColumn)), fk));
+
+        BatchFetchContext.install(foreignManager, foreignColumn.getName(), keys, entities);
+        installed = true;
+        return true;
+    }
+}
@@ -0,0 +1,90 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.internal.core.manager.sql;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import static com.speedment.util.StaticClassUtil.instanceNotAllowed;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Creates views of a {@link ResultSet} where the column indexes are shifted
+ * by a fixed offset. This makes it possible to apply an entity mapper that
+ * reads columns by ordinal position to the columns of a joined table that
+ * appear later in the same row.
+ *
+ * @author pemi
+ */
+final class OffsetResultSet {
+
+    /**
+     * Returns a view of the given {@code ResultSet} where column index
+     * {@code i} of the view refers to column index {@code i + offset} of the
+     * given {@code ResultSet}. All other methods are delegated unchanged.
+     *
+     * @param resultSet  the underlying result set
+     * @param offset     the number of columns to skip
+     * @return           the shifted view
+     */
+    static ResultSet of(ResultSet resultSet, int offset) {
+        requireNonNull(resultSet);
+        if (offset < 0) {
+            throw new IllegalArgumentException("The offset must not be negative, was " + offset);
+        }
+        if (offset == 0) {
+            return resultSet;
+        }
+        return (ResultSet) Proxy.newProxyInstance(
+            ResultSet.class.getClassLoader(),
+            new Class<?>[]{ResultSet.class},
+            (proxy, method, args) -> invoke(resultSet, offset, method, args)
+        );
+    }
+
+    private static Object invoke(ResultSet resultSet, int offset, Method method, Object[] args) throws Throwable {
+        if (isColumnIndexed(method)) {
+            final Object[] shifted = args.clone();
+            shifted[0] = (Integer) args[0] + offset;
+            return delegate(resultSet, method, shifted);
+        }
+        return delegate(resultSet, method, args);
+    }
+
+    private static boolean isColumnIndexed(Method method) {
+        final Class<?>[] parameterTypes = method.getParameterTypes();
+        return parameterTypes.length > 0
+            && parameterTypes[0] == int.class
+            && (method.getName().startsWith("get") || method.getName().startsWith("update"));
+    }
+
+    private static Object delegate(ResultSet resultSet, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(resultSet, args);
+        } catch (InvocationTargetException ite) {
+            throw ite.getCause();
+        }
+    }
+
+    /**
+     * Utility classes should not be instantiated.
+     */
+    private OffsetResultSet() {
+        instanceNotAllowed(getClass());
+    }
+}
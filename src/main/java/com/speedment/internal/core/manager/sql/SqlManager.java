@@ -17,8 +17,19 @@
 package com.speedment.internal.core.manager.sql;
 
 import com.speedment.Manager;
+import com.speedment.config.Column;
 import com.speedment.db.SqlFunction;
+import com.speedment.db.crud.Join;
+import com.speedment.field.trait.FieldTrait;
+import com.speedment.field.trait.ReferenceForeignKeyFieldTrait;
+import com.speedment.internal.core.cache.BoundedCache;
+import com.speedment.internal.core.cache.QueryResultCache;
+import com.speedment.internal.util.tuple.Tuple2;
 import java.sql.ResultSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  *
@@ -31,4 +42,145 @@ public interface SqlManager<ENTITY> extends Manager<ENTITY> {
 
     void setSqlEntityMapper(SqlFunction<ResultSet, ENTITY> sqlEntityMapper);
 
+    /**
+     * Creates a primary key on the same form as
+     * {@link #primaryKeyFor(java.lang.Object)} from the values of the primary
+     * key columns, in the order of the primary key columns of the table.
+     *
+     * @param values  the primary key column values in their Java
+     *                representation
+     * @return        the primary key
+     */
+    Object primaryKeyOf(List<?> values);
+
+    /**
+     * Returns the entity cache of this manager, if one has been set. The cache
+     * is keyed by {@link #primaryKeyFor(java.lang.Object)}.
+     *
+     * @return the entity cache or {@code empty}
+     */
+    Optional<BoundedCache<Object, ENTITY>> getEntityCache();
+
+    /**
+     * Sets the entity cache of this manager. Streams that are filtered on
+     * equality for all the primary key columns are served from the cache when
+     * possible and populate it otherwise. Entities that are persisted or
+     * updated through this manager refresh the cache and entities that are
+     * removed are invalidated.
+     * <p>
+     * Cached entities are shared between all streams, so an entity obtained
+     * from a cached manager should not be modified unless it is subsequently
+     * updated through the manager.
+     *
+     * @param entityCache the entity cache or {@code null} to disable caching
+     */
+    void setEntityCache(BoundedCache<Object, ENTITY> entityCache);
+
+    /**
+     * Returns the query result cache of this manager, if one has been set.
+     *
+     * @return the query result cache or {@code empty}
+     */
+    Optional<QueryResultCache> getQueryCache();
+
+    /**
+     * Sets the query result cache of this manager. Streams and counts are
+     * served from the cache when an identical query (same SQL and parameter
+     * values) has been executed before. Any write through this manager
+     * invalidates all cached results for its table. The cache may be shared
+     * between several managers.
+     * <p>
+     * Entities are never shared between the cache and its callers. Every
+     * entity served from the cache is a fresh copy, so a caller that modifies
+     * an entity does not affect other callers or later queries.
+     *
+     * @param queryCache the query result cache or {@code null} to disable
+     *                   caching
+     */
+    void setQueryCache(QueryResultCache queryCache);
+
+    /**
+     * The default number of entities per chunk used by
+     * {@link #batchFetch(java.util.stream.Stream, com.speedment.field.trait.FieldTrait) batchFetch}.
+     */
+    static final int DEFAULT_BATCH_FETCH_SIZE = 256;
+
+    /**
+     * Returns a stream with the same elements as the given stream, where the
+     * foreign entities referenced by the given foreign key field are loaded in
+     * bulk, using one {@code IN} query per chunk of
+     * {@link #DEFAULT_BATCH_FETCH_SIZE} elements. While the elements of a
+     * chunk are consumed, finder calls for the field are served from the
+     * loaded chunk instead of issuing one query per entity.
+     *
+     * @param <FK>    the foreign entity type
+     * @param <F>     the field type
+     * @param stream  the stream of entities of this manager
+     * @param field   a foreign key field of the entities of this manager
+     * @return        the batch fetching stream
+     */
+    default <FK, F extends FieldTrait & ReferenceForeignKeyFieldTrait<ENTITY, FK>> Stream<ENTITY> batchFetch(Stream<ENTITY> stream, F field) {
+        return batchFetch(stream, field, DEFAULT_BATCH_FETCH_SIZE);
+    }
+
+    /**
+     * Returns a stream with the same elements as the given stream, where the
+     * foreign entities referenced by the given foreign key field are loaded in
+     * bulk, using one {@code IN} query per chunk of elements. While the
+     * elements of a chunk are consumed, finder calls for the field are served
+     * from the loaded chunk instead of issuing one query per entity.
+     * <p>
+     * Only foreign keys consisting of a single column are supported.
+     *
+     * @param <FK>       the foreign entity type
+     * @param <F>        the field type
+     * @param stream     the stream of entities of this manager
+     * @param field      a foreign key field of the entities of this manager
+     * @param chunkSize  the number of entities per chunk
+     * @return           the batch fetching stream
+     */
+    <FK, F extends FieldTrait & ReferenceForeignKeyFieldTrait<ENTITY, FK>> Stream<ENTITY> batchFetch(Stream<ENTITY> stream, F field, int chunkSize);
+
+    /**
+     * Eagerly reads all entities where the given column has one of the given
+     * values. The queries go through the query cache, if any. If the column
+     * is the only primary key column, entities found in the entity cache are
+     * not read again and the entities read are added to the entity cache.
+     *
+     * @param column  the column of the table of this manager
+     * @param values  the column values in their Java representation
+     * @return        the entities found
+     */
+    List<ENTITY> selectIn(Column column, Collection<?> values);
+
+    /**
+     * Returns a stream of all entities of this manager paired with the
+     * foreign entity referenced by the given foreign key field. Both sides are
+     * read in a single query using an inner join, so entities without a
+     * foreign entity are not included.
+     * <p>
+     * Only foreign keys consisting of a single column are supported.
+     *
+     * @param <FK>   the foreign entity type
+     * @param <F>    the field type
+     * @param field  a foreign key field of the entities of this manager
+     * @return       a stream of entities and their foreign entities
+     */
+    <FK, F extends FieldTrait & ReferenceForeignKeyFieldTrait<ENTITY, FK>> Stream<Tuple2<ENTITY, FK>> join(F field);
+
+    /**
+     * Returns a stream of all entities of this manager paired with the
+     * entities of the other table of the given {@link Join}, rendered as
+     * {@code select ... from a join b on a.column = b.otherColumn}. Both
+     * sides are mapped from the same row, so the stream is produced by a
+     * single query.
+     * <p>
+     * The returned stream must be closed to release the underlying database
+     * resources unless it is fully consumed.
+     *
+     * @param <T>   the entity type of the other table
+     * @param join  the join to render
+     * @return      a stream of entities and the entities they were joined with
+     */
+    <T> Stream<Tuple2<ENTITY, T>> join(Join join);
 }
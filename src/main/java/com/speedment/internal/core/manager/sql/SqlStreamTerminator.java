@@ -17,8 +17,13 @@
 package com.speedment.internal.core.manager.sql;
 
 import com.speedment.config.Column;
+import com.speedment.config.PrimaryKeyColumn;
 import com.speedment.config.mapper.TypeMapper;
 import com.speedment.db.AsynchronousQueryResult;
+import com.speedment.field.predicate.PredicateType;
+import com.speedment.internal.core.cache.BoundedCache;
+import com.speedment.internal.core.cache.QueryResultCache;
+import com.speedment.internal.core.field.predicate.PredicateUtil;
 import com.speedment.internal.core.stream.builder.action.Action;
 import static com.speedment.internal.core.stream.builder.action.Property.SIZE;
 import static com.speedment.internal.core.stream.builder.action.Verb.PRESERVE;
@@ -29,17 +34,26 @@ import com.speedment.internal.core.stream.builder.pipeline.Pipeline;
 import com.speedment.internal.core.stream.builder.pipeline.ReferencePipeline;
 import com.speedment.internal.core.stream.builder.streamterminator.StreamTerminator;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.function.Function;
 import java.util.function.LongSupplier;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 import static java.util.stream.Collectors.toList;
 import com.speedment.field.predicate.SpeedmentPredicate;
-import com.speedment.field.trait.FieldTrait;
 import com.speedment.internal.core.stream.builder.streamterminator.StreamTerminatorUtil;
+import com.speedment.internal.util.tuple.Tuple2;
+import com.speedment.internal.util.tuple.Tuples;
 import com.speedment.stream.StreamDecorator;
 import java.util.ArrayList;
 import static java.util.Objects.requireNonNull;
 import static java.util.stream.Collectors.joining;
+import java.sql.ResultSet;
+import java.util.stream.Stream;
 
 /**
  *
@@ -69,53 +83,173 @@ public final class SqlStreamTerminator<ENTITY> implements StreamTerminator {
         final List<SpeedmentPredicate<ENTITY, ?>> andPredicateBuilders = StreamTerminatorUtil.topLevelAndPredicates(initialPipeline);
         
         if (!andPredicateBuilders.isEmpty()) {
-            modifySource(andPredicateBuilders, asynchronousQueryResult);
+            final Optional<List<ENTITY>> batched = BatchFetchContext.lookup(manager, andPredicateBuilders);
+            if (batched.isPresent()) {
+                initialPipeline.setInitialSupplier(() -> batched.get().stream());
+                return decorate(initialPipeline);
+            }
+            final Optional<BoundedCache<Object, ENTITY>> cache = manager.getEntityCache();
+            if (cache.isPresent()) {
+                final Optional<Object> key = primaryKeyOf(andPredicateBuilders);
+                if (key.isPresent()) {
+                    final Optional<ENTITY> cached = cache.get().get(key.get());
+                    if (cached.isPresent()) {
+                        // The filters are retained in the pipeline and still applied to the cached entity
+                        initialPipeline.setInitialSupplier(() -> Stream.of(manager.copyOf(cached.get())));
+                        return decorate(initialPipeline);
+                    }
+                    populate(cache.get(), asynchronousQueryResult);
+                }
+            }
+            modifySource(andPredicateBuilders, asynchronousQueryResult)
+                .ifPresent(chunked -> initialPipeline.setInitialSupplier(chunked::get));
         }
         
-        return getStreamDecorator().apply(initialPipeline);
+        return decorate(initialPipeline);
+    }
+
+    /**
+     * Compiles the filters that remain to be evaluated in the JVM and applies
+     * the stream decorator.
+     */
+    private <P extends Pipeline> P decorate(P pipeline) {
+        StreamTerminatorUtil.compileFilters(pipeline, manager.getPredicateStatistics());
+        return getStreamDecorator().apply(pipeline);
+    }
+
+    /**
+     * Returns the primary key that the given predicates restrict the stream
+     * to, or {@code empty} if they do not test all primary key columns for
+     * equality. The key is on the same form as returned by
+     * {@link AbstractSqlManager#primaryKeyFor(java.lang.Object)}.
+     *
+     * @param predicates  the top level and-predicates of a stream
+     * @return            the primary key or {@code empty}
+     */
+    private Optional<Object> primaryKeyOf(List<SpeedmentPredicate<ENTITY, ?>> predicates) {
+        final Map<String, Object> equalOperands = new HashMap<>();
+        predicates.stream()
+            .filter(p -> p.getEffectivePredicateType() == PredicateType.EQUAL)
+            .forEach(p -> equalOperands.put(p.getField().getColumnName(), PredicateUtil.getFirstOperandAsRaw(p)));
+
+        final List<String> pkNames = manager.getTable().streamOf(PrimaryKeyColumn.class)
+            .filter(PrimaryKeyColumn::isEnabled)
+            .map(PrimaryKeyColumn::getName)
+            .collect(toList());
+
+        if (pkNames.isEmpty() || !equalOperands.keySet().containsAll(pkNames)) {
+            return Optional.empty();
+        }
+        if (pkNames.size() == 1) {
+            return Optional.ofNullable(equalOperands.get(pkNames.get(0)));
+        }
+        return Optional.of(manager.primaryKeyOf(pkNames.stream().map(equalOperands::get).collect(toList())));
+    }
+
+    /**
+     * Makes the given query put a copy of every entity it reads into the
+     * entity cache. The generation of the cache is obtained before the query
+     * is executed, so rows read while the same table is written to are not
+     * cached.
+     */
+    private void populate(BoundedCache<Object, ENTITY> cache, AsynchronousQueryResult<ENTITY> qr) {
+        final Function<ResultSet, ENTITY> mapper = qr.getRsMapper();
+        final long generation = cache.generation();
+        qr.setRsMapper(rs -> {
+            final ENTITY entity = mapper.apply(rs);
+            cache.putIfUnchanged(manager.primaryKeyFor(entity), manager.copyOf(entity), generation);
+            return entity;
+        });
     }
     
-    public void modifySource(final List<SpeedmentPredicate<ENTITY, ?>> predicateBuilders, AsynchronousQueryResult<ENTITY> qr) {
+    /**
+     * Renders the given predicates as the where clause of the query of the
+     * given result. IN-predicates with more elements than
+     * {@link AbstractSqlManager#getMaxInElements()} are not rendered. Instead,
+     * the smallest such IN-predicate is split into chunks and a stream that
+     * concatenates one query per chunk is returned. Each chunk is answered
+     * from the query cache of the manager if one is set. Other large
+     * IN-predicates, and large NOT IN-predicates, are only evaluated by the
+     * filters that remain in the pipeline.
+     *
+     * @param predicateBuilders  the top level and-predicates of a stream
+     * @param qr                 the query result to modify
+     * @return                   a supplier of the chunked stream, or
+     *                           {@code empty} if the query of the given
+     *                           result should be used
+     */
+    public Optional<Supplier<Stream<ENTITY>>> modifySource(final List<SpeedmentPredicate<ENTITY, ?>> predicateBuilders, AsynchronousQueryResult<ENTITY> qr) {
         requireNonNull(predicateBuilders);
         requireNonNull(qr);
         if (predicateBuilders.isEmpty()) {
             // Nothing to do...
-            return;
+            return Optional.empty();
+        }
+
+        final int maxInElements = manager.getMaxInElements();
+        final List<SpeedmentPredicate<ENTITY, ?>> pushed = new ArrayList<>();
+        SpeedmentPredicate<ENTITY, ?> chunked = null;
+        for (final SpeedmentPredicate<ENTITY, ?> predicate : predicateBuilders) {
+            final PredicateType type = predicate.getEffectivePredicateType();
+            if ((type == PredicateType.IN || type == PredicateType.NOT_IN)
+                && PredicateUtil.getFirstOperandAsRawSet(predicate).size() > maxInElements) {
+                if (type == PredicateType.IN && (chunked == null
+                    || PredicateUtil.getFirstOperandAsRawSet(predicate).size() < PredicateUtil.getFirstOperandAsRawSet(chunked).size())) {
+                    chunked = predicate;
+                }
+            } else {
+                pushed.add(predicate);
+            }
         }
-        
-        final List<Column> columns = predicateBuilders
-                .stream()
-                .map(SpeedmentPredicate::getField)
-                .map(FieldTrait::getColumnName)
-                .map(this::findColumn)
-                .collect(toList());
-        
-        final SpeedmentPredicateView spv = new MySqlSpeedmentPredicateView();
-        final List<SqlPredicateFragment> fragments = predicateBuilders.stream()
-                .map(spv::transform)
-                .collect(toList());
-        
-        final String sql = manager.sqlSelect(" where "
-                + fragments.stream()
-                .map(SqlPredicateFragment::getSql)
-                .collect(joining(" AND "))
-        );
 
-//        @SuppressWarnings("rawtypes")
-//        final List<Object> values = fragments.stream()
-//            .flatMap(SqlPredicateFragment::objects)
-//            .collect(toList());
+        final SpeedmentPredicateView spv = new MySqlSpeedmentPredicateView();
+        final List<String> conditions = new ArrayList<>();
         final List<Object> values = new ArrayList<>();
-        for (int i = 0; i < fragments.size(); i++) {
-            @SuppressWarnings("unchecked")
-            final TypeMapper<Object, Object> tm = (TypeMapper<Object, Object>) columns.get(i).getTypeMapper();
-            fragments.get(i).objects()
-                    .map(tm::toDatabaseType)
-                    .forEach(values::add);
+        for (final SpeedmentPredicate<ENTITY, ?> predicate : pushed) {
+            final SqlPredicateFragment fragment = spv.transform(predicate);
+            conditions.add(fragment.getSql());
+            fragment.objects()
+                .map(typeMapperOf(predicate)::toDatabaseType)
+                .forEach(values::add);
         }
-        
-        qr.setSql(sql);
-        qr.setValues(values);
+
+        if (chunked == null) {
+            if (!conditions.isEmpty()) {
+                qr.setSql(manager.sqlSelect(" where " + conditions.stream().collect(joining(" AND "))));
+                qr.setValues(values);
+            }
+            return Optional.empty();
+        }
+
+        final String columnName = chunked.getField().getColumnName();
+        final List<Object> inValues = PredicateUtil.getFirstOperandAsRawSet(chunked).stream()
+            .map(typeMapperOf(chunked)::toDatabaseType)
+            .collect(toList());
+
+        final List<Tuple2<String, List<Object>>> queries = new ArrayList<>();
+        for (final List<Object> chunk : AbstractSqlManager.chunksOf(inValues, maxInElements)) {
+            final List<String> chunkConditions = new ArrayList<>(conditions);
+            chunkConditions.add(manager.sqlIn(columnName, chunk.size()));
+            final List<Object> chunkValues = new ArrayList<>(values);
+            chunkValues.addAll(chunk);
+            queries.add(Tuples.of(
+                manager.sqlSelect(" where " + chunkConditions.stream().collect(joining(" AND "))),
+                chunkValues
+            ));
+        }
+
+        return Optional.of(() -> queries.stream().flatMap(q -> {
+            final AsynchronousQueryResult<ENTITY> result = manager.withQueryCache(
+                manager.dbmsHandler().executeQueryAsync(q.get0(), q.get1(), qr.getRsMapper())
+            );
+            return result.stream().onClose(result::close);
+        }));
+    }
+
+    private TypeMapper<Object, Object> typeMapperOf(SpeedmentPredicate<ENTITY, ?> predicate) {
+        @SuppressWarnings("unchecked")
+        final TypeMapper<Object, Object> tm = (TypeMapper<Object, Object>) findColumn(predicate.getField().getColumnName()).getTypeMapper();
+        return tm;
     }
     
     private Column findColumn(String name) {
@@ -161,7 +295,19 @@ public final class SqlStreamTerminator<ENTITY> implements StreamTerminator {
         requireNonNull(pipeline);
         requireNonNull(fallbackSupplier);
         if (pipeline.stream().allMatch(CHECK_RETAIN_SIZE)) {
-            final String sql = "select count(*) from " + manager.sqlTableReference();
+            final String table = manager.sqlTableReference();
+            final String sql = manager.sqlCount();
+            final Optional<QueryResultCache> cache = manager.getQueryCache();
+            if (cache.isPresent()) {
+                final OptionalLong cached = cache.get().getCount(table, sql, Collections.emptyList());
+                if (cached.isPresent()) {
+                    return cached.getAsLong();
+                }
+                final long generation = cache.get().generationOf(table);
+                final long count = manager.synchronousStreamOf(sql, Collections.emptyList(), rs -> rs.getLong(1)).findAny().get();
+                cache.get().putCount(table, generation, sql, Collections.emptyList(), count);
+                return count;
+            }
             return manager.synchronousStreamOf(sql, Collections.emptyList(), rs -> rs.getLong(1)).findAny().get();
         }
         return fallbackSupplier.getAsLong();
@@ -16,11 +16,14 @@
  */
 package com.speedment.internal.core.manager.sql;
 
+import com.speedment.component.InvalidationBusComponent.Invalidation;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
  *
@@ -30,11 +33,17 @@ public final class SqlUpdateStatement extends SqlStatement {
 
     private final List<Long> generatedKeys;
     private final Consumer<List<Long>> generatedKeysConsumer;
+    private final Supplier<Invalidation> invalidation;
 
     public SqlUpdateStatement(final String sql, final List<?> values, final Consumer<List<Long>> generatedKeysConsumer) {
+        this(sql, values, generatedKeysConsumer, null);
+    }
+
+    public SqlUpdateStatement(final String sql, final List<?> values, final Consumer<List<Long>> generatedKeysConsumer, final Supplier<Invalidation> invalidation) {
         super(sql, values);
         this.generatedKeys = new ArrayList<>();
         this.generatedKeysConsumer = Objects.requireNonNull(generatedKeysConsumer);
+        this.invalidation = invalidation;
     }
 
     public List<Long> getGeneratedKeys() {
@@ -49,4 +58,8 @@ public final class SqlUpdateStatement extends SqlStatement {
         generatedKeysConsumer.accept(generatedKeys);
     }
 
+    public Optional<Invalidation> getInvalidation() {
+        return Optional.ofNullable(invalidation).map(Supplier::get);
+    }
+
 }
@@ -0,0 +1,122 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.internal.core.memory;
+
+import com.speedment.field.predicate.PredicateType;
+import com.speedment.field.predicate.SpeedmentPredicate;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import static java.util.Objects.requireNonNull;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Base class for indexes that keep track of the column value of each indexed
+ * primary key, so that entries can be moved when an entity is updated.
+ *
+ * @author pemi
+ * @param <ENTITY> the entity type
+ */
+abstract class AbstractEntityIndex<ENTITY> implements EntityIndex<ENTITY> {
+
+    private final String columnName;
+    private final Function<ENTITY, Object> valueMapper;
+    private final Map<Object, Object> values;
+    private Class<?> valueClass;
+
+    AbstractEntityIndex(String columnName, Function<ENTITY, Object> valueMapper) {
+        this.columnName = requireNonNull(columnName);
+        this.valueMapper = requireNonNull(valueMapper);
+        this.values = new HashMap<>();
+    }
+
+    @Override
+    public final String getColumnName() {
+        return columnName;
+    }
+
+    @Override
+    public final void put(Object primaryKey, ENTITY entity) {
+        requireNonNull(primaryKey);
+        requireNonNull(entity);
+        final Object value = valueMapper.apply(entity);
+        final Object previous = value == null ? values.remove(primaryKey) : values.put(primaryKey, value);
+        if (previous != null && !previous.equals(value)) {
+            removeEntry(previous, primaryKey);
+        }
+        if (value != null) {
+            if (valueClass == null) {
+                valueClass = value.getClass();
+            }
+            addEntry(value, primaryKey);
+        }
+    }
+
+    @Override
+    public final void remove(Object primaryKey) {
+        final Object previous = values.remove(primaryKey);
+        if (previous != null) {
+            removeEntry(previous, primaryKey);
+        }
+    }
+
+    @Override
+    public final void clear() {
+        values.clear();
+        clearEntries();
+    }
+
+    @Override
+    public final Optional<Collection<Object>> lookup(SpeedmentPredicate<?, ?> predicate) {
+        requireNonNull(predicate);
+        if (predicate.isNegated() || !columnName.equals(predicate.getField().getColumnName())) {
+            return Optional.empty();
+        }
+        if (predicate.getPredicateType() == PredicateType.ALWAYS_FALSE) {
+            return Optional.of(Collections.emptyList());
+        }
+        return lookupEntries(predicate);
+    }
+
+    /**
+     * Returns whether the given operand can be looked up in this index. Only
+     * operands of the same class as the indexed values are accepted, since
+     * values of different classes are neither equal nor comparable. An
+     * operand is always accepted by an empty index.
+     *
+     * @param operand the operand of a predicate
+     * @return {@code true} if the operand can be looked up
+     */
+    final boolean accepts(Object operand) {
+        return operand != null && (valueClass == null || valueClass.equals(operand.getClass()));
+    }
+
+    final boolean acceptsAll(Set<?> operands) {
+        return operands.stream().allMatch(this::accepts);
+    }
+
+    abstract void addEntry(Object value, Object primaryKey);
+
+    abstract void removeEntry(Object value, Object primaryKey);
+
+    abstract void clearEntries();
+
+    abstract Optional<Collection<Object>> lookupEntries(SpeedmentPredicate<?, ?> predicate);
+}
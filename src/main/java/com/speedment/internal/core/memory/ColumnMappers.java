@@ -0,0 +1,138 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.internal.core.memory;
+
+import com.speedment.field.trait.FieldTrait;
+import com.speedment.field.trait.ReferenceFieldTrait;
+import static com.speedment.util.StaticClassUtil.instanceNotAllowed;
+import static java.util.Objects.requireNonNull;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Primitive mappers of numeric fields that remember the column they read.
+ * Passing them to {@code mapToInt}, {@code mapToLong} or {@code mapToDouble}
+ * of a stream that is served from a {@link ColumnarSnapshot} lets the
+ * aggregation be computed directly over the column.
+ *
+ * @author pemi
+ */
+public final class ColumnMappers {
+
+    /**
+     * Returns a mapper that returns the value of the given field as an
+     * {@code int}.
+     *
+     * @param <ENTITY> the entity type
+     * @param <F> the field type
+     * @param field the field
+     * @return the mapper
+     */
+    public static <ENTITY, F extends FieldTrait & ReferenceFieldTrait<ENTITY, ? extends Number>> ToIntFunction<ENTITY> toInt(F field) {
+        requireNonNull(field);
+        return new IntMapper<>(field);
+    }
+
+    /**
+     * Returns a mapper that returns the value of the given field as a
+     * {@code long}.
+     *
+     * @param <ENTITY> the entity type
+     * @param <F> the field type
+     * @param field the field
+     * @return the mapper
+     */
+    public static <ENTITY, F extends FieldTrait & ReferenceFieldTrait<ENTITY, ? extends Number>> ToLongFunction<ENTITY> toLong(F field) {
+        requireNonNull(field);
+        return new LongMapper<>(field);
+    }
+
+    /**
+     * Returns a mapper that returns the value of the given field as a
+     * {@code double}.
+     *
+     * @param <ENTITY> the entity type
+     * @param <F> the field type
+     * @param field the field
+     * @return the mapper
+     */
+    public static <ENTITY, F extends FieldTrait & ReferenceFieldTrait<ENTITY, ? extends Number>> ToDoubleFunction<ENTITY> toDouble(F field) {
+        requireNonNull(field);
+        return new DoubleMapper<>(field);
+    }
+
+    private abstract static class AbstractMapper<ENTITY, F extends FieldTrait & ReferenceFieldTrait<ENTITY, ? extends Number>> implements FieldTrait {
+
+        protected final F field;
+
+        AbstractMapper(F field) {
+            this.field = field;
+        }
+
+        @Override
+        public String getColumnName() {
+            return field.getColumnName();
+        }
+    }
+
+    private static final class IntMapper<ENTITY, F extends FieldTrait & ReferenceFieldTrait<ENTITY, ? extends Number>>
+        extends AbstractMapper<ENTITY, F> implements ToIntFunction<ENTITY> {
+
+        IntMapper(F field) {
+            super(field);
+        }
+
+        @Override
+        public int applyAsInt(ENTITY entity) {
+            return field.get(entity).intValue();
+        }
+    }
+
+    private static final class LongMapper<ENTITY, F extends FieldTrait & ReferenceFieldTrait<ENTITY, ? extends Number>>
+        extends AbstractMapper<ENTITY, F> implements ToLongFunction<ENTITY> {
+
+        LongMapper(F field) {
+            super(field);
+        }
+
+        @Override
+        public long applyAsLong(ENTITY entity) {
+            return field.get(entity).longValue();
+        }
+    }
+
+    private static final class DoubleMapper<ENTITY, F extends FieldTrait & ReferenceFieldTrait<ENTITY, ? extends Number>>
+        extends AbstractMapper<ENTITY, F> implements ToDoubleFunction<ENTITY> {
+
+        DoubleMapper(F field) {
+            super(field);
+        }
+
+        @Override
+        public double applyAsDouble(ENTITY entity) {
+            return field.get(entity).doubleValue();
+        }
+    }
+
+    /**
+     * Utility classes should not be instantiated.
+     */
+    private ColumnMappers() {
+        instanceNotAllowed(getClass());
+    }
+}
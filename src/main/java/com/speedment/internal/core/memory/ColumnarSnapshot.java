@@ -0,0 +1,788 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.internal.core.memory;
+
+import com.speedment.Speedment;
+import com.speedment.config.Column;
+import com.speedment.config.Dbms;
+import com.speedment.config.mapper.TypeMapper;
+import com.speedment.exception.SpeedmentException;
+import com.speedment.field.Inclusion;
+import com.speedment.field.predicate.SpeedmentPredicate;
+import com.speedment.internal.core.field.predicate.PredicateUtil;
+import com.speedment.internal.core.field.predicate.impl.SpeedmentPredicateImpl;
+import com.speedment.internal.core.manager.sql.AbstractSqlManager;
+import com.speedment.internal.core.runtime.typemapping.JavaTypeMapping;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.DoubleSummaryStatistics;
+import java.util.HashMap;
+import java.util.IntSummaryStatistics;
+import java.util.List;
+import java.util.LongSummaryStatistics;
+import java.util.Map;
+import static java.util.Objects.requireNonNull;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.IntPredicate;
+import static java.util.stream.Collectors.toList;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * An immutable column oriented copy of a table, intended for aggregating
+ * streams. Numeric columns are stored as one primitive array per column and
+ * string columns as an array of codes into a dictionary of distinct values.
+ * Nulls are tracked in a bitmap per column. Columns of other types, or columns
+ * with a {@link TypeMapper} that changes the type, are not part of the
+ * snapshot.
+ * <p>
+ * Filters are compiled from {@link SpeedmentPredicate}s into row predicates
+ * and aggregations are computed in parallel over chunks of rows.
+ *
+ * @author pemi
+ */
+public final class ColumnarSnapshot {
+
+    static final int CHUNK_SIZE = 1 << 16;
+
+    private final int rowCount;
+    private final Map<String, Vector> vectors;
+
+    private ColumnarSnapshot(int rowCount, Map<String, Vector> vectors) {
+        this.rowCount = rowCount;
+        this.vectors = Collections.unmodifiableMap(vectors);
+    }
+
+    /**
+     * Returns the number of rows in this snapshot.
+     *
+     * @return the number of rows
+     */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Returns if the column with the given name is part of this snapshot.
+     *
+     * @param columnName the column name
+     * @return {@code true} if the column is part of the snapshot
+     */
+    public boolean hasColumn(String columnName) {
+        return vectors.containsKey(columnName);
+    }
+
+    /**
+     * Compiles the given predicates into a row predicate that matches the rows
+     * for which all of the predicates hold. If any of the predicates can not
+     * be evaluated against this snapshot, {@code empty} is returned.
+     *
+     * @param predicates the predicates to combine
+     * @return the row predicate or {@code empty}
+     */
+    public Optional<IntPredicate> compile(List<SpeedmentPredicate<?, ?>> predicates) {
+        requireNonNull(predicates);
+        final IntPredicate[] compiled = new IntPredicate[predicates.size()];
+        for (int i = 0; i < compiled.length; i++) {
+            final Optional<IntPredicate> predicate = compile(predicates.get(i));
+            if (!predicate.isPresent()) {
+                return Optional.empty();
+            }
+            compiled[i] = predicate.get();
+        }
+        switch (compiled.length) {
+            case 0:
+                return Optional.of(row -> true);
+            case 1:
+                return Optional.of(compiled[0]);
+            default:
+                return Optional.of(row -> {
+                    for (final IntPredicate predicate : compiled) {
+                        if (!predicate.test(row)) {
+                            return false;
+                        }
+                    }
+                    return true;
+                });
+        }
+    }
+
+    /**
+     * Counts the rows that match the given row predicate.
+     *
+     * @param filter the row predicate
+     * @return the number of matching rows
+     */
+    public long count(IntPredicate filter) {
+        requireNonNull(filter);
+        return chunks().mapToLong(chunk -> {
+            long count = 0;
+            for (int row = chunk * CHUNK_SIZE, end = endOf(chunk); row < end; row++) {
+                if (filter.test(row)) {
+                    count++;
+                }
+            }
+            return count;
+        }).sum();
+    }
+
+    /**
+     * Returns statistics of the values of the given column, converted to
+     * {@code int}, for the rows that match the given row predicate. If the
+     * column is not a numeric column of this snapshot or contains nulls,
+     * {@code empty} is returned.
+     *
+     * @param filter the row predicate
+     * @param columnName the column to aggregate
+     * @return the statistics or {@code empty}
+     */
+    public Optional<IntSummaryStatistics> intStatistics(IntPredicate filter, String columnName) {
+        requireNonNull(filter);
+        return numericVector(columnName).map(v -> chunks().collect(
+            IntSummaryStatistics::new,
+            (stats, chunk) -> v.accumulate(chunk * CHUNK_SIZE, endOf(chunk), filter, stats),
+            IntSummaryStatistics::combine
+        ));
+    }
+
+    /**
+     * Returns statistics of the values of the given column, converted to
+     * {@code long}, for the rows that match the given row predicate. If the
+     * column is not a numeric column of this snapshot or contains nulls,
+     * {@code empty} is returned.
+     *
+     * @param filter the row predicate
+     * @param columnName the column to aggregate
+     * @return the statistics or {@code empty}
+     */
+    public Optional<LongSummaryStatistics> longStatistics(IntPredicate filter, String columnName) {
+        requireNonNull(filter);
+        return numericVector(columnName).map(v -> chunks().collect(
+            LongSummaryStatistics::new,
+            (stats, chunk) -> v.accumulate(chunk * CHUNK_SIZE, endOf(chunk), filter, stats),
+            LongSummaryStatistics::combine
+        ));
+    }
+
+    /**
+     * Returns statistics of the values of the given column, converted to
+     * {@code double}, for the rows that match the given row predicate. If the
+     * column is not a numeric column of this snapshot or contains nulls,
+     * {@code empty} is returned.
+     *
+     * @param filter the row predicate
+     * @param columnName the column to aggregate
+     * @return the statistics or {@code empty}
+     */
+    public Optional<DoubleSummaryStatistics> doubleStatistics(IntPredicate filter, String columnName) {
+        requireNonNull(filter);
+        return numericVector(columnName).map(v -> chunks().collect(
+            DoubleSummaryStatistics::new,
+            (stats, chunk) -> v.accumulate(chunk * CHUNK_SIZE, endOf(chunk), filter, stats),
+            DoubleSummaryStatistics::combine
+        ));
+    }
+
+    /**
+     * Loads a snapshot of the table of the given manager from the database.
+     * The way each column is read from the {@code ResultSet} is decided by
+     * the {@link JavaTypeMapping} of its database type.
+     *
+     * @param speedment the Speedment instance
+     * @param manager the manager of the table
+     * @return the new snapshot
+     */
+    public static ColumnarSnapshot load(Speedment speedment, AbstractSqlManager<?> manager) {
+        requireNonNull(speedment);
+        requireNonNull(manager);
+        final Dbms dbms = manager.getTable().ancestor(Dbms.class).get();
+        final List<Column> columns = manager.getTable().streamOf(Column.class).collect(toList());
+        final Builder builder = builderOf(speedment, dbms, columns);
+        try (final Stream<Builder> rows = manager.asynchronousStreamOf(manager.sqlSelect(""), Collections.emptyList(), builder::addRow)) {
+            rows.forEach(b -> {});
+        }
+        return builder.build();
+    }
+
+    /**
+     * Creates a builder that reads the given columns from a {@code ResultSet}
+     * where they are selected in the given order. Columns that are mapped to
+     * another Java type, or that have no vector kind, are selected but not
+     * stored.
+     *
+     * @param speedment the Speedment instance
+     * @param dbms the dbms of the columns
+     * @param columns the selected columns, in order
+     * @return the new builder
+     */
+    static Builder builderOf(Speedment speedment, Dbms dbms, List<Column> columns) {
+        final Builder builder = new Builder();
+        for (final Column column : columns) {
+            final TypeMapper<?, ?> typeMapper = column.getTypeMapper();
+            if (typeMapper.getJavaType() == typeMapper.getDatabaseType()) {
+                final JavaTypeMapping<?> mapping = speedment.getJavaTypeMapperComponent()
+                    .apply(dbms.getType(), typeMapper.getDatabaseType());
+                Kind.of(mapping.getResultSetMethodName(dbms))
+                    .ifPresent(kind -> builder.addColumn(column.getName(), kind));
+            }
+            builder.nextResultSetColumn();
+        }
+        return builder;
+    }
+
+    private Optional<NumericVector> numericVector(String columnName) {
+        final Vector vector = vectors.get(requireNonNull(columnName));
+        if (vector instanceof NumericVector && vector.nullCount == 0) {
+            return Optional.of((NumericVector) vector);
+        }
+        return Optional.empty();
+    }
+
+    private IntStream chunks() {
+        return IntStream.range(0, (rowCount + CHUNK_SIZE - 1) / CHUNK_SIZE).parallel();
+    }
+
+    private int endOf(int chunk) {
+        return (int) Math.min(rowCount, (long) (chunk + 1) * CHUNK_SIZE);
+    }
+
+    private Optional<IntPredicate> compile(SpeedmentPredicate<?, ?> predicate) {
+        final Vector vector = vectors.get(predicate.getField().getColumnName());
+        if (vector == null || !(predicate instanceof SpeedmentPredicateImpl)) {
+            return Optional.empty();
+        }
+        @SuppressWarnings("unchecked")
+        final SpeedmentPredicateImpl<?, Object> impl = (SpeedmentPredicateImpl<?, Object>) predicate;
+        final boolean negated = predicate.isNegated();
+        final boolean nullMatches;
+        try {
+            nullMatches = impl.testField(null) ^ negated;
+        } catch (NullPointerException npe) {
+            return Optional.empty();
+        }
+
+        final Optional<IntPredicate> nonNull;
+        if (vector instanceof StringVector) {
+            final StringVector strings = (StringVector) vector;
+            final boolean[] matches = new boolean[strings.dictionary.length];
+            for (int i = 0; i < matches.length; i++) {
+                matches[i] = impl.testField(strings.dictionary[i]) ^ negated;
+            }
+            final int[] codes = strings.codes;
+            return Optional.of(row -> {
+                final int code = codes[row];
+                return code < 0 ? nullMatches : matches[code];
+            });
+        } else {
+            nonNull = ((NumericVector) vector).compile(predicate)
+                .map(p -> negated ? p.negate() : p);
+        }
+
+        if (vector.nullCount == 0) {
+            return nonNull;
+        }
+        return nonNull.map(p -> row -> vector.isNull(row) ? nullMatches : p.test(row));
+    }
+
+    enum Kind {
+        INT, LONG, DOUBLE, STRING;
+
+        static Optional<Kind> of(String resultSetMethodName) {
+            switch (resultSetMethodName) {
+                case "Byte":
+                case "Short":
+                case "Int":
+                    return Optional.of(INT);
+                case "Long":
+                    return Optional.of(LONG);
+                case "Float":
+                case "Double":
+                    return Optional.of(DOUBLE);
+                case "String":
+                    return Optional.of(STRING);
+                default:
+                    return Optional.empty();
+            }
+        }
+    }
+
+    /**
+     * Builds a snapshot one row at a time.
+     */
+    static final class Builder {
+
+        private final List<String> names = new ArrayList<>();
+        private final List<Kind> kinds = new ArrayList<>();
+        private final List<Integer> resultSetColumns = new ArrayList<>();
+        private final List<Map<String, Integer>> dictionaries = new ArrayList<>();
+        private int resultSetColumn = 1;
+        private int capacity = 1024;
+        private int rowCount;
+        private Object[] values;
+        private long[][] nulls;
+
+        void addColumn(String name, Kind kind) {
+            names.add(requireNonNull(name));
+            kinds.add(requireNonNull(kind));
+            resultSetColumns.add(resultSetColumn);
+            dictionaries.add(kind == Kind.STRING ? new HashMap<>() : null);
+        }
+
+        void nextResultSetColumn() {
+            resultSetColumn++;
+        }
+
+        Builder addRow(ResultSet resultSet) {
+            try {
+                ensureCapacity();
+                for (int i = 0; i < kinds.size(); i++) {
+                    final int index = resultSetColumns.get(i);
+                    boolean isNull = false;
+                    switch (kinds.get(i)) {
+                        case INT:
+                            ((int[]) values[i])[rowCount] = resultSet.getInt(index);
+                            isNull = resultSet.wasNull();
+                            break;
+                        case LONG:
+                            ((long[]) values[i])[rowCount] = resultSet.getLong(index);
+                            isNull = resultSet.wasNull();
+                            break;
+                        case DOUBLE:
+                            ((double[]) values[i])[rowCount] = resultSet.getDouble(index);
+                            isNull = resultSet.wasNull();
+                            break;
+                        case STRING:
+                            final String value = resultSet.getString(index);
+                            isNull = value == null;
+                            ((int[]) values[i])[rowCount] = isNull ? -1 : encode(i, value);
+                            break;
+                    }
+                    if (isNull) {
+                        nulls[i][rowCount >>> 6] |= 1L << rowCount;
+                    }
+                }
+                rowCount++;
+                return this;
+            } catch (SQLException sqle) {
+                throw new SpeedmentException(sqle);
+            }
+        }
+
+        void addValues(Object... row) {
+            ensureCapacity();
+            for (int i = 0; i < kinds.size(); i++) {
+                final Object value = row[i];
+                if (value == null) {
+                    nulls[i][rowCount >>> 6] |= 1L << rowCount;
+                    if (kinds.get(i) == Kind.STRING) {
+                        ((int[]) values[i])[rowCount] = -1;
+                    }
+                    continue;
+                }
+                switch (kinds.get(i)) {
+                    case INT:
+                        ((int[]) values[i])[rowCount] = ((Number) value).intValue();
+                        break;
+                    case LONG:
+                        ((long[]) values[i])[rowCount] = ((Number) value).longValue();
+                        break;
+                    case DOUBLE:
+                        ((double[]) values[i])[rowCount] = ((Number) value).doubleValue();
+                        break;
+                    case STRING:
+                        ((int[]) values[i])[rowCount] = encode(i, (String) value);
+                        break;
+                }
+            }
+            rowCount++;
+        }
+
+        ColumnarSnapshot build() {
+            ensureCapacity();
+            final Map<String, Vector> vectors = new HashMap<>();
+            for (int i = 0; i < kinds.size(); i++) {
+                final long[] nullBits = Arrays.copyOf(nulls[i], (rowCount + 63) >>> 6);
+                final Vector vector;
+                switch (kinds.get(i)) {
+                    case INT:
+                        vector = new IntVector(Arrays.copyOf((int[]) values[i], rowCount), nullBits);
+                        break;
+                    case LONG:
+                        vector = new LongVector(Arrays.copyOf((long[]) values[i], rowCount), nullBits);
+                        break;
+                    case DOUBLE:
+                        vector = new DoubleVector(Arrays.copyOf((double[]) values[i], rowCount), nullBits);
+                        break;
+                    default:
+                        final String[] dictionary = new String[dictionaries.get(i).size()];
+                        dictionaries.get(i).forEach((s, code) -> dictionary[code] = s);
+                        vector = new StringVector(Arrays.copyOf((int[]) values[i], rowCount), dictionary, nullBits);
+                        break;
+                }
+                vectors.put(names.get(i), vector);
+            }
+            return new ColumnarSnapshot(rowCount, vectors);
+        }
+
+        private int encode(int column, String value) {
+            final Map<String, Integer> dictionary = dictionaries.get(column);
+            return dictionary.computeIfAbsent(value, v -> dictionary.size());
+        }
+
+        private void ensureCapacity() {
+            if (values == null) {
+                values = new Object[kinds.size()];
+                nulls = new long[kinds.size()][];
+                for (int i = 0; i < kinds.size(); i++) {
+                    values[i] = newArray(kinds.get(i), capacity);
+                    nulls[i] = new long[(capacity + 63) >>> 6];
+                }
+            } else if (rowCount == capacity) {
+                capacity = Math.max(capacity, (int) Math.min(Integer.MAX_VALUE - 8, capacity * 2L));
+                if (rowCount == capacity) {
+                    throw new IllegalStateException("Too many rows for a columnar snapshot");
+                }
+                for (int i = 0; i < kinds.size(); i++) {
+                    values[i] = grow(values[i], capacity);
+                    nulls[i] = Arrays.copyOf(nulls[i], (capacity + 63) >>> 6);
+                }
+            }
+        }
+
+        private static Object newArray(Kind kind, int capacity) {
+            switch (kind) {
+                case LONG:
+                    return new long[capacity];
+                case DOUBLE:
+                    return new double[capacity];
+                default:
+                    return new int[capacity];
+            }
+        }
+
+        private static Object grow(Object array, int capacity) {
+            if (array instanceof long[]) {
+                return Arrays.copyOf((long[]) array, capacity);
+            } else if (array instanceof double[]) {
+                return Arrays.copyOf((double[]) array, capacity);
+            }
+            return Arrays.copyOf((int[]) array, capacity);
+        }
+    }
+
+    private abstract static class Vector {
+
+        private final long[] nulls;
+        private final int nullCount;
+
+        Vector(long[] nulls) {
+            this.nulls = nulls;
+            this.nullCount = Arrays.stream(nulls).mapToInt(Long::bitCount).sum();
+        }
+
+        final boolean isNull(int row) {
+            return (nulls[row >>> 6] & (1L << row)) != 0;
+        }
+    }
+
+    private static final class StringVector extends Vector {
+
+        private final int[] codes;
+        private final String[] dictionary;
+
+        StringVector(int[] codes, String[] dictionary, long[] nulls) {
+            super(nulls);
+            this.codes = codes;
+            this.dictionary = dictionary;
+        }
+    }
+
+    private abstract static class NumericVector extends Vector {
+
+        NumericVector(long[] nulls) {
+            super(nulls);
+        }
+
+        abstract void accumulate(int from, int to, IntPredicate filter, IntSummaryStatistics stats);
+
+        abstract void accumulate(int from, int to, IntPredicate filter, LongSummaryStatistics stats);
+
+        abstract void accumulate(int from, int to, IntPredicate filter, DoubleSummaryStatistics stats);
+
+        /**
+         * Compiles the given predicate into a row predicate for the rows
+         * where this vector is not null, disregarding negation.
+         */
+        abstract Optional<IntPredicate> compile(SpeedmentPredicate<?, ?> predicate);
+    }
+
+    private abstract static class IntegralVector extends NumericVector {
+
+        IntegralVector(long[] nulls) {
+            super(nulls);
+        }
+
+        abstract long get(int row);
+
+        @Override
+        final Optional<IntPredicate> compile(SpeedmentPredicate<?, ?> predicate) {
+            switch (predicate.getPredicateType()) {
+                case ALWAYS_TRUE:
+                case IS_NOT_NULL:
+                    return Optional.of(row -> true);
+                case ALWAYS_FALSE:
+                case IS_NULL:
+                    return Optional.of(row -> false);
+                case IN: {
+                    final Set<?> set = PredicateUtil.getFirstOperandAsRawSet(predicate);
+                    if (!set.stream().allMatch(ColumnarSnapshot::isIntegral)) {
+                        return Optional.empty();
+                    }
+                    final long[] sorted = set.stream().mapToLong(o -> ((Number) o).longValue()).sorted().toArray();
+                    return Optional.of(row -> Arrays.binarySearch(sorted, get(row)) >= 0);
+                }
+                case BETWEEN: {
+                    final Object first = PredicateUtil.getFirstOperandAsRaw(predicate);
+                    final Object second = PredicateUtil.getSecondOperandAsRaw(predicate);
+                    if (!isIntegral(first) || !isIntegral(second)) {
+                        return Optional.empty();
+                    }
+                    final Inclusion inclusion = PredicateUtil.getThirdOperandAsInclusion(predicate);
+                    final boolean startInclusive = inclusion.isStartInclusive();
+                    final boolean endInclusive = inclusion.isEndInclusive();
+                    final long start = ((Number) first).longValue();
+                    final long end = ((Number) second).longValue();
+                    return Optional.of(row -> {
+                        final long value = get(row);
+                        return (startInclusive ? value >= start : value > start)
+                            && (endInclusive ? value <= end : value < end);
+                    });
+                }
+                default:
+                    break;
+            }
+            final Object operand = PredicateUtil.getFirstOperandAsRaw(predicate);
+            if (!isIntegral(operand)) {
+                return Optional.empty();
+            }
+            final long o = ((Number) operand).longValue();
+            switch (predicate.getPredicateType()) {
+                case EQUAL:
+                    return Optional.of(row -> get(row) == o);
+                case NOT_EQUAL:
+                    return Optional.of(row -> get(row) != o);
+                case GREATER_THAN:
+                    return Optional.of(row -> get(row) > o);
+                case GREATER_OR_EQUAL:
+                    return Optional.of(row -> get(row) >= o);
+                case LESS_THAN:
+                    return Optional.of(row -> get(row) < o);
+                case LESS_OR_EQUAL:
+                    return Optional.of(row -> get(row) <= o);
+                default:
+                    return Optional.empty();
+            }
+        }
+    }
+
+    private static final class IntVector extends IntegralVector {
+
+        private final int[] values;
+
+        IntVector(int[] values, long[] nulls) {
+            super(nulls);
+            this.values = values;
+        }
+
+        @Override
+        long get(int row) {
+            return values[row];
+        }
+
+        @Override
+        void accumulate(int from, int to, IntPredicate filter, IntSummaryStatistics stats) {
+            for (int row = from; row < to; row++) {
+                if (filter.test(row)) {
+                    stats.accept(values[row]);
+                }
+            }
+        }
+
+        @Override
+        void accumulate(int from, int to, IntPredicate filter, LongSummaryStatistics stats) {
+            for (int row = from; row < to; row++) {
+                if (filter.test(row)) {
+                    stats.accept(values[row]);
+                }
+            }
+        }
+
+        @Override
+        void accumulate(int from, int to, IntPredicate filter, DoubleSummaryStatistics stats) {
+            for (int row = from; row < to; row++) {
+                if (filter.test(row)) {
+                    stats.accept(values[row]);
+                }
+            }
+        }
+    }
+
+    private static final class LongVector extends IntegralVector {
+
+        private final long[] values;
+
+        LongVector(long[] values, long[] nulls) {
+            super(nulls);
+            this.values = values;
+        }
+
+        @Override
+        long get(int row) {
+            return values[row];
+        }
+
+        @Override
+        void accumulate(int from, int to, IntPredicate filter, IntSummaryStatistics stats) {
+            for (int row = from; row < to; row++) {
+                if (filter.test(row)) {
+                    stats.accept((int) values[row]);
+                }
+            }
+        }
+
+        @Override
+        void accumulate(int from, int to, IntPredicate filter, LongSummaryStatistics stats) {
+            for (int row = from; row < to; row++) {
+                if (filter.test(row)) {
+                    stats.accept(values[row]);
+                }
+            }
+        }
+
+        @Override
+        void accumulate(int from, int to, IntPredicate filter, DoubleSummaryStatistics stats) {
+            for (int row = from; row < to; row++) {
+                if (filter.test(row)) {
+                    stats.accept(values[row]);
+                }
+            }
+        }
+    }
+
+    private static final class DoubleVector extends NumericVector {
+
+        private final double[] values;
+
+        DoubleVector(double[] values, long[] nulls) {
+            super(nulls);
+            this.values = values;
+        }
+
+        @Override
+        void accumulate(int from, int to, IntPredicate filter, IntSummaryStatistics stats) {
+            for (int row = from; row < to; row++) {
+                if (filter.test(row)) {
+                    stats.accept((int) values[row]);
+                }
+            }
+        }
+
+        @Override
+        void accumulate(int from, int to, IntPredicate filter, LongSummaryStatistics stats) {
+            for (int row = from; row < to; row++) {
+                if (filter.test(row)) {
+                    stats.accept((long) values[row]);
+                }
+            }
+        }
+
+        @Override
+        void accumulate(int from, int to, IntPredicate filter, DoubleSummaryStatistics stats) {
+            for (int row = from; row < to; row++) {
+                if (filter.test(row)) {
+                    stats.accept(values[row]);
+                }
+            }
+        }
+
+        @Override
+        Optional<IntPredicate> compile(SpeedmentPredicate<?, ?> predicate) {
+            switch (predicate.getPredicateType()) {
+                case ALWAYS_TRUE:
+                case IS_NOT_NULL:
+                    return Optional.of(row -> true);
+                case ALWAYS_FALSE:
+                case IS_NULL:
+                    return Optional.of(row -> false);
+                case BETWEEN: {
+                    final Object first = PredicateUtil.getFirstOperandAsRaw(predicate);
+                    final Object second = PredicateUtil.getSecondOperandAsRaw(predicate);
+                    if (!isFloating(first) || !isFloating(second)) {
+                        return Optional.empty();
+                    }
+                    final Inclusion inclusion = PredicateUtil.getThirdOperandAsInclusion(predicate);
+                    final boolean startInclusive = inclusion.isStartInclusive();
+                    final boolean endInclusive = inclusion.isEndInclusive();
+                    final double start = ((Number) first).doubleValue();
+                    final double end = ((Number) second).doubleValue();
+                    return Optional.of(row -> {
+                        final int fromStart = Double.compare(values[row], start);
+                        final int fromEnd = Double.compare(values[row], end);
+                        return (startInclusive ? fromStart >= 0 : fromStart > 0)
+                            && (endInclusive ? fromEnd <= 0 : fromEnd < 0);
+                    });
+                }
+                default:
+                    break;
+            }
+            final Object operand = PredicateUtil.getFirstOperandAsRaw(predicate);
+            if (!isFloating(operand)) {
+                return Optional.empty();
+            }
+            final double o = ((Number) operand).doubleValue();
+            switch (predicate.getPredicateType()) {
+                case EQUAL:
+                    return Optional.of(row -> Double.compare(values[row], o) == 0);
+                case NOT_EQUAL:
+                    return Optional.of(row -> Double.compare(values[row], o) != 0);
+                case GREATER_THAN:
+                    return Optional.of(row -> Double.compare(values[row], o) > 0);
+                case GREATER_OR_EQUAL:
+                    return Optional.of(row -> Double.compare(values[row], o) >= 0);
+                case LESS_THAN:
+                    return Optional.of(row -> Double.compare(values[row], o) < 0);
+                case LESS_OR_EQUAL:
+                    return Optional.of(row -> Double.compare(values[row], o) <= 0);
+                default:
+                    return Optional.empty();
+            }
+        }
+    }
+
+    private static boolean isIntegral(Object value) {
+        return value instanceof Integer || value instanceof Long
+            || value instanceof Short || value instanceof Byte;
+    }
+
+    private static boolean isFloating(Object value) {
+        return value instanceof Double || value instanceof Float;
+    }
+}
@@ -0,0 +1,75 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.internal.core.memory;
+
+import com.speedment.field.predicate.SpeedmentPredicate;
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * A secondary index over one column of the entities in an
+ * {@link IndexedEntityStore}. An index maps column values to the primary keys
+ * of the entities holding them. Entities with a {@code null} value in the
+ * column are not indexed, since none of the predicates an index is used for
+ * can match them.
+ * <p>
+ * Implementations are not thread safe. They are guarded by the store that
+ * owns them.
+ *
+ * @author pemi
+ * @param <ENTITY> the entity type
+ */
+public interface EntityIndex<ENTITY> {
+
+    /**
+     * Returns the name of the indexed column.
+     *
+     * @return the column name
+     */
+    String getColumnName();
+
+    /**
+     * Indexes the given entity, replacing any previous entry for its primary
+     * key.
+     *
+     * @param primaryKey the primary key of the entity
+     * @param entity the entity
+     */
+    void put(Object primaryKey, ENTITY entity);
+
+    /**
+     * Removes the entry for the given primary key, if present.
+     *
+     * @param primaryKey the primary key of the entity
+     */
+    void remove(Object primaryKey);
+
+    /**
+     * Removes all entries from this index.
+     */
+    void clear();
+
+    /**
+     * Returns the primary keys of all entities that match the given
+     * predicate on the indexed column, or {@code empty} if the predicate can
+     * not be answered by this index.
+     *
+     * @param predicate the predicate
+     * @return the primary keys of the matching entities or {@code empty}
+     */
+    Optional<Collection<Object>> lookup(SpeedmentPredicate<?, ?> predicate);
+}
@@ -0,0 +1,100 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.internal.core.memory;
+
+import com.speedment.field.predicate.SpeedmentPredicate;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * A store holding all the entities of a table in memory, keyed by primary
+ * key. Implementations must be thread safe.
+ *
+ * @author pemi
+ * @param <ENTITY> the entity type
+ */
+public interface EntityStore<ENTITY> extends AutoCloseable {
+
+    /**
+     * Replaces the content of this store with the given entities.
+     *
+     * @param entities the new content
+     */
+    void replaceAll(Stream<ENTITY> entities);
+
+    /**
+     * Inserts or replaces the given entity.
+     *
+     * @param entity the entity to put
+     */
+    void put(ENTITY entity);
+
+    /**
+     * Removes the entity with the given primary key, if present.
+     *
+     * @param primaryKey the primary key of the entity
+     */
+    void remove(Object primaryKey);
+
+    /**
+     * Returns the entity with the given primary key, if present.
+     *
+     * @param primaryKey the primary key of the entity
+     * @return the entity or {@code empty}
+     */
+    Optional<ENTITY> get(Object primaryKey);
+
+    /**
+     * Returns a stream over a consistent view of all entities in this store.
+     * Writes that are made while the stream is consumed are not visible in
+     * the stream.
+     *
+     * @return a stream of all entities
+     */
+    Stream<ENTITY> stream();
+
+    /**
+     * Returns the entities of this store that may match all of the given
+     * predicates, if the store can narrow them down without scanning all its
+     * entities. The result contains every matching entity but may also
+     * contain entities that do not match, so the predicates must still be
+     * applied to it. The default implementation returns {@code empty}.
+     *
+     * @param predicates the predicates that all matching entities satisfy
+     * @return the candidate entities or {@code empty}
+     */
+    default Optional<List<ENTITY>> find(List<SpeedmentPredicate<ENTITY, ?>> predicates) {
+        return Optional.empty();
+    }
+
+    /**
+     * Returns the number of entities in this store.
+     *
+     * @return the number of entities
+     */
+    long size();
+
+    /**
+     * Releases any resources held by this store. The default implementation
+     * does nothing.
+     */
+    @Override
+    default void close() {
+        // Nothing to release by default
+    }
+}
@@ -0,0 +1,102 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.internal.core.memory;
+
+import com.speedment.field.predicate.SpeedmentPredicate;
+import com.speedment.internal.core.field.predicate.PredicateUtil;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * An {@link EntityIndex} for columns with unique values, backed by a hash
+ * map. Answers {@code EQUAL} and {@code IN} predicates in constant time per
+ * operand.
+ *
+ * @author pemi
+ * @param <ENTITY> the entity type
+ */
+public final class HashEntityIndex<ENTITY> extends AbstractEntityIndex<ENTITY> {
+
+    private final Map<Object, Object> primaryKeys;
+
+    /**
+     * Creates a new empty index.
+     *
+     * @param columnName the name of the indexed column
+     * @param valueMapper function that returns the column value of an entity
+     */
+    public HashEntityIndex(String columnName, Function<ENTITY, Object> valueMapper) {
+        super(columnName, valueMapper);
+        this.primaryKeys = new HashMap<>();
+    }
+
+    @Override
+    void addEntry(Object value, Object primaryKey) {
+        primaryKeys.put(value, primaryKey);
+    }
+
+    @Override
+    void removeEntry(Object value, Object primaryKey) {
+        // The value might already have been taken over by another entity
+        primaryKeys.remove(value, primaryKey);
+    }
+
+    @Override
+    void clearEntries() {
+        primaryKeys.clear();
+    }
+
+    @Override
+    Optional<Collection<Object>> lookupEntries(SpeedmentPredicate<?, ?> predicate) {
+        switch (predicate.getPredicateType()) {
+            case EQUAL: {
+                final Object operand = PredicateUtil.getFirstOperandAsRaw(predicate);
+                if (!accepts(operand)) {
+                    return Optional.empty();
+                }
+                final Object primaryKey = primaryKeys.get(operand);
+                return Optional.of(primaryKey == null
+                    ? Collections.emptyList()
+                    : Collections.singletonList(primaryKey)
+                );
+            }
+            case IN: {
+                final Set<?> operands = PredicateUtil.getFirstOperandAsRawSet(predicate);
+                if (!acceptsAll(operands)) {
+                    return Optional.empty();
+                }
+                final List<Object> result = new ArrayList<>(operands.size());
+                for (final Object operand : operands) {
+                    final Object primaryKey = primaryKeys.get(operand);
+                    if (primaryKey != null) {
+                        result.add(primaryKey);
+                    }
+                }
+                return Optional.of(result);
+            }
+            default:
+                return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,445 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.internal.core.memory;
+
+import com.speedment.Speedment;
+import com.speedment.config.Column;
+import com.speedment.config.Dbms;
+import com.speedment.config.PrimaryKeyColumn;
+import com.speedment.config.Schema;
+import com.speedment.config.Table;
+import com.speedment.config.mapper.TypeMapper;
+import com.speedment.db.SqlFunction;
+import com.speedment.exception.SpeedmentException;
+import com.speedment.internal.core.manager.sql.AbstractSqlManager;
+import static com.speedment.internal.core.stream.OptionalUtil.unwrap;
+import com.speedment.internal.logging.Logger;
+import com.speedment.internal.logging.LoggerManager;
+import com.speedment.internal.util.tuple.Tuple2;
+import com.speedment.internal.util.tuple.Tuples;
+import com.speedment.stream.StreamDecorator;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import static java.util.Objects.requireNonNull;
+import java.util.Optional;
+import java.util.Set;
+import static java.util.stream.Collectors.joining;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
+import java.util.stream.Stream;
+
+/**
+ * Keeps an {@link EntityStore} up to date with a table by polling the table
+ * for changed rows instead of reloading it. The table must have a version
+ * column, for example an update timestamp or a monotonically increasing
+ * version number, that is set to a value no less than any previous value
+ * whenever a row is inserted or updated. Each poll reads the rows with a
+ * version no less than the greatest version seen so far and merges them into
+ * the store. Rows with exactly the greatest version are read again, since
+ * other rows may be committed with the same timestamp after a poll, but are
+ * only applied if they differ from the entity already in the store.
+ * <p>
+ * Deleted rows do not show up in the version column. They are detected
+ * either through a tombstone table, where a row holding the primary key of
+ * each deleted row and a version column is inserted when it is deleted, or
+ * by periodically comparing the primary keys of the store with the primary
+ * keys of the table.
+ *
+ * @author pemi
+ * @param <ENTITY> the entity type
+ */
+public final class IncrementalRefresher<ENTITY> {
+
+    private static final Logger LOGGER = LoggerManager.getLogger(IncrementalRefresher.class);
+
+    private final Speedment speedment;
+    private final AbstractSqlManager<ENTITY> manager;
+    private final EntityStore<ENTITY> store;
+    private final Column versionColumn;
+    private final List<Column> columns;
+    private final List<Column> primaryKeyColumns;
+    private Table tombstoneTable;
+    private Column tombstoneVersionColumn;
+    private int primaryKeyDiffInterval;
+
+    private boolean initialized;
+    private Object lastSeen;
+    private Object lastSeenTombstone;
+    private int pollsSinceDiff;
+    private long pollCount;
+    private long reloadCount;
+    private long rowsApplied;
+    private long rowsRemoved;
+    private long lastRefreshTime;
+
+    /**
+     * Creates a new refresher. The store is loaded on the first call to
+     * {@link #poll()}.
+     *
+     * @param speedment the Speedment instance
+     * @param manager the manager of the table
+     * @param store the store to keep up to date
+     * @param versionColumnName the name of the version column of the table
+     * @throws SpeedmentException if the column does not exist or the table
+     * has no primary key
+     */
+    public IncrementalRefresher(Speedment speedment, AbstractSqlManager<ENTITY> manager, EntityStore<ENTITY> store, String versionColumnName) {
+        this.speedment = requireNonNull(speedment);
+        this.manager = requireNonNull(manager);
+        this.store = requireNonNull(store);
+        this.versionColumn = manager.getTable().find(Column.class, requireNonNull(versionColumnName));
+        this.columns = manager.getTable().streamOf(Column.class)
+            .filter(Column::isEnabled)
+            .collect(toList());
+        this.primaryKeyColumns = manager.getTable().streamOf(PrimaryKeyColumn.class)
+            .map(PrimaryKeyColumn::getColumn)
+            .collect(toList());
+        if (primaryKeyColumns.isEmpty()) {
+            throw new SpeedmentException("The table " + manager.getTable().getName() + " has no primary key");
+        }
+    }
+
+    /**
+     * Detects deleted rows through the given tombstone table, which must be
+     * in the same schema as the table and have columns with the same names
+     * as the primary key columns of the table.
+     *
+     * @param tableName the name of the tombstone table
+     * @param versionColumnName the name of the version column of the
+     * tombstone table
+     * @return this instance
+     * @throws SpeedmentException if the table or column does not exist
+     */
+    public synchronized IncrementalRefresher<ENTITY> withTombstones(String tableName, String versionColumnName) {
+        requireNonNull(tableName);
+        requireNonNull(versionColumnName);
+        this.tombstoneTable = manager.getTable().ancestor(Schema.class).get().find(Table.class, tableName);
+        this.tombstoneVersionColumn = tombstoneTable.find(Column.class, versionColumnName);
+        return this;
+    }
+
+    /**
+     * Detects deleted rows by comparing the primary keys of the store with
+     * those of the table every given number of polls. An interval of zero,
+     * which is the default, disables the comparison.
+     *
+     * @param pollInterval the number of polls between comparisons
+     * @return this instance
+     */
+    public synchronized IncrementalRefresher<ENTITY> withPrimaryKeyDiff(int pollInterval) {
+        if (pollInterval < 0) {
+            throw new IllegalArgumentException("The poll interval must not be negative, was " + pollInterval);
+        }
+        this.primaryKeyDiffInterval = pollInterval;
+        return this;
+    }
+
+    /**
+     * Reloads the whole table into the store.
+     */
+    public synchronized void reload() {
+        final long started = System.currentTimeMillis();
+        // The marks are read first so that rows changed during the load are polled again
+        final Object maxVersion = maxOf(versionColumn, manager.sqlTableReference());
+        final Object maxTombstone = tombstoneTable == null
+            ? null
+            : maxOf(tombstoneVersionColumn, sqlTombstoneTableReference());
+
+        try (final Stream<ENTITY> entities = manager.nativeStream(StreamDecorator.IDENTITY)) {
+            store.replaceAll(entities);
+        }
+        lastSeen = maxVersion;
+        lastSeenTombstone = maxTombstone;
+        pollsSinceDiff = 0;
+        initialized = true;
+        reloadCount++;
+        lastRefreshTime = started;
+    }
+
+    /**
+     * Merges the rows that have changed since the last poll into the store
+     * and removes the rows that have been deleted. On the first poll, the
+     * whole table is loaded if the store is empty. If the store already holds
+     * entities, for example from a persisted store, polling continues from
+     * the greatest version found in the store.
+     *
+     * @return the number of rows that were merged or removed
+     */
+    public synchronized long poll() {
+        if (!initialized) {
+            if (store.size() == 0) {
+                reload();
+                return store.size();
+            }
+            resume();
+        }
+        final long started = System.currentTimeMillis();
+        final Object since = lastSeen;
+        // Tombstones are read before the changes, so a row deleted in between
+        // is removed by the next poll instead of being resurrected
+        final List<Tuple2<Object, Object>> tombstones = tombstoneTable == null
+            ? Collections.emptyList()
+            : readTombstones();
+
+        final List<ENTITY> changed;
+        try (final Stream<ENTITY> entities = manager.asynchronousStreamOf(
+            manager.sqlSelect(lastSeen == null ? "" : " where " + manager.quoteField(versionColumn.getName()) + " >= ?"),
+            lastSeen == null ? Collections.emptyList() : Collections.singletonList(lastSeen),
+            manager.getSqlEntityMapper()
+        )) {
+            changed = entities.collect(toList());
+        }
+
+        long removed = 0;
+        for (final Tuple2<Object, Object> tombstone : tombstones) {
+            final Optional<ENTITY> current = store.get(tombstone.get0());
+            // A row that was inserted again after it was deleted is kept
+            if (current.isPresent() && !isGreater(versionOf(current.get()), tombstone.get1())) {
+                store.remove(tombstone.get0());
+                removed++;
+            }
+            lastSeenTombstone = max(lastSeenTombstone, tombstone.get1());
+        }
+        long applied = 0;
+        for (final ENTITY entity : changed) {
+            final Object version = versionOf(entity);
+            // Rows at the version of the previous poll are read by every poll
+            if (since != null && !isGreater(version, since) && isStored(entity)) {
+                continue;
+            }
+            store.put(entity);
+            applied++;
+            lastSeen = max(lastSeen, version);
+        }
+        if (primaryKeyDiffInterval > 0 && ++pollsSinceDiff >= primaryKeyDiffInterval) {
+            pollsSinceDiff = 0;
+            removed += removeMissing();
+        }
+
+        pollCount++;
+        rowsApplied += applied;
+        rowsRemoved += removed;
+        lastRefreshTime = started;
+        LOGGER.debug("Polled " + manager.getTable().getName() + ": " + applied + " applied, " + removed + " removed");
+        return applied + removed;
+    }
+
+    /**
+     * Returns the statistics of this refresher.
+     *
+     * @return the statistics
+     */
+    public synchronized RefreshStatistics getStatistics() {
+        return new RefreshStatistics(
+            pollCount,
+            reloadCount,
+            rowsApplied,
+            rowsRemoved,
+            lastRefreshTime == 0 ? -1 : System.currentTimeMillis() - lastRefreshTime
+        );
+    }
+
+    private void resume() {
+        lastSeen = store.stream()
+            .map(this::versionOf)
+            .reduce(null, IncrementalRefresher::max);
+        // Without a record of the tombstones seen, start from the greatest
+        // version of the table if the versions are comparable
+        lastSeenTombstone = tombstoneTable != null
+            && versionColumn.getTypeMapper().getDatabaseType().equals(tombstoneVersionColumn.getTypeMapper().getDatabaseType())
+            ? lastSeen
+            : null;
+        initialized = true;
+    }
+
+    private List<Tuple2<Object, Object>> readTombstones() {
+        final SqlFunction<ResultSet, Object> primaryKeyReader = primaryKeyReader();
+        final SqlFunction<ResultSet, Object> versionReader = readerOf(tombstoneVersionColumn, primaryKeyColumns.size() + 1);
+        final String quotedVersion = manager.quoteField(tombstoneVersionColumn.getName());
+        final String sql = "select " + sqlPrimaryKeyColumns() + "," + quotedVersion
+            + " from " + sqlTombstoneTableReference()
+            + (lastSeenTombstone == null ? "" : " where " + quotedVersion + " >= ?");
+
+        try (final Stream<Tuple2<Object, Object>> tombstones = manager.asynchronousStreamOf(
+            sql,
+            lastSeenTombstone == null ? Collections.emptyList() : Collections.singletonList(lastSeenTombstone),
+            rs -> Tuples.of(primaryKeyReader.apply(rs), versionReader.apply(rs))
+        )) {
+            return tombstones.collect(toList());
+        }
+    }
+
+    private long removeMissing() {
+        // The keys of the store are taken before the table is read, so that
+        // rows persisted in the meantime are not removed
+        final List<Object> stored = store.stream()
+            .map(manager::primaryKeyFor)
+            .collect(toList());
+
+        final Set<Object> existing;
+        try (final Stream<Object> keys = manager.asynchronousStreamOf(
+            "select " + sqlPrimaryKeyColumns() + " from " + manager.sqlTableReference(),
+            Collections.emptyList(),
+            primaryKeyReader()
+        )) {
+            existing = keys.collect(toSet());
+        }
+
+        long removed = 0;
+        for (final Object primaryKey : stored) {
+            if (!existing.contains(primaryKey)) {
+                store.remove(primaryKey);
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    private Object maxOf(Column column, String tableReference) {
+        final SqlFunction<ResultSet, Object> reader = readerOf(column, 1);
+        return manager.synchronousStreamOf(
+            "select max(" + manager.quoteField(column.getName()) + ") from " + tableReference,
+            Collections.emptyList(),
+            reader
+        ).filter(Objects::nonNull).findFirst().orElse(null); // max is null for an empty table
+    }
+
+    private String sqlPrimaryKeyColumns() {
+        return primaryKeyColumns.stream()
+            .map(Column::getName)
+            .map(manager::quoteField)
+            .collect(joining(","));
+    }
+
+    private String sqlTombstoneTableReference() {
+        return tombstoneTable.getRelativeName(Schema.class, manager::quoteField);
+    }
+
+    /**
+     * Returns a reader of primary keys on the same form as
+     * {@link AbstractSqlManager#primaryKeyFor(java.lang.Object)} from the
+     * leading columns of a result set.
+     */
+    private SqlFunction<ResultSet, Object> primaryKeyReader() {
+        final List<SqlFunction<ResultSet, Object>> readers = new ArrayList<>();
+        for (int i = 0; i < primaryKeyColumns.size(); i++) {
+            final Column column = primaryKeyColumns.get(i);
+            readers.add(readerOf(column, i + 1).andThen(value -> toJavaType(column, value)));
+        }
+        if (readers.size() == 1) {
+            return readers.get(0);
+        }
+        return rs -> {
+            final Object[] key = new Object[readers.size()];
+            for (int i = 0; i < key.length; i++) {
+                key[i] = readers.get(i).apply(rs);
+            }
+            return manager.primaryKeyOf(Arrays.asList(key));
+        };
+    }
+
+    /**
+     * Returns a reader of the database value of the given column, using the
+     * same {@link ResultSet} getter as the generated entity mappers.
+     */
+    private SqlFunction<ResultSet, Object> readerOf(Column column, int position) {
+        final Dbms dbms = manager.getTable().ancestor(Dbms.class).get();
+        final String getterName = "get" + speedment.getJavaTypeMapperComponent()
+            .apply(dbms.getType(), column.getTypeMapper().getDatabaseType())
+            .getResultSetMethodName(dbms);
+
+        Method method;
+        try {
+            method = ResultSet.class.getMethod(getterName, int.class);
+        } catch (NoSuchMethodException nsme) {
+            method = null;
+        }
+        final Method getter = method;
+
+        return rs -> {
+            final Object value;
+            if (getter == null) {
+                value = rs.getObject(position);
+            } else {
+                try {
+                    value = getter.invoke(rs, position);
+                } catch (IllegalAccessException iae) {
+                    throw new SpeedmentException(iae);
+                } catch (InvocationTargetException ite) {
+                    if (ite.getCause() instanceof SQLException) {
+                        throw (SQLException) ite.getCause();
+                    }
+                    throw new SpeedmentException(ite.getCause());
+                }
+            }
+            return rs.wasNull() ? null : value;
+        };
+    }
+
+    /**
+     * Returns {@code true} if the store holds an entity with the same primary
+     * key and the same column values as the given entity.
+     */
+    private boolean isStored(ENTITY entity) {
+        return store.get(manager.primaryKeyFor(entity))
+            .filter(current -> columns.stream().allMatch(c -> Objects.deepEquals(
+                unwrap(manager.get(current, c)),
+                unwrap(manager.get(entity, c))
+            )))
+            .isPresent();
+    }
+
+    private Object versionOf(ENTITY entity) {
+        @SuppressWarnings("unchecked")
+        final TypeMapper<Object, Object> typeMapper = (TypeMapper<Object, Object>) versionColumn.getTypeMapper();
+        return typeMapper.toDatabaseType(unwrap(manager.get(entity, versionColumn)));
+    }
+
+    private static Object toJavaType(Column column, Object value) {
+        @SuppressWarnings("unchecked")
+        final TypeMapper<Object, Object> typeMapper = (TypeMapper<Object, Object>) column.getTypeMapper();
+        return typeMapper.toJavaType(value);
+    }
+
+    private static Object max(Object first, Object second) {
+        return isGreater(second, first) ? second : first;
+    }
+
+    /**
+     * Returns whether the first value is greater than the second. A
+     * {@code null} value is less than any other value, and values of
+     * different classes are not comparable.
+     */
+    @SuppressWarnings("unchecked")
+    private static boolean isGreater(Object first, Object second) {
+        if (first == null) {
+            return false;
+        }
+        if (second == null) {
+            return true;
+        }
+        return first.getClass().equals(second.getClass())
+            && ((Comparable<Object>) first).compareTo(second) > 0;
+    }
+}
@@ -0,0 +1,191 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.internal.core.memory;
+
+import com.speedment.Manager;
+import com.speedment.config.Column;
+import com.speedment.config.Index;
+import com.speedment.config.IndexColumn;
+import com.speedment.field.predicate.SpeedmentPredicate;
+import static com.speedment.internal.core.stream.OptionalUtil.unwrap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import static java.util.Objects.requireNonNull;
+import java.util.Optional;
+import java.util.function.Function;
+import static java.util.stream.Collectors.toList;
+import java.util.stream.Stream;
+
+/**
+ * An {@link EntityStore} that maintains a number of {@link EntityIndex}es
+ * over the entities of another store. All writes go through this store so
+ * that the indexes are kept up to date, and
+ * {@link #find(java.util.List) find} uses the index that gives the fewest
+ * candidates for the given predicates.
+ * <p>
+ * Writes and lookups are serialized, so lookups wait while the store is
+ * being reloaded.
+ *
+ * @author pemi
+ * @param <ENTITY> the entity type
+ */
+public final class IndexedEntityStore<ENTITY> implements EntityStore<ENTITY> {
+
+    private final EntityStore<ENTITY> delegate;
+    private final Function<ENTITY, Object> keyMapper;
+    private final List<EntityIndex<ENTITY>> indexes;
+
+    /**
+     * Creates a new store that indexes the entities of the given store. Any
+     * entities already in the given store are indexed immediately.
+     *
+     * @param delegate the store holding the entities
+     * @param keyMapper function that returns the primary key of an entity
+     * @param indexes the indexes to maintain
+     */
+    public IndexedEntityStore(EntityStore<ENTITY> delegate, Function<ENTITY, Object> keyMapper, List<EntityIndex<ENTITY>> indexes) {
+        this.delegate = requireNonNull(delegate);
+        this.keyMapper = requireNonNull(keyMapper);
+        this.indexes = new ArrayList<>(requireNonNull(indexes));
+        try (final Stream<ENTITY> entities = delegate.stream()) {
+            entities.forEach(this::index);
+        }
+    }
+
+    /**
+     * Wraps the given store in an {@code IndexedEntityStore} with one index
+     * for each enabled {@link Index} of the table of the given manager. Unique
+     * single column indexes are backed by a {@link HashEntityIndex} and all
+     * other indexes by a {@link SortedEntityIndex} on their leading column.
+     * If the table has no enabled indexes, the given store is returned as is.
+     *
+     * @param <ENTITY> entity type
+     * @param delegate the store holding the entities
+     * @param manager the manager of the table
+     * @return the indexed store, or the given store if there are no indexes
+     */
+    public static <ENTITY> EntityStore<ENTITY> of(EntityStore<ENTITY> delegate, Manager<ENTITY> manager) {
+        requireNonNull(delegate);
+        requireNonNull(manager);
+        final List<EntityIndex<ENTITY>> indexes = manager.getTable().streamOf(Index.class)
+            .filter(Index::isEnabled)
+            .map(index -> indexOf(index, manager))
+            .filter(Optional::isPresent)
+            .map(Optional::get)
+            .collect(toList());
+
+        if (indexes.isEmpty()) {
+            return delegate;
+        }
+        return new IndexedEntityStore<>(delegate, manager::primaryKeyFor, indexes);
+    }
+
+    private static <ENTITY> Optional<EntityIndex<ENTITY>> indexOf(Index index, Manager<ENTITY> manager) {
+        final List<IndexColumn> indexColumns = index.streamOf(IndexColumn.class)
+            .filter(IndexColumn::isEnabled)
+            .sorted(Comparator.comparingInt(IndexColumn::getOrdinalPosition))
+            .collect(toList());
+
+        if (indexColumns.isEmpty()) {
+            return Optional.empty();
+        }
+        final Column column = indexColumns.get(0).getColumn();
+        final Function<ENTITY, Object> valueMapper = entity -> unwrap(manager.get(entity, column));
+        if (indexColumns.size() == 1 && Boolean.TRUE.equals(index.isUnique())) {
+            return Optional.of(new HashEntityIndex<>(column.getName(), valueMapper));
+        }
+        return Optional.of(new SortedEntityIndex<>(column.getName(), valueMapper));
+    }
+
+    /**
+     * Returns the indexes of this store.
+     *
+     * @return the indexes
+     */
+    public List<EntityIndex<ENTITY>> getIndexes() {
+        return indexes;
+    }
+
+    @Override
+    public synchronized void replaceAll(Stream<ENTITY> entities) {
+        requireNonNull(entities);
+        indexes.forEach(EntityIndex::clear);
+        delegate.replaceAll(entities.peek(this::index));
+    }
+
+    @Override
+    public synchronized void put(ENTITY entity) {
+        requireNonNull(entity);
+        index(entity);
+        delegate.put(entity);
+    }
+
+    @Override
+    public synchronized void remove(Object primaryKey) {
+        indexes.forEach(index -> index.remove(primaryKey));
+        delegate.remove(primaryKey);
+    }
+
+    @Override
+    public Optional<ENTITY> get(Object primaryKey) {
+        return delegate.get(primaryKey);
+    }
+
+    @Override
+    public Stream<ENTITY> stream() {
+        return delegate.stream();
+    }
+
+    @Override
+    public long size() {
+        return delegate.size();
+    }
+
+    @Override
+    public synchronized Optional<List<ENTITY>> find(List<SpeedmentPredicate<ENTITY, ?>> predicates) {
+        requireNonNull(predicates);
+        Collection<Object> best = null;
+        for (final SpeedmentPredicate<ENTITY, ?> predicate : predicates) {
+            for (final EntityIndex<ENTITY> index : indexes) {
+                final Optional<Collection<Object>> primaryKeys = index.lookup(predicate);
+                if (primaryKeys.isPresent() && (best == null || primaryKeys.get().size() < best.size())) {
+                    best = primaryKeys.get();
+                }
+            }
+        }
+        if (best == null) {
+            return Optional.empty();
+        }
+        final List<ENTITY> result = new ArrayList<>(best.size());
+        for (final Object primaryKey : best) {
+            delegate.get(primaryKey).ifPresent(result::add);
+        }
+        return Optional.of(result);
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+
+    private void index(ENTITY entity) {
+        final Object primaryKey = keyMapper.apply(entity);
+        indexes.forEach(index -> index.put(primaryKey, entity));
+    }
+}
@@ -0,0 +1,329 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.internal.core.memory;
+
+import com.speedment.Manager;
+import com.speedment.field.predicate.SpeedmentPredicate;
+import com.speedment.field.trait.FieldTrait;
+import com.speedment.internal.core.field.predicate.AbstractCombinedBasePredicate.AndCombinedBasePredicate;
+import com.speedment.internal.core.field.predicate.PredicateStatistics;
+import com.speedment.internal.core.manager.sql.AbstractSqlManager;
+import com.speedment.internal.core.stream.builder.action.Action;
+import com.speedment.internal.core.stream.builder.action.reference.FilterAction;
+import com.speedment.internal.core.stream.builder.action.reference.MapToDoubleAction;
+import com.speedment.internal.core.stream.builder.action.reference.MapToIntAction;
+import com.speedment.internal.core.stream.builder.action.reference.MapToLongAction;
+import com.speedment.internal.core.stream.builder.pipeline.DoublePipeline;
+import com.speedment.internal.core.stream.builder.pipeline.IntPipeline;
+import com.speedment.internal.core.stream.builder.pipeline.LongPipeline;
+import com.speedment.internal.core.stream.builder.pipeline.Pipeline;
+import com.speedment.internal.core.stream.builder.pipeline.ReferencePipeline;
+import com.speedment.internal.core.stream.builder.streamterminator.StreamTerminator;
+import com.speedment.internal.core.stream.builder.streamterminator.StreamTerminatorUtil;
+import com.speedment.stream.StreamDecorator;
+import java.util.ArrayList;
+import java.util.DoubleSummaryStatistics;
+import java.util.IntSummaryStatistics;
+import java.util.List;
+import java.util.LongSummaryStatistics;
+import static java.util.Objects.requireNonNull;
+import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.OptionalInt;
+import java.util.OptionalLong;
+import java.util.function.BiFunction;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+
+/**
+ * A {@link StreamTerminator} for streams that are served from an
+ * {@link EntityStore}. All actions, including the filters, are evaluated
+ * against the entities in memory.
+ * <p>
+ * If the leading filters of a pipeline test a column that the store has an
+ * index for, only the candidates found in the index are streamed.
+ * <p>
+ * If a {@link ColumnarSnapshot} of the table is available, counts and
+ * aggregations of pipelines that consist of filters on
+ * {@link SpeedmentPredicate}s, optionally followed by a primitive mapping of
+ * a column, are computed directly over the snapshot.
+ *
+ * @author pemi
+ * @param <ENTITY> the entity type
+ */
+public final class MemoryStreamTerminator<ENTITY> implements StreamTerminator {
+
+    private final Manager<ENTITY> manager;
+    private final EntityStore<ENTITY> store;
+    private final ColumnarSnapshot snapshot;
+    private final StreamDecorator decorator;
+    private final PredicateStatistics statistics;
+
+    public MemoryStreamTerminator(Manager<ENTITY> manager, EntityStore<ENTITY> store, StreamDecorator decorator) {
+        this(manager, store, null, decorator);
+    }
+
+    public MemoryStreamTerminator(Manager<ENTITY> manager, EntityStore<ENTITY> store, ColumnarSnapshot snapshot, StreamDecorator decorator) {
+        this.manager = requireNonNull(manager);
+        this.store = requireNonNull(store);
+        this.snapshot = snapshot; // Nullable
+        this.decorator = requireNonNull(decorator);
+        this.statistics = manager instanceof AbstractSqlManager
+            ? ((AbstractSqlManager<?>) manager).getPredicateStatistics()
+            : new PredicateStatistics();
+    }
+
+    public Manager<ENTITY> getManager() {
+        return manager;
+    }
+
+    public EntityStore<ENTITY> getStore() {
+        return store;
+    }
+
+    public Optional<ColumnarSnapshot> getSnapshot() {
+        return Optional.ofNullable(snapshot);
+    }
+
+    @Override
+    public StreamDecorator getStreamDecorator() {
+        return decorator;
+    }
+
+    @Override
+    public <P extends Pipeline> P optimize(P initialPipeline) {
+        requireNonNull(initialPipeline);
+        final List<SpeedmentPredicate<ENTITY, ?>> andPredicates = StreamTerminatorUtil.topLevelAndPredicates(initialPipeline);
+        if (!andPredicates.isEmpty()) {
+            final Optional<List<ENTITY>> candidates = store.find(andPredicates);
+            if (candidates.isPresent()) {
+                // The filters are retained in the pipeline and applied to the candidates
+                initialPipeline.setInitialSupplier(() -> candidates.get().stream());
+            }
+        }
+        StreamTerminatorUtil.compileFilters(initialPipeline, statistics);
+        return getStreamDecorator().apply(initialPipeline);
+    }
+
+    @Override
+    public <T> long count(ReferencePipeline<T> pipeline) {
+        requireNonNull(pipeline);
+        return filterOf(pipeline, pipeline.size())
+            .map(filter -> snapshot.count(filter))
+            .orElseGet(() -> StreamTerminator.super.count(pipeline));
+    }
+
+    @Override
+    public int sum(IntPipeline pipeline) {
+        requireNonNull(pipeline);
+        return aggregate(pipeline, (filter, column) -> snapshot.intStatistics(filter, column))
+            .map(s -> (int) s.getSum())
+            .orElseGet(() -> StreamTerminator.super.sum(pipeline));
+    }
+
+    @Override
+    public OptionalInt min(IntPipeline pipeline) {
+        requireNonNull(pipeline);
+        return aggregate(pipeline, (filter, column) -> snapshot.intStatistics(filter, column))
+            .map(s -> s.getCount() == 0 ? OptionalInt.empty() : OptionalInt.of(s.getMin()))
+            .orElseGet(() -> StreamTerminator.super.min(pipeline));
+    }
+
+    @Override
+    public OptionalInt max(IntPipeline pipeline) {
+        requireNonNull(pipeline);
+        return aggregate(pipeline, (filter, column) -> snapshot.intStatistics(filter, column))
+            .map(s -> s.getCount() == 0 ? OptionalInt.empty() : OptionalInt.of(s.getMax()))
+            .orElseGet(() -> StreamTerminator.super.max(pipeline));
+    }
+
+    @Override
+    public <T> long count(IntPipeline pipeline) {
+        requireNonNull(pipeline);
+        return aggregate(pipeline, (filter, column) -> snapshot.intStatistics(filter, column))
+            .map(IntSummaryStatistics::getCount)
+            .orElseGet(() -> StreamTerminator.super.count(pipeline));
+    }
+
+    @Override
+    public OptionalDouble average(IntPipeline pipeline) {
+        requireNonNull(pipeline);
+        return aggregate(pipeline, (filter, column) -> snapshot.intStatistics(filter, column))
+            .map(s -> s.getCount() == 0 ? OptionalDouble.empty() : OptionalDouble.of(s.getAverage()))
+            .orElseGet(() -> StreamTerminator.super.average(pipeline));
+    }
+
+    @Override
+    public IntSummaryStatistics summaryStatistics(IntPipeline pipeline) {
+        requireNonNull(pipeline);
+        return aggregate(pipeline, (filter, column) -> snapshot.intStatistics(filter, column))
+            .orElseGet(() -> StreamTerminator.super.summaryStatistics(pipeline));
+    }
+
+    @Override
+    public long sum(LongPipeline pipeline) {
+        requireNonNull(pipeline);
+        return aggregate(pipeline, (filter, column) -> snapshot.longStatistics(filter, column))
+            .map(LongSummaryStatistics::getSum)
+            .orElseGet(() -> StreamTerminator.super.sum(pipeline));
+    }
+
+    @Override
+    public OptionalLong min(LongPipeline pipeline) {
+        requireNonNull(pipeline);
+        return aggregate(pipeline, (filter, column) -> snapshot.longStatistics(filter, column))
+            .map(s -> s.getCount() == 0 ? OptionalLong.empty() : OptionalLong.of(s.getMin()))
+            .orElseGet(() -> StreamTerminator.super.min(pipeline));
+    }
+
+    @Override
+    public OptionalLong max(LongPipeline pipeline) {
+        requireNonNull(pipeline);
+        return aggregate(pipeline, (filter, column) -> snapshot.longStatistics(filter, column))
+            .map(s -> s.getCount() == 0 ? OptionalLong.empty() : OptionalLong.of(s.getMax()))
+            .orElseGet(() -> StreamTerminator.super.max(pipeline));
+    }
+
+    @Override
+    public long count(LongPipeline pipeline) {
+        requireNonNull(pipeline);
+        return aggregate(pipeline, (filter, column) -> snapshot.longStatistics(filter, column))
+            .map(LongSummaryStatistics::getCount)
+            .orElseGet(() -> StreamTerminator.super.count(pipeline));
+    }
+
+    @Override
+    public OptionalDouble average(LongPipeline pipeline) {
+        requireNonNull(pipeline);
+        return aggregate(pipeline, (filter, column) -> snapshot.longStatistics(filter, column))
+            .map(s -> s.getCount() == 0 ? OptionalDouble.empty() : OptionalDouble.of(s.getAverage()))
+            .orElseGet(() -> StreamTerminator.super.average(pipeline));
+    }
+
+    @Override
+    public LongSummaryStatistics summaryStatistics(LongPipeline pipeline) {
+        requireNonNull(pipeline);
+        return aggregate(pipeline, (filter, column) -> snapshot.longStatistics(filter, column))
+            .orElseGet(() -> StreamTerminator.super.summaryStatistics(pipeline));
+    }
+
+    @Override
+    public double sum(DoublePipeline pipeline) {
+        requireNonNull(pipeline);
+        return aggregate(pipeline, (filter, column) -> snapshot.doubleStatistics(filter, column))
+            .map(DoubleSummaryStatistics::getSum)
+            .orElseGet(() -> StreamTerminator.super.sum(pipeline));
+    }
+
+    @Override
+    public OptionalDouble min(DoublePipeline pipeline) {
+        requireNonNull(pipeline);
+        return aggregate(pipeline, (filter, column) -> snapshot.doubleStatistics(filter, column))
+            .map(s -> s.getCount() == 0 ? OptionalDouble.empty() : OptionalDouble.of(s.getMin()))
+            .orElseGet(() -> StreamTerminator.super.min(pipeline));
+    }
+
+    @Override
+    public OptionalDouble max(DoublePipeline pipeline) {
+        requireNonNull(pipeline);
+        return aggregate(pipeline, (filter, column) -> snapshot.doubleStatistics(filter, column))
+            .map(s -> s.getCount() == 0 ? OptionalDouble.empty() : OptionalDouble.of(s.getMax()))
+            .orElseGet(() -> StreamTerminator.super.max(pipeline));
+    }
+
+    @Override
+    public long count(DoublePipeline pipeline) {
+        requireNonNull(pipeline);
+        return aggregate(pipeline, (filter, column) -> snapshot.doubleStatistics(filter, column))
+            .map(DoubleSummaryStatistics::getCount)
+            .orElseGet(() -> StreamTerminator.super.count(pipeline));
+    }
+
+    @Override
+    public OptionalDouble average(DoublePipeline pipeline) {
+        requireNonNull(pipeline);
+        return aggregate(pipeline, (filter, column) -> snapshot.doubleStatistics(filter, column))
+            .map(s -> s.getCount() == 0 ? OptionalDouble.empty() : OptionalDouble.of(s.getAverage()))
+            .orElseGet(() -> StreamTerminator.super.average(pipeline));
+    }
+
+    @Override
+    public DoubleSummaryStatistics summaryStatistics(DoublePipeline pipeline) {
+        requireNonNull(pipeline);
+        return aggregate(pipeline, (filter, column) -> snapshot.doubleStatistics(filter, column))
+            .orElseGet(() -> StreamTerminator.super.summaryStatistics(pipeline));
+    }
+
+    /**
+     * Computes statistics over the snapshot for a pipeline that consists of
+     * filters followed by a primitive mapping of a column.
+     */
+    private <S> Optional<S> aggregate(Pipeline pipeline, BiFunction<IntPredicate, String, Optional<S>> aggregator) {
+        if (snapshot == null || pipeline.isEmpty()) {
+            return Optional.empty();
+        }
+        final Object mapper = mapperOf(pipeline.getLast());
+        if (!(mapper instanceof FieldTrait)) {
+            return Optional.empty();
+        }
+        final String columnName = ((FieldTrait) mapper).getColumnName();
+        return filterOf(pipeline, pipeline.size() - 1)
+            .flatMap(filter -> aggregator.apply(filter, columnName));
+    }
+
+    /**
+     * Compiles the given number of leading actions of the pipeline into a row
+     * predicate, if they are all filters that can be evaluated against the
+     * snapshot.
+     */
+    private Optional<IntPredicate> filterOf(Pipeline pipeline, int filterCount) {
+        if (snapshot == null || decorator != StreamDecorator.IDENTITY) {
+            return Optional.empty();
+        }
+        final List<SpeedmentPredicate<?, ?>> predicates = new ArrayList<>();
+        for (int i = 0; i < filterCount; i++) {
+            final Action<?, ?> action = pipeline.get(i);
+            if (!(action instanceof FilterAction) || !addPredicates(((FilterAction<?>) action).getPredicate(), predicates)) {
+                return Optional.empty();
+            }
+        }
+        return snapshot.compile(predicates);
+    }
+
+    private static boolean addPredicates(Predicate<?> predicate, List<SpeedmentPredicate<?, ?>> predicates) {
+        if (predicate instanceof SpeedmentPredicate) {
+            predicates.add((SpeedmentPredicate<?, ?>) predicate);
+            return true;
+        }
+        if (predicate instanceof AndCombinedBasePredicate) {
+            final AndCombinedBasePredicate<?> and = (AndCombinedBasePredicate<?>) predicate;
+            return !and.isNegated() && and.stream().allMatch(p -> addPredicates(p, predicates));
+        }
+        return false;
+    }
+
+    private static Object mapperOf(Action<?, ?> action) {
+        if (action instanceof MapToIntAction) {
+            return ((MapToIntAction<?>) action).getMapper();
+        } else if (action instanceof MapToLongAction) {
+            return ((MapToLongAction<?>) action).getMapper();
+        } else if (action instanceof MapToDoubleAction) {
+            return ((MapToDoubleAction<?>) action).getMapper();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,467 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.internal.core.memory;
+
+import com.speedment.exception.SpeedmentException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import static java.util.Objects.requireNonNull;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import static java.util.stream.Collectors.toList;
+import java.util.stream.Stream;
+
+/**
+ * An {@link EntityStore} that keeps the entities outside of the Java heap, as
+ * rows encoded by a {@link RowCodec} in a list of fixed size segments. Only the
+ * primary key index is kept on the heap. Entities are decoded one at a time as
+ * a stream is consumed, so a short-circuiting stream only decodes the rows it
+ * reaches.
+ * <p>
+ * Rows are only ever appended. An update appends a new version of the row and
+ * marks the old one as dead, and the segments are compacted when more than
+ * half of the bytes are dead.
+ * <p>
+ * If a directory is given, the segments are memory mapped files in that
+ * directory and the content of the store survives a restart. Files written
+ * with other column types are discarded when the store is opened.
+ * <p>
+ * A reload encodes the new content without holding the lock. Writes made
+ * while the reload is in progress are replayed onto the new content before it
+ * replaces the current content.
+ *
+ * @author pemi
+ * @param <ENTITY> the entity type
+ */
+public final class OffHeapEntityStore<ENTITY> implements EntityStore<ENTITY> {
+
+    public static final int DEFAULT_SEGMENT_SIZE = 16 << 20;
+
+    private static final int MAGIC = 0x53504d53;
+    private static final int HEADER_SIZE = 12;
+    private static final int LIMIT_POSITION = 8;
+    private static final int ROW_HEADER_SIZE = 5;
+    private static final byte LIVE = 1;
+    private static final byte DEAD = 0;
+    private static final Pattern FILE_NAME = Pattern.compile("segment-(\\d+)\\.dat");
+
+    private final RowMapper<ENTITY> mapper;
+    private final RowCodec codec;
+    private final int segmentSize;
+    private final Path directory;
+    private final AtomicInteger nextFileNumber;
+    private final List<PendingWrites<ENTITY>> reloads;
+
+    private State state;
+    private volatile Snapshot snapshot;
+
+    /**
+     * Creates a new empty store that keeps its segments in direct memory.
+     *
+     * @param mapper the mapper between entities and rows
+     * @param segmentSize the size of each segment in bytes
+     */
+    public OffHeapEntityStore(RowMapper<ENTITY> mapper, int segmentSize) {
+        this(mapper, segmentSize, null);
+    }
+
+    /**
+     * Creates a new store that keeps its segments in memory mapped files in
+     * the given directory. Rows that were stored in the directory by a
+     * previous instance are read back.
+     *
+     * @param mapper the mapper between entities and rows
+     * @param segmentSize the size of each segment in bytes
+     * @param directory the directory of the segment files, or {@code null} to
+     *                  use direct memory
+     * @throws SpeedmentException if the directory could not be read
+     */
+    public OffHeapEntityStore(RowMapper<ENTITY> mapper, int segmentSize, Path directory) throws SpeedmentException {
+        this.mapper = requireNonNull(mapper);
+        this.codec = new RowCodec(mapper.getColumnNames(), mapper.getColumnTypes());
+        if (segmentSize <= HEADER_SIZE + ROW_HEADER_SIZE) {
+            throw new IllegalArgumentException("The segment size is too small, was " + segmentSize);
+        }
+        this.segmentSize = segmentSize;
+        this.directory = directory;
+        this.nextFileNumber = new AtomicInteger();
+        this.reloads = new ArrayList<>();
+        this.state = directory == null ? new State() : open(directory);
+    }
+
+    @Override
+    public void replaceAll(Stream<ENTITY> entities) {
+        requireNonNull(entities);
+        final PendingWrites<ENTITY> pending = new PendingWrites<>();
+        synchronized (this) {
+            reloads.add(pending);
+        }
+        final State loaded = new State();
+        final State old;
+        try {
+            entities.forEachOrdered(e -> loaded.put(mapper.primaryKeyFor(e), mapper.toRow(e)));
+            synchronized (this) {
+                pending.replay((key, e) -> loaded.put(key, mapper.toRow(e)), loaded::remove);
+                old = state;
+                state = loaded;
+                snapshot = null;
+            }
+        } catch (RuntimeException re) {
+            loaded.delete();
+            throw re;
+        } finally {
+            synchronized (this) {
+                reloads.remove(pending);
+            }
+        }
+        old.delete();
+    }
+
+    @Override
+    public synchronized void put(ENTITY entity) {
+        requireNonNull(entity);
+        final Object primaryKey = mapper.primaryKeyFor(entity);
+        state.put(primaryKey, mapper.toRow(entity));
+        reloads.forEach(r -> r.put(primaryKey, entity));
+        afterWrite();
+    }
+
+    @Override
+    public synchronized void remove(Object primaryKey) {
+        reloads.forEach(r -> r.remove(primaryKey));
+        if (state.remove(primaryKey)) {
+            afterWrite();
+        }
+    }
+
+    @Override
+    public synchronized Optional<ENTITY> get(Object primaryKey) {
+        final Long address = state.index.get(primaryKey);
+        if (address == null) {
+            return Optional.empty();
+        }
+        return Optional.of(decode(state.buffers(), address));
+    }
+
+    @Override
+    public Stream<ENTITY> stream() {
+        final Snapshot s = snapshot();
+        return Arrays.stream(s.addresses).mapToObj(a -> decode(s.buffers, a));
+    }
+
+    @Override
+    public synchronized long size() {
+        return state.index.size();
+    }
+
+    /**
+     * Returns the number of bytes held by the segments of this store.
+     *
+     * @return the number of allocated bytes
+     */
+    public synchronized long allocatedBytes() {
+        return (long) state.segments.size() * segmentSize;
+    }
+
+    /**
+     * Writes any changes of memory mapped segments to the storage device.
+     */
+    @Override
+    public synchronized void close() {
+        state.segments.stream()
+            .map(s -> s.buffer)
+            .filter(MappedByteBuffer.class::isInstance)
+            .map(MappedByteBuffer.class::cast)
+            .forEach(MappedByteBuffer::force);
+    }
+
+    private void afterWrite() {
+        snapshot = null;
+        if (state.deadBytes > state.liveBytes && state.deadBytes >= segmentSize) {
+            final State compacted = new State();
+            state.index.entrySet().stream()
+                .sorted(Map.Entry.comparingByValue())
+                .forEachOrdered(e -> compacted.copy(e.getKey(), state.buffers(), e.getValue()));
+            final State old = state;
+            state = compacted;
+            old.delete();
+        }
+    }
+
+    private ENTITY decode(ByteBuffer[] buffers, long address) {
+        return mapper.fromRow(codec.read(buffers[segmentOf(address)], offsetOf(address) + ROW_HEADER_SIZE));
+    }
+
+    private Snapshot snapshot() {
+        final Snapshot result = snapshot;
+        if (result != null) {
+            return result;
+        }
+        synchronized (this) {
+            if (snapshot == null) {
+                final long[] addresses = state.index.values().stream().mapToLong(Long::longValue).toArray();
+                Arrays.sort(addresses);
+                snapshot = new Snapshot(state.buffers(), addresses);
+            }
+            return snapshot;
+        }
+    }
+
+    private State open(Path directory) {
+        final List<Path> files;
+        try {
+            Files.createDirectories(directory);
+            try (final Stream<Path> paths = Files.list(directory)) {
+                files = paths
+                    .filter(p -> FILE_NAME.matcher(p.getFileName().toString()).matches())
+                    .sorted((a, b) -> Integer.compare(fileNumberOf(a), fileNumberOf(b)))
+                    .collect(toList());
+            }
+        } catch (IOException ioe) {
+            throw new SpeedmentException("Unable to open the segments in " + directory, ioe);
+        }
+
+        files.stream().mapToInt(OffHeapEntityStore::fileNumberOf).max()
+            .ifPresent(n -> nextFileNumber.set(n + 1));
+
+        final State opened = new State();
+        for (final Path file : files) {
+            final Segment segment = Segment.open(file, segmentSize);
+            if (segment == null || segment.buffer.getInt(0) != MAGIC || segment.buffer.getInt(4) != codec.schemaHash()) {
+                files.forEach(OffHeapEntityStore::deleteFile);
+                return new State();
+            }
+            opened.add(segment);
+            final int segmentIndex = opened.segments.size() - 1;
+            for (int offset = HEADER_SIZE; offset < segment.position; offset += ROW_HEADER_SIZE + segment.buffer.getInt(offset)) {
+                if (segment.buffer.get(offset + 4) == LIVE) {
+                    final long address = addressOf(segmentIndex, offset);
+                    final Object key = mapper.primaryKeyFor(decode(opened.buffers(), address));
+                    final Long previous = opened.index.put(key, address);
+                    if (previous != null) {
+                        opened.markDead(previous);
+                    }
+                    opened.liveBytes += ROW_HEADER_SIZE + segment.buffer.getInt(offset);
+                }
+            }
+        }
+        return opened;
+    }
+
+    private static int fileNumberOf(Path file) {
+        final Matcher matcher = FILE_NAME.matcher(file.getFileName().toString());
+        return matcher.matches() ? Integer.parseInt(matcher.group(1)) : -1;
+    }
+
+    private static void deleteFile(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ioe) {
+            throw new SpeedmentException("Unable to delete " + file, ioe);
+        }
+    }
+
+    private static long addressOf(int segment, int offset) {
+        return ((long) segment << 32) | offset;
+    }
+
+    private static int segmentOf(long address) {
+        return (int) (address >>> 32);
+    }
+
+    private static int offsetOf(long address) {
+        return (int) address;
+    }
+
+    private final class State {
+
+        private final List<Segment> segments = new ArrayList<>();
+        private final Map<Object, Long> index = new HashMap<>();
+        private ByteBuffer[] buffers;
+        private long liveBytes;
+        private long deadBytes;
+
+        private void put(Object key, Object[] row) {
+            final int length = codec.sizeOf(row);
+            final int offset = reserve(length);
+            final Segment segment = current();
+            codec.write(segment.buffer, offset + ROW_HEADER_SIZE, row);
+            commit(key, segment, offset, length);
+        }
+
+        private void copy(Object key, ByteBuffer[] from, long address) {
+            final ByteBuffer source = from[segmentOf(address)];
+            final int sourceOffset = offsetOf(address);
+            final int length = source.getInt(sourceOffset);
+            final int offset = reserve(length);
+            final Segment segment = current();
+            for (int i = 0; i < length; i++) {
+                segment.buffer.put(offset + ROW_HEADER_SIZE + i, source.get(sourceOffset + ROW_HEADER_SIZE + i));
+            }
+            commit(key, segment, offset, length);
+        }
+
+        private int reserve(int length) {
+            final int total = ROW_HEADER_SIZE + length;
+            if (total > segmentSize - HEADER_SIZE) {
+                throw new SpeedmentException(
+                    "A row of " + total + " bytes does not fit in a segment of " + segmentSize + " bytes"
+                );
+            }
+            if (segments.isEmpty() || current().position + total > segmentSize) {
+                add(newSegment());
+            }
+            return current().position;
+        }
+
+        private void commit(Object key, Segment segment, int offset, int length) {
+            segment.buffer.putInt(offset, length);
+            segment.buffer.put(offset + 4, LIVE);
+            segment.setPosition(offset + ROW_HEADER_SIZE + length);
+            final Long previous = index.put(key, addressOf(segments.size() - 1, offset));
+            if (previous != null) {
+                markDead(previous);
+            }
+            liveBytes += ROW_HEADER_SIZE + length;
+        }
+
+        private boolean remove(Object key) {
+            final Long address = index.remove(key);
+            if (address == null) {
+                return false;
+            }
+            markDead(address);
+            return true;
+        }
+
+        private void markDead(long address) {
+            final ByteBuffer buffer = segments.get(segmentOf(address)).buffer;
+            final int offset = offsetOf(address);
+            buffer.put(offset + 4, DEAD);
+            final int total = ROW_HEADER_SIZE + buffer.getInt(offset);
+            liveBytes -= total;
+            deadBytes += total;
+        }
+
+        private void add(Segment segment) {
+            segments.add(segment);
+            buffers = null;
+        }
+
+        private Segment current() {
+            return segments.get(segments.size() - 1);
+        }
+
+        private ByteBuffer[] buffers() {
+            if (buffers == null) {
+                buffers = segments.stream().map(s -> s.buffer).toArray(ByteBuffer[]::new);
+            }
+            return buffers;
+        }
+
+        private Segment newSegment() {
+            final Segment segment;
+            if (directory == null) {
+                segment = new Segment(ByteBuffer.allocateDirect(segmentSize), null);
+            } else {
+                segment = Segment.create(
+                    directory.resolve("segment-" + nextFileNumber.getAndIncrement() + ".dat"),
+                    segmentSize
+                );
+            }
+            segment.buffer.putInt(0, MAGIC);
+            segment.buffer.putInt(4, codec.schemaHash());
+            segment.setPosition(HEADER_SIZE);
+            return segment;
+        }
+
+        private void delete() {
+            segments.stream()
+                .filter(s -> s.file != null)
+                .forEach(s -> deleteFile(s.file));
+        }
+    }
+
+    private static final class Segment {
+
+        private final ByteBuffer buffer;
+        private final Path file;
+        private int position;
+
+        private Segment(ByteBuffer buffer, Path file) {
+            this.buffer = buffer;
+            this.file = file;
+            this.position = buffer.getInt(LIMIT_POSITION);
+        }
+
+        private void setPosition(int position) {
+            this.position = position;
+            buffer.putInt(LIMIT_POSITION, position);
+        }
+
+        private static Segment create(Path file, int size) {
+            try (final FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+                return new Segment(channel.map(FileChannel.MapMode.READ_WRITE, 0, size), file);
+            } catch (IOException ioe) {
+                throw new SpeedmentException("Unable to create " + file, ioe);
+            }
+        }
+
+        private static Segment open(Path file, int size) {
+            try (final FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+                if (channel.size() != size) {
+                    return null;
+                }
+                final Segment segment = new Segment(channel.map(FileChannel.MapMode.READ_WRITE, 0, size), file);
+                if (segment.position < HEADER_SIZE || segment.position > size) {
+                    return null;
+                }
+                return segment;
+            } catch (IOException ioe) {
+                throw new SpeedmentException("Unable to open " + file, ioe);
+            }
+        }
+    }
+
+    private static final class Snapshot {
+
+        private final ByteBuffer[] buffers;
+        private final long[] addresses;
+
+        private Snapshot(ByteBuffer[] buffers, long[] addresses) {
+            this.buffers = buffers;
+            this.addresses = addresses;
+        }
+    }
+}
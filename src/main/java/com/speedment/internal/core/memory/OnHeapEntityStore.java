@@ -0,0 +1,130 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.internal.core.memory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import static java.util.Objects.requireNonNull;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * An {@link EntityStore} that keeps the entities on the Java heap. Entities
+ * are scanned from a flat array snapshot that is rebuilt lazily after writes,
+ * so streams never hold a lock and read-mostly tables are scanned at memory
+ * speed.
+ * <p>
+ * A reload reads the new content without holding the lock. Writes made while
+ * the reload is in progress are recorded and replayed onto the new content
+ * before it replaces the current content, so they are neither lost nor
+ * undone by the reload.
+ *
+ * @author pemi
+ * @param <ENTITY> the entity type
+ */
+public final class OnHeapEntityStore<ENTITY> implements EntityStore<ENTITY> {
+
+    private final Function<ENTITY, Object> keyMapper;
+    private final List<PendingWrites<ENTITY>> reloads;
+    private Map<Object, ENTITY> entities;
+    private volatile Object[] snapshot;
+
+    /**
+     * Creates a new empty store.
+     *
+     * @param keyMapper function that returns the primary key of an entity
+     */
+    public OnHeapEntityStore(Function<ENTITY, Object> keyMapper) {
+        this.keyMapper = requireNonNull(keyMapper);
+        this.reloads = new ArrayList<>();
+        this.entities = new LinkedHashMap<>();
+        this.snapshot = new Object[0];
+    }
+
+    @Override
+    public void replaceAll(Stream<ENTITY> entities) {
+        requireNonNull(entities);
+        final PendingWrites<ENTITY> pending = new PendingWrites<>();
+        synchronized (this) {
+            reloads.add(pending);
+        }
+        try {
+            final Map<Object, ENTITY> loaded = new LinkedHashMap<>();
+            entities.forEachOrdered(e -> loaded.put(keyMapper.apply(e), e));
+            synchronized (this) {
+                pending.replay(loaded::put, loaded::remove);
+                this.entities = loaded;
+                this.snapshot = null;
+            }
+        } finally {
+            synchronized (this) {
+                reloads.remove(pending);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void put(ENTITY entity) {
+        requireNonNull(entity);
+        final Object primaryKey = keyMapper.apply(entity);
+        entities.put(primaryKey, entity);
+        reloads.forEach(r -> r.put(primaryKey, entity));
+        snapshot = null;
+    }
+
+    @Override
+    public synchronized void remove(Object primaryKey) {
+        reloads.forEach(r -> r.remove(primaryKey));
+        if (entities.remove(primaryKey) != null) {
+            snapshot = null;
+        }
+    }
+
+    @Override
+    public synchronized Optional<ENTITY> get(Object primaryKey) {
+        return Optional.ofNullable(entities.get(primaryKey));
+    }
+
+    @Override
+    public Stream<ENTITY> stream() {
+        @SuppressWarnings("unchecked")
+        final ENTITY[] array = (ENTITY[]) snapshot();
+        return Arrays.stream(array);
+    }
+
+    @Override
+    public synchronized long size() {
+        return entities.size();
+    }
+
+    private Object[] snapshot() {
+        final Object[] result = snapshot;
+        if (result != null) {
+            return result;
+        }
+        synchronized (this) {
+            if (snapshot == null) {
+                snapshot = entities.values().toArray();
+            }
+            return snapshot;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.internal.core.memory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Records the writes made to an {@link EntityStore} while its content is
+ * reloaded, so that they can be replayed onto the reloaded content before it
+ * replaces the current content. Only the last write of each primary key is
+ * kept. Instances are guarded by the lock of the store that owns them.
+ *
+ * @author pemi
+ * @param <ENTITY> the entity type
+ */
+final class PendingWrites<ENTITY> {
+
+    private final Map<Object, Optional<ENTITY>> writes = new LinkedHashMap<>();
+
+    void put(Object primaryKey, ENTITY entity) {
+        writes.put(primaryKey, Optional.of(entity));
+    }
+
+    void remove(Object primaryKey) {
+        writes.put(primaryKey, Optional.empty());
+    }
+
+    void replay(BiConsumer<Object, ENTITY> put, Consumer<Object> remove) {
+        writes.forEach((key, entity) -> {
+            if (entity.isPresent()) {
+                put.accept(key, entity.get());
+            } else {
+                remove.accept(key);
+            }
+        });
+    }
+}
@@ -0,0 +1,99 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.internal.core.memory;
+
+/**
+ * An immutable snapshot of the statistics of an {@link IncrementalRefresher}.
+ *
+ * @author pemi
+ */
+public final class RefreshStatistics {
+
+    private final long pollCount;
+    private final long reloadCount;
+    private final long rowsApplied;
+    private final long rowsRemoved;
+    private final long refreshLag;
+
+    public RefreshStatistics(long pollCount, long reloadCount, long rowsApplied, long rowsRemoved, long refreshLag) {
+        this.pollCount = pollCount;
+        this.reloadCount = reloadCount;
+        this.rowsApplied = rowsApplied;
+        this.rowsRemoved = rowsRemoved;
+        this.refreshLag = refreshLag;
+    }
+
+    /**
+     * Returns the number of successful incremental polls.
+     *
+     * @return the number of polls
+     */
+    public long getPollCount() {
+        return pollCount;
+    }
+
+    /**
+     * Returns the number of times the whole table was reloaded.
+     *
+     * @return the number of full reloads
+     */
+    public long getReloadCount() {
+        return reloadCount;
+    }
+
+    /**
+     * Returns the number of changed rows that have been merged into the store
+     * by incremental polls.
+     *
+     * @return the number of applied rows
+     */
+    public long getRowsApplied() {
+        return rowsApplied;
+    }
+
+    /**
+     * Returns the number of deleted rows that have been removed from the store
+     * by incremental polls.
+     *
+     * @return the number of removed rows
+     */
+    public long getRowsRemoved() {
+        return rowsRemoved;
+    }
+
+    /**
+     * Returns the number of milliseconds since the start of the last
+     * successful poll or reload, which is how old the changes in the store
+     * may be at most. If the store has never been refreshed, -1 is returned.
+     *
+     * @return the refresh lag in milliseconds, or -1
+     */
+    public long getRefreshLag() {
+        return refreshLag;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName()
+            + " {polls=" + pollCount
+            + ", reloads=" + reloadCount
+            + ", applied=" + rowsApplied
+            + ", removed=" + rowsRemoved
+            + ", lag=" + refreshLag
+            + "}";
+    }
+}
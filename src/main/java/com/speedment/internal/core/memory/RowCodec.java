@@ -0,0 +1,511 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.internal.core.memory;
+
+import com.speedment.exception.SpeedmentException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Encodes rows of database values into a compact binary format. A row starts
+ * with a bitmap with one bit per column that is set if the value is
+ * {@code null}, followed by the non-null values in column order. Fixed size
+ * values are stored in their natural width and variable size values are
+ * prefixed by their length.
+ * <p>
+ * All reads are done using absolute positions, so a buffer may be read by
+ * several threads at once.
+ *
+ * @author pemi
+ */
+public final class RowCodec {
+
+    private final List<String> names;
+    private final List<Class<?>> types;
+    private final FieldType[] fieldTypes;
+    private final int bitmapBytes;
+
+    /**
+     * Creates a new codec for rows with the given column names and database
+     * types.
+     *
+     * @param names the names of the columns
+     * @param types the database types of the columns
+     * @throws SpeedmentException if a type is not supported
+     */
+    public RowCodec(List<String> names, List<Class<?>> types) throws SpeedmentException {
+        this.names = Collections.unmodifiableList(new ArrayList<>(requireNonNull(names)));
+        this.types = Collections.unmodifiableList(new ArrayList<>(requireNonNull(types)));
+        if (this.names.size() != this.types.size()) {
+            throw new IllegalArgumentException(
+                "Expected " + this.types.size() + " column names, got " + this.names.size()
+            );
+        }
+        this.fieldTypes = new FieldType[types.size()];
+        for (int i = 0; i < fieldTypes.length; i++) {
+            fieldTypes[i] = FieldType.of(types.get(i));
+        }
+        this.bitmapBytes = (fieldTypes.length + 7) / 8;
+    }
+
+    /**
+     * Returns the database types of the columns of this codec.
+     *
+     * @return the column types
+     */
+    public List<Class<?>> getTypes() {
+        return types;
+    }
+
+    /**
+     * Returns the names of the columns of this codec.
+     *
+     * @return the column names
+     */
+    public List<String> getNames() {
+        return names;
+    }
+
+    /**
+     * Returns a hash of the column names and types of this codec, in order.
+     * Rows can only be read back by a codec with the same schema hash, so
+     * renaming or reordering columns of the same type changes the hash.
+     *
+     * @return the schema hash
+     */
+    public int schemaHash() {
+        int hash = 1;
+        for (int i = 0; i < fieldTypes.length; i++) {
+            hash = 31 * hash + names.get(i).hashCode();
+            hash = 31 * hash + fieldTypes[i].name().hashCode();
+        }
+        return hash;
+    }
+
+    /**
+     * Returns the number of bytes needed to encode the given row.
+     *
+     * @param values the row
+     * @return the encoded size
+     */
+    public int sizeOf(Object[] values) {
+        checkLength(values);
+        int size = bitmapBytes;
+        for (int i = 0; i < fieldTypes.length; i++) {
+            if (values[i] != null) {
+                size += fieldTypes[i].sizeOf(values[i]);
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Writes the given row to the buffer at the given position.
+     *
+     * @param buffer the buffer
+     * @param position the absolute position to write at
+     * @param values the row
+     * @return the number of bytes written
+     */
+    public int write(ByteBuffer buffer, int position, Object[] values) {
+        checkLength(values);
+        int offset = position + bitmapBytes;
+        for (int b = 0; b < bitmapBytes; b++) {
+            buffer.put(position + b, (byte) 0);
+        }
+        for (int i = 0; i < fieldTypes.length; i++) {
+            if (values[i] == null) {
+                final int index = position + (i >>> 3);
+                buffer.put(index, (byte) (buffer.get(index) | (1 << (i & 7))));
+            } else {
+                offset = fieldTypes[i].write(buffer, offset, values[i]);
+            }
+        }
+        return offset - position;
+    }
+
+    /**
+     * Reads all the values of the row at the given position.
+     *
+     * @param buffer the buffer
+     * @param position the absolute position of the row
+     * @return the row
+     */
+    public Object[] read(ByteBuffer buffer, int position) {
+        final Object[] values = new Object[fieldTypes.length];
+        int offset = position + bitmapBytes;
+        for (int i = 0; i < fieldTypes.length; i++) {
+            if (!isNull(buffer, position, i)) {
+                values[i] = fieldTypes[i].read(buffer, offset);
+                offset += fieldTypes[i].length(buffer, offset);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Reads a single value of the row at the given position without decoding
+     * the other values.
+     *
+     * @param buffer the buffer
+     * @param position the absolute position of the row
+     * @param column the index of the column to read
+     * @return the value, or {@code null}
+     */
+    public Object read(ByteBuffer buffer, int position, int column) {
+        if (column < 0 || column >= fieldTypes.length) {
+            throw new IndexOutOfBoundsException("Column " + column + " of " + fieldTypes.length);
+        }
+        if (isNull(buffer, position, column)) {
+            return null;
+        }
+        int offset = position + bitmapBytes;
+        for (int i = 0; i < column; i++) {
+            if (!isNull(buffer, position, i)) {
+                offset += fieldTypes[i].length(buffer, offset);
+            }
+        }
+        return fieldTypes[column].read(buffer, offset);
+    }
+
+    private boolean isNull(ByteBuffer buffer, int position, int column) {
+        return (buffer.get(position + (column >>> 3)) & (1 << (column & 7))) != 0;
+    }
+
+    private void checkLength(Object[] values) {
+        if (values.length != fieldTypes.length) {
+            throw new IllegalArgumentException(
+                "Expected " + fieldTypes.length + " values, got " + values.length
+            );
+        }
+    }
+
+    private enum FieldType {
+        BOOLEAN(1) {
+            @Override
+            int write(ByteBuffer buffer, int offset, Object value) {
+                buffer.put(offset, (byte) ((Boolean) value ? 1 : 0));
+                return offset + 1;
+            }
+
+            @Override
+            Object read(ByteBuffer buffer, int offset) {
+                return buffer.get(offset) != 0;
+            }
+        },
+        BYTE(1) {
+            @Override
+            int write(ByteBuffer buffer, int offset, Object value) {
+                buffer.put(offset, (Byte) value);
+                return offset + 1;
+            }
+
+            @Override
+            Object read(ByteBuffer buffer, int offset) {
+                return buffer.get(offset);
+            }
+        },
+        SHORT(2) {
+            @Override
+            int write(ByteBuffer buffer, int offset, Object value) {
+                buffer.putShort(offset, (Short) value);
+                return offset + 2;
+            }
+
+            @Override
+            Object read(ByteBuffer buffer, int offset) {
+                return buffer.getShort(offset);
+            }
+        },
+        CHARACTER(2) {
+            @Override
+            int write(ByteBuffer buffer, int offset, Object value) {
+                buffer.putChar(offset, (Character) value);
+                return offset + 2;
+            }
+
+            @Override
+            Object read(ByteBuffer buffer, int offset) {
+                return buffer.getChar(offset);
+            }
+        },
+        INTEGER(4) {
+            @Override
+            int write(ByteBuffer buffer, int offset, Object value) {
+                buffer.putInt(offset, (Integer) value);
+                return offset + 4;
+            }
+
+            @Override
+            Object read(ByteBuffer buffer, int offset) {
+                return buffer.getInt(offset);
+            }
+        },
+        LONG(8) {
+            @Override
+            int write(ByteBuffer buffer, int offset, Object value) {
+                buffer.putLong(offset, (Long) value);
+                return offset + 8;
+            }
+
+            @Override
+            Object read(ByteBuffer buffer, int offset) {
+                return buffer.getLong(offset);
+            }
+        },
+        FLOAT(4) {
+            @Override
+            int write(ByteBuffer buffer, int offset, Object value) {
+                buffer.putFloat(offset, (Float) value);
+                return offset + 4;
+            }
+
+            @Override
+            Object read(ByteBuffer buffer, int offset) {
+                return buffer.getFloat(offset);
+            }
+        },
+        DOUBLE(8) {
+            @Override
+            int write(ByteBuffer buffer, int offset, Object value) {
+                buffer.putDouble(offset, (Double) value);
+                return offset + 8;
+            }
+
+            @Override
+            Object read(ByteBuffer buffer, int offset) {
+                return buffer.getDouble(offset);
+            }
+        },
+        DATE(8) {
+            @Override
+            int write(ByteBuffer buffer, int offset, Object value) {
+                buffer.putLong(offset, ((Date) value).getTime());
+                return offset + 8;
+            }
+
+            @Override
+            Object read(ByteBuffer buffer, int offset) {
+                return new Date(buffer.getLong(offset));
+            }
+        },
+        TIME(8) {
+            @Override
+            int write(ByteBuffer buffer, int offset, Object value) {
+                buffer.putLong(offset, ((Time) value).getTime());
+                return offset + 8;
+            }
+
+            @Override
+            Object read(ByteBuffer buffer, int offset) {
+                return new Time(buffer.getLong(offset));
+            }
+        },
+        TIMESTAMP(12) {
+            @Override
+            int write(ByteBuffer buffer, int offset, Object value) {
+                final Timestamp timestamp = (Timestamp) value;
+                buffer.putLong(offset, timestamp.getTime());
+                buffer.putInt(offset + 8, timestamp.getNanos());
+                return offset + 12;
+            }
+
+            @Override
+            Object read(ByteBuffer buffer, int offset) {
+                final Timestamp timestamp = new Timestamp(buffer.getLong(offset));
+                timestamp.setNanos(buffer.getInt(offset + 8));
+                return timestamp;
+            }
+        },
+        STRING(-1) {
+            @Override
+            int sizeOf(Object value) {
+                return 4 + utf8Length((String) value);
+            }
+
+            @Override
+            int write(ByteBuffer buffer, int offset, Object value) {
+                return writeBytes(buffer, offset, ((String) value).getBytes(StandardCharsets.UTF_8));
+            }
+
+            @Override
+            Object read(ByteBuffer buffer, int offset) {
+                return new String(readBytes(buffer, offset), StandardCharsets.UTF_8);
+            }
+        },
+        BYTES(-1) {
+            @Override
+            int sizeOf(Object value) {
+                return 4 + ((byte[]) value).length;
+            }
+
+            @Override
+            int write(ByteBuffer buffer, int offset, Object value) {
+                return writeBytes(buffer, offset, (byte[]) value);
+            }
+
+            @Override
+            Object read(ByteBuffer buffer, int offset) {
+                return readBytes(buffer, offset);
+            }
+        },
+        BIG_INTEGER(-1) {
+            @Override
+            int sizeOf(Object value) {
+                return 4 + ((BigInteger) value).bitLength() / 8 + 1;
+            }
+
+            @Override
+            int write(ByteBuffer buffer, int offset, Object value) {
+                return writeBytes(buffer, offset, ((BigInteger) value).toByteArray());
+            }
+
+            @Override
+            Object read(ByteBuffer buffer, int offset) {
+                return new BigInteger(readBytes(buffer, offset));
+            }
+        },
+        BIG_DECIMAL(-1) {
+            @Override
+            int sizeOf(Object value) {
+                return 4 + BIG_INTEGER.sizeOf(((BigDecimal) value).unscaledValue());
+            }
+
+            @Override
+            int write(ByteBuffer buffer, int offset, Object value) {
+                final BigDecimal decimal = (BigDecimal) value;
+                buffer.putInt(offset, decimal.scale());
+                return BIG_INTEGER.write(buffer, offset + 4, decimal.unscaledValue());
+            }
+
+            @Override
+            int length(ByteBuffer buffer, int offset) {
+                return 4 + BIG_INTEGER.length(buffer, offset + 4);
+            }
+
+            @Override
+            Object read(ByteBuffer buffer, int offset) {
+                return new BigDecimal((BigInteger) BIG_INTEGER.read(buffer, offset + 4), buffer.getInt(offset));
+            }
+        };
+
+        private final int width;
+
+        private FieldType(int width) {
+            this.width = width;
+        }
+
+        static FieldType of(Class<?> type) {
+            requireNonNull(type);
+            if (type == Boolean.class) {
+                return BOOLEAN;
+            } else if (type == Byte.class) {
+                return BYTE;
+            } else if (type == Short.class) {
+                return SHORT;
+            } else if (type == Character.class) {
+                return CHARACTER;
+            } else if (type == Integer.class) {
+                return INTEGER;
+            } else if (type == Long.class) {
+                return LONG;
+            } else if (type == Float.class) {
+                return FLOAT;
+            } else if (type == Double.class) {
+                return DOUBLE;
+            } else if (type == Date.class) {
+                return DATE;
+            } else if (type == Time.class) {
+                return TIME;
+            } else if (type == Timestamp.class) {
+                return TIMESTAMP;
+            } else if (type == String.class) {
+                return STRING;
+            } else if (type == byte[].class) {
+                return BYTES;
+            } else if (type == BigInteger.class) {
+                return BIG_INTEGER;
+            } else if (type == BigDecimal.class) {
+                return BIG_DECIMAL;
+            }
+            throw new SpeedmentException("Unable to encode values of type " + type.getName());
+        }
+
+        /**
+         * Returns the number of bytes needed to encode the given value.
+         * Variable size types override this method.
+         */
+        int sizeOf(Object value) {
+            return width;
+        }
+
+        int length(ByteBuffer buffer, int offset) {
+            return width >= 0 ? width : 4 + buffer.getInt(offset);
+        }
+
+        abstract int write(ByteBuffer buffer, int offset, Object value);
+
+        abstract Object read(ByteBuffer buffer, int offset);
+
+        private static int writeBytes(ByteBuffer buffer, int offset, byte[] bytes) {
+            buffer.putInt(offset, bytes.length);
+            final ByteBuffer target = buffer.duplicate();
+            target.position(offset + 4);
+            target.put(bytes);
+            return offset + 4 + bytes.length;
+        }
+
+        private static byte[] readBytes(ByteBuffer buffer, int offset) {
+            final byte[] bytes = new byte[buffer.getInt(offset)];
+            final ByteBuffer source = buffer.duplicate();
+            source.position(offset + 4);
+            source.get(bytes);
+            return bytes;
+        }
+
+        private static int utf8Length(String value) {
+            int length = 0;
+            for (int i = 0; i < value.length(); i++) {
+                final char c = value.charAt(i);
+                if (c < 0x80) {
+                    length += 1;
+                } else if (c < 0x800) {
+                    length += 2;
+                } else if (Character.isHighSurrogate(c)
+                    && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    length += 4;
+                    i++;
+                } else if (Character.isSurrogate(c)) {
+                    length += 1; // Unpaired surrogates are encoded as '?'
+                } else {
+                    length += 3;
+                }
+            }
+            return length;
+        }
+    }
+}
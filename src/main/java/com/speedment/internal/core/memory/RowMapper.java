@@ -0,0 +1,132 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.internal.core.memory;
+
+import com.speedment.Manager;
+import com.speedment.config.Column;
+import com.speedment.config.mapper.TypeMapper;
+import static com.speedment.internal.core.stream.OptionalUtil.unwrap;
+import java.util.List;
+import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Converts entities to and from rows of database values.
+ *
+ * @author pemi
+ * @param <ENTITY> the entity type
+ */
+public interface RowMapper<ENTITY> {
+
+    /**
+     * Returns the names of the columns in a row.
+     *
+     * @return the column names
+     */
+    List<String> getColumnNames();
+
+    /**
+     * Returns the database types of the values in a row.
+     *
+     * @return the column types
+     */
+    List<Class<?>> getColumnTypes();
+
+    /**
+     * Returns the database values of the given entity.
+     *
+     * @param entity the entity
+     * @return the row
+     */
+    Object[] toRow(ENTITY entity);
+
+    /**
+     * Creates a new entity from the given database values.
+     *
+     * @param row the row
+     * @return the new entity
+     */
+    ENTITY fromRow(Object[] row);
+
+    /**
+     * Returns the primary key of the given entity.
+     *
+     * @param entity the entity
+     * @return the primary key
+     */
+    Object primaryKeyFor(ENTITY entity);
+
+    /**
+     * Creates a mapper for the enabled columns of the table of the given
+     * manager, using the {@link TypeMapper} of each column.
+     *
+     * @param <ENTITY> the entity type
+     * @param manager the manager
+     * @return the new mapper
+     */
+    static <ENTITY> RowMapper<ENTITY> of(Manager<ENTITY> manager) {
+        requireNonNull(manager);
+        final List<Column> columns = manager.getTable().streamOf(Column.class)
+            .filter(Column::isEnabled)
+            .collect(toList());
+        @SuppressWarnings("unchecked")
+        final List<TypeMapper<Object, Object>> typeMappers = columns.stream()
+            .map(c -> (TypeMapper<Object, Object>) c.getTypeMapper())
+            .collect(toList());
+        final List<Class<?>> types = typeMappers.stream()
+            .map(TypeMapper::getDatabaseType)
+            .collect(toList());
+        final List<String> names = columns.stream()
+            .map(Column::getName)
+            .collect(toList());
+
+        return new RowMapper<ENTITY>() {
+            @Override
+            public List<String> getColumnNames() {
+                return names;
+            }
+
+            @Override
+            public List<Class<?>> getColumnTypes() {
+                return types;
+            }
+
+            @Override
+            public Object[] toRow(ENTITY entity) {
+                final Object[] row = new Object[columns.size()];
+                for (int i = 0; i < row.length; i++) {
+                    row[i] = typeMappers.get(i).toDatabaseType(unwrap(manager.get(entity, columns.get(i))));
+                }
+                return row;
+            }
+
+            @Override
+            public ENTITY fromRow(Object[] row) {
+                final ENTITY entity = manager.newInstance();
+                for (int i = 0; i < row.length; i++) {
+                    manager.set(entity, columns.get(i), typeMappers.get(i).toJavaType(row[i]));
+                }
+                return entity;
+            }
+
+            @Override
+            public Object primaryKeyFor(ENTITY entity) {
+                return manager.primaryKeyFor(entity);
+            }
+        };
+    }
+}
@@ -0,0 +1,147 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.internal.core.memory;
+
+import com.speedment.field.Inclusion;
+import com.speedment.field.predicate.SpeedmentPredicate;
+import com.speedment.internal.core.field.predicate.PredicateUtil;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * An {@link EntityIndex} for columns with non-unique values, backed by a
+ * sorted map. Answers {@code EQUAL} and {@code IN} predicates as well as the
+ * range predicates {@code GREATER_THAN}, {@code GREATER_OR_EQUAL},
+ * {@code LESS_THAN}, {@code LESS_OR_EQUAL} and {@code BETWEEN} in logarithmic
+ * time plus the size of the result.
+ *
+ * @author pemi
+ * @param <ENTITY> the entity type
+ */
+public final class SortedEntityIndex<ENTITY> extends AbstractEntityIndex<ENTITY> {
+
+    private final NavigableMap<Object, Set<Object>> primaryKeys;
+
+    /**
+     * Creates a new empty index. The column values must be
+     * {@link Comparable}.
+     *
+     * @param columnName the name of the indexed column
+     * @param valueMapper function that returns the column value of an entity
+     */
+    public SortedEntityIndex(String columnName, Function<ENTITY, Object> valueMapper) {
+        super(columnName, valueMapper);
+        this.primaryKeys = new TreeMap<>();
+    }
+
+    @Override
+    void addEntry(Object value, Object primaryKey) {
+        primaryKeys.computeIfAbsent(value, v -> new HashSet<>(2)).add(primaryKey);
+    }
+
+    @Override
+    void removeEntry(Object value, Object primaryKey) {
+        final Set<Object> keys = primaryKeys.get(value);
+        if (keys != null && keys.remove(primaryKey) && keys.isEmpty()) {
+            primaryKeys.remove(value);
+        }
+    }
+
+    @Override
+    void clearEntries() {
+        primaryKeys.clear();
+    }
+
+    @Override
+    Optional<Collection<Object>> lookupEntries(SpeedmentPredicate<?, ?> predicate) {
+        switch (predicate.getPredicateType()) {
+            case IN: {
+                final Set<?> operands = PredicateUtil.getFirstOperandAsRawSet(predicate);
+                if (!acceptsAll(operands)) {
+                    return Optional.empty();
+                }
+                final List<Object> result = new ArrayList<>();
+                for (final Object operand : operands) {
+                    result.addAll(primaryKeys.getOrDefault(operand, Collections.emptySet()));
+                }
+                return Optional.of(result);
+            }
+            case BETWEEN: {
+                final Object start = PredicateUtil.getFirstOperandAsRaw(predicate);
+                final Object end = PredicateUtil.getSecondOperandAsRaw(predicate);
+                if (!accepts(start) || !accepts(end)) {
+                    return Optional.empty();
+                }
+                final Inclusion inclusion = PredicateUtil.getThirdOperandAsInclusion(predicate);
+                if (compare(start, end) > 0) {
+                    return Optional.of(Collections.emptyList());
+                }
+                return Optional.of(flatten(primaryKeys.subMap(
+                    start, inclusion.isStartInclusive(),
+                    end, inclusion.isEndInclusive()
+                )));
+            }
+            case EQUAL:
+            case GREATER_THAN:
+            case GREATER_OR_EQUAL:
+            case LESS_THAN:
+            case LESS_OR_EQUAL:
+                break;
+            default:
+                return Optional.empty();
+        }
+
+        final Object operand = PredicateUtil.getFirstOperandAsRaw(predicate);
+        if (!accepts(operand)) {
+            return Optional.empty();
+        }
+        switch (predicate.getPredicateType()) {
+            case EQUAL:
+                return Optional.of(new ArrayList<>(primaryKeys.getOrDefault(operand, Collections.emptySet())));
+            case GREATER_THAN:
+                return Optional.of(flatten(primaryKeys.tailMap(operand, false)));
+            case GREATER_OR_EQUAL:
+                return Optional.of(flatten(primaryKeys.tailMap(operand, true)));
+            case LESS_THAN:
+                return Optional.of(flatten(primaryKeys.headMap(operand, false)));
+            case LESS_OR_EQUAL:
+                return Optional.of(flatten(primaryKeys.headMap(operand, true)));
+            default:
+                return Optional.empty();
+        }
+    }
+
+    private static Collection<Object> flatten(Map<Object, Set<Object>> range) {
+        final List<Object> result = new ArrayList<>();
+        range.values().forEach(result::addAll);
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static int compare(Object first, Object second) {
+        return ((Comparable<Object>) first).compareTo(second);
+    }
+}
@@ -0,0 +1,374 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.internal.core.memory;
+
+import com.speedment.Manager;
+import com.speedment.config.Column;
+import com.speedment.config.Dbms;
+import com.speedment.config.PrimaryKeyColumn;
+import com.speedment.config.Table;
+import com.speedment.exception.SpeedmentException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import static java.util.Objects.requireNonNull;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A file holding a snapshot of all the rows of a table, so that a
+ * materialized table can be restored without reading it from the database.
+ * <p>
+ * The file starts with a header holding a format version, a hash of the
+ * table schema, the time the snapshot was taken and the number of rows. The
+ * rows follow, each prefixed by its length and encoded by a {@link RowCodec}
+ * for the database types of the columns. A snapshot is only read back if
+ * both the format version and the schema hash match, so a snapshot taken
+ * before the table configuration was changed is ignored.
+ * <p>
+ * Snapshots are written with a {@link FileChannel} to a temporary file that
+ * replaces the previous snapshot once it is complete, and are read back
+ * through a {@link MappedByteBuffer}.
+ *
+ * @author pemi
+ * @param <ENTITY> the entity type
+ */
+public final class TableSnapshotFile<ENTITY> {
+
+    public static final String SUFFIX = ".snapshot";
+
+    private static final int MAGIC = 0x53505353;
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int ROW_COUNT_POSITION = 24;
+    private static final int WRITE_BUFFER_SIZE = 1 << 20;
+    private static final long MAX_WINDOW_SIZE = 1 << 30;
+
+    private final Path file;
+    private final RowMapper<ENTITY> mapper;
+    private final RowCodec codec;
+    private final long schemaHash;
+
+    /**
+     * Creates a new snapshot file.
+     *
+     * @param file the path of the file
+     * @param mapper the mapper between entities and rows
+     * @param schemaHash the hash of the table schema
+     */
+    public TableSnapshotFile(Path file, RowMapper<ENTITY> mapper, long schemaHash) {
+        this.file = requireNonNull(file);
+        this.mapper = requireNonNull(mapper);
+        this.codec = new RowCodec(mapper.getColumnNames(), mapper.getColumnTypes());
+        this.schemaHash = schemaHash;
+    }
+
+    /**
+     * Creates the snapshot file of the table of the given manager in the
+     * given directory. The file is named after the table.
+     *
+     * @param <ENTITY> the entity type
+     * @param directory the directory of the snapshot files
+     * @param manager the manager of the table
+     * @return the snapshot file
+     */
+    public static <ENTITY> TableSnapshotFile<ENTITY> of(Path directory, Manager<ENTITY> manager) {
+        requireNonNull(directory);
+        requireNonNull(manager);
+        return new TableSnapshotFile<>(
+            directory.resolve(manager.getTable().getRelativeName(Dbms.class) + SUFFIX),
+            RowMapper.of(manager),
+            schemaHashOf(manager.getTable())
+        );
+    }
+
+    /**
+     * Returns a hash of the schema of the given table. The hash covers the
+     * name, nullability and {@link com.speedment.config.mapper.TypeMapper} of
+     * each enabled column, in order, as well as the primary key columns.
+     *
+     * @param table the table
+     * @return the schema hash
+     */
+    public static long schemaHashOf(Table table) {
+        requireNonNull(table);
+        final StringBuilder sb = new StringBuilder();
+        table.streamOf(Column.class)
+            .filter(Column::isEnabled)
+            .forEachOrdered(c -> sb
+                .append(c.getName()).append(':')
+                .append(c.getTypeMapper().getClass().getName()).append(':')
+                .append(c.getTypeMapper().getDatabaseType().getName()).append(':')
+                .append(c.isNullable()).append(';')
+            );
+        sb.append("pk");
+        table.streamOf(PrimaryKeyColumn.class)
+            .forEachOrdered(pk -> sb.append(':').append(pk.getName()));
+
+        long hash = 0xcbf29ce484222325L;
+        for (final byte b : sb.toString().getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * Returns the path of this snapshot file.
+     *
+     * @return the path
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Writes the given entities to this file, replacing any previous
+     * snapshot.
+     *
+     * @param entities the entities to write
+     * @return the number of entities written
+     * @throws SpeedmentException if the file could not be written
+     */
+    public long write(Stream<ENTITY> entities) throws SpeedmentException {
+        requireNonNull(entities);
+        final Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        long rows = 0;
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            try (final FileChannel channel = FileChannel.open(temporary,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+
+                channel.position(HEADER_SIZE);
+                ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+                int position = 0;
+                for (final Iterator<ENTITY> it = entities.iterator(); it.hasNext();) {
+                    final Object[] row = mapper.toRow(it.next());
+                    final int length = codec.sizeOf(row);
+                    if (position + 4 + length > buffer.capacity()) {
+                        writeFully(channel, buffer, position);
+                        position = 0;
+                        if (4 + length > buffer.capacity()) {
+                            buffer = ByteBuffer.allocateDirect(4 + length);
+                        }
+                    }
+                    buffer.putInt(position, length);
+                    position += 4 + codec.write(buffer, position + 4, row);
+                    rows++;
+                }
+                writeFully(channel, buffer, position);
+
+                final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                header.putInt(MAGIC)
+                    .putInt(FORMAT_VERSION)
+                    .putLong(schemaHash)
+                    .putLong(System.currentTimeMillis())
+                    .putLong(rows);
+                header.flip();
+                while (header.hasRemaining()) {
+                    channel.write(header, header.position());
+                }
+                channel.force(true);
+            }
+            try {
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException amnse) {
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException ioe) {
+            try {
+                Files.deleteIfExists(temporary);
+            } catch (IOException ignored) {
+                // The original exception is more relevant
+            }
+            throw new SpeedmentException("Unable to write the snapshot " + file, ioe);
+        }
+        return rows;
+    }
+
+    /**
+     * Reads the entities of this file. If the file does not exist, or was
+     * written with another format version or schema, or is damaged,
+     * {@code empty} is returned.
+     *
+     * @return the entities of the snapshot, or {@code empty}
+     * @throws SpeedmentException if the file could not be read
+     */
+    public Optional<Stream<ENTITY>> read() throws SpeedmentException {
+        if (!Files.isRegularFile(file)) {
+            return Optional.empty();
+        }
+        try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final long size = channel.size();
+            if (size < HEADER_SIZE) {
+                return Optional.empty();
+            }
+            final MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            if (header.getInt(0) != MAGIC
+                || header.getInt(4) != FORMAT_VERSION
+                || header.getLong(8) != schemaHash) {
+                return Optional.empty();
+            }
+            final long rows = header.getLong(ROW_COUNT_POSITION);
+            final Rows reader = new Rows(channel, size);
+            if (!reader.validate(rows)) {
+                return Optional.empty();
+            }
+            return Optional.of(StreamSupport.stream(
+                Spliterators.spliterator(reader, rows, Spliterator.ORDERED | Spliterator.NONNULL),
+                false
+            ));
+        } catch (IOException ioe) {
+            throw new SpeedmentException("Unable to read the snapshot " + file, ioe);
+        }
+    }
+
+    /**
+     * Returns the time when the snapshot in this file was taken, if there is
+     * a valid snapshot.
+     *
+     * @return the time in milliseconds since the epoch, or {@code empty}
+     * @throws SpeedmentException if the file could not be read
+     */
+    public Optional<Long> getCreated() throws SpeedmentException {
+        if (!Files.isRegularFile(file)) {
+            return Optional.empty();
+        }
+        try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE) {
+                return Optional.empty();
+            }
+            final MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            if (header.getInt(0) != MAGIC
+                || header.getInt(4) != FORMAT_VERSION
+                || header.getLong(8) != schemaHash) {
+                return Optional.empty();
+            }
+            return Optional.of(header.getLong(16));
+        } catch (IOException ioe) {
+            throw new SpeedmentException("Unable to read the snapshot " + file, ioe);
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, int length) throws IOException {
+        buffer.limit(length).position(0);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Iterates over the rows of the file through windows mapped from the
+     * file. The windows are mapped up front when the file is validated, since
+     * a mapping stays valid after the channel is closed but no new mappings
+     * can be made.
+     */
+    private final class Rows implements Iterator<ENTITY> {
+
+        private final FileChannel channel;
+        private final long size;
+        private final List<MappedByteBuffer> windows;
+        private final List<Long> windowRows;
+        private int window;
+        private int offset;
+        private long rowsLeftInWindow;
+
+        private Rows(FileChannel channel, long size) {
+            this.channel = channel;
+            this.size = size;
+            this.windows = new ArrayList<>();
+            this.windowRows = new ArrayList<>();
+            this.window = -1;
+        }
+
+        /**
+         * Maps the file and checks that it holds exactly the given number of
+         * rows. Rows never span two windows.
+         */
+        private boolean validate(long rows) throws IOException {
+            long position = HEADER_SIZE;
+            long windowStart = position;
+            MappedByteBuffer current = null;
+            for (long i = 0; i < rows; i++) {
+                if (position + 4 > size) {
+                    return false;
+                }
+                if (current == null || position + 4 > windowStart + current.capacity()) {
+                    current = map(position, 4);
+                    windowStart = position;
+                }
+                final int length = current.getInt((int) (position - windowStart));
+                if (length < 0 || position + 4 + length > size) {
+                    return false;
+                }
+                if (position + 4 + length > windowStart + current.capacity()) {
+                    current = map(position, 4 + length);
+                    windowStart = position;
+                }
+                windowRows.set(windowRows.size() - 1, windowRows.get(windowRows.size() - 1) + 1);
+                position += 4 + length;
+            }
+            return position == size;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (rowsLeftInWindow == 0 && window + 1 < windows.size()) {
+                window++;
+                offset = 0;
+                rowsLeftInWindow = windowRows.get(window);
+            }
+            return rowsLeftInWindow > 0;
+        }
+
+        @Override
+        public ENTITY next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final MappedByteBuffer buffer = windows.get(window);
+            final int length = buffer.getInt(offset);
+            final Object[] row = codec.read(buffer, offset + 4);
+            offset += 4 + length;
+            rowsLeftInWindow--;
+            return mapper.fromRow(row);
+        }
+
+        private MappedByteBuffer map(long position, int length) throws IOException {
+            final long windowSize = Math.max(length, Math.min(size - position, MAX_WINDOW_SIZE));
+            final MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, position, windowSize);
+            windows.add(mapped);
+            windowRows.add(0L);
+            return mapped;
+        }
+    }
+}
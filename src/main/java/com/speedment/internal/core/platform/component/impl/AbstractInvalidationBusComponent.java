@@ -0,0 +1,203 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.internal.core.platform.component.impl;
+
+import com.speedment.Speedment;
+import com.speedment.component.InvalidationBusComponent;
+import com.speedment.internal.logging.Logger;
+import com.speedment.internal.logging.LoggerManager;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import static java.util.Objects.requireNonNull;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
+
+/**
+ * Base class for {@link InvalidationBusComponent}s that coalesces published
+ * invalidations and sends them in batches. Invalidations are collected for a
+ * flush interval, or until a batch is full, and duplicates within a batch are
+ * sent only once. An invalidation of a whole table replaces all the
+ * invalidations of rows of that table in the batch.
+ *
+ * @author pemi
+ */
+public abstract class AbstractInvalidationBusComponent extends Apache2AbstractComponent implements InvalidationBusComponent {
+
+    private static final Logger LOGGER = LoggerManager.getLogger(AbstractInvalidationBusComponent.class);
+
+    public static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 10;
+    public static final int DEFAULT_MAX_BATCH_SIZE = 1024;
+
+    private final List<Consumer<? super List<Invalidation>>> subscribers;
+    private Set<Invalidation> pending;
+    private long flushIntervalMillis;
+    private int maxBatchSize;
+    private ScheduledExecutorService scheduler;
+
+    protected AbstractInvalidationBusComponent(Speedment speedment) {
+        super(speedment);
+        this.subscribers = new CopyOnWriteArrayList<>();
+        this.pending = new LinkedHashSet<>();
+        this.flushIntervalMillis = DEFAULT_FLUSH_INTERVAL_MILLIS;
+        this.maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+    }
+
+    /**
+     * Sets the time that invalidations are collected before they are sent. An
+     * interval of zero sends each invalidation as soon as it is published.
+     * This method must be called before the component is started.
+     *
+     * @param interval the flush interval
+     * @param unit the unit of the interval
+     * @return this instance
+     */
+    public AbstractInvalidationBusComponent setFlushInterval(long interval, TimeUnit unit) {
+        if (interval < 0) {
+            throw new IllegalArgumentException("The flush interval must not be negative, was " + interval);
+        }
+        this.flushIntervalMillis = requireNonNull(unit).toMillis(interval);
+        return this;
+    }
+
+    /**
+     * Sets the number of pending invalidations that causes a batch to be sent
+     * before the flush interval has passed.
+     *
+     * @param maxBatchSize the maximum batch size
+     * @return this instance
+     */
+    public AbstractInvalidationBusComponent setMaxBatchSize(int maxBatchSize) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("The batch size must be positive, was " + maxBatchSize);
+        }
+        this.maxBatchSize = maxBatchSize;
+        return this;
+    }
+
+    @Override
+    public AbstractInvalidationBusComponent start() {
+        super.start();
+        if (flushIntervalMillis > 0) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                final Thread thread = new Thread(r, getTitle());
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.scheduleWithFixedDelay(this::flush, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+        return this;
+    }
+
+    @Override
+    public AbstractInvalidationBusComponent stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+        flush();
+        return (AbstractInvalidationBusComponent) super.stop();
+    }
+
+    @Override
+    public void publish(Invalidation invalidation) {
+        requireNonNull(invalidation);
+        final boolean full;
+        synchronized (this) {
+            pending.add(invalidation);
+            full = pending.size() >= maxBatchSize;
+        }
+        if (full || scheduler == null) {
+            flush();
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<? super List<Invalidation>> subscriber) {
+        subscribers.add(requireNonNull(subscriber));
+    }
+
+    @Override
+    public void unsubscribe(Consumer<? super List<Invalidation>> subscriber) {
+        subscribers.remove(requireNonNull(subscriber));
+    }
+
+    /**
+     * Sends all pending invalidations.
+     */
+    public void flush() {
+        final Set<Invalidation> batch;
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = pending;
+            pending = new LinkedHashSet<>();
+        }
+        try {
+            send(coalesce(batch));
+        } catch (RuntimeException re) {
+            LOGGER.error(re, "Unable to send " + batch.size() + " invalidations");
+        }
+    }
+
+    /**
+     * Sends the given batch of invalidations to the other Speedment instances
+     * on the bus.
+     *
+     * @param batch the invalidations to send
+     */
+    protected abstract void send(List<Invalidation> batch);
+
+    /**
+     * Delivers a batch of invalidations received from the bus to the
+     * subscribers of this component.
+     *
+     * @param batch the received invalidations
+     */
+    protected void deliver(List<Invalidation> batch) {
+        requireNonNull(batch);
+        for (final Consumer<? super List<Invalidation>> subscriber : subscribers) {
+            try {
+                subscriber.accept(batch);
+            } catch (RuntimeException re) {
+                LOGGER.error(re, "Unable to deliver " + batch.size() + " invalidations");
+            }
+        }
+    }
+
+    static List<Invalidation> coalesce(Collection<Invalidation> invalidations) {
+        final Set<String> wholeTables = invalidations.stream()
+            .filter(Invalidation::isWholeTable)
+            .map(Invalidation::getTable)
+            .collect(toSet());
+
+        if (wholeTables.isEmpty()) {
+            return new ArrayList<>(invalidations);
+        }
+        return invalidations.stream()
+            .filter(i -> i.isWholeTable() || !wholeTables.contains(i.getTable()))
+            .collect(toList());
+    }
+}
@@ -20,6 +20,7 @@ import com.speedment.Speedment;
 import com.speedment.component.ConnectionPoolComponent;
 import com.speedment.internal.core.pool.PoolableConnection;
 import com.speedment.internal.core.pool.impl.PoolableConnectionImpl;
+import com.speedment.internal.util.AdmissionExecutor;
 import com.speedment.internal.logging.Logger;
 import com.speedment.internal.logging.LoggerManager;
 import java.sql.Connection;
@@ -31,6 +32,10 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 import static java.util.Objects.requireNonNull;
 
 /**
@@ -44,17 +49,23 @@ public class ConnectionPoolComponentImpl extends Apache2AbstractComponent implem
 
     private final long DEFAULT_MAX_AGE = 30_000;
     private final int DEFAULT_MIN_POOL_SIZE_PER_DB = 32;
+    private final int DEFAULT_MAX_CONNECTIONS = 32;
 
     private long maxAge;
     private int maxRetainSize;
+    private volatile int maxConnections;
 
     private final Map<Long, PoolableConnection> leasedConnections;
     private final Map<String, Deque<PoolableConnection>> pools;
 
+    private AdmissionExecutor asyncExecutor;
+    private ExecutorService asyncThreads; // Only set if created by this component
+
     public ConnectionPoolComponentImpl(Speedment speedment) {
         super(speedment);
         maxAge = DEFAULT_MAX_AGE;
         maxRetainSize = DEFAULT_MIN_POOL_SIZE_PER_DB;
+        maxConnections = DEFAULT_MAX_CONNECTIONS;
         pools = new ConcurrentHashMap<>();
         leasedConnections = new ConcurrentHashMap<>();
     }
@@ -177,6 +188,16 @@ public class ConnectionPoolComponentImpl extends Apache2AbstractComponent implem
         return leasedConnections.size();
     }
 
+    @Override
+    public int leaseSize(String uri) {
+        requireNonNull(uri);
+        return (int) leasedConnections
+            .values()
+            .stream()
+            .filter(c -> uri.equals(c.getUri()))
+            .count();
+    }
+
     @Override
     public long getMaxAge() {
         return maxAge;
@@ -197,6 +218,62 @@ public class ConnectionPoolComponentImpl extends Apache2AbstractComponent implem
         this.maxRetainSize = maxRetainSize;
     }
 
+    @Override
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    @Override
+    public void setMaxConnections(int maxConnections) {
+        if (maxConnections <= 0) {
+            throw new IllegalArgumentException("The maximum number of connections must be positive but was " + maxConnections);
+        }
+        this.maxConnections = maxConnections;
+    }
+
+    @Override
+    public synchronized Executor getAsyncExecutor() {
+        if (asyncExecutor == null) {
+            final int size = getMaxConnections();
+            final AtomicInteger threadNumber = new AtomicInteger();
+            asyncThreads = Executors.newFixedThreadPool(size, r -> {
+                final Thread thread = new Thread(r, getTitle() + "-async-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            asyncExecutor = new AdmissionExecutor(asyncThreads, size);
+        }
+        return asyncExecutor;
+    }
+
+    @Override
+    public synchronized void setAsyncExecutor(Executor executor) {
+        requireNonNull(executor);
+        shutdownAsyncExecutor();
+        asyncExecutor = new AdmissionExecutor(executor, getMaxConnections());
+    }
+
+    @Override
+    public synchronized ConnectionPoolComponentImpl stop() {
+        shutdownAsyncExecutor();
+        return (ConnectionPoolComponentImpl) super.stop();
+    }
+
+    private void shutdownAsyncExecutor() {
+        if (asyncExecutor != null) {
+            // Queued operations still need the threads, so they are shut down
+            // only when the queue has been drained
+            final ExecutorService threads = asyncThreads;
+            asyncExecutor.shutdown(() -> {
+                if (threads != null) {
+                    threads.shutdown();
+                }
+            });
+            asyncExecutor = null;
+            asyncThreads = null;
+        }
+    }
+
     private Logger getLogger() {
         return logger;
     }
@@ -0,0 +1,524 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.internal.core.platform.component.impl;
+
+import com.speedment.Manager;
+import com.speedment.Speedment;
+import com.speedment.component.StreamSupplierComponent;
+import com.speedment.config.PrimaryKeyColumn;
+import com.speedment.exception.SpeedmentException;
+import com.speedment.internal.core.manager.sql.AbstractSqlManager;
+import com.speedment.internal.core.memory.ColumnarSnapshot;
+import com.speedment.internal.core.memory.EntityStore;
+import com.speedment.internal.core.memory.IncrementalRefresher;
+import com.speedment.internal.core.memory.IndexedEntityStore;
+import com.speedment.internal.core.memory.MemoryStreamTerminator;
+import com.speedment.internal.core.memory.OnHeapEntityStore;
+import com.speedment.internal.core.memory.RefreshStatistics;
+import com.speedment.internal.core.memory.TableSnapshotFile;
+import com.speedment.internal.core.stream.builder.ReferenceStreamBuilder;
+import com.speedment.internal.core.stream.builder.pipeline.PipelineImpl;
+import com.speedment.internal.logging.Logger;
+import com.speedment.internal.logging.LoggerManager;
+import com.speedment.stream.StreamDecorator;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import static java.util.Objects.requireNonNull;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import static java.util.stream.Collectors.toList;
+import java.util.stream.Stream;
+
+/**
+ * A {@link StreamSupplierComponent} that serves the streams of selected
+ * tables from memory. The selected tables are loaded when the component is
+ * started and are kept up to date by writing through all persists, updates
+ * and removes made by the managers of this Speedment instance. Changes made
+ * by other applications are picked up by refreshing the tables, either
+ * periodically or by calling {@link #refresh(java.lang.Class)}. Tables with
+ * a version column can be refreshed incrementally, see
+ * {@link #materializeIncremental(java.lang.Class, java.lang.String)}. If an
+ * {@link com.speedment.component.InvalidationBusComponent} is installed,
+ * rows changed by other Speedment instances on the bus are reloaded as soon
+ * as their invalidations arrive.
+ * <p>
+ * If a snapshot directory is set, incrementally refreshed tables are written
+ * to snapshot files when the component is stopped and restored from them when
+ * it is started, so only the rows changed in between are read from the
+ * database.
+ * <p>
+ * Streams of tables that have not been selected are read from the database.
+ * <p>
+ * The enabled indexes of each materialized table are kept as in-memory
+ * indexes, which are used for streams that filter on an indexed column.
+ * <p>
+ * Entities are shared between all streams, so an entity obtained from a
+ * materialized table should not be modified unless it is subsequently
+ * updated through its manager.
+ *
+ * @author pemi
+ */
+public class InMemoryStreamSupplierComponentImpl extends Apache2AbstractComponent implements StreamSupplierComponent {
+
+    private static final Logger LOGGER = LoggerManager.getLogger(InMemoryStreamSupplierComponentImpl.class);
+
+    private final Set<Class<?>> entityClasses;
+    private final Set<Class<?>> columnarClasses;
+    private final Map<Class<?>, EntityStore<?>> stores;
+    private final Map<Class<?>, ColumnarSnapshot> snapshots;
+    private final Map<Class<?>, Incremental> incrementals;
+    private final Map<Class<?>, IncrementalRefresher<?>> refreshers;
+    private long refreshInterval;
+    private TimeUnit refreshUnit;
+    private ScheduledExecutorService scheduler;
+    private Path snapshotDirectory;
+
+    public InMemoryStreamSupplierComponentImpl(Speedment speedment) {
+        super(speedment);
+        this.entityClasses = ConcurrentHashMap.newKeySet();
+        this.columnarClasses = ConcurrentHashMap.newKeySet();
+        this.stores = new ConcurrentHashMap<>();
+        this.snapshots = new ConcurrentHashMap<>();
+        this.incrementals = new ConcurrentHashMap<>();
+        this.refreshers = new ConcurrentHashMap<>();
+        this.refreshUnit = TimeUnit.SECONDS;
+    }
+
+    /**
+     * Selects the table of the given entity class to be served from memory.
+     * This method must be called before the component is started.
+     *
+     * @param entityClass the entity class
+     * @return this instance
+     */
+    public InMemoryStreamSupplierComponentImpl materialize(Class<?> entityClass) {
+        entityClasses.add(requireNonNull(entityClass));
+        return this;
+    }
+
+    /**
+     * Selects the table of the given entity class to be served from memory
+     * and to also be kept as a {@link ColumnarSnapshot}. Counts and
+     * aggregations of filtered columns are then computed over the snapshot.
+     * Since the snapshot is immutable, it is discarded when the table is
+     * written to through its manager and is rebuilt on the next refresh. This
+     * method must be called before the component is started.
+     *
+     * @param entityClass the entity class
+     * @return this instance
+     */
+    public InMemoryStreamSupplierComponentImpl materializeColumnar(Class<?> entityClass) {
+        columnarClasses.add(requireNonNull(entityClass));
+        return materialize(entityClass);
+    }
+
+    /**
+     * Selects the table of the given entity class to be served from memory
+     * and to be refreshed incrementally by an {@link IncrementalRefresher},
+     * using the given version column. Each refresh then only reads the rows
+     * that have changed since the previous refresh. Deleted rows are only
+     * detected if a tombstone table or a primary key comparison is
+     * configured as well. This method must be called before the component is
+     * started.
+     *
+     * @param entityClass the entity class
+     * @param versionColumnName the name of the version column of the table
+     * @return this instance
+     */
+    public InMemoryStreamSupplierComponentImpl materializeIncremental(Class<?> entityClass, String versionColumnName) {
+        incrementalOf(entityClass).versionColumnName = requireNonNull(versionColumnName);
+        return materialize(entityClass);
+    }
+
+    /**
+     * Sets the tombstone table that deleted rows of the incrementally
+     * refreshed table of the given entity class are recorded in. This method
+     * must be called before the component is started.
+     *
+     * @param entityClass the entity class
+     * @param tableName the name of the tombstone table
+     * @param versionColumnName the name of the version column of the
+     * tombstone table
+     * @return this instance
+     * @see IncrementalRefresher#withTombstones(java.lang.String, java.lang.String)
+     */
+    public InMemoryStreamSupplierComponentImpl setTombstoneTable(Class<?> entityClass, String tableName, String versionColumnName) {
+        final Incremental incremental = incrementalOf(entityClass);
+        incremental.tombstoneTableName = requireNonNull(tableName);
+        incremental.tombstoneVersionColumnName = requireNonNull(versionColumnName);
+        return this;
+    }
+
+    /**
+     * Sets the number of refreshes between comparisons of the primary keys in
+     * memory with those in the database, for the incrementally refreshed
+     * table of the given entity class. This method must be called before the
+     * component is started.
+     *
+     * @param entityClass the entity class
+     * @param pollInterval the number of refreshes between comparisons, or
+     * zero to never compare
+     * @return this instance
+     * @see IncrementalRefresher#withPrimaryKeyDiff(int)
+     */
+    public InMemoryStreamSupplierComponentImpl setPrimaryKeyDiffInterval(Class<?> entityClass, int pollInterval) {
+        if (pollInterval < 0) {
+            throw new IllegalArgumentException("The poll interval must not be negative, was " + pollInterval);
+        }
+        incrementalOf(entityClass).primaryKeyDiffInterval = pollInterval;
+        return this;
+    }
+
+    /**
+     * Returns the statistics of the incremental refreshes of the table of the
+     * given entity class, if it is refreshed incrementally and has been
+     * loaded.
+     *
+     * @param entityClass the entity class
+     * @return the statistics or {@code empty}
+     */
+    public Optional<RefreshStatistics> getRefreshStatistics(Class<?> entityClass) {
+        return Optional.ofNullable(refreshers.get(requireNonNull(entityClass)))
+            .map(IncrementalRefresher::getStatistics);
+    }
+
+    /**
+     * Sets the directory where snapshots of the incrementally refreshed
+     * tables are kept. When the component is started, a table with a valid
+     * snapshot in the directory is restored from the snapshot and then polled
+     * for the rows changed since the snapshot was taken, instead of being
+     * reloaded from the database. Snapshots are written when the component is
+     * stopped, or by calling {@link #writeSnapshot(java.lang.Class)}. This
+     * method must be called before the component is started.
+     *
+     * @param snapshotDirectory the snapshot directory, or {@code null} to
+     * disable snapshots
+     * @return this instance
+     */
+    public InMemoryStreamSupplierComponentImpl setSnapshotDirectory(Path snapshotDirectory) {
+        this.snapshotDirectory = snapshotDirectory;
+        return this;
+    }
+
+    /**
+     * Writes a snapshot of the given materialized table to the snapshot
+     * directory.
+     *
+     * @param <ENTITY> entity type
+     * @param entityClass the entity class
+     * @return the number of rows written
+     * @throws SpeedmentException if no snapshot directory is set, the table
+     * is not loaded, or the snapshot could not be written
+     */
+    public <ENTITY> long writeSnapshot(Class<ENTITY> entityClass) throws SpeedmentException {
+        requireNonNull(entityClass);
+        if (snapshotDirectory == null) {
+            throw new SpeedmentException("No snapshot directory is set");
+        }
+        final EntityStore<ENTITY> store = getStore(entityClass);
+        if (store == null) {
+            throw new SpeedmentException("The table of " + entityClass.getName() + " is not loaded");
+        }
+        final Manager<ENTITY> manager = getSpeedment().managerOf(entityClass);
+        try (final Stream<ENTITY> entities = store.stream()) {
+            return TableSnapshotFile.of(snapshotDirectory, manager).write(entities);
+        }
+    }
+
+    /**
+     * Sets the interval at which all materialized tables are reloaded from
+     * the database. An interval of zero, which is the default, disables
+     * periodic refreshing. This method must be called before the component is
+     * started.
+     *
+     * @param interval the refresh interval
+     * @param unit the unit of the interval
+     * @return this instance
+     */
+    public InMemoryStreamSupplierComponentImpl setRefreshInterval(long interval, TimeUnit unit) {
+        if (interval < 0) {
+            throw new IllegalArgumentException("The refresh interval must not be negative, was " + interval);
+        }
+        this.refreshInterval = interval;
+        this.refreshUnit = requireNonNull(unit);
+        return this;
+    }
+
+    @Override
+    public InMemoryStreamSupplierComponentImpl start() {
+        super.start();
+        entityClasses.forEach(this::load);
+        if (refreshInterval > 0) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                final Thread thread = new Thread(r, getTitle());
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.scheduleWithFixedDelay(this::refreshAll, refreshInterval, refreshInterval, refreshUnit);
+        }
+        return this;
+    }
+
+    @Override
+    public InMemoryStreamSupplierComponentImpl stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+        if (snapshotDirectory != null) {
+            stores.keySet().stream()
+                .filter(this::isIncremental)
+                .forEach(this::writeSnapshotOnStop);
+        }
+        stores.values().forEach(EntityStore::close);
+        stores.clear();
+        snapshots.clear();
+        refreshers.clear();
+        return (InMemoryStreamSupplierComponentImpl) super.stop();
+    }
+
+    /**
+     * Reloads the given materialized table from the database. Incrementally
+     * refreshed tables are polled for changes instead.
+     *
+     * @param <ENTITY> entity type
+     * @param entityClass the entity class
+     */
+    public <ENTITY> void refresh(Class<ENTITY> entityClass) {
+        requireNonNull(entityClass);
+        if (!entityClasses.contains(entityClass)) {
+            throw new SpeedmentException("The table of " + entityClass.getName() + " is not materialized");
+        }
+        final Manager<ENTITY> manager = getSpeedment().managerOf(entityClass);
+        final boolean changed;
+        if (isIncremental(entityClass)) {
+            changed = refresherOf(manager).poll() > 0;
+        } else {
+            try (final Stream<ENTITY> entities = manager.nativeStream(StreamDecorator.IDENTITY)) {
+                storeOf(manager).replaceAll(entities);
+            }
+            changed = true;
+        }
+        if (columnarClasses.contains(entityClass) && manager instanceof AbstractSqlManager
+            && (changed || !snapshots.containsKey(entityClass))) {
+            snapshots.put(entityClass, ColumnarSnapshot.load(getSpeedment(), (AbstractSqlManager<ENTITY>) manager));
+        }
+    }
+
+    /**
+     * Loads the given materialized table when the component is started. The
+     * default implementation restores an incrementally refreshed table from
+     * its snapshot, if there is one, and then refreshes the table from the
+     * database.
+     *
+     * @param <ENTITY> entity type
+     * @param entityClass the entity class
+     */
+    protected <ENTITY> void load(Class<ENTITY> entityClass) {
+        if (snapshotDirectory != null && isIncremental(entityClass)) {
+            final Manager<ENTITY> manager = getSpeedment().managerOf(entityClass);
+            final TableSnapshotFile<ENTITY> file = TableSnapshotFile.of(snapshotDirectory, manager);
+            try {
+                file.read().ifPresent(entities -> {
+                    final EntityStore<ENTITY> store = storeOf(manager);
+                    store.replaceAll(entities);
+                    LOGGER.info("Restored " + store.size() + " rows of " + entityClass.getSimpleName() + " from " + file.getFile());
+                });
+            } catch (SpeedmentException se) {
+                LOGGER.error(se, "Unable to restore " + entityClass.getName() + " from " + file.getFile());
+            }
+        }
+        refresh(entityClass);
+    }
+
+    private void writeSnapshotOnStop(Class<?> entityClass) {
+        try {
+            writeSnapshot(entityClass);
+        } catch (SpeedmentException se) {
+            LOGGER.error(se, "Unable to write a snapshot of " + entityClass.getName());
+        }
+    }
+
+    /**
+     * Returns whether the table of the given entity class is refreshed
+     * incrementally.
+     *
+     * @param entityClass the entity class
+     * @return {@code true} if the table is refreshed incrementally
+     */
+    protected boolean isIncremental(Class<?> entityClass) {
+        return incrementals.containsKey(entityClass);
+    }
+
+    private Incremental incrementalOf(Class<?> entityClass) {
+        requireNonNull(entityClass);
+        return incrementals.computeIfAbsent(entityClass, c -> new Incremental());
+    }
+
+    private <ENTITY> IncrementalRefresher<ENTITY> refresherOf(Manager<ENTITY> manager) {
+        @SuppressWarnings("unchecked")
+        final IncrementalRefresher<ENTITY> refresher = (IncrementalRefresher<ENTITY>) refreshers.computeIfAbsent(
+            manager.getEntityClass(), c -> newRefresher(manager)
+        );
+        return refresher;
+    }
+
+    private <ENTITY> IncrementalRefresher<ENTITY> newRefresher(Manager<ENTITY> manager) {
+        final Incremental incremental = incrementals.get(manager.getEntityClass());
+        if (incremental.versionColumnName == null) {
+            throw new SpeedmentException("No version column is set for " + manager.getEntityClass().getName());
+        }
+        if (!(manager instanceof AbstractSqlManager)) {
+            throw new SpeedmentException("The table of " + manager.getEntityClass().getName() + " can not be refreshed incrementally");
+        }
+        final IncrementalRefresher<ENTITY> refresher = new IncrementalRefresher<>(
+            getSpeedment(), (AbstractSqlManager<ENTITY>) manager, storeOf(manager), incremental.versionColumnName
+        ).withPrimaryKeyDiff(incremental.primaryKeyDiffInterval);
+        if (incremental.tombstoneTableName != null) {
+            refresher.withTombstones(incremental.tombstoneTableName, incremental.tombstoneVersionColumnName);
+        }
+        return refresher;
+    }
+
+    private void refreshAll() {
+        entityClasses.forEach(entityClass -> {
+            try {
+                refresh(entityClass);
+            } catch (RuntimeException re) {
+                LOGGER.error(re, "Unable to refresh " + entityClass.getName());
+            }
+        });
+    }
+
+    /**
+     * Returns the store of the given entity class, if its table is
+     * materialized and the component has been started.
+     *
+     * @param <ENTITY> entity type
+     * @param entityClass the entity class
+     * @return the store or {@code null}
+     */
+    @SuppressWarnings("unchecked")
+    protected <ENTITY> EntityStore<ENTITY> getStore(Class<ENTITY> entityClass) {
+        return (EntityStore<ENTITY>) stores.get(entityClass);
+    }
+
+    /**
+     * Creates a new empty store for the table of the given manager.
+     *
+     * @param <ENTITY> entity type
+     * @param manager the manager of the table
+     * @return the new store
+     */
+    protected <ENTITY> EntityStore<ENTITY> newStore(Manager<ENTITY> manager) {
+        return new OnHeapEntityStore<>(manager::primaryKeyFor);
+    }
+
+    /**
+     * Returns the store of the table of the given manager, creating it if it
+     * does not exist yet. New stores are indexed according to the indexes of
+     * the table.
+     *
+     * @param <ENTITY> entity type
+     * @param manager the manager of the table
+     * @return the store
+     */
+    protected <ENTITY> EntityStore<ENTITY> storeOf(Manager<ENTITY> manager) {
+        @SuppressWarnings("unchecked")
+        final EntityStore<ENTITY> store = (EntityStore<ENTITY>) stores.computeIfAbsent(
+            manager.getEntityClass(), c -> IndexedEntityStore.of(newStore(manager), manager)
+        );
+        return store;
+    }
+
+    @Override
+    public <ENTITY> Stream<ENTITY> stream(Class<ENTITY> entityClass, StreamDecorator decorator) {
+        requireNonNull(entityClass);
+        requireNonNull(decorator);
+        final Manager<ENTITY> manager = getSpeedment().managerOf(entityClass);
+        final EntityStore<ENTITY> store = getStore(entityClass);
+        if (store == null) {
+            return manager.nativeStream(decorator);
+        }
+        final MemoryStreamTerminator<ENTITY> terminator = new MemoryStreamTerminator<>(manager, store, snapshots.get(entityClass), decorator);
+        return decorator.apply(new ReferenceStreamBuilder<>(new PipelineImpl<>(store::stream), terminator));
+    }
+
+    @Override
+    public <ENTITY> void persisted(Class<ENTITY> entityClass, ENTITY entity) {
+        final EntityStore<ENTITY> store = getStore(entityClass);
+        if (store != null) {
+            // The store must not share the instance that the caller may change
+            final Manager<ENTITY> manager = getSpeedment().managerOf(entityClass);
+            snapshots.remove(entityClass);
+            store.put(manager instanceof AbstractSqlManager ? ((AbstractSqlManager<ENTITY>) manager).copyOf(entity) : entity);
+        }
+    }
+
+    @Override
+    public <ENTITY> void updated(Class<ENTITY> entityClass, ENTITY entity) {
+        persisted(entityClass, entity);
+    }
+
+    @Override
+    public <ENTITY> void removed(Class<ENTITY> entityClass, ENTITY entity) {
+        final EntityStore<ENTITY> store = getStore(entityClass);
+        if (store != null) {
+            snapshots.remove(entityClass);
+            store.remove(getSpeedment().managerOf(entityClass).primaryKeyFor(entity));
+        }
+    }
+
+    @Override
+    public <ENTITY> void invalidated(Class<ENTITY> entityClass, Collection<?> primaryKeys) {
+        final EntityStore<ENTITY> store = getStore(entityClass);
+        if (store == null) {
+            return;
+        }
+        snapshots.remove(entityClass);
+        final Manager<ENTITY> manager = getSpeedment().managerOf(entityClass);
+        final List<PrimaryKeyColumn> primaryKeyColumns = manager.getTable()
+            .streamOf(PrimaryKeyColumn.class)
+            .collect(toList());
+
+        if (primaryKeys == null || primaryKeyColumns.size() != 1 || !(manager instanceof AbstractSqlManager)) {
+            refresh(entityClass);
+            return;
+        }
+        final Set<Object> missing = new HashSet<>(primaryKeys);
+        for (final ENTITY entity : ((AbstractSqlManager<ENTITY>) manager).selectIn(primaryKeyColumns.get(0).getColumn(), primaryKeys)) {
+            store.put(entity);
+            missing.remove(manager.primaryKeyFor(entity));
+        }
+        missing.forEach(store::remove);
+    }
+
+    private static final class Incremental {
+
+        private String versionColumnName;
+        private String tombstoneTableName;
+        private String tombstoneVersionColumnName;
+        private int primaryKeyDiffInterval;
+    }
+}
@@ -0,0 +1,350 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.internal.core.platform.component.impl;
+
+import com.speedment.component.InvalidationBusComponent.Invalidation;
+import com.speedment.exception.SpeedmentException;
+import com.speedment.internal.core.manager.CompositeKey;
+import static com.speedment.util.StaticClassUtil.instanceNotAllowed;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import java.sql.Date;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import static java.util.Objects.requireNonNull;
+import java.util.Optional;
+
+/**
+ * Encodes batches of invalidations into compact datagrams. Each datagram
+ * starts with a header holding a magic number, the id of the sending node and
+ * the number of invalidations. Each invalidation then holds the index of its
+ * table in a dictionary of the table names of the datagram, followed by the
+ * name if it is new, and a tagged primary key.
+ * <p>
+ * Only a closed set of key types is encoded: integral numbers, strings,
+ * {@code BigInteger}, {@code BigDecimal}, the {@code java.sql} date and time
+ * types and lists of them. Composite keys are sent as the list of their
+ * values. An invalidation with a key of any other type is sent as an
+ * invalidation of its whole table, so that a receiver never has to
+ * instantiate a class named by a datagram.
+ *
+ * @author pemi
+ */
+final class InvalidationCodec {
+
+    static final int MAGIC = 0x53504956;
+
+    private static final byte
+        NULL = 0,
+        INT = 1,
+        LONG = 2,
+        SHORT = 3,
+        BYTE = 4,
+        STRING = 5,
+        LIST = 6,
+        // 7 is not used, since older nodes sent serialized keys with it
+        TIMESTAMP = 8,
+        DATE = 9,
+        TIME = 10,
+        BIG_INTEGER = 11,
+        BIG_DECIMAL = 12;
+
+    /**
+     * A decoded datagram.
+     */
+    static final class Packet {
+
+        private final long sender;
+        private final List<Invalidation> invalidations;
+
+        Packet(long sender, List<Invalidation> invalidations) {
+            this.sender = sender;
+            this.invalidations = requireNonNull(invalidations);
+        }
+
+        long getSender() {
+            return sender;
+        }
+
+        List<Invalidation> getInvalidations() {
+            return invalidations;
+        }
+    }
+
+    /**
+     * Encodes the given invalidations into as many datagrams as needed. An
+     * invalidation whose primary key can not be encoded or does not fit in a
+     * datagram is replaced by an invalidation of its whole table.
+     *
+     * @param sender the id of the sending node
+     * @param invalidations the invalidations to encode
+     * @param maxPacketSize the maximum size of a datagram in bytes
+     * @return the datagrams
+     */
+    static List<byte[]> encode(long sender, List<Invalidation> invalidations, int maxPacketSize) {
+        requireNonNull(invalidations);
+        final List<byte[]> packets = new ArrayList<>();
+        Writer writer = new Writer(sender, maxPacketSize);
+        for (final Invalidation invalidation : invalidations) {
+            if (writer.tryAdd(invalidation)) {
+                continue;
+            }
+            if (!writer.isEmpty()) {
+                packets.add(writer.toByteArray());
+                writer = new Writer(sender, maxPacketSize);
+                if (writer.tryAdd(invalidation)) {
+                    continue;
+                }
+            }
+            if (!writer.tryAdd(Invalidation.ofTable(invalidation.getTable()))) {
+                throw new SpeedmentException("The table name " + invalidation.getTable() + " does not fit in a packet");
+            }
+        }
+        if (!writer.isEmpty()) {
+            packets.add(writer.toByteArray());
+        }
+        return packets;
+    }
+
+    /**
+     * Decodes the given datagram.
+     *
+     * @param data the buffer holding the datagram
+     * @param offset the offset of the datagram in the buffer
+     * @param length the length of the datagram
+     * @return the packet, or {@code empty} if the data is not a datagram of
+     * this codec
+     */
+    static Optional<Packet> decode(byte[] data, int offset, int length) {
+        final ByteBuffer buffer = ByteBuffer.wrap(data, offset, length);
+        try {
+            if (buffer.getInt() != MAGIC) {
+                return Optional.empty();
+            }
+            final long sender = buffer.getLong();
+            final int count = buffer.getShort() & 0xFFFF;
+            final List<String> tables = new ArrayList<>();
+            final List<Invalidation> invalidations = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                final int tableIndex = buffer.getShort() & 0xFFFF;
+                if (tableIndex == tables.size()) {
+                    tables.add(readString(buffer));
+                }
+                final String table = tables.get(tableIndex);
+                final Object primaryKey = readValue(buffer);
+                invalidations.add(primaryKey == null
+                    ? Invalidation.ofTable(table)
+                    : Invalidation.of(table, primaryKey)
+                );
+            }
+            return Optional.of(new Packet(sender, invalidations));
+        } catch (RuntimeException re) {
+            // Truncated or foreign datagrams are ignored
+            return Optional.empty();
+        }
+    }
+
+    private static final class Writer {
+
+        private final ByteBuffer buffer;
+        private final List<String> tables;
+        private int count;
+
+        private Writer(long sender, int maxPacketSize) {
+            this.buffer = ByteBuffer.allocate(maxPacketSize);
+            this.tables = new ArrayList<>();
+            buffer.putInt(MAGIC).putLong(sender).putShort((short) 0);
+        }
+
+        private boolean tryAdd(Invalidation invalidation) {
+            if (count == 0xFFFF) {
+                return false;
+            }
+            final int position = buffer.position();
+            final int tableCount = tables.size();
+            try {
+                int tableIndex = tables.indexOf(invalidation.getTable());
+                if (tableIndex < 0) {
+                    tableIndex = tables.size();
+                    tables.add(invalidation.getTable());
+                    buffer.putShort((short) tableIndex);
+                    writeString(buffer, invalidation.getTable());
+                } else {
+                    buffer.putShort((short) tableIndex);
+                }
+                final Object primaryKey = invalidation.getPrimaryKey();
+                writeValue(buffer, isEncodable(primaryKey) ? primaryKey : null);
+                count++;
+                return true;
+            } catch (BufferOverflowException boe) {
+                buffer.position(position);
+                tables.subList(tableCount, tables.size()).clear();
+                return false;
+            }
+        }
+
+        private boolean isEmpty() {
+            return count == 0;
+        }
+
+        private byte[] toByteArray() {
+            buffer.putShort(12, (short) count);
+            return Arrays.copyOf(buffer.array(), buffer.position());
+        }
+    }
+
+    private static void writeValue(ByteBuffer buffer, Object value) {
+        if (value == null) {
+            buffer.put(NULL);
+        } else if (value instanceof Integer) {
+            buffer.put(INT).putInt((Integer) value);
+        } else if (value instanceof Long) {
+            buffer.put(LONG).putLong((Long) value);
+        } else if (value instanceof Short) {
+            buffer.put(SHORT).putShort((Short) value);
+        } else if (value instanceof Byte) {
+            buffer.put(BYTE).put((Byte) value);
+        } else if (value instanceof String) {
+            buffer.put(STRING);
+            writeString(buffer, (String) value);
+        } else if (value instanceof CompositeKey) {
+            writeValue(buffer, ((CompositeKey) value).values());
+        } else if (value instanceof List) {
+            final List<?> list = (List<?>) value;
+            buffer.put(LIST).putShort((short) list.size());
+            list.forEach(v -> writeValue(buffer, v));
+        } else if (value instanceof Timestamp) {
+            final Timestamp timestamp = (Timestamp) value;
+            buffer.put(TIMESTAMP).putLong(timestamp.getTime()).putInt(timestamp.getNanos());
+        } else if (value instanceof Date) {
+            buffer.put(DATE).putLong(((Date) value).getTime());
+        } else if (value instanceof Time) {
+            buffer.put(TIME).putLong(((Time) value).getTime());
+        } else if (value instanceof BigInteger) {
+            buffer.put(BIG_INTEGER);
+            writeBytes(buffer, ((BigInteger) value).toByteArray());
+        } else if (value instanceof BigDecimal) {
+            final BigDecimal decimal = (BigDecimal) value;
+            buffer.put(BIG_DECIMAL).putInt(decimal.scale());
+            writeBytes(buffer, decimal.unscaledValue().toByteArray());
+        } else {
+            throw new IllegalArgumentException("Unable to encode the primary key " + value + " of " + value.getClass());
+        }
+    }
+
+    /**
+     * Returns whether the given primary key is made up of the types that
+     * this codec encodes.
+     */
+    private static boolean isEncodable(Object value) {
+        if (value == null
+            || value instanceof Integer
+            || value instanceof Long
+            || value instanceof Short
+            || value instanceof Byte
+            || value instanceof String
+            || value instanceof Timestamp
+            || value instanceof Date
+            || value instanceof Time
+            || value instanceof BigInteger
+            || value instanceof BigDecimal) {
+            return true;
+        } else if (value instanceof CompositeKey) {
+            return isEncodable(((CompositeKey) value).values());
+        } else if (value instanceof List) {
+            final List<?> list = (List<?>) value;
+            return list.size() <= 0xFFFF && list.stream().allMatch(InvalidationCodec::isEncodable);
+        }
+        return false;
+    }
+
+    private static Object readValue(ByteBuffer buffer) {
+        final byte tag = buffer.get();
+        switch (tag) {
+            case NULL:
+                return null;
+            case INT:
+                return buffer.getInt();
+            case LONG:
+                return buffer.getLong();
+            case SHORT:
+                return buffer.getShort();
+            case BYTE:
+                return buffer.get();
+            case STRING:
+                return readString(buffer);
+            case LIST: {
+                final Object[] values = new Object[buffer.getShort() & 0xFFFF];
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = readValue(buffer);
+                }
+                return Arrays.asList(values);
+            }
+            case TIMESTAMP: {
+                final Timestamp timestamp = new Timestamp(buffer.getLong());
+                timestamp.setNanos(buffer.getInt());
+                return timestamp;
+            }
+            case DATE:
+                return new Date(buffer.getLong());
+            case TIME:
+                return new Time(buffer.getLong());
+            case BIG_INTEGER:
+                return new BigInteger(readBytes(buffer));
+            case BIG_DECIMAL: {
+                final int scale = buffer.getInt();
+                return new BigDecimal(new BigInteger(readBytes(buffer)), scale);
+            }
+            default:
+                throw new IllegalArgumentException("Unknown tag " + tag);
+        }
+    }
+
+    private static void writeString(ByteBuffer buffer, String value) {
+        writeBytes(buffer, value.getBytes(UTF_8));
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        return new String(readBytes(buffer), UTF_8);
+    }
+
+    private static void writeBytes(ByteBuffer buffer, byte[] bytes) {
+        if (bytes.length > 0xFFFF) {
+            throw new BufferOverflowException();
+        }
+        buffer.putShort((short) bytes.length).put(bytes);
+    }
+
+    private static byte[] readBytes(ByteBuffer buffer) {
+        final byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * Utility classes should not be instantiated.
+     */
+    private InvalidationCodec() {
+        instanceNotAllowed(getClass());
+    }
+}
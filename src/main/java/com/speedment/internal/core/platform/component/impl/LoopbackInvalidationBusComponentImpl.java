@@ -0,0 +1,76 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.internal.core.platform.component.impl;
+
+import com.speedment.Speedment;
+import com.speedment.component.InvalidationBusComponent;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import static java.util.Objects.requireNonNull;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An {@link InvalidationBusComponent} that connects the Speedment instances
+ * of the same JVM. Instances that are started with the same group name
+ * receive the invalidations of each other.
+ *
+ * @author pemi
+ */
+public class LoopbackInvalidationBusComponentImpl extends AbstractInvalidationBusComponent {
+
+    public static final String DEFAULT_GROUP = "default";
+
+    private static final Map<String, Set<LoopbackInvalidationBusComponentImpl>> GROUPS = new ConcurrentHashMap<>();
+
+    private final String group;
+
+    public LoopbackInvalidationBusComponentImpl(Speedment speedment) {
+        this(speedment, DEFAULT_GROUP);
+    }
+
+    public LoopbackInvalidationBusComponentImpl(Speedment speedment, String group) {
+        super(speedment);
+        this.group = requireNonNull(group);
+    }
+
+    public String getGroup() {
+        return group;
+    }
+
+    @Override
+    public LoopbackInvalidationBusComponentImpl start() {
+        GROUPS.computeIfAbsent(group, g -> ConcurrentHashMap.newKeySet()).add(this);
+        return (LoopbackInvalidationBusComponentImpl) super.start();
+    }
+
+    @Override
+    public LoopbackInvalidationBusComponentImpl stop() {
+        super.stop();
+        GROUPS.getOrDefault(group, Collections.emptySet()).remove(this);
+        return this;
+    }
+
+    @Override
+    protected void send(List<Invalidation> batch) {
+        final List<Invalidation> received = Collections.unmodifiableList(batch);
+        GROUPS.getOrDefault(group, Collections.emptySet()).stream()
+            .filter(member -> member != this)
+            .forEach(member -> member.deliver(received));
+    }
+}
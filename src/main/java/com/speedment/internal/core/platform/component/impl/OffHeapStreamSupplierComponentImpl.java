@@ -0,0 +1,97 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.internal.core.platform.component.impl;
+
+import com.speedment.Manager;
+import com.speedment.Speedment;
+import com.speedment.config.Dbms;
+import com.speedment.internal.core.memory.EntityStore;
+import com.speedment.internal.core.memory.OffHeapEntityStore;
+import com.speedment.internal.core.memory.RowMapper;
+import com.speedment.internal.logging.Logger;
+import com.speedment.internal.logging.LoggerManager;
+import java.nio.file.Path;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * An {@link InMemoryStreamSupplierComponentImpl} that keeps the materialized
+ * tables outside of the Java heap, in {@link OffHeapEntityStore}s. If a
+ * directory is set, the tables are kept in memory mapped files and a table
+ * that is found in the directory when the component is started is not
+ * reloaded from the database. An incrementally refreshed table found in the
+ * directory is polled for the changes made since it was stored.
+ *
+ * @author pemi
+ */
+public class OffHeapStreamSupplierComponentImpl extends InMemoryStreamSupplierComponentImpl {
+
+    private static final Logger LOGGER = LoggerManager.getLogger(OffHeapStreamSupplierComponentImpl.class);
+
+    private int segmentSize;
+    private Path directory;
+
+    public OffHeapStreamSupplierComponentImpl(Speedment speedment) {
+        super(speedment);
+        this.segmentSize = OffHeapEntityStore.DEFAULT_SEGMENT_SIZE;
+    }
+
+    /**
+     * Sets the size in bytes of the segments that the rows are stored in. No
+     * row may be larger than a segment. This method must be called before the
+     * component is started.
+     *
+     * @param segmentSize the segment size
+     * @return this instance
+     */
+    public OffHeapStreamSupplierComponentImpl setSegmentSize(int segmentSize) {
+        this.segmentSize = segmentSize;
+        return this;
+    }
+
+    /**
+     * Sets the directory where the tables are persisted. Each table is stored
+     * in a sub directory named after the table. This method must be called
+     * before the component is started.
+     *
+     * @param directory the directory, or {@code null} to use direct memory
+     * @return this instance
+     */
+    public OffHeapStreamSupplierComponentImpl setDirectory(Path directory) {
+        this.directory = directory;
+        return this;
+    }
+
+    @Override
+    protected <ENTITY> void load(Class<ENTITY> entityClass) {
+        requireNonNull(entityClass);
+        final EntityStore<ENTITY> store = storeOf(getSpeedment().managerOf(entityClass));
+        if (store.size() > 0) {
+            LOGGER.info("Loaded " + store.size() + " rows of " + entityClass.getSimpleName() + " from " + directory);
+        }
+        if (store.size() == 0 || isIncremental(entityClass)) {
+            refresh(entityClass);
+        }
+    }
+
+    @Override
+    protected <ENTITY> EntityStore<ENTITY> newStore(Manager<ENTITY> manager) {
+        final Path tableDirectory = directory == null
+            ? null
+            : directory.resolve(manager.getTable().getRelativeName(Dbms.class));
+        return new OffHeapEntityStore<>(RowMapper.of(manager), segmentSize, tableDirectory);
+    }
+}
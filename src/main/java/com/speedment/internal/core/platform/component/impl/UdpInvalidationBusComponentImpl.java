@@ -0,0 +1,180 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.internal.core.platform.component.impl;
+
+import com.speedment.Speedment;
+import com.speedment.component.InvalidationBusComponent;
+import com.speedment.exception.SpeedmentException;
+import com.speedment.internal.logging.Logger;
+import com.speedment.internal.logging.LoggerManager;
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.net.SocketException;
+import java.util.Collections;
+import java.util.List;
+import static java.util.Objects.requireNonNull;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * An {@link InvalidationBusComponent} that sends invalidations as UDP
+ * datagrams to a list of peers. Each node binds a socket of its own and lists
+ * the addresses of the other nodes as peers. Several nodes may run on the
+ * same machine by binding different ports of the loopback address.
+ * <p>
+ * Datagrams may be lost, so this bus is best combined with caches that also
+ * expire or refresh their entries.
+ *
+ * @author pemi
+ */
+public class UdpInvalidationBusComponentImpl extends AbstractInvalidationBusComponent {
+
+    private static final Logger LOGGER = LoggerManager.getLogger(UdpInvalidationBusComponentImpl.class);
+
+    public static final int DEFAULT_MAX_PACKET_SIZE = 1400;
+
+    private final InetSocketAddress bindAddress;
+    private final List<InetSocketAddress> peers;
+    private final long nodeId;
+    private int maxPacketSize;
+    private volatile DatagramSocket socket;
+    private Thread receiver;
+
+    /**
+     * Creates a new bus that receives invalidations on the given address.
+     *
+     * @param speedment the Speedment instance
+     * @param bindAddress the local address to receive datagrams on, where
+     * port 0 selects any free port
+     */
+    public UdpInvalidationBusComponentImpl(Speedment speedment, InetSocketAddress bindAddress) {
+        super(speedment);
+        this.bindAddress = requireNonNull(bindAddress);
+        this.peers = new CopyOnWriteArrayList<>();
+        this.nodeId = ThreadLocalRandom.current().nextLong();
+        this.maxPacketSize = DEFAULT_MAX_PACKET_SIZE;
+    }
+
+    /**
+     * Adds a node that invalidations are sent to.
+     *
+     * @param peer the address of the node
+     * @return this instance
+     */
+    public UdpInvalidationBusComponentImpl addPeer(InetSocketAddress peer) {
+        peers.add(requireNonNull(peer));
+        return this;
+    }
+
+    /**
+     * Sets the maximum size of the datagrams. The default size fits in the
+     * MTU of most networks. This method must be called before the component
+     * is started.
+     *
+     * @param maxPacketSize the maximum datagram size in bytes
+     * @return this instance
+     */
+    public UdpInvalidationBusComponentImpl setMaxPacketSize(int maxPacketSize) {
+        if (maxPacketSize < 64 || maxPacketSize > 65507) {
+            throw new IllegalArgumentException("The packet size must be between 64 and 65507, was " + maxPacketSize);
+        }
+        this.maxPacketSize = maxPacketSize;
+        return this;
+    }
+
+    /**
+     * Returns the address that this node receives invalidations on, if the
+     * component is started.
+     *
+     * @return the local address or {@code empty}
+     */
+    public Optional<InetSocketAddress> getLocalAddress() {
+        final DatagramSocket current = socket;
+        return current == null
+            ? Optional.empty()
+            : Optional.of((InetSocketAddress) current.getLocalSocketAddress());
+    }
+
+    @Override
+    public UdpInvalidationBusComponentImpl start() {
+        try {
+            socket = new DatagramSocket(bindAddress);
+        } catch (SocketException se) {
+            throw new SpeedmentException("Unable to bind " + bindAddress, se);
+        }
+        receiver = new Thread(this::receive, getTitle());
+        receiver.setDaemon(true);
+        receiver.start();
+        return (UdpInvalidationBusComponentImpl) super.start();
+    }
+
+    @Override
+    public UdpInvalidationBusComponentImpl stop() {
+        super.stop();
+        final DatagramSocket current = socket;
+        socket = null;
+        if (current != null) {
+            current.close();
+        }
+        if (receiver != null) {
+            receiver.interrupt();
+            receiver = null;
+        }
+        return this;
+    }
+
+    @Override
+    protected void send(List<Invalidation> batch) {
+        final DatagramSocket current = socket;
+        if (current == null) {
+            LOGGER.warn("Dropped " + batch.size() + " invalidations since the bus is not started");
+            return;
+        }
+        for (final byte[] data : InvalidationCodec.encode(nodeId, batch, maxPacketSize)) {
+            for (final InetSocketAddress peer : peers) {
+                try {
+                    current.send(new DatagramPacket(data, data.length, peer));
+                } catch (IOException ioe) {
+                    LOGGER.error(ioe, "Unable to send invalidations to " + peer);
+                }
+            }
+        }
+    }
+
+    private void receive() {
+        final byte[] buffer = new byte[65507];
+        final DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+        DatagramSocket current;
+        while ((current = socket) != null) {
+            try {
+                packet.setLength(buffer.length);
+                current.receive(packet);
+            } catch (IOException ioe) {
+                if (socket != null) {
+                    LOGGER.error(ioe, "Unable to receive invalidations");
+                }
+                continue;
+            }
+            InvalidationCodec.decode(packet.getData(), packet.getOffset(), packet.getLength())
+                .filter(p -> p.getSender() != nodeId)
+                .ifPresent(p -> deliver(Collections.unmodifiableList(p.getInvalidations())));
+        }
+    }
+}
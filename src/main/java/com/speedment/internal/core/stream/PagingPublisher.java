@@ -0,0 +1,317 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.internal.core.stream;
+
+import com.speedment.stream.Flow;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import static java.util.Objects.requireNonNull;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * A {@link Flow.Publisher} that reads its elements page by page. A page is
+ * only read when a subscriber has requested elements and is never larger
+ * than the outstanding demand, so no elements are buffered and no resources
+ * are held while a subscriber is not asking for more. Each subscriber gets
+ * its own independent pass over the elements.
+ * <p>
+ * Pages are read on the read executor, which is typically admission
+ * controlled, while the elements are delivered to the subscriber on the
+ * other executor. A slow subscriber therefore never holds on to the read
+ * executor. Signals to a subscriber are never sent concurrently.
+ *
+ * @author pemi
+ * @param <T> the element type
+ */
+public final class PagingPublisher<T> implements Flow.Publisher<T> {
+
+    /**
+     * The default maximum number of elements read in one page.
+     */
+    public static final int DEFAULT_MAX_PAGE_SIZE = 1024;
+
+    /**
+     * Reads the page of elements that follows a given element.
+     *
+     * @param <T> the element type
+     */
+    @FunctionalInterface
+    public interface PageReader<T> {
+
+        /**
+         * Reads the page following the given element. If fewer than
+         * {@code size} elements are returned, there are no more elements.
+         *
+         * @param last  the last element of the previous page or {@code null}
+         *              if the first page should be read
+         * @param size  the maximum number of elements to read
+         * @return      the elements of the page
+         */
+        List<T> read(T last, int size);
+
+        /**
+         * Releases the resources held by this reader. It is called once no
+         * more pages will be read for a subscriber. The default
+         * implementation does nothing.
+         */
+        default void close() {}
+    }
+
+    private final Supplier<PageReader<T>> readers;
+    private final Executor readExecutor;
+    private final Executor executor;
+    private final int maxPageSize;
+
+    /**
+     * Creates a new publisher that reads every page with the given reader.
+     *
+     * @param reader        the reader of the pages
+     * @param readExecutor  the executor to read pages on
+     * @param executor      the executor to deliver elements on
+     * @param maxPageSize   the maximum number of elements in a page
+     * @throws IllegalArgumentException if {@code maxPageSize} is not positive
+     */
+    public PagingPublisher(PageReader<T> reader, Executor readExecutor, Executor executor, int maxPageSize) {
+        this(singleReader(reader), readExecutor, executor, maxPageSize);
+    }
+
+    private PagingPublisher(Supplier<PageReader<T>> readers, Executor readExecutor, Executor executor, int maxPageSize) {
+        if (maxPageSize <= 0) {
+            throw new IllegalArgumentException("The maximum page size must be positive but was " + maxPageSize);
+        }
+        this.readers = requireNonNull(readers);
+        this.readExecutor = requireNonNull(readExecutor);
+        this.executor = requireNonNull(executor);
+        this.maxPageSize = maxPageSize;
+    }
+
+    /**
+     * Creates a new publisher that gives each subscriber the elements of a
+     * new stream. Unlike a publisher that reads each page separately, the
+     * stream is kept open between pages until all of its elements have been
+     * delivered or the subscription is cancelled.
+     *
+     * @param <T>           the element type
+     * @param streams       the supplier of a stream for each subscriber
+     * @param readExecutor  the executor to read pages on
+     * @param executor      the executor to deliver elements on
+     * @param maxPageSize   the maximum number of elements in a page
+     * @return              the new publisher
+     * @throws IllegalArgumentException if {@code maxPageSize} is not positive
+     */
+    public static <T> PagingPublisher<T> ofStream(Supplier<Stream<T>> streams, Executor readExecutor, Executor executor, int maxPageSize) {
+        requireNonNull(streams);
+        return new PagingPublisher<>(() -> new StreamPageReader<>(streams), readExecutor, executor, maxPageSize);
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        requireNonNull(subscriber);
+        subscriber.onSubscribe(new PagingSubscription(subscriber));
+    }
+
+    private static <T> Supplier<PageReader<T>> singleReader(PageReader<T> reader) {
+        requireNonNull(reader);
+        return () -> reader;
+    }
+
+    private final class PagingSubscription implements Flow.Subscription {
+
+        private final Flow.Subscriber<? super T> subscriber;
+        private final AtomicLong demand;
+        private final AtomicInteger pending; // Number of times draining has been asked for
+        private volatile boolean cancelled;
+        private volatile Throwable invalidRequest;
+        private volatile List<T> readPage;    // Set when a read completes
+        private volatile Throwable readError; // Set when a read fails
+        private PageReader<T> reader; // Only accessed while draining
+        private boolean reading;      // Only accessed while draining
+        private int readSize;         // Only accessed while draining
+        private boolean done;         // Only accessed while draining
+        private T last;               // Only accessed while draining
+
+        private PagingSubscription(Flow.Subscriber<? super T> subscriber) {
+            this.subscriber = subscriber;
+            this.demand = new AtomicLong();
+            this.pending = new AtomicInteger();
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                invalidRequest = new IllegalArgumentException("The number of requested elements must be positive but was " + n);
+            } else {
+                demand.accumulateAndGet(n, (a, b) -> a + b < 0 ? Long.MAX_VALUE : a + b);
+            }
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            schedule();
+        }
+
+        private void schedule() {
+            if (pending.getAndIncrement() == 0) {
+                executor.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            int missed = 1;
+            do {
+                if (reading && (readPage != null || readError != null)) {
+                    reading = false;
+                    final List<T> page = readPage;
+                    final Throwable error = readError;
+                    readPage = null;
+                    readError = null;
+                    if (error != null) {
+                        fail(error);
+                    } else {
+                        deliver(page);
+                    }
+                }
+                if (invalidRequest != null) {
+                    fail(invalidRequest);
+                }
+                if (!reading) {
+                    if (done || cancelled) {
+                        close();
+                    } else if (demand.get() > 0) {
+                        read();
+                    }
+                }
+                missed = pending.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void read() {
+            final int size = (int) Math.min(demand.get(), maxPageSize);
+            final T after = last;
+            final PageReader<T> pageReader;
+            try {
+                if (reader == null) {
+                    reader = readers.get();
+                }
+                pageReader = reader;
+            } catch (RuntimeException e) {
+                fail(e);
+                return;
+            }
+            reading = true;
+            readSize = size;
+            try {
+                readExecutor.execute(() -> {
+                    try {
+                        readPage = requireNonNull(pageReader.read(after, size));
+                    } catch (RuntimeException e) {
+                        readError = e;
+                    }
+                    schedule();
+                });
+            } catch (RejectedExecutionException ree) {
+                reading = false;
+                fail(ree);
+            }
+        }
+
+        private void deliver(List<T> page) {
+            if (done || cancelled) {
+                return;
+            }
+            for (final T element : page) {
+                if (cancelled) {
+                    return;
+                }
+                demand.decrementAndGet();
+                last = element;
+                try {
+                    subscriber.onNext(element);
+                } catch (RuntimeException e) {
+                    cancelled = true; // A subscriber that throws is considered to have cancelled
+                }
+            }
+            if (!cancelled && page.size() < readSize) {
+                terminate();
+                subscriber.onComplete();
+            }
+        }
+
+        private void fail(Throwable error) {
+            if (!done && !cancelled) {
+                terminate();
+                subscriber.onError(error);
+            }
+        }
+
+        private void terminate() {
+            done = true;
+            last = null;
+        }
+
+        private void close() {
+            if (reader != null) {
+                final PageReader<T> closing = reader;
+                reader = null;
+                try {
+                    closing.close();
+                } catch (RuntimeException e) {
+                    // The subscriber has already been signalled
+                }
+            }
+        }
+    }
+
+    private static final class StreamPageReader<T> implements PageReader<T> {
+
+        private final Supplier<Stream<T>> streams;
+        private Stream<T> stream;
+        private Iterator<T> iterator;
+
+        private StreamPageReader(Supplier<Stream<T>> streams) {
+            this.streams = streams;
+        }
+
+        @Override
+        public List<T> read(T last, int size) {
+            if (iterator == null) {
+                stream = requireNonNull(streams.get());
+                iterator = stream.iterator();
+            }
+            final List<T> page = new ArrayList<>(size);
+            while (page.size() < size && iterator.hasNext()) {
+                page.add(iterator.next());
+            }
+            return page;
+        }
+
+        @Override
+        public void close() {
+            if (stream != null) {
+                stream.close();
+            }
+        }
+    }
+}
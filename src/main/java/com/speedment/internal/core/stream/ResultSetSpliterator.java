@@ -0,0 +1,159 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.internal.core.stream;
+
+import com.speedment.exception.SpeedmentException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import static java.util.Objects.requireNonNull;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * A {@link Spliterator} over the rows of a {@link ResultSet}. When split, a
+ * fixed number of rows are read and mapped on the calling thread and handed
+ * over as an array backed spliterator so that parallel streams get evenly
+ * sized chunks.
+ * <p>
+ * The spliterator may carry the number of rows that the result set is
+ * expected to hold. An exact size makes the spliterator {@code SIZED} so
+ * that for example {@code toArray} can presize its result. An estimated size
+ * is only used to guide splitting.
+ *
+ * @author pemi
+ * @param <T> the type that the rows are mapped to
+ */
+public final class ResultSetSpliterator<T> implements Spliterator<T> {
+
+    /**
+     * The size used if the number of rows is unknown.
+     */
+    public static final long UNKNOWN_SIZE = Long.MAX_VALUE;
+
+    /**
+     * The default number of rows that are read by each call to
+     * {@link #trySplit()}.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 1024;
+
+    private static final int CHARACTERISTICS = Spliterator.IMMUTABLE | Spliterator.NONNULL;
+
+    private final ResultSet resultSet;
+    private final Function<ResultSet, T> mapper;
+    private final int batchSize;
+    private final boolean exact;
+    private final int characteristics;
+    private long size;
+    private boolean exhausted;
+
+    /**
+     * Creates a new spliterator over the rows of the given result set.
+     *
+     * @param resultSet  the result set to read rows from
+     * @param mapper     the mapper from the current row to an element
+     * @param size       the expected number of rows or {@link #UNKNOWN_SIZE}
+     * @param exact      if the size is exact rather than an estimate
+     * @param batchSize  the number of rows read by each split
+     * @throws IllegalArgumentException if the size is negative, if an exact
+     *                                  size is unknown or if the batch size
+     *                                  is not positive
+     */
+    public ResultSetSpliterator(ResultSet resultSet, Function<ResultSet, T> mapper, long size, boolean exact, int batchSize) {
+        this.resultSet = requireNonNull(resultSet);
+        this.mapper = requireNonNull(mapper);
+        if (size < 0) {
+            throw new IllegalArgumentException("The size must not be negative but was " + size);
+        }
+        if (exact && size == UNKNOWN_SIZE) {
+            throw new IllegalArgumentException("An exact size must be known");
+        }
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("The batch size must be positive but was " + batchSize);
+        }
+        this.size = size;
+        this.batchSize = batchSize;
+        this.exact = exact;
+        this.characteristics = exact
+            ? CHARACTERISTICS | Spliterator.SIZED | Spliterator.SUBSIZED
+            : CHARACTERISTICS;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        requireNonNull(action);
+        if (!next()) {
+            return false;
+        }
+        action.accept(mapper.apply(resultSet));
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super T> action) {
+        requireNonNull(action);
+        while (next()) {
+            action.accept(mapper.apply(resultSet));
+        }
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        if (exhausted || (exact && size == 0)) {
+            return null;
+        }
+        final Object[] batch = new Object[exact ? (int) Math.min(batchSize, size) : batchSize];
+        int length = 0;
+        while (length < batch.length && next()) {
+            batch[length++] = mapper.apply(resultSet);
+        }
+        if (length == 0) {
+            return null;
+        }
+        return Spliterators.spliterator(batch, 0, length, CHARACTERISTICS);
+    }
+
+    @Override
+    public long estimateSize() {
+        return size;
+    }
+
+    @Override
+    public int characteristics() {
+        return characteristics;
+    }
+
+    private boolean next() {
+        if (exhausted) {
+            return false;
+        }
+        try {
+            if (resultSet.next()) {
+                if (size != UNKNOWN_SIZE && size > 0) {
+                    size--;
+                }
+                return true;
+            }
+        } catch (SQLException sqle) {
+            throw new SpeedmentException("Error iterating over a ResultSet", sqle);
+        }
+        exhausted = true;
+        size = 0;
+        return false;
+    }
+}
@@ -21,15 +21,10 @@
  */
 package com.speedment.internal.core.stream;
 
-import com.speedment.exception.SpeedmentException;
 import static com.speedment.util.StaticClassUtil.instanceNotAllowed;
 import java.sql.ResultSet;
-import java.sql.SQLException;
 import java.util.Iterator;
-import java.util.Objects;
 import static java.util.Objects.requireNonNull;
-import java.util.Spliterator;
-import java.util.Spliterators;
 import java.util.function.Function;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
@@ -61,36 +56,40 @@ public final class StreamUtil {
     }
 
     public static <T> Stream<T> asStream(ResultSet resultSet, Function<ResultSet, T> mapper) {
+        return asStream(resultSet, mapper, ResultSetSpliterator.UNKNOWN_SIZE);
+    }
+
+    /**
+     * Creates a stream of the rows in the given result set. The estimated
+     * size is used to split the stream evenly if it is made parallel.
+     *
+     * @param <T>            the type that the rows are mapped to
+     * @param resultSet      the result set to read rows from
+     * @param mapper         the mapper from the current row to an element
+     * @param estimatedSize  the estimated number of rows or
+     *                       {@link ResultSetSpliterator#UNKNOWN_SIZE}
+     * @return               the stream of mapped rows
+     */
+    public static <T> Stream<T> asStream(ResultSet resultSet, Function<ResultSet, T> mapper, long estimatedSize) {
         requireNonNull(resultSet);
         requireNonNull(mapper);
-        final Iterator<T> iterator = new ResultSetIterator<>(resultSet, mapper);
-        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.IMMUTABLE + Spliterator.NONNULL), false);
+        return StreamSupport.stream(new ResultSetSpliterator<>(resultSet, mapper, estimatedSize, false, ResultSetSpliterator.DEFAULT_BATCH_SIZE), false);
     }
 
-    private static class ResultSetIterator<T> implements Iterator<T> {
-
-        private final ResultSet resultSet;
-        private final Function<ResultSet, T> mapper;
-
-        public ResultSetIterator(final ResultSet resultSet, final Function<ResultSet, T> mapper) {
-            this.resultSet = requireNonNull(resultSet);
-            this.mapper = requireNonNull(mapper);
-        }
-
-        @Override
-        public boolean hasNext() {
-            try {
-                return resultSet.next();
-            } catch (SQLException sqle) {
-                throw new SpeedmentException("Error iterating over a ResultSet", sqle);
-            }
-        }
-
-        @Override
-        public T next() {
-            return mapper.apply(resultSet);
-        }
-
+    /**
+     * Creates a sized stream of the rows in the given result set. The size
+     * must be exact since operations like {@code toArray} depend on it.
+     *
+     * @param <T>        the type that the rows are mapped to
+     * @param resultSet  the result set to read rows from
+     * @param mapper     the mapper from the current row to an element
+     * @param size       the exact number of rows
+     * @return           the stream of mapped rows
+     */
+    public static <T> Stream<T> asSizedStream(ResultSet resultSet, Function<ResultSet, T> mapper, long size) {
+        requireNonNull(resultSet);
+        requireNonNull(mapper);
+        return StreamSupport.stream(new ResultSetSpliterator<>(resultSet, mapper, size, true, ResultSetSpliterator.DEFAULT_BATCH_SIZE), false);
     }
 
     /**
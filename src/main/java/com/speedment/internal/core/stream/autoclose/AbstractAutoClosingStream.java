@@ -21,6 +21,8 @@ import static com.speedment.util.NullUtil.requireNonNulls;
 import com.speedment.internal.util.holder.Holder;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.Iterator;
+import static java.util.Objects.requireNonNull;
 import java.util.Set;
 import java.util.function.BiFunction;
 import java.util.function.BooleanSupplier;
@@ -54,12 +56,22 @@ public abstract class AbstractAutoClosingStream implements AutoCloseable {
 
     @Override
     public void close() {
-        final Set<BaseStream<?, ?>> streamsToClose = new HashSet<>(streamSet); // Copy the set
-        streamSet.clear(); // Clear the shared streamSet so that other streams will not close again
+        Exception exception = null;
+        while (!streamSet.isEmpty()) {
+            // Remove each stream from the shared streamSet before closing it so that it will not be closed again
+            final Iterator<BaseStream<?, ?>> iterator = streamSet.iterator();
+            final BaseStream<?, ?> stream = iterator.next();
+            iterator.remove();
+            try {
+                stream.close();
+            } catch (Exception e) {
+                exception = addSuppressed(exception, e);
+            }
+        }
         try {
-            composedClose(streamsToClose.toArray(new BaseStream<?, ?>[0]));
-        } catch (Exception e) {
-            throw new RuntimeException(e);
+            if (exception != null) {
+                throw new RuntimeException(new SpeedmentException(exception));
+            }
         } finally {
             getStream().close(); // Close the underlying stream
         }
@@ -164,14 +176,7 @@ public abstract class AbstractAutoClosingStream implements AutoCloseable {
             try {
                 closable.close();
             } catch (Exception e) {
-                if (exception == null) {
-                    exception = e;
-                } else {
-                    try {
-                        exception.addSuppressed(e);
-                    } catch (Exception ignored) {
-                    }
-                }
+                exception = addSuppressed(exception, e);
             }
         }
 
@@ -180,6 +185,44 @@ public abstract class AbstractAutoClosingStream implements AutoCloseable {
         }
     }
 
+    /**
+     * Given a number of closeables, closes them in sequence, even if one or
+     * several throws an Exception. This works like
+     * {@link #composedClose(java.lang.AutoCloseable...)} but does not require
+     * the closeables to be copied into an array first.
+     *
+     * @param closeables to close
+     * @throws SpeedmentException if at least one of the close() operations
+     * throws an exception
+     */
+    public static void composedClose(Iterable<? extends AutoCloseable> closeables) {
+        requireNonNull(closeables);
+        Exception exception = null;
+
+        for (final AutoCloseable closable : closeables) {
+            try {
+                requireNonNull(closable).close();
+            } catch (Exception e) {
+                exception = addSuppressed(exception, e);
+            }
+        }
+
+        if (exception != null) {
+            throw new SpeedmentException(exception);
+        }
+    }
+
+    private static Exception addSuppressed(Exception first, Exception other) {
+        if (first == null) {
+            return other;
+        }
+        try {
+            first.addSuppressed(other);
+        } catch (Exception ignored) {
+        }
+        return first;
+    }
+
     /**
      * Given a number of Runnables, runs the run() method in sequence, even if
      * one or several throws an Exception. If several throw exceptions, the
@@ -105,7 +105,7 @@ public abstract class AbstractStreamBuilder<T extends AbstractStreamBuilder<T, P
                 throw new SpeedmentException(e);
             } finally {
                 try {
-                    AbstractAutoClosingStream.composedClose(streamSet.toArray(new AutoCloseable[0])); // Close the other streams
+                    AbstractAutoClosingStream.composedClose(streamSet); // Close the other streams
                 } catch (Exception e) {
                     throw new SpeedmentException(e);
                 }
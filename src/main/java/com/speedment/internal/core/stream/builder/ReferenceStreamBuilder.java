@@ -16,6 +16,7 @@
  */
 package com.speedment.internal.core.stream.builder;
 
+import com.speedment.internal.core.stream.builder.action.Action;
 import com.speedment.internal.core.stream.builder.pipeline.PipelineImpl;
 import com.speedment.internal.core.stream.builder.streamterminator.StreamTerminator;
 import com.speedment.internal.core.stream.builder.action.reference.DistinctAction;
@@ -73,6 +74,30 @@ public final class ReferenceStreamBuilder<T> extends AbstractStreamBuilder<Refer
         this(pipeline, streamTerminator, newStreamSet());
     }
     
+    /**
+     * Appends a custom action to the pipeline of this stream. This can be used
+     * by actions that need to operate directly on the underlying stream.
+     *
+     * @param action  the action to append
+     * @return        this stream
+     */
+    public ReferenceStreamBuilder<T> appendAction(Action<Stream<T>, Stream<T>> action) {
+        requireNonNull(action);
+        return append(action);
+    }
+
+    /**
+     * Appends an action that changes the element type of this stream. Since
+     * the resulting stream shares pipeline, terminator and close handlers with
+     * this one, this builder is reused rather than creating a new one.
+     */
+    private <R> ReferenceStreamBuilder<R> appendAndCast(Action<?, ?> action) {
+        append(action);
+        @SuppressWarnings("unchecked")
+        final ReferenceStreamBuilder<R> result = (ReferenceStreamBuilder<R>) this;
+        return result;
+    }
+
     @Override
     public Stream<T> filter(Predicate<? super T> predicate) {
         requireNonNull(predicate);
@@ -82,7 +107,7 @@ public final class ReferenceStreamBuilder<T> extends AbstractStreamBuilder<Refer
     @Override
     public <R> Stream<R> map(Function<? super T, ? extends R> mapper) {
         requireNonNull(mapper);
-        return new ReferenceStreamBuilder<R>(pipeline, streamTerminator, streamSet).append(new MapAction<>(mapper));
+        return appendAndCast(new MapAction<>(mapper));
     }
 
     @Override
@@ -106,7 +131,7 @@ public final class ReferenceStreamBuilder<T> extends AbstractStreamBuilder<Refer
     @Override
     public <R> Stream<R> flatMap(Function<? super T, ? extends Stream<? extends R>> mapper) {
         requireNonNull(mapper);
-        return new ReferenceStreamBuilder<R>(pipeline, streamTerminator, streamSet).append(new FlatMapAction<>(mapper));
+        return appendAndCast(new FlatMapAction<>(mapper));
     }
 
     @Override
@@ -30,8 +30,15 @@ import java.util.stream.Stream;
  */
 public final class MapToDoubleAction<T> extends Action<Stream<T>, DoubleStream> {
 
+    private final ToDoubleFunction<? super T> mapper;
+
     public MapToDoubleAction(ToDoubleFunction<? super T> mapper) {
         super(s -> s.mapToDouble(requireNonNull(mapper)), DoubleStream.class, MAP_TO);
+        this.mapper = mapper;
+    }
+
+    public ToDoubleFunction<? super T> getMapper() {
+        return mapper;
     }
 
 }
@@ -29,8 +29,15 @@ import java.util.stream.Stream;
  */
 public final class PeekAction<T> extends Action<Stream<T>, Stream<T>> {
 
+    private final Consumer<? super T> action;
+
     public PeekAction(Consumer<? super T> action) {
         super(s -> s.peek(requireNonNull(action)), Stream.class, PEEK);
+        this.action = action;
+    }
+
+    public Consumer<? super T> getAction() {
+        return action;
     }
 
 }
@@ -16,10 +16,12 @@
  */
 package com.speedment.internal.core.stream.builder.action.reference;
 
+import com.speedment.internal.comparator.impl.KeyExtractingSorter;
 import com.speedment.internal.core.stream.builder.action.Action;
 import static com.speedment.internal.core.stream.builder.action.StandardBasicAction.SORTED;
 import java.util.Comparator;
 import static java.util.Objects.requireNonNull;
+import java.util.function.Function;
 import java.util.stream.Stream;
 
 /**
@@ -34,7 +36,18 @@ public final class SortedAction<T> extends Action<Stream<T>, Stream<T>> {
     }
 
     public SortedAction(Comparator<? super T> comparator) {
-        super(s -> s.sorted(requireNonNull(comparator)), Stream.class, SORTED);
+        super(sorter(requireNonNull(comparator)), Stream.class, SORTED);
+    }
+
+    /**
+     * Field comparators are sorted by extracting their keys once per element
+     * instead of reading them in every comparison.
+     */
+    private static <T> Function<Stream<T>, Stream<T>> sorter(Comparator<? super T> comparator) {
+        if (KeyExtractingSorter.isSupported(comparator)) {
+            return s -> KeyExtractingSorter.sorted(s, comparator);
+        }
+        return s -> s.sorted(comparator);
     }
 
 }
@@ -0,0 +1,138 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.internal.core.stream.builder.pipeline;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * A {@link Spliterator} that applies a run of stateless filter, map and peek
+ * operations to the elements of a source spliterator in a single pass. This
+ * replaces one stream stage (and one sink) per operation with a single stage
+ * that evaluates all the operations in a plain loop.
+ *
+ * @author pemi
+ */
+final class FusedSpliterator implements Spliterator<Object>, Consumer<Object> {
+
+    static final int FILTER = 0, MAP = 1, PEEK = 2;
+
+    private static final Object REJECTED = new Object();
+
+    private final Spliterator<Object> source;
+    private final int[] kinds;
+    private final Object[] functions;
+    private final int characteristics;
+    private Object current;
+
+    FusedSpliterator(Spliterator<Object> source, int[] kinds, Object[] functions) {
+        this.source = source;
+        this.kinds = kinds;
+        this.functions = functions;
+        this.characteristics = characteristics(source.characteristics(), kinds);
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Object> action) {
+        current = REJECTED;
+        while (current == REJECTED) {
+            if (!source.tryAdvance(this)) {
+                return false;
+            }
+        }
+        final Object next = current;
+        current = null;
+        action.accept(next);
+        return true;
+    }
+
+    @Override
+    public void accept(Object element) {
+        current = apply(element);
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super Object> action) {
+        source.forEachRemaining(element -> {
+            final Object result = apply(element);
+            if (result != REJECTED) {
+                action.accept(result);
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object apply(Object element) {
+        Object result = element;
+        for (int i = 0; i < kinds.length; i++) {
+            switch (kinds[i]) {
+                case FILTER: {
+                    if (!((Predicate<Object>) functions[i]).test(result)) {
+                        return REJECTED;
+                    }
+                    break;
+                }
+                case MAP: {
+                    result = ((Function<Object, Object>) functions[i]).apply(result);
+                    break;
+                }
+                case PEEK: {
+                    ((Consumer<Object>) functions[i]).accept(result);
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Spliterator<Object> trySplit() {
+        final Spliterator<Object> prefix = source.trySplit();
+        return prefix == null ? null : new FusedSpliterator(prefix, kinds, functions);
+    }
+
+    @Override
+    public long estimateSize() {
+        return source.estimateSize();
+    }
+
+    @Override
+    public int characteristics() {
+        return characteristics;
+    }
+
+    /**
+     * Returns the characteristics that remain after the operations have been
+     * applied. Filtering makes the size unknown and mapping invalidates any
+     * sort order, distinctness and non-nullness of the source. The sort order
+     * is always cleared since the comparator of the source does not apply to
+     * the resulting elements if they have been mapped.
+     */
+    private static int characteristics(int source, int[] kinds) {
+        int result = source & ~Spliterator.SORTED;
+        for (final int kind : kinds) {
+            if (kind == FILTER) {
+                result &= ~(Spliterator.SIZED | Spliterator.SUBSIZED);
+            } else if (kind == MAP) {
+                result &= ~(Spliterator.DISTINCT | Spliterator.NONNULL);
+            }
+        }
+        return result;
+    }
+}
@@ -17,10 +17,16 @@
 package com.speedment.internal.core.stream.builder.pipeline;
 
 import com.speedment.internal.core.stream.builder.action.Action;
+import com.speedment.internal.core.stream.builder.action.reference.FilterAction;
+import com.speedment.internal.core.stream.builder.action.reference.MapAction;
+import com.speedment.internal.core.stream.builder.action.reference.PeekAction;
+import java.util.ArrayList;
 import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Objects;
 import static java.util.Objects.requireNonNull;
+import java.util.Spliterator;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.BaseStream;
@@ -28,8 +34,13 @@ import java.util.stream.DoubleStream;
 import java.util.stream.IntStream;
 import java.util.stream.LongStream;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
+ * An array backed pipeline of actions. When the stream is materialized,
+ * consecutive filter, map and peek actions on a reference stream are fused
+ * into a single stream stage unless fusion has been turned off using
+ * {@link #setFused(boolean)}.
  *
  * @author pemi
  * @param <E> The type element that the last PipelineImpl holds
@@ -37,12 +48,36 @@ import java.util.stream.Stream;
  */
 public final class PipelineImpl<E> implements Pipeline, ReferencePipeline<E>, IntPipeline, LongPipeline, DoublePipeline {
 
-    private final LinkedList<Action<?, ?>> list;
+    private static final int MIN_FUSED_ACTIONS = 2;
+
+    private final List<Action<?, ?>> list;
     private Supplier<BaseStream<?, ?>> initialSupplier;
+    private boolean fused;
 
     public PipelineImpl(Supplier<BaseStream<?, ?>> initialSupplier) {
         this.initialSupplier = Objects.requireNonNull(initialSupplier);
-        this.list = new LinkedList<>();
+        this.list = new ArrayList<>();
+        this.fused = true;
+    }
+
+    /**
+     * Returns if consecutive filter, map and peek actions are fused into a
+     * single stream stage when the stream is materialized.
+     *
+     * @return if actions are fused
+     */
+    public boolean isFused() {
+        return fused;
+    }
+
+    /**
+     * Sets if consecutive filter, map and peek actions should be fused into a
+     * single stream stage when the stream is materialized.
+     *
+     * @param fused if actions should be fused
+     */
+    public void setFused(boolean fused) {
+        this.fused = fused;
     }
 
     @SuppressWarnings("rawtypes")
@@ -82,8 +117,16 @@ public final class PipelineImpl<E> implements Pipeline, ReferencePipeline<E>, In
     private BaseStream<E, ?> getStream() {
         BaseStream<?, ?> result = getInitialSupplier().get();
         //System.out.println("Applying " + toString());
-        for (Action<?, ?> action : this) {
-            result = cast(result, action);
+        final int size = list.size();
+        int index = 0;
+        while (index < size) {
+            final int end = fused ? endOfFusable(index) : index;
+            if (end - index >= MIN_FUSED_ACTIONS) {
+                result = fuse((Stream<?>) result, index, end);
+                index = end;
+            } else {
+                result = cast(result, list.get(index++));
+            }
         }
 
         @SuppressWarnings("unchecked")
@@ -99,37 +142,78 @@ public final class PipelineImpl<E> implements Pipeline, ReferencePipeline<E>, In
         return mapper.apply(in);
     }
 
+    private int endOfFusable(int from) {
+        int end = from;
+        while (end < list.size() && isFusable(list.get(end))) {
+            end++;
+        }
+        return end;
+    }
+
+    private static boolean isFusable(Action<?, ?> action) {
+        return action instanceof FilterAction
+            || action instanceof MapAction
+            || action instanceof PeekAction;
+    }
+
+    private Stream<?> fuse(Stream<?> stream, int from, int to) {
+        final int length = to - from;
+        final int[] kinds = new int[length];
+        final Object[] functions = new Object[length];
+        for (int i = 0; i < length; i++) {
+            final Action<?, ?> action = list.get(from + i);
+            if (action instanceof FilterAction) {
+                kinds[i] = FusedSpliterator.FILTER;
+                functions[i] = ((FilterAction<?>) action).getPredicate();
+            } else if (action instanceof MapAction) {
+                kinds[i] = FusedSpliterator.MAP;
+                functions[i] = ((MapAction<?, ?>) action).getMapper();
+            } else {
+                kinds[i] = FusedSpliterator.PEEK;
+                functions[i] = ((PeekAction<?>) action).getAction();
+            }
+        }
+        @SuppressWarnings("unchecked")
+        final Spliterator<Object> source = (Spliterator<Object>) stream.spliterator();
+        return StreamSupport.stream(new FusedSpliterator(source, kinds, functions), stream.isParallel())
+            .onClose(stream::close);
+    }
+
     // Delegators
     @Override
     public Action<?, ?> getFirst() {
-        return list.getFirst();
+        requireNotEmpty();
+        return list.get(0);
     }
 
     @Override
     public Action<?, ?> getLast() {
-        return list.getLast();
+        requireNotEmpty();
+        return list.get(list.size() - 1);
     }
 
     @Override
     public Action<?, ?> removeFirst() {
-        return list.removeFirst();
+        requireNotEmpty();
+        return list.remove(0);
     }
 
     @Override
     public Action<?, ?> removeLast() {
-        return list.removeLast();
+        requireNotEmpty();
+        return list.remove(list.size() - 1);
     }
 
     @Override
     public void addFirst(Action<?, ?> e) {
         requireNonNull(e);
-        list.addFirst(e);
+        list.add(0, e);
     }
 
     @Override
     public void addLast(Action<?, ?> e) {
         requireNonNull(e);
-        list.addLast(e);
+        list.add(e);
     }
 
     @Override
@@ -193,4 +277,10 @@ public final class PipelineImpl<E> implements Pipeline, ReferencePipeline<E>, In
     public void setInitialSupplier(Supplier<BaseStream<?, ?>> initialSupplier) {
         this.initialSupplier = Objects.requireNonNull(initialSupplier);
     }
+
+    private void requireNotEmpty() {
+        if (list.isEmpty()) {
+            throw new NoSuchElementException();
+        }
+    }
 }
@@ -18,6 +18,8 @@ package com.speedment.internal.core.stream.builder.streamterminator;
 
 import com.speedment.field.predicate.SpeedmentPredicate;
 import com.speedment.internal.core.field.predicate.AbstractCombinedBasePredicate;
+import com.speedment.internal.core.field.predicate.PredicateCompiler;
+import com.speedment.internal.core.field.predicate.PredicateStatistics;
 import com.speedment.internal.core.stream.builder.action.Action;
 import com.speedment.internal.core.stream.builder.action.reference.FilterAction;
 import com.speedment.internal.core.stream.builder.pipeline.Pipeline;
@@ -77,6 +79,46 @@ public class StreamTerminatorUtil {
         return andPredicateBuilders;
     }
 
+    /**
+     * Replaces every run of consecutive {@link FilterAction FilterActions} in
+     * the pipeline with a single FilterAction that tests a predicate compiled
+     * by the {@link PredicateCompiler}. Single filters are only replaced if
+     * they hold a combined AND-predicate.
+     * <p>
+     * This method should be called after the filters have been inspected for
+     * predicates that can be pushed down to the source, since the compiled
+     * predicate does not expose the original predicates.
+     *
+     * @param <P>         the pipeline type
+     * @param pipeline    the pipeline to modify
+     * @param statistics  the pass rates to order predicates by
+     * @return            the same pipeline
+     */
+    public static <P extends Pipeline> P compileFilters(P pipeline, PredicateStatistics statistics) {
+        requireNonNull(pipeline);
+        requireNonNull(statistics);
+        for (int i = 0; i < pipeline.size(); i++) {
+            int end = i;
+            while (end < pipeline.size() && pipeline.get(end) instanceof FilterAction) {
+                end++;
+            }
+            if (end - i > 1 || (end - i == 1 && isCombined((FilterAction<?>) pipeline.get(i)))) {
+                final List<Predicate<? super Object>> predicates = new ArrayList<>();
+                for (int j = i; j < end; j++) {
+                    @SuppressWarnings("unchecked")
+                    final FilterAction<Object> action = (FilterAction<Object>) pipeline.remove(i);
+                    predicates.add(action.getPredicate());
+                }
+                pipeline.add(i, new FilterAction<>(PredicateCompiler.compile(predicates, statistics)));
+            }
+        }
+        return pipeline;
+    }
+
+    private static boolean isCombined(FilterAction<?> action) {
+        return action.getPredicate() instanceof AbstractCombinedBasePredicate.AndCombinedBasePredicate;
+    }
+
     private StreamTerminatorUtil() {
     }
 
@@ -0,0 +1,183 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.internal.util;
+
+import static java.util.Objects.requireNonNull;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * An {@link Executor} that never lets more than a fixed number of tasks run
+ * at the same time on the underlying executor. Tasks that are submitted when
+ * all permits are taken are queued and handed over in submission order as
+ * running tasks complete. Neither the submitting thread nor the threads of
+ * the underlying executor are ever blocked waiting for a permit.
+ * <p>
+ * After {@link #shutdown(Runnable)} no new tasks are accepted, but the tasks
+ * that are already queued are still handed over to the underlying executor,
+ * so the underlying executor must not be shut down until the queue has been
+ * drained.
+ *
+ * @author pemi
+ */
+public final class AdmissionExecutor implements Executor {
+
+    private static final Runnable DRAINED = () -> {};
+
+    private final Executor executor;
+    private final int maxInFlight;
+    private final AtomicInteger inFlight;
+    private final Queue<Runnable> queue;
+    private final AtomicReference<Runnable> whenDrained;
+    private volatile boolean shutdown;
+
+    /**
+     * Creates a new executor that runs at most {@code maxInFlight} tasks at
+     * the same time on the given executor.
+     *
+     * @param executor     the executor to run tasks on
+     * @param maxInFlight  the maximum number of tasks that may run at the
+     *                     same time
+     * @throws IllegalArgumentException if {@code maxInFlight} is not positive
+     */
+    public AdmissionExecutor(Executor executor, int maxInFlight) {
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("The maximum number of tasks in flight must be positive but was " + maxInFlight);
+        }
+        this.executor = requireNonNull(executor);
+        this.maxInFlight = maxInFlight;
+        this.inFlight = new AtomicInteger();
+        this.queue = new ConcurrentLinkedQueue<>();
+        this.whenDrained = new AtomicReference<>();
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        requireNonNull(command);
+        if (shutdown) {
+            throw new RejectedExecutionException("The executor has been shut down");
+        }
+        queue.offer(command);
+        drain();
+    }
+
+    /**
+     * Stops accepting new tasks. The tasks that are already queued or
+     * running are completed as usual, after which the given action is run
+     * exactly once. The action is typically used to shut down the underlying
+     * executor.
+     *
+     * @param whenDrained  the action to run when no tasks are queued or
+     *                     running any more
+     * @throws IllegalStateException if the executor has already been shut
+     *                               down
+     */
+    public void shutdown(Runnable whenDrained) {
+        requireNonNull(whenDrained);
+        if (!this.whenDrained.compareAndSet(null, whenDrained)) {
+            throw new IllegalStateException("The executor has already been shut down");
+        }
+        shutdown = true;
+        drain();
+    }
+
+    /**
+     * Returns if this executor has been shut down.
+     *
+     * @return if this executor has been shut down
+     */
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    /**
+     * Returns the maximum number of tasks that may run at the same time.
+     *
+     * @return the maximum number of tasks in flight
+     */
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    /**
+     * Returns the number of tasks that have been handed over to the
+     * underlying executor but not yet completed.
+     *
+     * @return the number of tasks in flight
+     */
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Returns the number of tasks waiting for a permit.
+     *
+     * @return the number of queued tasks
+     */
+    public int queued() {
+        return queue.size();
+    }
+
+    private void drain() {
+        try {
+            handOver();
+        } finally {
+            if (shutdown && queue.isEmpty() && inFlight.get() == 0) {
+                final Runnable action = whenDrained.getAndSet(DRAINED);
+                if (action != null && action != DRAINED) {
+                    action.run();
+                }
+            }
+        }
+    }
+
+    private void handOver() {
+        while (!queue.isEmpty()) {
+            final int current = inFlight.get();
+            if (current >= maxInFlight) {
+                return; // A completing task will drain the queue
+            }
+            if (!inFlight.compareAndSet(current, current + 1)) {
+                continue;
+            }
+            final Runnable command = queue.poll();
+            if (command == null) {
+                inFlight.decrementAndGet();
+                continue;
+            }
+            try {
+                executor.execute(() -> run(command));
+            } catch (RejectedExecutionException ree) {
+                inFlight.decrementAndGet();
+                throw ree;
+            }
+        }
+    }
+
+    private void run(Runnable command) {
+        try {
+            command.run();
+        } finally {
+            inFlight.decrementAndGet();
+            drain();
+        }
+    }
+}
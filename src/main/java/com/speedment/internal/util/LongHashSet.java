@@ -0,0 +1,178 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.internal.util;
+
+import java.util.Arrays;
+
+/**
+ * A set of primitive {@code long} values that uses open addressing with
+ * linear probing. Values are stored in a single {@code long[]} so that
+ * lookups do not box the value or follow any references.
+ * <p>
+ * This class is not thread safe. It is intended to be filled once and then
+ * only read, in which case it can be shared between threads after it has been
+ * safely published.
+ *
+ * @author pemi
+ */
+public final class LongHashSet {
+
+    private static final long EMPTY = 0L;
+    private static final int MIN_CAPACITY = 8;
+
+    private long[] slots;
+    private int mask;
+    private int size;
+    private boolean containsEmpty;
+
+    public LongHashSet() {
+        this(MIN_CAPACITY / 2);
+    }
+
+    /**
+     * Creates a new set that can hold the given number of values without
+     * having to grow.
+     *
+     * @param expectedSize  the expected number of values
+     */
+    public LongHashSet(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Expected size can not be negative, was " + expectedSize + ".");
+        }
+        allocate(capacityFor(expectedSize));
+    }
+
+    /**
+     * Adds the given value to this set.
+     *
+     * @param value  the value to add
+     * @return       {@code true} if the value was not already in the set
+     */
+    public boolean add(long value) {
+        if (value == EMPTY) {
+            if (containsEmpty) {
+                return false;
+            }
+            containsEmpty = true;
+            size++;
+            return true;
+        }
+        int i = indexOf(value);
+        while (slots[i] != EMPTY) {
+            if (slots[i] == value) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+        slots[i] = value;
+        if (++size * 2 > slots.length) {
+            rehash(slots.length * 2);
+        }
+        return true;
+    }
+
+    /**
+     * Returns if the given value is in this set.
+     *
+     * @param value  the value to look for
+     * @return       {@code true} if the value is in the set
+     */
+    public boolean contains(long value) {
+        if (value == EMPTY) {
+            return containsEmpty;
+        }
+        final long[] s = slots;
+        int i = indexOf(value);
+        long slot;
+        while ((slot = s[i]) != EMPTY) {
+            if (slot == value) {
+                return true;
+            }
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the values of this set in no particular order.
+     *
+     * @return the values of this set
+     */
+    public long[] toArray() {
+        final long[] result = new long[size];
+        int n = 0;
+        if (containsEmpty) {
+            result[n++] = EMPTY;
+        }
+        for (final long slot : slots) {
+            if (slot != EMPTY) {
+                result[n++] = slot;
+            }
+        }
+        return result;
+    }
+
+    private int indexOf(long value) {
+        // The finalizer of MurmurHash3 spreads clustered keys over the table
+        long h = value;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return (int) h & mask;
+    }
+
+    private void rehash(int capacity) {
+        final long[] old = slots;
+        allocate(capacity);
+        for (final long value : old) {
+            if (value != EMPTY) {
+                int i = indexOf(value);
+                while (slots[i] != EMPTY) {
+                    i = (i + 1) & mask;
+                }
+                slots[i] = value;
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        slots = new long[capacity];
+        mask = capacity - 1;
+    }
+
+    private static int capacityFor(int expectedSize) {
+        final long wanted = Math.max(MIN_CAPACITY, (long) expectedSize * 2);
+        if (wanted > (1 << 30)) {
+            throw new IllegalArgumentException("Expected size " + expectedSize + " is too large.");
+        }
+        return Integer.highestOneBit((int) wanted - 1) << 1;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+
+}
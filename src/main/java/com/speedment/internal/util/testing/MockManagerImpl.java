@@ -16,12 +16,17 @@
  */
 package com.speedment.internal.util.testing;
 
+import com.speedment.AsyncManager;
 import com.speedment.Manager;
 import com.speedment.config.Column;
 import com.speedment.config.Table;
 import com.speedment.db.MetaResult;
 import com.speedment.exception.SpeedmentException;
+import com.speedment.internal.core.manager.AsyncManagerImpl;
+import com.speedment.stream.Flow;
 import com.speedment.stream.StreamDecorator;
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
@@ -125,6 +130,11 @@ public class MockManagerImpl<ENTITY> implements MockManager<ENTITY> {
         return inner.toJson(entity);
     }
 
+    @Override
+    public void writeJson(ENTITY entity, Appendable out) throws IOException {
+        inner.writeJson(entity, out);
+    }
+
     @Override
     public Stream<ENTITY> stream(StreamDecorator decorator) {
         return streamer.apply(decorator);
@@ -135,6 +145,16 @@ public class MockManagerImpl<ENTITY> implements MockManager<ENTITY> {
         return nativeStreamer.apply(decorator);
     }
 
+    @Override
+    public Flow.Publisher<ENTITY> publisher() {
+        return inner.publisher();
+    }
+
+    @Override
+    public AsyncManager<ENTITY> async() {
+        return new AsyncManagerImpl<>(this, ForkJoinPool.commonPool());
+    }
+
     @Override
     public ENTITY persist(ENTITY entity) throws SpeedmentException {
         return persister.apply(entity);
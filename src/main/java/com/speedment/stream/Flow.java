@@ -0,0 +1,121 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.stream;
+
+import com.speedment.annotation.Api;
+import static com.speedment.util.StaticClassUtil.instanceNotAllowed;
+
+/**
+ * Interfaces for demand driven publishing of elements. The interfaces mirror
+ * the reactive streams interfaces of {@code java.util.concurrent.Flow} in
+ * Java 9 so that they can be bridged with a single method reference each.
+ * <p>
+ * A {@link Subscriber} receives a {@link Subscription} from a
+ * {@link Publisher} and then receives at most as many elements as it has
+ * requested. Resources needed to produce elements are only held while there
+ * is outstanding demand.
+ *
+ * @author pemi
+ * @since 2.2
+ */
+@Api(version = "2.2")
+public final class Flow {
+
+    /**
+     * A producer of elements that are received by subscribers.
+     *
+     * @param <T> the element type
+     */
+    @FunctionalInterface
+    public interface Publisher<T> {
+
+        /**
+         * Adds the given subscriber. The subscriber will receive a
+         * {@link Subscription} through
+         * {@link Subscriber#onSubscribe(Subscription)} before any other
+         * signal.
+         *
+         * @param subscriber the subscriber
+         */
+        void subscribe(Subscriber<? super T> subscriber);
+    }
+
+    /**
+     * A receiver of elements.
+     *
+     * @param <T> the element type
+     */
+    public interface Subscriber<T> {
+
+        /**
+         * Invoked before any other method for a new subscription.
+         *
+         * @param subscription the new subscription
+         */
+        void onSubscribe(Subscription subscription);
+
+        /**
+         * Invoked with the next element of the subscription.
+         *
+         * @param item the element
+         */
+        void onNext(T item);
+
+        /**
+         * Invoked if the subscription fails. No other methods are invoked
+         * thereafter.
+         *
+         * @param throwable the error
+         */
+        void onError(Throwable throwable);
+
+        /**
+         * Invoked when all elements have been received. No other methods are
+         * invoked thereafter.
+         */
+        void onComplete();
+    }
+
+    /**
+     * The link between a {@link Publisher} and a {@link Subscriber}.
+     */
+    public interface Subscription {
+
+        /**
+         * Adds the given number of elements to the demand of this
+         * subscription. A non-positive number signals an
+         * {@link IllegalArgumentException} through
+         * {@link Subscriber#onError(Throwable)}.
+         *
+         * @param n the number of additional elements to receive
+         */
+        void request(long n);
+
+        /**
+         * Stops the subscriber from receiving further elements. Resources
+         * held by the subscription are released.
+         */
+        void cancel();
+    }
+
+    /**
+     * Utility classes should not be instantiated.
+     */
+    private Flow() {
+        instanceNotAllowed(getClass());
+    }
+}
@@ -21,7 +21,13 @@ import com.speedment.stream.MapStream;
 import com.speedment.internal.logging.Logger;
 import com.speedment.internal.logging.LoggerManager;
 import com.speedment.encoder.JsonEncoder;
+import com.speedment.exception.SpeedmentException;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
@@ -33,6 +39,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.nio.charset.Charset;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.BiConsumer;
 import java.util.function.BinaryOperator;
 import java.util.function.Consumer;
@@ -95,7 +103,86 @@ public final class CollectorUtil {
      */
     public static <T> Collector<T, ?, String> toJson(JsonEncoder<T> encoder) {
         requireNonNull(encoder);
-        return new Parser<>(encoder::apply, l -> "[" + l.stream().collect(joining(", ")) + "]");
+        return new CollectorImpl<>(
+            () -> new JsonArrayWriter<>(encoder, new StringBuilder()),
+            JsonArrayWriter::add,
+            JsonArrayWriter::merge,
+            w -> w.finish().toString(),
+            Collections.emptySet()
+        );
+    }
+
+    /**
+     * Returns a collector that writes each element in the stream into the
+     * specified {@code Appendable} using the specified encoder as soon as it
+     * is accumulated. The elements are separated by commas and surrounded by
+     * square brackets, just like in {@link #toJson(JsonEncoder)}, but the
+     * document is never held in memory.
+     * <p>
+     * The returned collector writes to a single target and can therefore only
+     * be used once, on a sequential stream. Any {@code IOException} thrown by
+     * the target is wrapped in a {@link SpeedmentException}.
+     *
+     * @param <T>      the type of the stream
+     * @param <A>      the type of the target
+     * @param encoder  the encoder to use
+     * @param out      the target to write to
+     * @return         the target
+     */
+    public static <T, A extends Appendable> Collector<T, ?, A> toJson(JsonEncoder<T> encoder, A out) {
+        return streamingJson(encoder, out, w -> {
+            w.finish();
+            return out;
+        });
+    }
+
+    /**
+     * Returns a collector that writes each element in the stream into the
+     * specified {@code OutputStream} using the specified encoder and charset.
+     * Characters are encoded through a buffered writer that is flushed, but
+     * not closed, when the stream has been collected. Apart from that, the
+     * collector behaves like {@link #toJson(JsonEncoder, Appendable)}.
+     *
+     * @param <T>      the type of the stream
+     * @param <O>      the type of the output stream
+     * @param encoder  the encoder to use
+     * @param out      the stream to write to
+     * @param charset  the charset to encode the characters with
+     * @return         the output stream
+     */
+    public static <T, O extends OutputStream> Collector<T, ?, O> toJson(JsonEncoder<T> encoder, O out, Charset charset) {
+        requireNonNull(out);
+        requireNonNull(charset);
+        final Writer writer = new BufferedWriter(new OutputStreamWriter(out, charset));
+        return streamingJson(encoder, writer, w -> {
+            w.finish();
+            try {
+                writer.flush();
+            } catch (final IOException ex) {
+                throw new SpeedmentException(ex);
+            }
+            return out;
+        });
+    }
+
+    private static <T, R> Collector<T, ?, R> streamingJson(JsonEncoder<T> encoder, Appendable out, Function<JsonArrayWriter<T>, R> finisher) {
+        requireNonNull(encoder);
+        requireNonNull(out);
+        final AtomicBoolean supplied = new AtomicBoolean();
+        return new CollectorImpl<T, JsonArrayWriter<T>, R>(
+            () -> {
+                if (supplied.getAndSet(true)) {
+                    throw new IllegalStateException(
+                        "A streaming json collector can only be used once, on a sequential stream."
+                    );
+                }
+                return new JsonArrayWriter<>(encoder, out);
+            },
+            JsonArrayWriter::add,
+            JsonArrayWriter::merge,
+            finisher,
+            Collections.emptySet()
+        );
     }
 
     /**
@@ -177,7 +264,59 @@ public final class CollectorUtil {
         }
     }
 
-    
+    private static final class JsonArrayWriter<T> {
+
+        private final JsonEncoder<T> encoder;
+        private final Appendable out;
+        private boolean empty;
+
+        private JsonArrayWriter(JsonEncoder<T> encoder, Appendable out) {
+            this.encoder = requireNonNull(encoder);
+            this.out = requireNonNull(out);
+            this.empty = true;
+            append("[");
+        }
+
+        private void add(T element) {
+            append(empty ? "" : ", ");
+            empty = false;
+            try {
+                encoder.write(element, out);
+            } catch (final IOException ex) {
+                throw new SpeedmentException(ex);
+            }
+        }
+
+        private JsonArrayWriter<T> merge(JsonArrayWriter<T> other) {
+            // Only buffered writers are ever combined, see streamingJson
+            final StringBuilder right = (StringBuilder) other.out;
+            if (!other.empty) {
+                append(empty ? "" : ", ");
+                empty = false;
+                // Skip the leading bracket of the other writer
+                try {
+                    out.append(right, 1, right.length());
+                } catch (final IOException ex) {
+                    throw new SpeedmentException(ex);
+                }
+            }
+            return this;
+        }
+
+        private Appendable finish() {
+            append("]");
+            return out;
+        }
+
+        private void append(String text) {
+            try {
+                out.append(text);
+            } catch (final IOException ex) {
+                throw new SpeedmentException(ex);
+            }
+        }
+    }
+
     @SafeVarargs
     @SuppressWarnings({"unchecked", "varargs"})
     public static <T> T of(Supplier<T> supplier, Consumer<T> modifier, Consumer<T>... additionalModifiers) {
@@ -0,0 +1,325 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.util;
+
+import com.speedment.annotation.Api;
+import com.speedment.exception.SpeedmentException;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Optional;
+import static com.speedment.util.StaticClassUtil.instanceNotAllowed;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Low level methods for writing json values directly into an
+ * {@link Appendable}. Strings are escaped in place and primitive numbers are
+ * written without being boxed, so that large documents can be rendered into a
+ * {@link Writer} or {@link StringBuilder} without creating intermediate
+ * strings for every value.
+ *
+ * @author pemi
+ * @since 2.2
+ */
+@Api(version = "2.2")
+public final class JsonUtil {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private static final long[] POWERS_OF_TEN = {
+        1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L,
+        100_000_000L, 1_000_000_000L, 10_000_000_000L, 100_000_000_000L,
+        1_000_000_000_000L, 10_000_000_000_000L, 100_000_000_000_000L,
+        1_000_000_000_000_000L, 10_000_000_000_000_000L,
+        100_000_000_000_000_000L, 1_000_000_000_000_000_000L
+    };
+
+    /**
+     * Returns the constant fragment that precedes a value with the specified
+     * label in a json object, for an example {@code "name":}. The fragment can
+     * be computed once and then appended for every rendered entity.
+     *
+     * @param label the label
+     * @return the escaped and quoted label followed by a colon
+     */
+    public static String labelOf(String label) {
+        requireNonNull(label);
+        final StringBuilder sb = new StringBuilder(label.length() + 3);
+        try {
+            appendString(sb, label);
+        } catch (final IOException ex) {
+            throw new SpeedmentException(ex); // A StringBuilder never throws
+        }
+        return sb.append(':').toString();
+    }
+
+    /**
+     * Appends the specified value as json. {@code null} and empty optionals
+     * are written as {@code null}, primitive wrappers are written as numbers
+     * or booleans and all other values are written as quoted strings using
+     * their {@code toString()} representation.
+     *
+     * @param out the target
+     * @param value the value to write (nullable)
+     * @throws IOException if the target throws an exception
+     */
+    public static void appendValue(Appendable out, Object value) throws IOException {
+        requireNonNull(out);
+        // value is nullable, a field can certainly be null
+        if (value instanceof Optional<?>) {
+            appendValue(out, ((Optional<?>) value).orElse(null));
+        } else if (value == null) {
+            out.append("null");
+        } else if (value instanceof Integer
+            || value instanceof Short
+            || value instanceof Byte) {
+            appendInt(out, ((Number) value).intValue());
+        } else if (value instanceof Long) {
+            appendLong(out, ((Long) value).longValue());
+        } else if (value instanceof Double) {
+            appendDouble(out, ((Double) value).doubleValue());
+        } else if (value instanceof Float) {
+            out.append(Float.toString((Float) value));
+        } else if (value instanceof Boolean) {
+            appendBoolean(out, ((Boolean) value).booleanValue());
+        } else if (value instanceof CharSequence) {
+            appendString(out, (CharSequence) value);
+        } else {
+            appendString(out, value.toString());
+        }
+    }
+
+    /**
+     * Appends the specified string surrounded by quotes. Quotes, backslashes
+     * and control characters are escaped. Runs of characters that do not
+     * require escaping are appended in one call.
+     *
+     * @param out the target
+     * @param value the string to write (nullable)
+     * @throws IOException if the target throws an exception
+     */
+    public static void appendString(Appendable out, CharSequence value) throws IOException {
+        requireNonNull(out);
+        if (value == null) {
+            out.append("null");
+            return;
+        }
+
+        out.append('"');
+        final int length = value.length();
+        int start = 0;
+        for (int i = 0; i < length; i++) {
+            final char c = value.charAt(i);
+            if (c >= ' ' && c != '"' && c != '\\') {
+                continue;
+            }
+            appendRange(out, value, start, i);
+            start = i + 1;
+            switch (c) {
+                case '"':
+                    out.append("\\\"");
+                    break;
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                case '\b':
+                    out.append("\\b");
+                    break;
+                case '\f':
+                    out.append("\\f");
+                    break;
+                default:
+                    out.append("\\u00")
+                        .append(HEX[c >> 4])
+                        .append(HEX[c & 0xf]);
+            }
+        }
+        appendRange(out, value, start, length);
+        out.append('"');
+    }
+
+    /**
+     * Appends the specified {@code int} without boxing it.
+     *
+     * @param out the target
+     * @param value the value to write
+     * @throws IOException if the target throws an exception
+     */
+    public static void appendInt(Appendable out, int value) throws IOException {
+        requireNonNull(out);
+        if (out instanceof StringBuilder) {
+            ((StringBuilder) out).append(value);
+        } else {
+            appendLong(out, value);
+        }
+    }
+
+    /**
+     * Appends the specified {@code long} without boxing it.
+     *
+     * @param out the target
+     * @param value the value to write
+     * @throws IOException if the target throws an exception
+     */
+    public static void appendLong(Appendable out, long value) throws IOException {
+        requireNonNull(out);
+        if (out instanceof StringBuilder) {
+            ((StringBuilder) out).append(value);
+            return;
+        }
+        if (value == Long.MIN_VALUE) {
+            out.append("-9223372036854775808");
+            return;
+        }
+
+        // Digits are written from the most significant one so that no
+        // buffer is needed
+        long remaining = value;
+        if (remaining < 0) {
+            out.append('-');
+            remaining = -remaining;
+        }
+        int power = 1;
+        while (power < POWERS_OF_TEN.length && remaining >= POWERS_OF_TEN[power]) {
+            power++;
+        }
+        while (--power >= 0) {
+            final long digit = remaining / POWERS_OF_TEN[power];
+            out.append((char) ('0' + digit));
+            remaining -= digit * POWERS_OF_TEN[power];
+        }
+    }
+
+    /**
+     * Appends the specified {@code double} without boxing it.
+     *
+     * @param out the target
+     * @param value the value to write
+     * @throws IOException if the target throws an exception
+     */
+    public static void appendDouble(Appendable out, double value) throws IOException {
+        requireNonNull(out);
+        if (out instanceof StringBuilder) {
+            ((StringBuilder) out).append(value);
+        } else {
+            out.append(Double.toString(value));
+        }
+    }
+
+    /**
+     * Appends the specified {@code Integer}, or {@code null} if the value is
+     * {@code null}.
+     *
+     * @param out the target
+     * @param value the value to write (nullable)
+     * @throws IOException if the target throws an exception
+     */
+    public static void appendInt(Appendable out, Integer value) throws IOException {
+        if (value == null) {
+            requireNonNull(out).append("null");
+        } else {
+            appendInt(out, value.intValue());
+        }
+    }
+
+    /**
+     * Appends the specified {@code Long}, or {@code null} if the value is
+     * {@code null}.
+     *
+     * @param out the target
+     * @param value the value to write (nullable)
+     * @throws IOException if the target throws an exception
+     */
+    public static void appendLong(Appendable out, Long value) throws IOException {
+        if (value == null) {
+            requireNonNull(out).append("null");
+        } else {
+            appendLong(out, value.longValue());
+        }
+    }
+
+    /**
+     * Appends the specified {@code Double}, or {@code null} if the value is
+     * {@code null}.
+     *
+     * @param out the target
+     * @param value the value to write (nullable)
+     * @throws IOException if the target throws an exception
+     */
+    public static void appendDouble(Appendable out, Double value) throws IOException {
+        if (value == null) {
+            requireNonNull(out).append("null");
+        } else {
+            appendDouble(out, value.doubleValue());
+        }
+    }
+
+    /**
+     * Appends the specified {@code Boolean}, or {@code null} if the value is
+     * {@code null}.
+     *
+     * @param out the target
+     * @param value the value to write (nullable)
+     * @throws IOException if the target throws an exception
+     */
+    public static void appendBoolean(Appendable out, Boolean value) throws IOException {
+        if (value == null) {
+            requireNonNull(out).append("null");
+        } else {
+            appendBoolean(out, value.booleanValue());
+        }
+    }
+
+    /**
+     * Appends the specified {@code boolean} as {@code true} or {@code false}.
+     *
+     * @param out the target
+     * @param value the value to write
+     * @throws IOException if the target throws an exception
+     */
+    public static void appendBoolean(Appendable out, boolean value) throws IOException {
+        requireNonNull(out);
+        out.append(value ? "true" : "false");
+    }
+
+    private static void appendRange(Appendable out, CharSequence value, int start, int end) throws IOException {
+        if (start == end) {
+            return;
+        }
+        if (out instanceof Writer && value instanceof String) {
+            // Appendable.append(CharSequence, int, int) on a Writer creates a
+            // substring, Writer.write(String, int, int) does not.
+            ((Writer) out).write((String) value, start, end - start);
+        } else {
+            out.append(value, start, end);
+        }
+    }
+
+    /**
+     * Utility classes should not be instantiated.
+     */
+    private JsonUtil() {
+        instanceNotAllowed(getClass());
+    }
+}
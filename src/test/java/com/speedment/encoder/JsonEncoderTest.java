@@ -0,0 +1,109 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.encoder;
+
+import com.speedment.util.CollectorUtil;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import java.util.function.Function;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author pemi
+ */
+public class JsonEncoderTest {
+
+    private static final class Person {
+
+        private final int id;
+        private final String name;
+
+        private Person(int id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+    }
+
+    private static JsonEncoder<Person> encoder() {
+        return new JsonEncoder<Person>()
+            .putInt("id", p -> p.id)
+            .put("name", p -> p.name)
+            .putStreamer("tags", p -> Stream.of("a", "b"), s -> "\"" + s + "\"");
+    }
+
+    @Test
+    public void testApply() {
+        final JsonEncoder<Person> encoder = encoder();
+        assertEquals("{\"id\":1,\"name\":\"Ann\",\"tags\":[\"a\",\"b\"]}", encoder.apply(new Person(1, "Ann")));
+        encoder.remove("tags");
+        assertEquals("{\"id\":2,\"name\":null}", encoder.apply(new Person(2, null)));
+    }
+
+    @Test
+    public void testStreamingCollectors() {
+        final JsonEncoder<Person> encoder = encoder().remove("tags");
+        final String expected = Stream.of(new Person(1, "Ann"), new Person(2, "Bo"))
+            .collect(CollectorUtil.toJson(encoder));
+        assertEquals("[{\"id\":1,\"name\":\"Ann\"}, {\"id\":2,\"name\":\"Bo\"}]", expected);
+
+        final StringWriter writer = Stream.of(new Person(1, "Ann"), new Person(2, "Bo"))
+            .collect(CollectorUtil.toJson(encoder, new StringWriter()));
+        assertEquals(expected, writer.toString());
+
+        final ByteArrayOutputStream bytes = Stream.of(new Person(1, "Ann"), new Person(2, "Bo"))
+            .collect(CollectorUtil.toJson(encoder, new ByteArrayOutputStream(), UTF_8));
+        assertEquals(expected, new String(bytes.toByteArray(), UTF_8));
+
+        assertEquals("[]", Stream.<Person>empty().collect(CollectorUtil.toJson(encoder)));
+    }
+
+    @Test
+    public void testNestedEncodersAreWrittenDirectly() {
+        final JsonEncoder<Person> child = new JsonEncoder<Person>().putInt("id", p -> p.id);
+        final JsonEncoder<Person> encoder = new JsonEncoder<Person>()
+            .putInt("id", p -> p.id)
+            .putStreamer("children", p -> Stream.of(new Person(3, "C"), new Person(4, "D")), child)
+            .putStreamer("tags", p -> Stream.of("a", "b"), new QuotingEncoder());
+        assertEquals("{\"id\":1,\"children\":[{\"id\":3},{\"id\":4}],\"tags\":[\"a\",\"b\"]}", encoder.apply(new Person(1, "Ann")));
+    }
+
+    private static final class QuotingEncoder implements Function<String, String>, AppendableEncoder<String> {
+
+        @Override
+        public String apply(String value) {
+            throw new AssertionError("The encoder should write into the target");
+        }
+
+        @Override
+        public void write(String value, Appendable out) throws IOException {
+            out.append('"').append(value).append('"');
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testStreamingCollectorIsSingleUse() {
+        final Collector<Person, ?, StringBuilder> collector = CollectorUtil.toJson(encoder(), new StringBuilder());
+        Stream.of(new Person(1, "Ann")).collect(collector);
+        Stream.of(new Person(2, "Bo")).collect(collector);
+    }
+}
@@ -0,0 +1,99 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.internal.comparator.impl;
+
+import com.speedment.field.IntField;
+import com.speedment.internal.core.field.IntFieldImpl;
+import com.speedment.internal.field.Entity;
+import static com.speedment.internal.field.Entity.ID;
+import static com.speedment.internal.field.Entity.NAME;
+import com.speedment.internal.field.EntityImpl;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+import static java.util.stream.Collectors.toList;
+import java.util.stream.IntStream;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ *
+ * @author pemi
+ */
+public class KeyExtractingSorterTest {
+
+    private static final IntField<Entity> INT_ID = new IntFieldImpl<>("id", Entity::getId, Entity::setId);
+
+    private List<Entity> entities;
+
+    @Before
+    public void setUp() {
+        final Random random = new Random(42);
+        entities = IntStream.range(0, 2 * KeyExtractingSorter.PARALLEL_THRESHOLD + 17)
+            .mapToObj(i -> new EntityImpl(random.nextInt(100) - 50, random.nextInt(10) == 0 ? null : "n" + random.nextInt(50)))
+            .collect(toList());
+    }
+
+    @Test
+    public void testIsSupported() {
+        assertTrue(KeyExtractingSorter.isSupported(ID.comparator()));
+        assertTrue(KeyExtractingSorter.isSupported(ID.comparator().thenComparing(NAME.comparatorNullFieldsLast())));
+        assertFalse(KeyExtractingSorter.isSupported(ID.comparator().thenComparing(Comparator.comparing(Entity::getName))));
+        assertFalse(KeyExtractingSorter.isSupported(Comparator.comparing(Entity::getId)));
+    }
+
+    @Test
+    public void testSingleKeys() {
+        assertSortedAsStream(ID::comparator);
+        assertSortedAsStream(() -> ID.comparator().reversed());
+        assertSortedAsStream(INT_ID::comparator);
+        assertSortedAsStream(() -> INT_ID.comparator().reversed());
+        assertSortedAsStream(NAME::comparatorNullFieldsFirst);
+        assertSortedAsStream(NAME::comparatorNullFieldsLast);
+        assertSortedAsStream(() -> NAME.comparatorNullFieldsFirst().reversed());
+    }
+
+    @Test
+    public void testChains() {
+        assertSortedAsStream(() -> INT_ID.comparator().thenComparing(NAME.comparatorNullFieldsFirst()));
+        assertSortedAsStream(() -> NAME.comparatorNullFieldsLast().thenComparing(ID.comparator().reversed()));
+        assertSortedAsStream(() -> NAME.comparatorNullFieldsLast().reversed().thenComparing(INT_ID.comparator()));
+    }
+
+    @Test
+    public void testSmallInputs() {
+        entities = entities.subList(0, 100);
+        assertSortedAsStream(INT_ID::comparator);
+        assertSortedAsStream(() -> NAME.comparatorNullFieldsFirst().thenComparing(ID.comparator()));
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullsNotAllowed() {
+        KeyExtractingSorter.sorted(entities.stream(), NAME.comparator()).count();
+    }
+
+    private void assertSortedAsStream(Supplier<Comparator<Entity>> comparator) {
+        final List<Entity> expected = entities.stream().sorted(comparator.get()).collect(toList());
+        assertEquals(expected, KeyExtractingSorter.sorted(entities.stream(), comparator.get()).collect(toList()));
+        assertEquals(expected, KeyExtractingSorter.sorted(entities.parallelStream(), comparator.get()).collect(toList()));
+    }
+
+}
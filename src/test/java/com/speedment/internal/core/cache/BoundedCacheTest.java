@@ -0,0 +1,116 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.internal.core.cache;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author pemi
+ */
+public class BoundedCacheTest {
+
+    @Test
+    public void testLru() {
+        final BoundedCache<Integer, String> cache = new BoundedCache<>(2, EvictionPolicy.LRU);
+        cache.put(1, "a");
+        cache.put(2, "b");
+        assertEquals(Optional.of("a"), cache.get(1));
+        cache.put(3, "c"); // Evicts 2, the least recently used
+        assertFalse(cache.get(2).isPresent());
+        assertEquals(Optional.of("a"), cache.get(1));
+        assertEquals(Optional.of("c"), cache.get(3));
+        assertEquals(1, cache.getStatistics().getEvictionCount());
+    }
+
+    @Test
+    public void testLfu() {
+        final BoundedCache<Integer, String> cache = new BoundedCache<>(2, EvictionPolicy.LFU);
+        cache.put(1, "a");
+        cache.put(2, "b");
+        cache.get(2);
+        cache.get(2);
+        cache.get(1);
+        cache.put(3, "c"); // Evicts 1, the least frequently used
+        assertFalse(cache.get(1).isPresent());
+        assertEquals(Optional.of("b"), cache.get(2));
+        assertEquals(Optional.of("c"), cache.get(3));
+    }
+
+    @Test
+    public void testTimeToLive() {
+        final AtomicLong now = new AtomicLong();
+        final BoundedCache<Integer, String> cache = new BoundedCache<>(10, Long.MAX_VALUE, v -> 0L, EvictionPolicy.LRU, 100, now::get);
+        cache.put(1, "a");
+        now.set(99);
+        assertEquals(Optional.of("a"), cache.get(1));
+        now.set(100);
+        assertFalse(cache.get(1).isPresent());
+        assertEquals(0, cache.size());
+        assertEquals(1, cache.getStatistics().getExpirationCount());
+    }
+
+    @Test
+    public void testStatisticsAndInvalidate() {
+        final BoundedCache<Integer, String> cache = new BoundedCache<>(10, EvictionPolicy.LFU);
+        cache.put(1, "a");
+        cache.put(1, "b");
+        assertEquals(Optional.of("b"), cache.get(1));
+        cache.invalidate(1);
+        assertFalse(cache.get(1).isPresent());
+        final CacheStatistics statistics = cache.getStatistics();
+        assertEquals(1, statistics.getHitCount());
+        assertEquals(1, statistics.getMissCount());
+        assertEquals(0, statistics.getSize());
+        assertEquals(0.5, statistics.getHitRatio(), 1e-9);
+    }
+
+    @Test
+    public void testMaxWeight() {
+        final BoundedCache<Integer, String> cache = new BoundedCache<>(10, 5, String::length, EvictionPolicy.LRU, 0, TimeUnit.MILLISECONDS);
+        cache.put(1, "aa");
+        cache.put(2, "bb");
+        cache.put(3, "cc"); // Evicts 1 to stay within the weight
+        assertFalse(cache.get(1).isPresent());
+        assertEquals(4, cache.getStatistics().getWeight());
+        cache.put(4, "dddddd"); // Too heavy to be cached at all
+        assertFalse(cache.get(4).isPresent());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void testPutIfUnchanged() {
+        final BoundedCache<Integer, String> cache = new BoundedCache<>(10, EvictionPolicy.LRU);
+        long generation = cache.generation();
+        assertTrue(cache.putIfUnchanged(1, "a", generation));
+        assertEquals(Optional.of("a"), cache.get(1));
+
+        generation = cache.generation();
+        cache.put(1, "b"); // Written while "stale" was read
+        assertFalse(cache.putIfUnchanged(1, "stale", generation));
+        assertEquals(Optional.of("b"), cache.get(1));
+
+        generation = cache.generation();
+        cache.invalidate(2);
+        assertFalse(cache.putIfUnchanged(1, "stale", generation));
+        assertEquals(Optional.of("b"), cache.get(1));
+    }
+}
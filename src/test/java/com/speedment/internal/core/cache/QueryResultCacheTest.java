@@ -0,0 +1,71 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.internal.core.cache;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author pemi
+ */
+public class QueryResultCacheTest {
+
+    private static final String SQL = "select * from `t` where (`id` = ?)";
+    private static final List<?> VALUES = Collections.singletonList(1);
+
+    @Test
+    public void testRowsAndCounts() {
+        final QueryResultCache cache = new QueryResultCache(10, 1_000, 0, TimeUnit.MILLISECONDS);
+        cache.putRows("t", cache.generationOf("t"), SQL, VALUES, Arrays.asList("a", "b"), 100);
+        cache.putCount("t", cache.generationOf("t"), SQL, VALUES, 2);
+        assertEquals(Optional.of(Arrays.asList("a", "b")), cache.getRows("t", SQL, VALUES));
+        assertEquals(2, cache.getCount("t", SQL, VALUES).getAsLong());
+        assertFalse(cache.getRows("t", SQL, Collections.singletonList(2)).isPresent());
+    }
+
+    @Test
+    public void testInvalidatePerTable() {
+        final QueryResultCache cache = new QueryResultCache(10, 1_000, 0, TimeUnit.MILLISECONDS);
+        cache.putRows("t", cache.generationOf("t"), SQL, VALUES, Arrays.asList("a"), 10);
+        cache.putRows("u", cache.generationOf("u"), SQL, VALUES, Arrays.asList("b"), 10);
+        cache.invalidate("t");
+        assertFalse(cache.getRows("t", SQL, VALUES).isPresent());
+        assertTrue(cache.getRows("u", SQL, VALUES).isPresent());
+    }
+
+    @Test
+    public void testStaleResultIsNotCached() {
+        final QueryResultCache cache = new QueryResultCache(10, 1_000, 0, TimeUnit.MILLISECONDS);
+        final long generation = cache.generationOf("t");
+        cache.invalidate("t"); // A write completes while the query is running
+        cache.putRows("t", generation, SQL, VALUES, Arrays.asList("a"), 10);
+        assertFalse(cache.getRows("t", SQL, VALUES).isPresent());
+    }
+
+    @Test
+    public void testMemoryBound() {
+        final QueryResultCache cache = new QueryResultCache(10, 1_000, 0, TimeUnit.MILLISECONDS);
+        cache.putRows("t", cache.generationOf("t"), SQL, VALUES, Arrays.asList("a"), 2_000);
+        assertFalse(cache.getRows("t", SQL, VALUES).isPresent());
+    }
+}
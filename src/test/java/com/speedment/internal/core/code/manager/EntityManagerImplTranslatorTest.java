@@ -0,0 +1,244 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.internal.core.code.manager;
+
+import com.speedment.Manager;
+import com.speedment.Speedment;
+import com.speedment.config.Column;
+import com.speedment.config.Dbms;
+import com.speedment.config.PrimaryKeyColumn;
+import com.speedment.config.Project;
+import com.speedment.config.Schema;
+import com.speedment.config.Table;
+import com.speedment.config.mapper.TypeMapper;
+import com.speedment.encoder.JsonEncoder;
+import com.speedment.internal.codegen.base.Generator;
+import com.speedment.internal.codegen.java.JavaGenerator;
+import com.speedment.internal.codegen.lang.controller.AutoImports;
+import com.speedment.internal.codegen.lang.models.File;
+import com.speedment.internal.codegen.lang.models.Method;
+import com.speedment.internal.core.config.ProjectImpl;
+import com.speedment.internal.core.config.mapper.identity.DoubleIdentityMapper;
+import com.speedment.internal.core.config.mapper.identity.IntegerIdentityMapper;
+import com.speedment.internal.core.config.mapper.identity.StringIdentityMapper;
+import com.speedment.internal.core.config.mapper.identity.TimestampIdentityMapper;
+import com.speedment.internal.core.platform.SpeedmentFactory;
+import com.speedment.util.JsonUtil;
+import java.lang.reflect.Proxy;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author pemi
+ */
+public class EntityManagerImplTranslatorTest {
+
+    private Speedment speedment;
+    private Table table;
+
+    @Before
+    public void setUp() {
+        speedment = SpeedmentFactory.newSpeedmentInstance();
+        final Project project = new ProjectImpl(speedment);
+        final Dbms dbms = project.addNewDbms(speedment);
+        final Schema schema = dbms.addNewSchema();
+        table = schema.addNewTable();
+        project.setName("myProject");
+        dbms.setName("myDbms");
+        schema.setName("app");
+        table.setName("event");
+    }
+
+    @Test
+    public void testIdentityMapperWithoutResultSetGetter() {
+        final Column id = addColumn("id", 1, new IntegerIdentityMapper(), false);
+        addPrimaryKeyColumn("id");
+        final EntityManagerImplTranslator translator = new EntityManagerImplTranslator(speedment, new JavaGenerator(), table);
+
+        assertEquals(
+            Arrays.asList("entity.setId((Integer) getObject(resultSet, 1));"),
+            translator.readColumn(File.of("Test.java"), id, "getInteger")
+        );
+        assertEquals(
+            Arrays.asList("entity.setId(resultSet.getInt(1));"),
+            translator.readColumn(File.of("Test.java"), id, "getInt")
+        );
+    }
+
+    @Test
+    public void testCompositeKeyOfNonLangType() {
+        addColumn("source", 1, new StringIdentityMapper(), false);
+        addColumn("created", 2, new TimestampIdentityMapper(), false);
+        addPrimaryKeyColumn("source");
+        addPrimaryKeyColumn("created");
+
+        final String code = generate();
+        assertTrue(code, code.contains("import java.sql.Timestamp;"));
+        assertTrue(code, code.contains("(String) values.get(0), (Timestamp) values.get(1)"));
+    }
+
+    @Test
+    public void testWriteJsonMatchesJsonEncoder() throws Exception {
+        addColumn("id", 1, new IntegerIdentityMapper(), false);
+        addColumn("name", 2, new StringIdentityMapper(), true);
+        addColumn("score", 3, new DoubleIdentityMapper(), true);
+        addColumn("created", 4, new TimestampToLongMapper(), true);
+        addPrimaryKeyColumn("id");
+        final Method writeJson = new EntityManagerImplTranslator(speedment, new JavaGenerator(), table).get()
+            .getClasses().get(0).getMethods().stream()
+            .filter(m -> "writeJson".equals(m.getName()))
+            .findAny().get();
+
+        assertTrue(writeJson.getCode().contains("JsonUtil.appendString(out, entity.getName().orElse(null));"));
+        assertTrue(writeJson.getCode().contains("JsonUtil.appendLong(out, entity.getCreated().orElse(null));"));
+
+        final Map<String, Object> present = new HashMap<>();
+        present.put("id", 1);
+        present.put("name", Optional.of("A \"quoted\"\nname"));
+        present.put("score", Optional.of(-2.5));
+        present.put("created", Optional.of(1_446_000_000_000L));
+        final Map<String, Object> absent = new HashMap<>();
+        absent.put("id", 2);
+        absent.put("name", Optional.empty());
+        absent.put("score", Optional.empty());
+        absent.put("created", Optional.empty());
+
+        final JsonEncoder<Map<String, Object>> encoder = JsonEncoder.allOf(managerOf(table));
+        for (final Map<String, Object> entity : Arrays.asList(present, absent)) {
+            assertEquals(encoder.apply(entity), run(writeJson.getCode(), entity));
+        }
+    }
+
+    /**
+     * A mapper from the database type to another java type, which makes the
+     * generator treat the column as mapped.
+     */
+    public static final class TimestampToLongMapper implements TypeMapper<Timestamp, Long> {
+
+        @Override
+        public Class<Long> getJavaType() {
+            return Long.class;
+        }
+
+        @Override
+        public Class<Timestamp> getDatabaseType() {
+            return Timestamp.class;
+        }
+
+        @Override
+        public Long toJavaType(Timestamp value) {
+            return value == null ? null : value.getTime();
+        }
+
+        @Override
+        public Timestamp toDatabaseType(Long value) {
+            return value == null ? null : new Timestamp(value);
+        }
+    }
+
+    private static final Pattern APPEND_FRAGMENT = Pattern.compile("out\\.append\\(\"(.*)\"\\);");
+    private static final Pattern APPEND_COLUMN = Pattern.compile("JsonUtil\\.(\\w+)\\(out, entity\\.get(\\w+)\\(\\)(\\.orElse\\(null\\))?\\);");
+
+    /**
+     * Runs the statements of a generated writeJson method on an entity that
+     * is represented by the values its getters return, keyed by column name.
+     */
+    private static String run(List<String> code, Map<String, Object> entity) throws Exception {
+        final StringBuilder out = new StringBuilder();
+        for (final String statement : code) {
+            final Matcher fragment = APPEND_FRAGMENT.matcher(statement);
+            final Matcher column = APPEND_COLUMN.matcher(statement);
+            if (fragment.matches()) {
+                out.append(fragment.group(1).replace("\\\"", "\"").replace("\\\\", "\\"));
+            } else if ("out.append('}');".equals(statement)) {
+                out.append('}');
+            } else if (column.matches()) {
+                Object value = entity.get(column.group(2).toLowerCase());
+                if (column.group(3) != null) {
+                    value = ((Optional<?>) value).orElse(null);
+                }
+                invokeJsonUtil(column.group(1), out, value);
+            } else {
+                fail("Unexpected statement: " + statement);
+            }
+        }
+        return out.toString();
+    }
+
+    private static void invokeJsonUtil(String name, Appendable out, Object value) throws Exception {
+        for (final java.lang.reflect.Method method : JsonUtil.class.getMethods()) {
+            final Class<?>[] parameters = method.getParameterTypes();
+            if (method.getName().equals(name)
+                && parameters.length == 2
+                && !parameters[1].isPrimitive()
+                && (value == null || parameters[1].isInstance(value))) {
+                method.invoke(null, out, value);
+                return;
+            }
+        }
+        fail("No JsonUtil." + name + " for " + value);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Manager<Map<String, Object>> managerOf(Table table) {
+        return (Manager<Map<String, Object>>) Proxy.newProxyInstance(
+            Manager.class.getClassLoader(),
+            new Class<?>[]{Manager.class},
+            (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "getTable":
+                        return table;
+                    case "get":
+                        return ((Map<?, ?>) args[0]).get(((Column) args[1]).getName());
+                    default:
+                        throw new UnsupportedOperationException(method.getName());
+                }
+            }
+        );
+    }
+
+    private String generate() {
+        final Generator cg = new JavaGenerator();
+        final File file = new EntityManagerImplTranslator(speedment, cg, table).get();
+        file.call(new AutoImports(cg.getDependencyMgr()));
+        return cg.on(file).get();
+    }
+
+    private Column addColumn(String name, int ordinalPosition, TypeMapper<?, ?> typeMapper, boolean nullable) {
+        final Column column = table.addNewColumn();
+        column.setName(name);
+        column.setOrdinalPosition(ordinalPosition);
+        column.setTypeMapper(typeMapper);
+        column.setNullable(nullable);
+        return column;
+    }
+
+    private void addPrimaryKeyColumn(String name) {
+        final PrimaryKeyColumn primaryKeyColumn = table.addNewPrimaryKeyColumn();
+        primaryKeyColumn.setName(name);
+    }
+}
@@ -0,0 +1,192 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.internal.core.db;
+
+import com.speedment.db.AsynchronousQueryResult;
+import com.speedment.internal.core.cache.QueryResultCache;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import static java.util.stream.Collectors.toList;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author pemi
+ */
+public class CachingAsynchronousQueryResultTest {
+
+    private static final String TABLE = "t";
+
+    private QueryResultCache cache;
+    private ListQueryResult source;
+
+    @Before
+    public void setUp() {
+        cache = new QueryResultCache(10, 1000, 0, TimeUnit.SECONDS);
+        source = new ListQueryResult(Arrays.asList(1, 2, 3, 4));
+    }
+
+    @Test
+    public void testCachedAfterFullConsumption() {
+        assertEquals(Arrays.asList(1, 2, 3, 4), query(10).collect(toList()));
+        assertEquals(1, source.streamed);
+        assertEquals(1, source.closed);
+        assertEquals(Arrays.asList(1, 2, 3, 4), query(10).collect(toList()));
+        assertEquals(1, source.streamed);
+    }
+
+    @Test
+    public void testShortCircuitIsNotCached() {
+        try (final Stream<Integer> stream = query(10)) {
+            assertEquals(Integer.valueOf(1), stream.findFirst().get());
+        }
+        assertEquals(1, source.closed);
+        assertFalse(cache.getRows(TABLE, source.getSql(), source.getValues()).isPresent());
+    }
+
+    @Test
+    public void testTooLargeIsNotCached() {
+        // 4 rows of 300 bytes exceed the 1000 bytes of the cache
+        assertEquals(4, query(300).count());
+        assertFalse(cache.getRows(TABLE, source.getSql(), source.getValues()).isPresent());
+    }
+
+    @Test
+    public void testRowsAreCopied() {
+        final ListQueryResult lists = new ListQueryResult(Arrays.asList(1, 2));
+        final Function<Integer, List<Integer>> wrap = i -> new ArrayList<>(Collections.singletonList(i));
+        final List<List<Integer>> first = new CachingAsynchronousQueryResult<List<Integer>>(
+            new MappedQueryResult<>(lists, wrap), cache, TABLE, 10, ArrayList::new
+        ).stream().collect(toList());
+        first.get(0).set(0, 42);
+
+        final List<List<Integer>> second = new CachingAsynchronousQueryResult<List<Integer>>(
+            new MappedQueryResult<>(lists, wrap), cache, TABLE, 10, ArrayList::new
+        ).stream().collect(toList());
+        assertEquals(1, lists.streamed);
+        assertEquals(Arrays.asList(Arrays.asList(1), Arrays.asList(2)), second);
+    }
+
+    private Stream<Integer> query(long bytesPerRow) {
+        return new CachingAsynchronousQueryResult<>(source, cache, TABLE, bytesPerRow, i -> i).stream();
+    }
+
+    private static final class ListQueryResult implements AsynchronousQueryResult<Integer> {
+
+        private final List<Integer> rows;
+        private int streamed;
+        private int closed;
+
+        private ListQueryResult(List<Integer> rows) {
+            this.rows = rows;
+        }
+
+        @Override
+        public Stream<Integer> stream() {
+            streamed++;
+            return rows.stream();
+        }
+
+        @Override
+        public void close() {
+            closed++;
+        }
+
+        @Override
+        public String getSql() {
+            return "select * from t";
+        }
+
+        @Override
+        public void setSql(String sql) {
+        }
+
+        @Override
+        public List<?> getValues() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public void setValues(List<?> values) {
+        }
+
+        @Override
+        public Function<ResultSet, Integer> getRsMapper() {
+            return rs -> null;
+        }
+
+        @Override
+        public void setRsMapper(Function<ResultSet, Integer> rsMapper) {
+        }
+    }
+
+    private static final class MappedQueryResult<T> implements AsynchronousQueryResult<T> {
+
+        private final ListQueryResult inner;
+        private final Function<Integer, T> mapper;
+
+        private MappedQueryResult(ListQueryResult inner, Function<Integer, T> mapper) {
+            this.inner = inner;
+            this.mapper = mapper;
+        }
+
+        @Override
+        public Stream<T> stream() {
+            return inner.stream().map(mapper);
+        }
+
+        @Override
+        public void close() {
+            inner.close();
+        }
+
+        @Override
+        public String getSql() {
+            return inner.getSql();
+        }
+
+        @Override
+        public void setSql(String sql) {
+        }
+
+        @Override
+        public List<?> getValues() {
+            return inner.getValues();
+        }
+
+        @Override
+        public void setValues(List<?> values) {
+        }
+
+        @Override
+        public Function<ResultSet, T> getRsMapper() {
+            return rs -> null;
+        }
+
+        @Override
+        public void setRsMapper(Function<ResultSet, T> rsMapper) {
+        }
+    }
+}
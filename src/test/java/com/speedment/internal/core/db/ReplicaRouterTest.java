@@ -0,0 +1,80 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.internal.core.db;
+
+import com.speedment.config.parameters.ReplicaRoutingPolicy;
+import com.speedment.db.TransactionScope;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author pemi
+ */
+public class ReplicaRouterTest {
+
+    private static final List<String> URLS = Arrays.asList("a", "b", "c");
+
+    @Test
+    public void testRoundRobin() {
+        final ReplicaRouter router = new ReplicaRouter(URLS, ReplicaRoutingPolicy.ROUND_ROBIN, url -> 0);
+        assertEquals(Optional.of("a"), router.readUrl());
+        assertEquals(Optional.of("b"), router.readUrl());
+        assertEquals(Optional.of("c"), router.readUrl());
+        assertEquals(Optional.of("a"), router.readUrl());
+    }
+
+    @Test
+    public void testLeastLeased() {
+        final Map<String, Integer> leases = new HashMap<>();
+        leases.put("a", 3);
+        leases.put("b", 1);
+        leases.put("c", 2);
+        final ReplicaRouter router = new ReplicaRouter(URLS, ReplicaRoutingPolicy.LEAST_LEASED, leases::get);
+        for (int i = 0; i < 5; i++) {
+            assertEquals(Optional.of("b"), router.readUrl());
+        }
+    }
+
+    @Test
+    public void testNoReplicas() {
+        final ReplicaRouter router = new ReplicaRouter(Arrays.asList(), ReplicaRoutingPolicy.ROUND_ROBIN, url -> 0);
+        assertFalse(router.readUrl().isPresent());
+    }
+
+    @Test
+    public void testReadYourWrites() {
+        final ReplicaRouter router = new ReplicaRouter(URLS, ReplicaRoutingPolicy.ROUND_ROBIN, url -> 0);
+        router.onWrite(); // Outside a scope, writes do not pin reads
+        assertTrue(router.readUrl().isPresent());
+        final TransactionScope outer = router.openScope();
+        assertTrue(router.readUrl().isPresent());
+        final TransactionScope inner = router.openScope();
+        router.onWrite();
+        assertFalse(router.readUrl().isPresent());
+        inner.close();
+        assertFalse(router.readUrl().isPresent());
+        outer.close();
+        assertFalse(router.isPinned());
+        assertTrue(router.readUrl().isPresent());
+    }
+}
@@ -0,0 +1,126 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.internal.core.db;
+
+import com.speedment.Speedment;
+import com.speedment.config.Dbms;
+import com.speedment.db.TransactionScope;
+import com.speedment.internal.core.platform.SpeedmentFactory;
+import com.speedment.internal.core.platform.component.impl.ConnectionPoolComponentImpl;
+import com.speedment.internal.core.pool.PoolableConnection;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import static java.util.Collections.emptyList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Routes queries of a {@link MySqlDbmsHandler} that declares two replicas and
+ * records the URL of every connection that is leased from the pool.
+ *
+ * @author pemi
+ */
+public class ReplicaRoutingTest {
+
+    private static final String PRIMARY = "jdbc:mysql://primary:3306/";
+    private static final String REPLICA_1 = "jdbc:mysql://replica1:3306/";
+    private static final String REPLICA_2 = "jdbc:mysql://replica2:3307/";
+
+    private List<String> opened;
+    private MySqlDbmsHandler handler;
+
+    @Before
+    public void setUp() {
+        final Speedment speedment = SpeedmentFactory.newSpeedmentInstance();
+        opened = new ArrayList<>();
+        speedment.put(new ConnectionPoolComponentImpl(speedment) {
+            @Override
+            public PoolableConnection getConnection(String uri, String user, String password) throws SQLException {
+                opened.add(uri.substring(0, uri.indexOf('?')));
+                return super.getConnection(uri, user, password);
+            }
+
+            @Override
+            public Connection newConnection(String uri, String user, String password) throws SQLException {
+                return stub(Connection.class);
+            }
+        });
+
+        final Dbms dbms = Dbms.newDbms(speedment);
+        dbms.setName("db");
+        dbms.setTypeName("MySQL");
+        dbms.setIpAddress("primary");
+        dbms.setPort(3306);
+        dbms.setReplicas("replica1, replica2:3307");
+        handler = new MySqlDbmsHandler(speedment, dbms);
+    }
+
+    @Test
+    public void testReadsAreSpreadOverReplicas() {
+        handler.getReadConnection();
+        handler.getReadConnection();
+        handler.getReadConnection();
+        handler.getConnection();
+        assertEquals(asList(REPLICA_1, REPLICA_2, REPLICA_1, PRIMARY), opened);
+    }
+
+    @Test
+    public void testReadYourWrites() throws SQLException {
+        try (final TransactionScope scope = handler.transactionScope()) {
+            assertNotNull(scope);
+            handler.executeUpdate("UPDATE `t` SET `a` = 1", emptyList(), keys -> {});
+            opened.clear();
+            handler.getReadConnection();
+            assertEquals(asList(PRIMARY), opened);
+        }
+        opened.clear();
+        handler.getReadConnection();
+        assertEquals(asList(REPLICA_1), opened);
+    }
+
+    private static List<String> asList(String... urls) {
+        return java.util.Arrays.asList(urls);
+    }
+
+    /**
+     * Returns a JDBC object where every method returns a new stub, zero,
+     * {@code false} or {@code null} depending on its return type.
+     */
+    private static <T> T stub(Class<T> iface) {
+        return iface.cast(Proxy.newProxyInstance(
+            iface.getClassLoader(),
+            new Class<?>[]{iface},
+            (proxy, method, args) -> {
+                final Class<?> type = method.getReturnType();
+                if (type.isInterface()) {
+                    return stub(type);
+                } else if (type == boolean.class) {
+                    return false;
+                } else if (type == int.class) {
+                    return 0;
+                } else if (type == long.class) {
+                    return 0L;
+                }
+                return null;
+            }
+        ));
+    }
+}
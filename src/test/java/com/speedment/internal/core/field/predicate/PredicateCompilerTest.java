@@ -0,0 +1,129 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.internal.core.field.predicate;
+
+import com.speedment.field.ComparableField;
+import com.speedment.internal.core.field.ComparableFieldImpl;
+import com.speedment.internal.field.Entity;
+import static com.speedment.internal.field.Entity.ID;
+import static com.speedment.internal.field.Entity.NAME;
+import com.speedment.internal.field.EntityImpl;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import static java.util.stream.Collectors.toList;
+import java.util.stream.IntStream;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ *
+ * @author pemi
+ */
+public class PredicateCompilerTest {
+
+    private List<Entity> entities;
+    private PredicateStatistics statistics;
+
+    @Before
+    public void setUp() {
+        entities = IntStream.range(0, 1000)
+            .mapToObj(i -> new EntityImpl(i, i % 7 == 0 ? null : "name" + i))
+            .collect(toList());
+        statistics = new PredicateStatistics();
+    }
+
+    @Test
+    public void testSameResultAsDeclaredOrder() {
+        final List<Predicate<? super Entity>> predicates = Arrays.asList(
+            NAME.contains("1"),
+            ID.greaterThan(100).and(ID.lessThan(900)),
+            e -> e.getId() % 2 == 0,
+            NAME.endsWith("2"),
+            ID.notEqual(502)
+        );
+        final Predicate<Entity> compiled = PredicateCompiler.compile(predicates, statistics);
+        for (int i = 0; i < 3; i++) { // Sampled and unsampled rows
+            assertEquals(filter(predicates), entities.stream().filter(compiled).collect(toList()));
+        }
+    }
+
+    @Test
+    public void testCheapPredicatesFirst() {
+        final Predicate<Entity> compiled = PredicateCompiler.compile(
+            Arrays.asList(NAME.contains("1"), ID.equal(42)), statistics
+        );
+        final String description = compiled.toString();
+        assertTrue(description, description.indexOf("id:EQUAL") < description.indexOf("name:CONTAINS"));
+    }
+
+    @Test
+    public void testStatisticsAreSampled() {
+        final Predicate<Entity> compiled = PredicateCompiler.compile(
+            Arrays.asList(ID.lessThan(10), NAME.isNotNull()), statistics
+        );
+        entities.forEach(compiled::test);
+        assertEquals(PredicateCompiler.SAMPLE_SIZE, statistics.tested("id:LESS_THAN"));
+        assertEquals(PredicateCompiler.SAMPLE_SIZE, statistics.tested("name:IS_NOT_NULL"));
+        assertTrue(statistics.passRate("id:LESS_THAN", 0.5) < 0.1);
+
+        // Once the less than predicate is known to be selective, it goes first
+        final String description = PredicateCompiler.compile(
+            Arrays.asList(NAME.isNotNull(), ID.lessThan(10)), statistics
+        ).toString();
+        assertTrue(description, description.indexOf("id:LESS_THAN") < description.indexOf("name:IS_NOT_NULL"));
+    }
+
+    @Test
+    public void testFieldIsReadOnce() {
+        final AtomicInteger reads = new AtomicInteger();
+        final ComparableField<Entity, Integer> countedId = new ComparableFieldImpl<>("id", e -> {
+            reads.incrementAndGet();
+            return e.getId();
+        }, Entity::setId);
+
+        final Predicate<Entity> compiled = PredicateCompiler.compile(
+            Arrays.asList(countedId.greaterThan(-1), countedId.lessThan(2000), countedId.notEqual(-5)), statistics
+        );
+        entities.forEach(compiled::test);
+        assertEquals(entities.size(), reads.get());
+    }
+
+    @Test
+    public void testDeclaredOrderOnException() {
+        // Between throws for null names, but only rows with names reach it
+        final List<Predicate<? super Entity>> predicates = Arrays.asList(
+            NAME.isNotNull(),
+            NAME.between("name1", "name5"),
+            ID.equal(30)
+        );
+        final Predicate<Entity> compiled = PredicateCompiler.compile(predicates, statistics);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(filter(predicates), entities.stream().filter(compiled).collect(toList()));
+        }
+    }
+
+    private List<Entity> filter(List<Predicate<? super Entity>> predicates) {
+        return entities.stream()
+            .filter(e -> predicates.stream().allMatch(p -> p.test(e)))
+            .collect(toList());
+    }
+
+}
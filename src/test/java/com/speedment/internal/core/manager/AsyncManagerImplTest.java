@@ -0,0 +1,128 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.internal.core.manager;
+
+import com.speedment.AsyncManager;
+import com.speedment.Manager;
+import com.speedment.exception.SpeedmentException;
+import com.speedment.stream.StreamDecorator;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import static java.util.stream.Collectors.joining;
+import java.util.stream.Stream;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author pemi
+ */
+public class AsyncManagerImplTest {
+
+    private List<Runnable> tasks;
+    private List<String> calls;
+    private AsyncManager<String> asyncManager;
+
+    @Before
+    public void setUp() {
+        tasks = new ArrayList<>();
+        calls = new ArrayList<>();
+        final Executor executor = tasks::add;
+        asyncManager = new AsyncManagerImpl<>(newManager(), executor);
+    }
+
+    @Test
+    public void testRunsOnExecutor() throws Exception {
+        final CompletableFuture<String> future = asyncManager.persistAsync("a");
+        assertFalse(future.isDone());
+        assertTrue(calls.isEmpty());
+
+        runTasks();
+        assertEquals("a", future.get());
+        assertEquals("[persist a]", calls.toString());
+    }
+
+    @Test
+    public void testUpdateAndRemove() throws Exception {
+        final CompletableFuture<String> updated = asyncManager.updateAsync("b");
+        final CompletableFuture<String> removed = asyncManager.removeAsync("c");
+        runTasks();
+        assertEquals("b", updated.get());
+        assertEquals("c", removed.get());
+        assertEquals("[update b, remove c]", calls.toString());
+    }
+
+    @Test
+    public void testFailsWithSpeedmentException() throws Exception {
+        final CompletableFuture<String> future = asyncManager.persistAsync("fail");
+        final CompletableFuture<Throwable> handled = future.handle((result, throwable) -> throwable);
+        runTasks();
+        assertTrue(future.isCompletedExceptionally());
+        assertEquals(SpeedmentException.class, handled.get().getClass());
+        try {
+            future.get();
+            fail("Expected an ExecutionException");
+        } catch (ExecutionException ee) {
+            assertEquals(SpeedmentException.class, ee.getCause().getClass());
+        }
+    }
+
+    @Test
+    public void testStreamIsClosed() throws Exception {
+        final CompletableFuture<String> future = asyncManager.streamAsync(s -> s.collect(joining()));
+        runTasks();
+        assertEquals("xyz", future.get());
+        assertEquals("[stream, close]", calls.toString());
+    }
+
+    private void runTasks() {
+        final List<Runnable> pending = new ArrayList<>(tasks);
+        tasks.clear();
+        pending.forEach(Runnable::run);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Manager<String> newManager() {
+        return (Manager<String>) Proxy.newProxyInstance(
+            Manager.class.getClassLoader(),
+            new Class<?>[]{Manager.class},
+            (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "persist":
+                    case "update":
+                    case "remove":
+                        if ("fail".equals(args[0])) {
+                            throw new SpeedmentException("Unable to " + method.getName() + " " + args[0]);
+                        }
+                        calls.add(method.getName() + " " + args[0]);
+                        return args[0];
+                    case "stream":
+                        assertSame(StreamDecorator.IDENTITY, args[0]);
+                        calls.add("stream");
+                        return Stream.of("x", "y", "z").onClose(() -> calls.add("close"));
+                    default:
+                        throw new UnsupportedOperationException(method.getName());
+                }
+            }
+        );
+    }
+}
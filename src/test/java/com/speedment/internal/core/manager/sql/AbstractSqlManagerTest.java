@@ -0,0 +1,138 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.internal.core.manager.sql;
+
+import com.speedment.config.Column;
+import com.speedment.config.Table;
+import com.speedment.internal.core.platform.SpeedmentFactory;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author pemi
+ */
+public class AbstractSqlManagerTest {
+
+    private static final class Person {
+
+        private Integer id;
+        private String name;
+
+        Integer getId() {
+            return id;
+        }
+
+        Person setId(Integer id) {
+            this.id = id;
+            return this;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        Person setName(String name) {
+            this.name = name;
+            return this;
+        }
+    }
+
+    private static final class PersonManager extends AbstractSqlManager<Person> {
+
+        private static final Table TABLE = Table.newTable();
+
+        PersonManager() {
+            super(SpeedmentFactory.newSpeedmentInstance());
+            addColumnAccessor(1, Person::getId, Person::setId);
+            addColumnAccessor(3, Person::getName, Person::setName);
+        }
+
+        @Override
+        public Class<Person> getEntityClass() {
+            return Person.class;
+        }
+
+        @Override
+        public Table getTable() {
+            return TABLE;
+        }
+
+        @Override
+        public Person newInstance() {
+            return new Person();
+        }
+
+        @Override
+        public Object primaryKeyFor(Person entity) {
+            return entity.getId();
+        }
+    }
+
+    private static Column column(String name, int ordinalPosition) {
+        final Column column = Column.newColumn();
+        column.setName(name);
+        column.setOrdinalPosition(ordinalPosition);
+        return column;
+    }
+
+    @Test
+    public void testGetAndSet() {
+        final PersonManager manager = new PersonManager();
+        final Person person = manager.newInstance();
+        final Column id = column("id", 1);
+        final Column name = column("name", 3);
+
+        manager.set(person, id, 42);
+        manager.set(person, name, "Ada");
+        assertEquals(42, manager.get(person, id));
+        assertEquals("Ada", manager.get(person, name));
+
+        manager.set(person, name, null);
+        assertNull(manager.get(person, name));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownOrdinalPosition() {
+        new PersonManager().get(new Person(), column("missing", 2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOutOfRange() {
+        new PersonManager().set(new Person(), column("missing", 7), "value");
+    }
+
+    @Test(expected = ClassCastException.class)
+    public void testWrongType() {
+        new PersonManager().set(new Person(), column("id", 1), "not an integer");
+    }
+
+    @Test
+    public void testChunksOf() {
+        final List<Integer> values = Arrays.asList(1, 2, 3, 4, 5, 6, 7);
+        assertEquals(Arrays.asList(Arrays.asList(1, 2, 3), Arrays.asList(4, 5, 6), Arrays.asList(7)), AbstractSqlManager.chunksOf(values, 3));
+        assertEquals(Arrays.asList(values), AbstractSqlManager.chunksOf(values, 7));
+        assertTrue(AbstractSqlManager.chunksOf(Arrays.asList(), 7).isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMaxInElementsMustBePositive() {
+        new PersonManager().setMaxInElements(0);
+    }
+}
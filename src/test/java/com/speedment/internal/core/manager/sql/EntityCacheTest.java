@@ -0,0 +1,355 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.internal.core.manager.sql;
+
+import com.speedment.Speedment;
+import com.speedment.config.Column;
+import com.speedment.config.Dbms;
+import com.speedment.config.PrimaryKeyColumn;
+import com.speedment.config.Schema;
+import com.speedment.config.Table;
+import com.speedment.config.mapper.TypeMapper;
+import com.speedment.db.AsynchronousQueryResult;
+import com.speedment.db.DbmsHandler;
+import com.speedment.db.SqlFunction;
+import com.speedment.field.ComparableField;
+import com.speedment.internal.core.cache.BoundedCache;
+import com.speedment.internal.core.cache.EvictionPolicy;
+import com.speedment.internal.core.cache.QueryResultCache;
+import com.speedment.internal.core.config.mapper.identity.IntegerIdentityMapper;
+import com.speedment.internal.core.config.mapper.identity.StringIdentityMapper;
+import com.speedment.internal.core.field.ComparableFieldImpl;
+import com.speedment.internal.core.platform.SpeedmentFactory;
+import com.speedment.stream.StreamDecorator;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import static java.util.stream.Collectors.toList;
+import java.util.stream.Stream;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Reads and writes entities through a manager with an entity cache, using a
+ * {@link DbmsHandler} that answers every query with the rows of the manager.
+ *
+ * @author pemi
+ */
+public class EntityCacheTest {
+
+    private static final class Person {
+
+        private Integer id;
+        private String name;
+
+        Integer getId() {
+            return id;
+        }
+
+        Person setId(Integer id) {
+            this.id = id;
+            return this;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        Person setName(String name) {
+            this.name = name;
+            return this;
+        }
+    }
+
+    private static final ComparableField<Person, Integer> ID = new ComparableFieldImpl<>("id", Person::getId, Person::setId);
+
+    private static final class PersonManager extends AbstractSqlManager<Person> {
+
+        private static final Table TABLE = table();
+
+        private final List<Object[]> rows;
+        private Runnable beforeRow;
+        private int queryCount;
+
+        PersonManager() {
+            super(SpeedmentFactory.newSpeedmentInstance());
+            this.rows = new ArrayList<>();
+            this.beforeRow = () -> {};
+            addColumnAccessor(1, Person::getId, Person::setId);
+            addColumnAccessor(2, Person::getName, Person::setName);
+            setSqlEntityMapper(rs -> new Person()
+                .setId(rs.getInt(1))
+                .setName(rs.getString(2))
+            );
+        }
+
+        @Override
+        public Class<Person> getEntityClass() {
+            return Person.class;
+        }
+
+        @Override
+        public Table getTable() {
+            return TABLE;
+        }
+
+        @Override
+        public Person newInstance() {
+            return new Person();
+        }
+
+        @Override
+        public Object primaryKeyFor(Person entity) {
+            return entity.getId();
+        }
+
+        @Override
+        protected DbmsHandler dbmsHandler() {
+            return new DbmsHandler() {
+                @Override
+                public Dbms getDbms() {
+                    return PersonManager.this.getDbms();
+                }
+
+                @Override
+                public Stream<Schema> schemasUnpopulated() {
+                    return Stream.empty();
+                }
+
+                @Override
+                public Stream<Schema> schemas(Predicate<Schema> filterCriteria) {
+                    return Stream.empty();
+                }
+
+                @Override
+                public <T> Stream<T> executeQuery(String sql, List<?> values, SqlFunction<ResultSet, T> rsMapper) {
+                    return executeQueryAsync(sql, values, rsMapper.unWrap()).stream();
+                }
+
+                @Override
+                public <T> AsynchronousQueryResult<T> executeQueryAsync(String sql, List<?> values, Function<ResultSet, T> rsMapper) {
+                    return new RowsQueryResult<>(sql, values, rsMapper);
+                }
+
+                @Override
+                public void executeUpdate(String sql, List<?> values, Consumer<List<Long>> generatedKeyConsumer) {
+                    // The rows are not updated, so that only the cache holds the new values
+                }
+            };
+        }
+
+        /**
+         * Maps the rows of the manager, running {@code beforeRow} before each
+         * row is mapped. The rows are not filtered by the SQL, only by the
+         * values of the query, which are all primary keys in these tests.
+         */
+        private final class RowsQueryResult<T> implements AsynchronousQueryResult<T> {
+
+            private String sql;
+            private List<?> values;
+            private Function<ResultSet, T> rsMapper;
+
+            private RowsQueryResult(String sql, List<?> values, Function<ResultSet, T> rsMapper) {
+                this.sql = sql;
+                this.values = values;
+                this.rsMapper = rsMapper;
+            }
+
+            @Override
+            public Stream<T> stream() {
+                queryCount++;
+                return new ArrayList<>(rows).stream()
+                    .filter(r -> values.isEmpty() || values.contains(r[0]))
+                    .map(r -> {
+                        beforeRow.run();
+                        return rsMapper.apply(rowOf(r));
+                    });
+            }
+
+            @Override
+            public void close() {
+            }
+
+            @Override
+            public String getSql() {
+                return sql;
+            }
+
+            @Override
+            public void setSql(String sql) {
+                this.sql = sql;
+            }
+
+            @Override
+            public List<?> getValues() {
+                return values;
+            }
+
+            @Override
+            public void setValues(List<?> values) {
+                this.values = values;
+            }
+
+            @Override
+            public Function<ResultSet, T> getRsMapper() {
+                return rsMapper;
+            }
+
+            @Override
+            public void setRsMapper(Function<ResultSet, T> rsMapper) {
+                this.rsMapper = rsMapper;
+            }
+        }
+    }
+
+    private PersonManager manager;
+    private BoundedCache<Object, Person> cache;
+
+    @Before
+    public void setUp() {
+        manager = new PersonManager();
+        cache = new BoundedCache<>(10, EvictionPolicy.LRU);
+        manager.setEntityCache(cache);
+    }
+
+    @Test
+    public void testReadInterleavedWithUpdate() {
+        manager.rows.add(new Object[]{1, "stale"});
+        manager.beforeRow = () -> {
+            manager.beforeRow = () -> {};
+            manager.update(new Person().setId(1).setName("updated"));
+        };
+        // The row was read before the update and is returned but not cached
+        assertEquals("stale", find(1).getName());
+        assertEquals("updated", cache.get(1).get().getName());
+        assertEquals("updated", find(1).getName());
+    }
+
+    @Test
+    public void testCachedEntitiesAreCopies() {
+        manager.rows.add(new Object[]{1, "a"});
+        find(1).setName("changed");
+        manager.rows.clear(); // Only the cache can answer from now on
+        final Person first = find(1);
+        assertEquals("a", first.getName());
+        first.setName("changed");
+        assertNotSame(first, find(1));
+        assertEquals("a", find(1).getName());
+
+        final Person updated = manager.update(new Person().setId(2).setName("b"));
+        updated.setName("changed");
+        assertEquals("b", find(2).getName());
+    }
+
+    @Test
+    public void testSelectInReadInterleavedWithUpdate() {
+        final Column id = idColumn();
+        manager.rows.add(new Object[]{1, "stale"});
+        manager.beforeRow = () -> {
+            manager.beforeRow = () -> {};
+            manager.update(new Person().setId(1).setName("updated"));
+        };
+        assertEquals("stale", manager.selectIn(id, Arrays.asList(1)).get(0).getName());
+        assertEquals("updated", cache.get(1).get().getName());
+
+        manager.rows.clear();
+        final Person hit = manager.selectIn(id, Arrays.asList(1)).get(0);
+        hit.setName("changed");
+        assertEquals("updated", manager.selectIn(id, Arrays.asList(1)).get(0).getName());
+
+        manager.rows.add(new Object[]{2, "b"});
+        manager.selectIn(id, Arrays.asList(2)).get(0).setName("changed");
+        assertEquals("b", cache.get(2).get().getName());
+    }
+
+    @Test
+    public void testChunksUseQueryCache() {
+        manager.setEntityCache(null);
+        manager.setQueryCache(new QueryResultCache(10, Long.MAX_VALUE, 0, TimeUnit.MILLISECONDS));
+        manager.setMaxInElements(1);
+        manager.rows.add(new Object[]{1, "a"});
+        manager.rows.add(new Object[]{2, "b"});
+        assertEquals(Arrays.asList("a", "b"), names(ID.in(1, 2)));
+        assertEquals(2, manager.queryCount);
+
+        manager.rows.clear(); // Only the query cache can answer from now on
+        assertEquals(Arrays.asList("a", "b"), names(ID.in(1, 2)));
+        assertEquals(2, manager.queryCount);
+    }
+
+    private List<String> names(Predicate<Person> predicate) {
+        return manager.nativeStream(StreamDecorator.IDENTITY).filter(predicate).map(Person::getName).collect(toList());
+    }
+
+    private Person find(int id) {
+        return manager.nativeStream(StreamDecorator.IDENTITY).filter(ID.equal(id)).findAny().get();
+    }
+
+    private static Column idColumn() {
+        return PersonManager.TABLE.streamOf(Column.class)
+            .filter(c -> "id".equals(c.getName()))
+            .findAny()
+            .get();
+    }
+
+    private static Table table() {
+        final Speedment speedment = SpeedmentFactory.newSpeedmentInstance();
+        final Dbms dbms = Dbms.newDbms(speedment);
+        dbms.setName("db");
+        dbms.setTypeName("MySQL");
+        final Schema schema = dbms.addNewSchema();
+        schema.setName("hr");
+
+        final Table table = schema.addNewTable();
+        table.setName("person");
+        addColumn(table, "id", 1, new IntegerIdentityMapper());
+        addColumn(table, "name", 2, new StringIdentityMapper());
+        final PrimaryKeyColumn primaryKey = table.addNewPrimaryKeyColumn();
+        primaryKey.setName("id");
+        return table;
+    }
+
+    private static void addColumn(Table table, String name, int ordinalPosition, TypeMapper<?, ?> typeMapper) {
+        final Column column = table.addNewColumn();
+        column.setName(name);
+        column.setOrdinalPosition(ordinalPosition);
+        column.setTypeMapper(typeMapper);
+    }
+
+    private static ResultSet rowOf(Object... values) {
+        return (ResultSet) Proxy.newProxyInstance(
+            ResultSet.class.getClassLoader(),
+            new Class<?>[]{ResultSet.class},
+            (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "getInt":
+                    case "getString":
+                        return values[(Integer) args[0] - 1];
+                    default:
+                        throw new UnsupportedOperationException(method.getName());
+                }
+            }
+        );
+    }
+}
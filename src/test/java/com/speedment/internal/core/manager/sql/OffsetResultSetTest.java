@@ -0,0 +1,69 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.internal.core.manager.sql;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author pemi
+ */
+public class OffsetResultSetTest {
+
+    private static ResultSet rowOf(Object... values) {
+        return (ResultSet) Proxy.newProxyInstance(
+            ResultSet.class.getClassLoader(),
+            new Class<?>[]{ResultSet.class},
+            (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "getObject": return values[(Integer) args[0] - 1];
+                    case "getInt":    return (Integer) values[(Integer) args[0] - 1];
+                    case "next":      return false;
+                    default: throw new UnsupportedOperationException(method.getName());
+                }
+            }
+        );
+    }
+
+    @Test
+    public void testShiftsColumnIndexes() throws SQLException {
+        final ResultSet rs = OffsetResultSet.of(rowOf(1, "a", 2, "b"), 2);
+        assertEquals(2, rs.getInt(1));
+        assertEquals("b", rs.getObject(2));
+        assertFalse(rs.next());
+    }
+
+    @Test
+    public void testZeroOffset() {
+        final ResultSet rs = rowOf(1);
+        assertSame(rs, OffsetResultSet.of(rs, 0));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testDelegatesExceptions() throws SQLException {
+        OffsetResultSet.of(rowOf(1), 1).close();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeOffset() {
+        OffsetResultSet.of(rowOf(1), -1);
+    }
+}
@@ -0,0 +1,197 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.internal.core.memory;
+
+import com.speedment.Speedment;
+import com.speedment.config.Column;
+import com.speedment.config.Dbms;
+import com.speedment.config.mapper.TypeMapper;
+import com.speedment.field.predicate.SpeedmentPredicate;
+import com.speedment.internal.core.config.mapper.identity.IntegerIdentityMapper;
+import com.speedment.internal.core.config.mapper.identity.StringIdentityMapper;
+import com.speedment.internal.core.platform.SpeedmentFactory;
+import com.speedment.internal.field.Entity;
+import com.speedment.internal.field.EntityImpl;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.LongSummaryStatistics;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author pemi
+ */
+public class ColumnarSnapshotTest {
+
+    private static final int ROWS = 3 * ColumnarSnapshot.CHUNK_SIZE + 17;
+    private static final String[] NAMES = {"apple", "banana", "cherry", null};
+
+    private List<Entity> entities;
+    private ColumnarSnapshot snapshot;
+
+    @Before
+    public void setUp() {
+        final ColumnarSnapshot.Builder builder = new ColumnarSnapshot.Builder();
+        builder.addColumn("id", ColumnarSnapshot.Kind.INT);
+        builder.addColumn("name", ColumnarSnapshot.Kind.STRING);
+        builder.addColumn("score", ColumnarSnapshot.Kind.LONG);
+        entities = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            final Integer id = i % 101 == 0 ? null : i;
+            final String name = NAMES[i % NAMES.length];
+            builder.addValues(id, name, (long) i * 3);
+            entities.add(new EntityImpl(id, name));
+        }
+        snapshot = builder.build();
+    }
+
+    private void assertSameCount(SpeedmentPredicate<Entity, ?> predicate) {
+        final IntPredicate filter = snapshot.compile(Collections.singletonList(predicate)).get();
+        assertEquals(
+            predicate.toString(),
+            entities.stream().filter(predicate).count(),
+            snapshot.count(filter)
+        );
+    }
+
+    @Test
+    public void testComparablePredicates() {
+        assertEquals(ROWS, snapshot.getRowCount());
+        assertSameCount(Entity.ID.equal(1000));
+        assertSameCount(Entity.ID.notEqual(1000));
+        assertSameCount(Entity.ID.greaterThan(1000));
+        assertSameCount(Entity.ID.greaterOrEqual(1000));
+        assertSameCount(Entity.ID.lessThan(1000));
+        assertSameCount(Entity.ID.lessOrEqual(1000));
+        assertSameCount(Entity.ID.in(1, 2, 101, 70000));
+        assertSameCount(Entity.ID.isNull());
+        assertSameCount(Entity.ID.isNotNull());
+        assertSameCount(Entity.ID.greaterThan(1000).negate());
+        assertEquals(0, snapshot.count(snapshot.compile(Collections.singletonList(Entity.ID.greaterThan(null))).get()));
+    }
+
+    @Test
+    public void testStringPredicates() {
+        assertSameCount(Entity.NAME.equal("banana"));
+        assertSameCount(Entity.NAME.startsWith("ch"));
+        assertSameCount(Entity.NAME.contains("an"));
+        assertSameCount(Entity.NAME.isNull());
+        assertSameCount(Entity.NAME.notEqual("apple"));
+    }
+
+    @Test
+    public void testCombinedAggregate() {
+        final List<SpeedmentPredicate<?, ?>> predicates = Arrays.asList(
+            Entity.NAME.equal("apple"), Entity.ID.greaterThan(100), Entity.ID.lessOrEqual(150000)
+        );
+        final IntPredicate filter = snapshot.compile(predicates).get();
+        final LongSummaryStatistics expected = IntStream.range(0, ROWS)
+            .filter(i -> i % 101 != 0 && i > 100 && i <= 150000 && i % NAMES.length == 0)
+            .mapToLong(i -> (long) i * 3)
+            .summaryStatistics();
+        final LongSummaryStatistics actual = snapshot.longStatistics(filter, "score").get();
+        assertEquals(expected.getCount(), actual.getCount());
+        assertEquals(expected.getSum(), actual.getSum());
+        assertEquals(expected.getMin(), actual.getMin());
+        assertEquals(expected.getMax(), actual.getMax());
+    }
+
+    @Test
+    public void testUnsupported() {
+        // Columns with nulls can not be aggregated and unknown columns not filtered
+        assertFalse(snapshot.longStatistics(row -> true, "id").isPresent());
+        assertFalse(snapshot.longStatistics(row -> true, "name").isPresent());
+
+        final ColumnarSnapshot.Builder builder = new ColumnarSnapshot.Builder();
+        builder.addColumn("name", ColumnarSnapshot.Kind.STRING);
+        builder.addValues("apple");
+        assertFalse(builder.build().compile(Collections.singletonList(Entity.ID.equal(1))).isPresent());
+    }
+
+    @Test
+    public void testMappedColumnIsSkipped() {
+        final Speedment speedment = SpeedmentFactory.newSpeedmentInstance();
+        final Dbms dbms = Dbms.newDbms(speedment);
+        dbms.setTypeName("MySQL");
+        final List<Column> columns = Arrays.asList(
+            column("id", new IntegerIdentityMapper()),
+            column("created", new TypeMapper<Timestamp, Long>() {
+                @Override
+                public Class<Long> getJavaType() {
+                    return Long.class;
+                }
+
+                @Override
+                public Class<Timestamp> getDatabaseType() {
+                    return Timestamp.class;
+                }
+
+                @Override
+                public Long toJavaType(Timestamp value) {
+                    return value.getTime();
+                }
+
+                @Override
+                public Timestamp toDatabaseType(Long value) {
+                    return new Timestamp(value);
+                }
+            }),
+            column("name", new StringIdentityMapper())
+        );
+
+        final ColumnarSnapshot.Builder builder = ColumnarSnapshot.builderOf(speedment, dbms, columns);
+        builder.addRow(rowOf(7, new Timestamp(0L), "banana"));
+        builder.addRow(rowOf(8, new Timestamp(1L), "apple"));
+        final ColumnarSnapshot loaded = builder.build();
+
+        assertEquals(2, loaded.getRowCount());
+        assertEquals(15, loaded.intStatistics(row -> true, "id").get().getSum());
+        assertEquals(1, loaded.count(loaded.compile(Collections.singletonList(Entity.NAME.equal("apple"))).get()));
+        assertFalse(loaded.intStatistics(row -> true, "created").isPresent());
+    }
+
+    private static Column column(String name, TypeMapper<?, ?> typeMapper) {
+        final Column column = Column.newColumn();
+        column.setName(name);
+        column.setTypeMapper(typeMapper);
+        return column;
+    }
+
+    private static ResultSet rowOf(Object... values) {
+        return (ResultSet) Proxy.newProxyInstance(
+            ResultSet.class.getClassLoader(),
+            new Class<?>[]{ResultSet.class},
+            (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "getInt":    return (Integer) values[(Integer) args[0] - 1];
+                    case "getString": return (String) values[(Integer) args[0] - 1];
+                    case "wasNull":   return false;
+                    default: throw new UnsupportedOperationException(method.getName());
+                }
+            }
+        );
+    }
+}
@@ -0,0 +1,311 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.internal.core.memory;
+
+import com.speedment.Speedment;
+import com.speedment.config.Column;
+import com.speedment.config.Dbms;
+import com.speedment.config.PrimaryKeyColumn;
+import com.speedment.config.Schema;
+import com.speedment.config.Table;
+import com.speedment.config.mapper.TypeMapper;
+import com.speedment.db.SqlFunction;
+import com.speedment.exception.SpeedmentException;
+import com.speedment.internal.core.config.mapper.identity.IntegerIdentityMapper;
+import com.speedment.internal.core.config.mapper.identity.LongIdentityMapper;
+import com.speedment.internal.core.config.mapper.identity.StringIdentityMapper;
+import com.speedment.internal.core.manager.sql.AbstractSqlManager;
+import com.speedment.internal.core.platform.SpeedmentFactory;
+import com.speedment.stream.StreamDecorator;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import static java.util.stream.Collectors.toList;
+import java.util.stream.Stream;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Polls a table that is kept in memory by a manager that answers the queries
+ * of the {@link IncrementalRefresher} itself.
+ *
+ * @author pemi
+ */
+public class IncrementalRefresherTest {
+
+    private static final class Item {
+
+        private Integer id;
+        private Long version;
+        private String name;
+
+        Integer getId() {
+            return id;
+        }
+
+        Item setId(Integer id) {
+            this.id = id;
+            return this;
+        }
+
+        Long getVersion() {
+            return version;
+        }
+
+        Item setVersion(Long version) {
+            this.version = version;
+            return this;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        Item setName(String name) {
+            this.name = name;
+            return this;
+        }
+    }
+
+    private static final class ItemManager extends AbstractSqlManager<Item> {
+
+        private final List<Object[]> rows;
+        private final List<Object[]> tombstones;
+
+        ItemManager(Speedment speedment) {
+            super(speedment);
+            this.rows = new ArrayList<>();
+            this.tombstones = new ArrayList<>();
+            addColumnAccessor(1, Item::getId, Item::setId);
+            addColumnAccessor(2, Item::getVersion, Item::setVersion);
+            addColumnAccessor(3, Item::getName, Item::setName);
+            setSqlEntityMapper(rs -> new Item()
+                .setId(rs.getInt(1))
+                .setVersion(rs.getLong(2))
+                .setName(rs.getString(3))
+            );
+        }
+
+        @Override
+        public Class<Item> getEntityClass() {
+            return Item.class;
+        }
+
+        @Override
+        public Table getTable() {
+            // Called by the super constructor
+            return items;
+        }
+
+        @Override
+        public Item newInstance() {
+            return new Item();
+        }
+
+        @Override
+        public Object primaryKeyFor(Item entity) {
+            return entity.getId();
+        }
+
+        @Override
+        public Stream<Item> nativeStream(StreamDecorator decorator) {
+            return query("select * from `item`", new ArrayList<>(), getSqlEntityMapper());
+        }
+
+        @Override
+        public <T> Stream<T> synchronousStreamOf(String sql, List<Object> values, SqlFunction<ResultSet, T> rsMapper) {
+            return query(sql, values, rsMapper);
+        }
+
+        @Override
+        public <T> Stream<T> asynchronousStreamOf(String sql, List<?> values, SqlFunction<ResultSet, T> rsMapper) {
+            return query(sql, values, rsMapper);
+        }
+
+        /**
+         * Answers the queries of the refresher: selects of all columns,
+         * optionally with a lower bound on the version, selects of the primary
+         * key and selects of the greatest version.
+         */
+        private <T> Stream<T> query(String sql, List<?> values, SqlFunction<ResultSet, T> rsMapper) {
+            final List<Object[]> source = sql.contains("tombstone") ? tombstones : rows;
+            Stream<Object[]> result = source.stream()
+                .filter(r -> values.isEmpty() || (Long) r[1] >= (Long) values.get(0));
+            if (sql.startsWith("select max(")) {
+                result = Stream.<Object[]>of(new Object[]{source.stream()
+                    .map(r -> (Long) r[1])
+                    .max(Long::compare)
+                    .orElse(null)});
+            } else if (sql.startsWith("select `id` from")) {
+                result = result.map(r -> new Object[]{r[0]});
+            }
+            return new ArrayList<>(result.map(r -> {
+                try {
+                    return rsMapper.apply(rowOf(r));
+                } catch (SQLException sqle) {
+                    throw new SpeedmentException(sqle);
+                }
+            }).collect(toList())).stream();
+        }
+
+        void upsert(int id, long version, String name) {
+            rows.removeIf(r -> r[0].equals(id));
+            rows.add(new Object[]{id, version, name});
+        }
+
+        void delete(int id, Long tombstoneVersion) {
+            rows.removeIf(r -> r[0].equals(id));
+            if (tombstoneVersion != null) {
+                tombstones.add(new Object[]{id, tombstoneVersion});
+            }
+        }
+    }
+
+    private static Table items;
+
+    private ItemManager manager;
+    private EntityStore<Item> store;
+
+    @Before
+    public void setUp() {
+        final Speedment speedment = SpeedmentFactory.newSpeedmentInstance();
+        final Dbms dbms = Dbms.newDbms(speedment);
+        dbms.setName("db");
+        dbms.setTypeName("MySQL");
+        final Schema schema = dbms.addNewSchema();
+        schema.setName("shop");
+
+        items = schema.addNewTable();
+        items.setName("item");
+        addColumn(items, "id", 1, new IntegerIdentityMapper());
+        addColumn(items, "version", 2, new LongIdentityMapper());
+        addColumn(items, "name", 3, new StringIdentityMapper());
+        final PrimaryKeyColumn primaryKey = items.addNewPrimaryKeyColumn();
+        primaryKey.setName("id");
+
+        final Table tombstones = schema.addNewTable();
+        tombstones.setName("item_tombstone");
+        addColumn(tombstones, "id", 1, new IntegerIdentityMapper());
+        addColumn(tombstones, "version", 2, new LongIdentityMapper());
+
+        manager = new ItemManager(speedment);
+        store = new OnHeapEntityStore<>(manager::primaryKeyFor);
+        manager.upsert(1, 1L, "a");
+        manager.upsert(2, 1L, "b");
+    }
+
+    @Test
+    public void testVersionCatchUp() {
+        final IncrementalRefresher<Item> refresher = newRefresher();
+        assertEquals(2, refresher.poll());
+        // Rows at the last version seen are read again but not applied
+        assertEquals(0, refresher.poll());
+
+        manager.upsert(2, 2L, "b2");
+        assertEquals(1, refresher.poll());
+        assertEquals("b2", store.get(2).get().getName());
+        assertEquals(0, refresher.poll());
+
+        // Committed late with the same version as the last poll
+        manager.upsert(3, 2L, "c");
+        assertEquals(1, refresher.poll());
+        manager.upsert(3, 2L, "c2");
+        assertEquals(1, refresher.poll());
+        assertEquals("c2", store.get(3).get().getName());
+        assertEquals(0, refresher.poll());
+
+        assertEquals(3, store.size());
+        assertEquals(6, refresher.getStatistics().getPollCount());
+        assertEquals(3, refresher.getStatistics().getRowsApplied());
+    }
+
+    @Test
+    public void testTombstones() {
+        final IncrementalRefresher<Item> refresher = newRefresher().withTombstones("item_tombstone", "version");
+        refresher.poll();
+
+        manager.delete(2, 2L);
+        assertEquals(1, refresher.poll());
+        assertFalse(store.get(2).isPresent());
+        assertEquals(0, refresher.poll());
+        assertEquals(1, refresher.getStatistics().getRowsRemoved());
+    }
+
+    @Test
+    public void testReinsertAfterDelete() {
+        final IncrementalRefresher<Item> refresher = newRefresher().withTombstones("item_tombstone", "version");
+        refresher.poll();
+
+        // The row is inserted again before the tombstone of its deletion is seen
+        manager.upsert(2, 3L, "b3");
+        assertEquals(1, refresher.poll());
+        manager.tombstones.add(new Object[]{2, 2L});
+        assertEquals(0, refresher.poll());
+        assertEquals("b3", store.get(2).get().getName());
+    }
+
+    @Test
+    public void testPrimaryKeyDiff() {
+        final IncrementalRefresher<Item> refresher = newRefresher().withPrimaryKeyDiff(2);
+        refresher.poll();
+
+        manager.delete(2, null);
+        assertEquals(0, refresher.poll());
+        assertTrue(store.get(2).isPresent());
+        assertEquals(1, refresher.poll());
+        assertFalse(store.get(2).isPresent());
+        assertEquals(1, store.size());
+    }
+
+    private IncrementalRefresher<Item> newRefresher() {
+        return new IncrementalRefresher<>(SpeedmentFactory.newSpeedmentInstance(), manager, store, "version");
+    }
+
+    private static void addColumn(Table table, String name, int ordinalPosition, TypeMapper<?, ?> typeMapper) {
+        final Column column = table.addNewColumn();
+        column.setName(name);
+        column.setOrdinalPosition(ordinalPosition);
+        column.setTypeMapper(typeMapper);
+    }
+
+    private static ResultSet rowOf(Object... values) {
+        final boolean[] wasNull = {false};
+        return (ResultSet) Proxy.newProxyInstance(
+            ResultSet.class.getClassLoader(),
+            new Class<?>[]{ResultSet.class},
+            (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "getObject":
+                    case "getInt":
+                    case "getLong":
+                    case "getString":
+                        final Object value = values[(Integer) args[0] - 1];
+                        wasNull[0] = value == null;
+                        return value == null && method.getReturnType().isPrimitive()
+                            ? (method.getReturnType() == int.class ? (Object) 0 : (Object) 0L)
+                            : value;
+                    case "wasNull":
+                        return wasNull[0];
+                    default: throw new UnsupportedOperationException(method.getName());
+                }
+            }
+        );
+    }
+}
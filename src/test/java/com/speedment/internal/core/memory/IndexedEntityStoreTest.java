@@ -0,0 +1,123 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.internal.core.memory;
+
+import com.speedment.field.Inclusion;
+import com.speedment.field.predicate.SpeedmentPredicate;
+import com.speedment.internal.field.Entity;
+import com.speedment.internal.field.EntityImpl;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import static java.util.stream.Collectors.toList;
+import java.util.stream.Stream;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author pemi
+ */
+public class IndexedEntityStoreTest {
+
+    private IndexedEntityStore<Entity> store;
+
+    @Before
+    public void setUp() {
+        store = new IndexedEntityStore<>(
+            new OnHeapEntityStore<>(Entity::getId),
+            Entity::getId,
+            Arrays.asList(
+                new HashEntityIndex<>("id", Entity::getId),
+                new SortedEntityIndex<>("name", Entity::getName)
+            )
+        );
+        store.replaceAll(Stream.of(
+            new EntityImpl(1, "a"),
+            new EntityImpl(2, "b"),
+            new EntityImpl(3, "b"),
+            new EntityImpl(4, "c"),
+            new EntityImpl(5, null)
+        ));
+    }
+
+    private List<Integer> find(SpeedmentPredicate<Entity, ?> predicate) {
+        return store.find(Collections.singletonList(predicate)).get().stream()
+            .map(Entity::getId)
+            .sorted()
+            .collect(toList());
+    }
+
+    @Test
+    public void testHashIndex() {
+        assertEquals(Arrays.asList(3), find(Entity.ID.equal(3)));
+        assertEquals(Arrays.asList(), find(Entity.ID.equal(7)));
+        assertEquals(Arrays.asList(1, 4), find(Entity.ID.in(1, 4, 7)));
+        assertFalse(store.find(Collections.singletonList(Entity.ID.greaterThan(1))).isPresent());
+    }
+
+    @Test
+    public void testSortedIndex() {
+        assertEquals(Arrays.asList(2, 3), find(Entity.NAME.equal("b")));
+        assertEquals(Arrays.asList(1, 4), find(Entity.NAME.in("a", "c")));
+        assertEquals(Arrays.asList(2, 3, 4), find(Entity.NAME.greaterThan("a")));
+        assertEquals(Arrays.asList(1, 2, 3), find(Entity.NAME.lessOrEqual("b")));
+        assertEquals(Arrays.asList(2, 3, 4), find(Entity.NAME.between("b", "c", Inclusion.START_INCLUSIVE_END_INCLUSIVE)));
+        assertEquals(Arrays.asList(), find(Entity.NAME.between("c", "a")));
+    }
+
+    @Test
+    public void testUnsupported() {
+        assertFalse(store.find(Collections.singletonList(Entity.NAME.startsWith("a"))).isPresent());
+        assertFalse(store.find(Collections.singletonList(Entity.NAME.isNull())).isPresent());
+        assertFalse(store.find(Collections.singletonList(Entity.NAME.equal("a").negate())).isPresent());
+    }
+
+    @Test
+    public void testSmallestCandidates() {
+        final Optional<List<Entity>> found = store.find(Arrays.asList(
+            Entity.NAME.greaterThan("a"), Entity.ID.equal(4)
+        ));
+        assertEquals(1, found.get().size());
+    }
+
+    @Test
+    public void testWrites() {
+        store.put(new EntityImpl(2, "c"));
+        store.put(new EntityImpl(6, "b"));
+        store.remove(3);
+        assertEquals(Arrays.asList(6), find(Entity.NAME.equal("b")));
+        assertEquals(Arrays.asList(2, 4), find(Entity.NAME.equal("c")));
+        assertEquals(Arrays.asList(), find(Entity.ID.equal(3)));
+        assertEquals(Arrays.asList(6), find(Entity.ID.equal(6)));
+
+        store.put(new EntityImpl(1, null));
+        assertEquals(Arrays.asList(), find(Entity.NAME.equal("a")));
+    }
+
+    @Test
+    public void testExistingEntitiesAreIndexed() {
+        final EntityStore<Entity> delegate = new OnHeapEntityStore<>(Entity::getId);
+        delegate.put(new EntityImpl(1, "a"));
+        final IndexedEntityStore<Entity> indexed = new IndexedEntityStore<>(
+            delegate, Entity::getId, Collections.singletonList(new SortedEntityIndex<>("name", Entity::getName))
+        );
+        assertEquals(1, indexed.find(Collections.singletonList(Entity.NAME.equal("a"))).get().size());
+    }
+}
@@ -0,0 +1,153 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.internal.core.memory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import static java.util.stream.Collectors.toList;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author pemi
+ */
+public class OffHeapEntityStoreTest {
+
+    private static final int SEGMENT_SIZE = 1024;
+
+    private Path directory;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("speedment");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (final Stream<Path> paths = Files.walk(directory)) {
+            for (final Path path : paths.sorted(Comparator.reverseOrder()).collect(toList())) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    private static RowMapper<Object[]> mapper(Class<?>... types) {
+        return new RowMapper<Object[]>() {
+            @Override
+            public List<String> getColumnNames() {
+                return IntStream.range(0, types.length)
+                    .mapToObj(i -> "c" + i)
+                    .collect(toList());
+            }
+
+            @Override
+            public List<Class<?>> getColumnTypes() {
+                return Arrays.asList(types);
+            }
+
+            @Override
+            public Object[] toRow(Object[] entity) {
+                return entity;
+            }
+
+            @Override
+            public Object[] fromRow(Object[] row) {
+                return row;
+            }
+
+            @Override
+            public Object primaryKeyFor(Object[] entity) {
+                return entity[0];
+            }
+        };
+    }
+
+    private static List<String> namesOf(EntityStore<Object[]> store) {
+        return store.stream().map(r -> r[0] + "=" + r[1]).collect(toList());
+    }
+
+    @Test
+    public void testPutGetRemove() {
+        final EntityStore<Object[]> store = new OffHeapEntityStore<>(mapper(Integer.class, String.class), SEGMENT_SIZE);
+        store.put(new Object[]{1, "a"});
+        store.put(new Object[]{2, null});
+        store.put(new Object[]{1, "b"});
+        assertEquals(2, store.size());
+        assertEquals(Arrays.asList("2=null", "1=b"), namesOf(store));
+        assertEquals("b", store.get(1).get()[1]);
+
+        store.remove(2);
+        assertFalse(store.get(2).isPresent());
+        assertEquals(Arrays.asList("1=b"), namesOf(store));
+    }
+
+    @Test
+    public void testWritesDuringReplaceAllAreKept() {
+        final EntityStore<Object[]> store = new OffHeapEntityStore<>(mapper(Integer.class, String.class), SEGMENT_SIZE);
+        store.replaceAll(Stream.of(new Object[]{1, "a"}, new Object[]{2, "b"}, new Object[]{3, "c"}).peek(r -> {
+            if (r[0].equals(2)) {
+                // Writes that are made while the new content is read
+                store.put(new Object[]{4, "d"});
+                store.remove(1);
+                store.put(new Object[]{3, "x"});
+            }
+        }));
+        assertEquals(Arrays.asList("2=b", "3=x", "4=d"), namesOf(store).stream().sorted().collect(toList()));
+    }
+
+    @Test
+    public void testCompaction() {
+        final OffHeapEntityStore<Object[]> store = new OffHeapEntityStore<>(mapper(Integer.class, Long.class), SEGMENT_SIZE);
+        for (long version = 0; version < 1000; version++) {
+            store.put(new Object[]{(int) (version % 10), version});
+        }
+        assertEquals(10, store.size());
+        assertTrue(store.allocatedBytes() <= 3 * SEGMENT_SIZE);
+        assertEquals(
+            IntStream.range(0, 10).mapToObj(i -> i + "=" + (990 + i)).collect(toList()),
+            namesOf(store)
+        );
+    }
+
+    @Test
+    public void testPersistence() {
+        final Path tableDirectory = directory.resolve("table");
+        try (final EntityStore<Object[]> store = new OffHeapEntityStore<>(mapper(Integer.class, String.class), SEGMENT_SIZE, tableDirectory)) {
+            store.replaceAll(IntStream.range(0, 100).mapToObj(i -> new Object[]{i, "v" + i}));
+            store.put(new Object[]{0, "updated"});
+            store.remove(1);
+        }
+
+        final EntityStore<Object[]> reopened = new OffHeapEntityStore<>(mapper(Integer.class, String.class), SEGMENT_SIZE, tableDirectory);
+        assertEquals(99, reopened.size());
+        assertEquals("updated", reopened.get(0).get()[1]);
+        assertFalse(reopened.get(1).isPresent());
+        assertEquals("v99", reopened.get(99).get()[1]);
+
+        final EntityStore<Object[]> otherSchema = new OffHeapEntityStore<>(mapper(Long.class, String.class), SEGMENT_SIZE, tableDirectory);
+        assertEquals(0, otherSchema.size());
+    }
+}
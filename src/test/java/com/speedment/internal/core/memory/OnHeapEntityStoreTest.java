@@ -0,0 +1,85 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.internal.core.memory;
+
+import java.util.Arrays;
+import java.util.List;
+import static java.util.stream.Collectors.toList;
+import java.util.stream.Stream;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author pemi
+ */
+public class OnHeapEntityStoreTest {
+
+    private EntityStore<String> store;
+
+    @Before
+    public void setUp() {
+        // The first character is the primary key
+        store = new OnHeapEntityStore<>(s -> s.charAt(0));
+        store.replaceAll(Stream.of("a1", "b1", "c1"));
+    }
+
+    @Test
+    public void testReplaceAll() {
+        assertEquals(3, store.size());
+        store.replaceAll(Stream.of("d1"));
+        assertEquals(Arrays.asList("d1"), store.stream().collect(toList()));
+    }
+
+    @Test
+    public void testPut() {
+        store.put("b2");
+        store.put("e1");
+        assertEquals(Arrays.asList("a1", "b2", "c1", "e1"), store.stream().collect(toList()));
+        assertEquals("b2", store.get('b').get());
+    }
+
+    @Test
+    public void testRemove() {
+        store.remove('a');
+        store.remove('z');
+        assertEquals(Arrays.asList("b1", "c1"), store.stream().collect(toList()));
+        assertFalse(store.get('a').isPresent());
+    }
+
+    @Test
+    public void testWritesDuringReplaceAllAreKept() {
+        store.replaceAll(Stream.of("a2", "b2", "c2").peek(s -> {
+            if (s.equals("b2")) {
+                // Writes that are made while the new content is read
+                store.put("d1");
+                store.remove('a');
+                store.put("c3");
+            }
+        }));
+        assertEquals(Arrays.asList("b2", "c3", "d1"), store.stream().collect(toList()));
+    }
+
+    @Test
+    public void testStreamIsConsistent() {
+        final Stream<String> stream = store.stream();
+        store.put("d1");
+        final List<String> result = stream.collect(toList());
+        assertEquals(Arrays.asList("a1", "b1", "c1"), result);
+    }
+}
@@ -0,0 +1,112 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.internal.core.memory;
+
+import com.speedment.exception.SpeedmentException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.sql.Date;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.List;
+import static java.util.stream.Collectors.toList;
+import java.util.stream.IntStream;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author pemi
+ */
+public class RowCodecTest {
+
+    private static final List<Class<?>> TYPES = Arrays.asList(
+        Boolean.class, Byte.class, Short.class, Character.class, Integer.class,
+        Long.class, Float.class, Double.class, Date.class, Time.class,
+        Timestamp.class, String.class, byte[].class, BigInteger.class, BigDecimal.class
+    );
+
+    private static final List<String> NAMES = IntStream.range(0, TYPES.size())
+        .mapToObj(i -> "c" + i)
+        .collect(toList());
+
+    @Test
+    public void testRoundTrip() {
+        final Timestamp timestamp = new Timestamp(1_000_000L);
+        timestamp.setNanos(123_456_789);
+        final Object[] row = {
+            true, (byte) 1, (short) 2, 'c', 3, 4L, 5.5f, 6.5d, new Date(7L), new Time(8L),
+            timestamp, "h\u00e5j", new byte[]{9, 10}, BigInteger.valueOf(11), new BigDecimal("12.34")
+        };
+        final RowCodec codec = new RowCodec(NAMES, TYPES);
+        final ByteBuffer buffer = ByteBuffer.allocate(codec.sizeOf(row) + 3);
+        assertEquals(codec.sizeOf(row), codec.write(buffer, 3, row));
+
+        final Object[] read = codec.read(buffer, 3);
+        for (int i = 0; i < row.length; i++) {
+            if (row[i] instanceof byte[]) {
+                assertArrayEquals((byte[]) row[i], (byte[]) read[i]);
+            } else {
+                assertEquals(row[i], read[i]);
+            }
+        }
+        assertEquals("h\u00e5j", codec.read(buffer, 3, 11));
+        assertEquals(new BigDecimal("12.34"), codec.read(buffer, 3, 14));
+    }
+
+    @Test
+    public void testNulls() {
+        final RowCodec codec = new RowCodec(NAMES, TYPES);
+        final Object[] row = new Object[TYPES.size()];
+        row[9] = new Time(1L);
+        final ByteBuffer buffer = ByteBuffer.allocate(codec.sizeOf(row));
+        codec.write(buffer, 0, row);
+        assertArrayEquals(row, codec.read(buffer, 0));
+        assertNull(codec.read(buffer, 0, 8));
+        assertEquals(new Time(1L), codec.read(buffer, 0, 9));
+    }
+
+    @Test
+    public void testSchemaHash() {
+        assertEquals(new RowCodec(NAMES, TYPES).schemaHash(), new RowCodec(NAMES, TYPES).schemaHash());
+        assertNotEquals(
+            new RowCodec(Arrays.asList("a", "b"), Arrays.asList(Integer.class, String.class)).schemaHash(),
+            new RowCodec(Arrays.asList("a", "b"), Arrays.asList(String.class, Integer.class)).schemaHash()
+        );
+        assertNotEquals(
+            new RowCodec(Arrays.asList("a", "b"), Arrays.asList(Integer.class, Integer.class)).schemaHash(),
+            new RowCodec(Arrays.asList("b", "a"), Arrays.asList(Integer.class, Integer.class)).schemaHash()
+        );
+    }
+
+    @Test
+    public void testStringSize() {
+        final RowCodec codec = new RowCodec(Arrays.asList("s"), Arrays.asList(String.class));
+        for (final String s : Arrays.asList("", "abc", "h\u00e5j", "\u20ac", "\ud83d\ude00", "\ud83d", "x\ude00y")) {
+            final Object[] row = {s};
+            final ByteBuffer buffer = ByteBuffer.allocate(codec.sizeOf(row));
+            assertEquals(codec.sizeOf(row), codec.write(buffer, 0, row));
+        }
+    }
+
+    @Test(expected = SpeedmentException.class)
+    public void testUnsupportedType() {
+        new RowCodec(Arrays.asList("a"), Arrays.asList(Object.class));
+    }
+}
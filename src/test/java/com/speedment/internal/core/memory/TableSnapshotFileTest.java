@@ -0,0 +1,151 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.internal.core.memory;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import static java.util.stream.Collectors.toList;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author pemi
+ */
+public class TableSnapshotFileTest {
+
+    private static final long SCHEMA_HASH = 42;
+
+    private Path directory;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("speedment");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (final Stream<Path> paths = Files.walk(directory)) {
+            for (final Path path : paths.sorted(Comparator.reverseOrder()).collect(toList())) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    private static RowMapper<Object[]> mapper(Class<?>... types) {
+        return new RowMapper<Object[]>() {
+            @Override
+            public List<String> getColumnNames() {
+                return IntStream.range(0, types.length)
+                    .mapToObj(i -> "c" + i)
+                    .collect(toList());
+            }
+
+            @Override
+            public List<Class<?>> getColumnTypes() {
+                return Arrays.asList(types);
+            }
+
+            @Override
+            public Object[] toRow(Object[] entity) {
+                return entity;
+            }
+
+            @Override
+            public Object[] fromRow(Object[] row) {
+                return row;
+            }
+
+            @Override
+            public Object[] primaryKeyFor(Object[] entity) {
+                return entity;
+            }
+        };
+    }
+
+    private TableSnapshotFile<Object[]> file(long schemaHash) {
+        return new TableSnapshotFile<>(
+            directory.resolve("db.table" + TableSnapshotFile.SUFFIX),
+            mapper(Integer.class, String.class, BigDecimal.class, Timestamp.class),
+            schemaHash
+        );
+    }
+
+    private static Object[] row(int i) {
+        return new Object[]{
+            i,
+            i % 7 == 0 ? null : "name" + i,
+            BigDecimal.valueOf(i, 2),
+            new Timestamp(1_000_000L * i)
+        };
+    }
+
+    @Test
+    public void testRoundTrip() {
+        final TableSnapshotFile<Object[]> file = file(SCHEMA_HASH);
+        assertFalse(file.read().isPresent());
+
+        final int rows = 50_000;
+        assertEquals(rows, file.write(IntStream.range(0, rows).mapToObj(TableSnapshotFileTest::row)));
+        assertTrue(file.getCreated().isPresent());
+
+        final List<Object[]> read = file.read().get().collect(toList());
+        assertEquals(rows, read.size());
+        for (int i = 0; i < rows; i++) {
+            assertArrayEquals(row(i), read.get(i));
+        }
+    }
+
+    @Test
+    public void testReplace() {
+        final TableSnapshotFile<Object[]> file = file(SCHEMA_HASH);
+        file.write(IntStream.range(0, 100).mapToObj(TableSnapshotFileTest::row));
+        file.write(IntStream.range(0, 3).mapToObj(TableSnapshotFileTest::row));
+        assertEquals(3, file.read().get().count());
+        assertEquals(0, file.write(Stream.empty()));
+        assertEquals(0, file.read().get().count());
+    }
+
+    @Test
+    public void testSchemaMismatch() {
+        file(SCHEMA_HASH).write(IntStream.range(0, 10).mapToObj(TableSnapshotFileTest::row));
+        assertFalse(file(SCHEMA_HASH + 1).read().isPresent());
+        assertFalse(file(SCHEMA_HASH + 1).getCreated().isPresent());
+    }
+
+    @Test
+    public void testTruncated() throws IOException {
+        final TableSnapshotFile<Object[]> file = file(SCHEMA_HASH);
+        file.write(IntStream.range(0, 10).mapToObj(TableSnapshotFileTest::row));
+        try (final FileChannel channel = FileChannel.open(file.getFile(), StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+        assertFalse(file.read().isPresent());
+    }
+}
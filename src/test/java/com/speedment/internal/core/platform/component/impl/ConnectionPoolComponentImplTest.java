@@ -44,7 +44,9 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
@@ -216,6 +218,40 @@ public class ConnectionPoolComponentImplTest {
         assertEquals(instance.getMaxRetainSize(), 40);
     }
 
+    @Test
+    public void testSetMaxConnections() {
+        System.out.println("setMaxConnections");
+        instance.setMaxConnections(4);
+        assertEquals(4, instance.getMaxConnections());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMaxConnectionsMustBePositive() {
+        instance.setMaxConnections(0);
+    }
+
+    @Test
+    public void testStopDrainsQueuedAsyncOperations() throws Exception {
+        System.out.println("stopDrainsQueuedAsyncOperations");
+        instance.setMaxConnections(1);
+        final Executor executor = instance.getAsyncExecutor();
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(3);
+        executor.execute(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            }
+            done.countDown();
+        });
+        executor.execute(done::countDown);
+        executor.execute(done::countDown);
+        instance.stop();
+        release.countDown();
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+    }
+
     private class DummyConnectionImpl implements Connection {
 
         final String uri;
@@ -0,0 +1,287 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.internal.core.platform.component.impl;
+
+import com.speedment.Speedment;
+import com.speedment.component.InvalidationBusComponent.Invalidation;
+import com.speedment.config.Dbms;
+import com.speedment.config.Schema;
+import com.speedment.config.Table;
+import com.speedment.internal.core.cache.BoundedCache;
+import com.speedment.internal.core.cache.EvictionPolicy;
+import com.speedment.internal.core.manager.CompositeKey;
+import com.speedment.internal.core.manager.sql.AbstractSqlManager;
+import com.speedment.internal.core.platform.SpeedmentFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author pemi
+ */
+public class InvalidationBusComponentTest {
+
+    private static final String USER = "`db`.`user`";
+    private static final String ORDER = "`db`.`order`";
+
+    @Test
+    public void testCoalesce() {
+        final List<Invalidation> coalesced = AbstractInvalidationBusComponent.coalesce(Arrays.asList(
+            Invalidation.of(USER, 1),
+            Invalidation.of(ORDER, 1),
+            Invalidation.ofTable(USER),
+            Invalidation.of(USER, 2)
+        ));
+        assertEquals(Arrays.asList(Invalidation.of(ORDER, 1), Invalidation.ofTable(USER)), coalesced);
+    }
+
+    @Test
+    public void testLoopback() {
+        final LoopbackInvalidationBusComponentImpl a = loopback();
+        final LoopbackInvalidationBusComponentImpl b = loopback();
+        final List<Invalidation> receivedByA = new CopyOnWriteArrayList<>();
+        final List<Invalidation> receivedByB = new CopyOnWriteArrayList<>();
+        a.subscribe(receivedByA::addAll);
+        b.subscribe(receivedByB::addAll);
+        try {
+            a.start();
+            b.start();
+            a.publish(Invalidation.of(USER, 1));
+            a.publish(Invalidation.of(USER, 1));
+            a.publish(Invalidation.of(USER, 2));
+            assertTrue(receivedByB.isEmpty());
+
+            a.flush();
+            assertEquals(Arrays.asList(Invalidation.of(USER, 1), Invalidation.of(USER, 2)), receivedByB);
+            assertTrue(receivedByA.isEmpty());
+        } finally {
+            a.stop();
+            b.stop();
+        }
+    }
+
+    @Test
+    public void testBatchSize() {
+        final LoopbackInvalidationBusComponentImpl a = loopback();
+        final LoopbackInvalidationBusComponentImpl b = loopback();
+        final List<List<Invalidation>> batches = new CopyOnWriteArrayList<>();
+        b.subscribe(batches::add);
+        a.setMaxBatchSize(3);
+        try {
+            a.start();
+            b.start();
+            for (int i = 0; i < 7; i++) {
+                a.publish(Invalidation.of(USER, i));
+            }
+            assertEquals(2, batches.size());
+            a.flush();
+            assertEquals(3, batches.size());
+            assertEquals(1, batches.get(2).size());
+        } finally {
+            a.stop();
+            b.stop();
+        }
+    }
+
+    @Test
+    public void testUdp() throws Exception {
+        final InetSocketAddress any = new InetSocketAddress(InetAddress.getLoopbackAddress(), 0);
+        final UdpInvalidationBusComponentImpl a = new UdpInvalidationBusComponentImpl(SpeedmentFactory.newSpeedmentInstance(), any);
+        final UdpInvalidationBusComponentImpl b = new UdpInvalidationBusComponentImpl(SpeedmentFactory.newSpeedmentInstance(), any);
+        final List<Invalidation> receivedByB = Collections.synchronizedList(new ArrayList<>());
+        b.subscribe(receivedByB::addAll);
+        try {
+            a.start();
+            b.start();
+            a.addPeer(b.getLocalAddress().get());
+
+            final List<Invalidation> expected = new ArrayList<>();
+            for (int i = 0; i < 500; i++) {
+                expected.add(Invalidation.of(USER, (long) i));
+                a.publish(Invalidation.of(USER, (long) i));
+            }
+            a.flush();
+
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (receivedByB.size() < expected.size() && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(expected, new ArrayList<>(receivedByB));
+        } finally {
+            a.stop();
+            b.stop();
+        }
+    }
+
+    @Test
+    public void testUnsubscribe() {
+        final LoopbackInvalidationBusComponentImpl a = loopback();
+        final LoopbackInvalidationBusComponentImpl b = loopback();
+        final List<Invalidation> receivedByB = new CopyOnWriteArrayList<>();
+        final Consumer<List<Invalidation>> subscriber = receivedByB::addAll;
+        b.subscribe(subscriber);
+        b.unsubscribe(subscriber);
+        try {
+            a.start();
+            b.start();
+            a.publish(Invalidation.of(USER, 1));
+            a.flush();
+            assertTrue(receivedByB.isEmpty());
+        } finally {
+            a.stop();
+            b.stop();
+        }
+    }
+
+    @Test
+    public void testUdpCompositeKey() throws Exception {
+        final InetSocketAddress any = new InetSocketAddress(InetAddress.getLoopbackAddress(), 0);
+        final UdpInvalidationBusComponentImpl a = new UdpInvalidationBusComponentImpl(SpeedmentFactory.newSpeedmentInstance(), any);
+        final Speedment speedment = SpeedmentFactory.newSpeedmentInstance();
+        final UdpInvalidationBusComponentImpl b = new UdpInvalidationBusComponentImpl(speedment, any);
+        final List<Collection<?>> invalidated = new CopyOnWriteArrayList<>();
+        speedment.put(b);
+        speedment.put(new NativeStreamSupplierComponentImpl(speedment) {
+            @Override
+            public <ENTITY> void invalidated(Class<ENTITY> entityClass, Collection<?> primaryKeys) {
+                invalidated.add(primaryKeys);
+            }
+        });
+
+        final ItemManager manager = new ItemManager(speedment);
+        final BoundedCache<Object, Item> cache = new BoundedCache<>(100, EvictionPolicy.LRU);
+        manager.setEntityCache(cache);
+        cache.put(new ItemKey(1, "a"), new Item());
+        cache.put(new ItemKey(2, "b"), new Item());
+        try {
+            a.start();
+            b.start();
+            a.addPeer(b.getLocalAddress().get());
+            // A restarted manager is subscribed once
+            manager.start();
+            manager.stop();
+            manager.start();
+
+            a.publish(Invalidation.of(manager.sqlTableReference(), new ItemKey(1, "a")));
+            a.publish(Invalidation.of(manager.sqlTableReference(), new ItemKey(1, "a")));
+            a.flush();
+
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (invalidated.isEmpty() && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            Thread.sleep(50);
+            assertEquals(1, invalidated.size());
+            assertEquals(Arrays.asList(new ItemKey(1, "a")), new ArrayList<>(invalidated.get(0)));
+            assertFalse(cache.get(new ItemKey(1, "a")).isPresent());
+            assertTrue(cache.get(new ItemKey(2, "b")).isPresent());
+        } finally {
+            manager.stop();
+            a.stop();
+            b.stop();
+        }
+    }
+
+    private static final class Item {}
+
+    private static final class ItemKey implements CompositeKey {
+
+        private final List<Object> values;
+
+        ItemKey(Object... values) {
+            this.values = Arrays.asList(values);
+        }
+
+        @Override
+        public List<Object> values() {
+            return values;
+        }
+
+        @Override
+        public int hashCode() {
+            return values.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof ItemKey && values.equals(((ItemKey) obj).values);
+        }
+    }
+
+    private static final class ItemManager extends AbstractSqlManager<Item> {
+
+        private static final Table TABLE = table();
+
+        ItemManager(Speedment speedment) {
+            super(speedment);
+        }
+
+        @Override
+        public Class<Item> getEntityClass() {
+            return Item.class;
+        }
+
+        @Override
+        public Table getTable() {
+            return TABLE;
+        }
+
+        @Override
+        public Item newInstance() {
+            return new Item();
+        }
+
+        @Override
+        public Object primaryKeyFor(Item entity) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Object primaryKeyOf(List<?> values) {
+            return new ItemKey(values.toArray());
+        }
+
+        private static Table table() {
+            final Dbms dbms = Dbms.newDbms(SpeedmentFactory.newSpeedmentInstance());
+            dbms.setName("db");
+            dbms.setTypeName("MySQL");
+            final Schema schema = dbms.addNewSchema();
+            schema.setName("shop");
+            final Table table = schema.addNewTable();
+            table.setName("item");
+            return table;
+        }
+    }
+
+    private static LoopbackInvalidationBusComponentImpl loopback() {
+        final LoopbackInvalidationBusComponentImpl bus = new LoopbackInvalidationBusComponentImpl(
+            SpeedmentFactory.newSpeedmentInstance(), InvalidationBusComponentTest.class.getName()
+        );
+        bus.setFlushInterval(1, TimeUnit.HOURS);
+        return bus;
+    }
+}
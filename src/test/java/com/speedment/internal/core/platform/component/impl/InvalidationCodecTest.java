@@ -0,0 +1,126 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.internal.core.platform.component.impl;
+
+import com.speedment.component.InvalidationBusComponent.Invalidation;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.sql.Date;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author pemi
+ */
+public class InvalidationCodecTest {
+
+    @Test
+    public void testRoundTrip() {
+        final List<Invalidation> invalidations = Arrays.asList(
+            Invalidation.of("`db`.`user`", 1),
+            Invalidation.of("`db`.`user`", 2L),
+            Invalidation.of("`db`.`user`", "alice"),
+            Invalidation.of("`db`.`order`", Arrays.asList(42, "x")),
+            Invalidation.of("`db`.`order`", (short) 3),
+            Invalidation.of("`db`.`event`", timestamp(1_000_000L, 123_456_789)),
+            Invalidation.of("`db`.`event`", Arrays.asList(new Date(7L), new Time(8L))),
+            Invalidation.of("`db`.`price`", Arrays.asList(new BigDecimal("-12.340"), BigInteger.TEN.pow(30))),
+            Invalidation.ofTable("`db`.`log`")
+        );
+        final List<byte[]> packets = InvalidationCodec.encode(17, invalidations, 1400);
+        assertEquals(1, packets.size());
+
+        final Optional<InvalidationCodec.Packet> packet = InvalidationCodec.decode(packets.get(0), 0, packets.get(0).length);
+        assertTrue(packet.isPresent());
+        assertEquals(17, packet.get().getSender());
+        assertEquals(invalidations, packet.get().getInvalidations());
+    }
+
+    @Test
+    public void testSplit() {
+        final List<Invalidation> invalidations = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            invalidations.add(Invalidation.of("`db`.`user`", (long) i));
+        }
+        final List<byte[]> packets = InvalidationCodec.encode(1, invalidations, 256);
+        assertTrue(packets.size() > 1);
+
+        final List<Invalidation> decoded = new ArrayList<>();
+        for (final byte[] packet : packets) {
+            assertTrue(packet.length <= 256);
+            decoded.addAll(InvalidationCodec.decode(packet, 0, packet.length).get().getInvalidations());
+        }
+        assertEquals(invalidations, decoded);
+    }
+
+    @Test
+    public void testOversizedKey() {
+        final StringBuilder key = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            key.append('k');
+        }
+        final List<byte[]> packets = InvalidationCodec.encode(1, Arrays.asList(Invalidation.of("`db`.`user`", key.toString())), 256);
+        assertEquals(1, packets.size());
+        assertEquals(
+            Arrays.asList(Invalidation.ofTable("`db`.`user`")),
+            InvalidationCodec.decode(packets.get(0), 0, packets.get(0).length).get().getInvalidations()
+        );
+    }
+
+    @Test
+    public void testUnsupportedKey() {
+        final List<byte[]> packets = InvalidationCodec.encode(1, Arrays.asList(
+            Invalidation.of("`db`.`user`", UUID.randomUUID()),
+            Invalidation.of("`db`.`order`", Arrays.asList(1, new StringBuilder("x")))
+        ), 1400);
+        assertEquals(
+            Arrays.asList(Invalidation.ofTable("`db`.`user`"), Invalidation.ofTable("`db`.`order`")),
+            InvalidationCodec.decode(packets.get(0), 0, packets.get(0).length).get().getInvalidations()
+        );
+    }
+
+    @Test
+    public void testSerializedTagIsRejected() {
+        final ByteBuffer buffer = ByteBuffer.allocate(64)
+            .putInt(InvalidationCodec.MAGIC).putLong(1).putShort((short) 1)
+            .putShort((short) 0).putShort((short) 1).put((byte) 'a')
+            .put((byte) 7).putInt(4).putInt(0xACED0005);
+        assertFalse(InvalidationCodec.decode(buffer.array(), 0, buffer.position()).isPresent());
+    }
+
+    @Test
+    public void testGarbage() {
+        final byte[] garbage = {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15};
+        assertFalse(InvalidationCodec.decode(garbage, 0, garbage.length).isPresent());
+        assertFalse(InvalidationCodec.decode(garbage, 0, 3).isPresent());
+    }
+
+    private static Timestamp timestamp(long millis, int nanos) {
+        final Timestamp timestamp = new Timestamp(millis);
+        timestamp.setNanos(nanos);
+        return timestamp;
+    }
+}
@@ -0,0 +1,186 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.internal.core.stream;
+
+import com.speedment.stream.Flow;
+import java.util.ArrayList;
+import static java.util.Arrays.asList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import static java.util.stream.Collectors.toList;
+import java.util.stream.IntStream;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author pemi
+ */
+public class PagingPublisherTest {
+
+    private static final List<Integer> ELEMENTS = IntStream.range(0, 10).boxed().collect(toList());
+
+    private final List<Integer> pageSizes = new ArrayList<>();
+
+    private List<Integer> read(Integer last, int size) {
+        pageSizes.add(size);
+        return ELEMENTS.stream()
+            .filter(i -> last == null || i > last)
+            .limit(size)
+            .collect(toList());
+    }
+
+    @Test
+    public void testDemandSizedPages() {
+        final RecordingSubscriber subscriber = new RecordingSubscriber(3);
+        new PagingPublisher<>(this::read, Runnable::run, Runnable::run, 4).subscribe(subscriber);
+        assertTrue(pageSizes.isEmpty());
+
+        subscriber.subscription.request(3);
+        assertEquals(ELEMENTS, subscriber.items);
+        assertTrue(subscriber.completed);
+        assertTrue(pageSizes.stream().allMatch(size -> size <= 3));
+    }
+
+    @Test
+    public void testMaxPageSize() {
+        final RecordingSubscriber subscriber = new RecordingSubscriber(0);
+        new PagingPublisher<>(this::read, Runnable::run, Runnable::run, 4).subscribe(subscriber);
+        subscriber.subscription.request(Long.MAX_VALUE);
+        assertEquals(ELEMENTS, subscriber.items);
+        assertEquals(asList(4, 4, 4), pageSizes);
+        assertTrue(subscriber.completed);
+    }
+
+    @Test
+    public void testCancel() {
+        final RecordingSubscriber subscriber = new RecordingSubscriber(0);
+        new PagingPublisher<>(this::read, Runnable::run, Runnable::run, 4).subscribe(subscriber);
+        subscriber.subscription.request(5);
+        subscriber.subscription.cancel();
+        subscriber.subscription.request(5);
+        assertEquals(ELEMENTS.subList(0, 5), subscriber.items);
+        assertFalse(subscriber.completed);
+    }
+
+    @Test
+    public void testErrors() {
+        final RecordingSubscriber invalid = new RecordingSubscriber(0);
+        new PagingPublisher<>(this::read, Runnable::run, Runnable::run, 4).subscribe(invalid);
+        invalid.subscription.request(0);
+        assertTrue(invalid.error instanceof IllegalArgumentException);
+
+        final RecordingSubscriber failing = new RecordingSubscriber(0);
+        new PagingPublisher<Integer>((last, size) -> {
+            throw new IllegalStateException();
+        }, Runnable::run, Runnable::run, 4).subscribe(failing);
+        failing.subscription.request(1);
+        assertTrue(failing.error instanceof IllegalStateException);
+        assertTrue(failing.items.isEmpty());
+    }
+
+    @Test
+    public void testDeliveredOutsideRead() {
+        final List<Runnable> reads = new ArrayList<>();
+        final List<Runnable> deliveries = new ArrayList<>();
+        final RecordingSubscriber subscriber = new RecordingSubscriber(0);
+        new PagingPublisher<>(this::read, reads::add, deliveries::add, 4).subscribe(subscriber);
+        subscriber.subscription.request(6);
+
+        runNext(deliveries);
+        assertEquals(1, reads.size());
+        runNext(reads);
+        assertTrue(subscriber.items.isEmpty());
+        assertEquals(1, deliveries.size());
+
+        runNext(deliveries);
+        assertEquals(ELEMENTS.subList(0, 4), subscriber.items);
+        runNext(reads);
+        runNext(deliveries);
+        assertEquals(ELEMENTS.subList(0, 6), subscriber.items);
+        assertTrue(reads.isEmpty());
+        assertTrue(deliveries.isEmpty());
+        assertEquals(asList(4, 2), pageSizes);
+        assertFalse(subscriber.completed);
+    }
+
+    @Test
+    public void testOfStream() {
+        final AtomicInteger closed = new AtomicInteger();
+        final PagingPublisher<Integer> publisher = PagingPublisher.ofStream(
+            () -> ELEMENTS.stream().onClose(closed::incrementAndGet), Runnable::run, Runnable::run, 4
+        );
+
+        final RecordingSubscriber cancelling = new RecordingSubscriber(0);
+        publisher.subscribe(cancelling);
+        cancelling.subscription.request(3);
+        cancelling.subscription.request(3);
+        assertEquals(ELEMENTS.subList(0, 6), cancelling.items);
+        assertEquals(0, closed.get());
+        cancelling.subscription.cancel();
+        assertEquals(1, closed.get());
+
+        final RecordingSubscriber completing = new RecordingSubscriber(3);
+        publisher.subscribe(completing);
+        completing.subscription.request(3);
+        assertEquals(ELEMENTS, completing.items);
+        assertTrue(completing.completed);
+        assertEquals(2, closed.get());
+    }
+
+    private static void runNext(List<Runnable> tasks) {
+        tasks.remove(0).run();
+    }
+
+    private static final class RecordingSubscriber implements Flow.Subscriber<Integer> {
+
+        private final long batch;
+        private final List<Integer> items = new ArrayList<>();
+        private Flow.Subscription subscription;
+        private long received;
+        private boolean completed;
+        private Throwable error;
+
+        private RecordingSubscriber(long batch) {
+            this.batch = batch;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(Integer item) {
+            items.add(item);
+            if (batch > 0 && ++received % batch == 0) {
+                subscription.request(batch);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+    }
+
+}
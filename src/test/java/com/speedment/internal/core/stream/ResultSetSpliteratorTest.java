@@ -0,0 +1,102 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.internal.core.stream;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import static java.util.stream.Collectors.toList;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author pemi
+ */
+public class ResultSetSpliteratorTest {
+
+    private static final Function<ResultSet, Integer> MAPPER = rs -> {
+        try {
+            return rs.getInt(1);
+        } catch (SQLException sqle) {
+            throw new RuntimeException(sqle);
+        }
+    };
+
+    private static ResultSet rowsOf(int rows) {
+        final AtomicInteger row = new AtomicInteger();
+        return (ResultSet) Proxy.newProxyInstance(
+            ResultSet.class.getClassLoader(),
+            new Class<?>[]{ResultSet.class},
+            (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "getInt": return row.get();
+                    case "next":   return row.incrementAndGet() <= rows;
+                    default: throw new UnsupportedOperationException(method.getName());
+                }
+            }
+        );
+    }
+
+    @Test
+    public void testSequential() {
+        final List<Integer> expected = IntStream.rangeClosed(1, 2500).boxed().collect(toList());
+        assertEquals(expected, StreamUtil.asStream(rowsOf(2500), MAPPER).collect(toList()));
+        assertEquals(expected, StreamUtil.asSizedStream(rowsOf(2500), MAPPER, 2500).collect(toList()));
+    }
+
+    @Test
+    public void testFixedBatches() {
+        final Spliterator<Integer> spliterator = new ResultSetSpliterator<>(rowsOf(250), MAPPER, ResultSetSpliterator.UNKNOWN_SIZE, false, 100);
+        assertFalse(spliterator.hasCharacteristics(Spliterator.SIZED));
+        assertEquals(100, spliterator.trySplit().getExactSizeIfKnown());
+        assertEquals(100, spliterator.trySplit().getExactSizeIfKnown());
+        assertEquals(50, spliterator.trySplit().getExactSizeIfKnown());
+        assertNull(spliterator.trySplit());
+        assertFalse(spliterator.tryAdvance(i -> fail()));
+    }
+
+    @Test
+    public void testExactSize() {
+        final Spliterator<Integer> spliterator = new ResultSetSpliterator<>(rowsOf(250), MAPPER, 250, true, 100);
+        assertEquals(250, spliterator.getExactSizeIfKnown());
+        spliterator.trySplit();
+        assertEquals(150, spliterator.getExactSizeIfKnown());
+        assertTrue(spliterator.tryAdvance(i -> assertEquals(101, i.intValue())));
+        assertEquals(149, spliterator.getExactSizeIfKnown());
+        assertEquals(149, StreamSupport.stream(spliterator, false).toArray().length);
+    }
+
+    @Test
+    public void testParallel() {
+        final long expected = IntStream.rangeClosed(1, 10_000).asLongStream().sum();
+        assertEquals(expected, StreamUtil.asStream(rowsOf(10_000), MAPPER, 10_000).parallel().mapToLong(i -> i).sum());
+        assertEquals(expected, StreamUtil.asSizedStream(rowsOf(10_000), MAPPER, 10_000).parallel().mapToLong(i -> i).sum());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownExactSize() {
+        new ResultSetSpliterator<>(rowsOf(1), MAPPER, ResultSetSpliterator.UNKNOWN_SIZE, true, 100);
+    }
+
+}
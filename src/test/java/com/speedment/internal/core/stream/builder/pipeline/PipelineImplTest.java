@@ -0,0 +1,114 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.internal.core.stream.builder.pipeline;
+
+import com.speedment.internal.core.stream.builder.ReferenceStreamBuilder;
+import com.speedment.internal.core.stream.builder.action.reference.FilterAction;
+import com.speedment.internal.core.stream.builder.action.reference.MapAction;
+import com.speedment.internal.core.stream.builder.streamterminator.StreamTerminator;
+import com.speedment.stream.StreamDecorator;
+import java.util.ArrayList;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import static java.util.stream.Collectors.toList;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ *
+ * @author pemi
+ */
+public class PipelineImplTest {
+
+    private static final StreamTerminator TERMINATOR = () -> StreamDecorator.IDENTITY;
+
+    @Test
+    public void testFusedActions() {
+        final Function<Stream<Integer>, List<String>> query = s -> s
+            .filter(i -> i % 3 != 0)
+            .map(i -> i * 2)
+            .peek(i -> {})
+            .filter(i -> i > 10)
+            .map(i -> "v" + i)
+            .sorted()
+            .map(String::toUpperCase)
+            .filter(v -> v.length() > 2)
+            .collect(toList());
+
+        final List<String> expected = query.apply(source(false));
+        assertEquals(expected, query.apply(stream(source(false), true)));
+        assertEquals(expected, query.apply(stream(source(false), false)));
+        assertEquals(expected, query.apply(stream(source(true), true)));
+    }
+
+    @Test
+    public void testShortCircuit() {
+        final AtomicInteger peeked = new AtomicInteger();
+        final List<Integer> result = stream(source(false), true)
+            .filter(i -> i % 2 == 0)
+            .peek(i -> peeked.incrementAndGet())
+            .map(i -> i + 1)
+            .limit(3)
+            .collect(toList());
+        assertEquals(3, result.size());
+        assertEquals(3, peeked.get());
+    }
+
+    @Test
+    public void testCloseHandlers() {
+        final List<String> closed = new ArrayList<>();
+        final Stream<Integer> stream = stream(source(false), true).onClose(() -> closed.add("builder"));
+        assertEquals(50, stream.filter(i -> i < 50).map(i -> i + 1).count());
+        assertEquals(singletonList("builder"), closed);
+
+        final PipelineImpl<Integer> pipeline = new PipelineImpl<>(() -> source(false).onClose(() -> closed.add("source")));
+        pipeline.add(new FilterAction<Integer>(i -> i < 50));
+        pipeline.add(new MapAction<Integer, Integer>(i -> i + 1));
+        try (final Stream<Integer> fused = pipeline.getAsReferenceStream()) {
+            assertEquals(50, fused.count());
+        }
+        assertEquals(asList("builder", "source"), closed);
+    }
+
+    @Test
+    public void testArrayBacked() {
+        final PipelineImpl<Integer> pipeline = new PipelineImpl<>(() -> Stream.of(1));
+        assertTrue(pipeline.isEmpty());
+        assertTrue(pipeline.isFused());
+        pipeline.setFused(false);
+        assertFalse(pipeline.isFused());
+    }
+
+    private static Stream<Integer> source(boolean parallel) {
+        final Stream<Integer> result = IntStream.range(0, 100).boxed();
+        return parallel ? result.parallel() : result;
+    }
+
+    private static Stream<Integer> stream(Stream<Integer> source, boolean fused) {
+        final PipelineImpl<Integer> pipeline = new PipelineImpl<>(() -> source);
+        pipeline.setFused(fused);
+        return new ReferenceStreamBuilder<>(pipeline, TERMINATOR);
+    }
+
+}
@@ -29,6 +29,8 @@ import static java.util.Comparator.nullsLast;
 import static org.junit.Assert.assertEquals;
 import static java.util.Comparator.comparing;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.Arrays;
 import static java.util.stream.Collectors.toSet;
 import java.util.stream.Stream;
 import static org.junit.Assert.assertEquals;
@@ -201,4 +203,14 @@ public class ComparableFieldTest extends BaseFieldTest {
         assertEquals(0, collect(ID.in((Integer) null)).size());
     }
 
+    @Test
+    public void inTreeSet() throws Exception {
+        final Set<Integer> intSet = new TreeSet<>(Arrays.asList(16, 2, 28, 3, 5, 7));
+        final List<Entity> expected = collect(e -> intSet.contains(e.getId()));
+
+        assertEquals(expected, collect(ID.in(intSet)));
+        assertEquals(expected, collect(ID.in(intSet).negate().negate()));
+        assertEquals(entities.size() - expected.size(), collect(ID.in(intSet).negate()).size());
+    }
+
 }
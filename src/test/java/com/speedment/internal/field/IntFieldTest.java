@@ -0,0 +1,82 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.internal.field;
+
+import com.speedment.field.Inclusion;
+import com.speedment.field.IntField;
+import com.speedment.field.predicate.PredicateType;
+import com.speedment.field.predicate.SpeedmentPredicate;
+import com.speedment.internal.core.field.IntFieldImpl;
+import com.speedment.internal.core.field.predicate.PredicateUtil;
+import static com.speedment.internal.field.Entity.ID;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+
+/**
+ *
+ * @author pemi
+ */
+public class IntFieldTest extends BaseFieldTest {
+
+    private static final IntField<Entity> INT_ID = new IntFieldImpl<>("id", Entity::getId, Entity::setId);
+
+    @Test
+    public void testComparisons() throws Exception {
+        assertEquals(collect(ID.equal(7)), collect(INT_ID.equal(7)));
+        assertEquals(collect(ID.notEqual(7)), collect(INT_ID.notEqual(7)));
+        assertEquals(collect(ID.lessThan(7)), collect(INT_ID.lessThan(7)));
+        assertEquals(collect(ID.lessOrEqual(7)), collect(INT_ID.lessOrEqual(7)));
+        assertEquals(collect(ID.greaterThan(7)), collect(INT_ID.greaterThan(7)));
+        assertEquals(collect(ID.greaterOrEqual(7)), collect(INT_ID.greaterOrEqual(7)));
+    }
+
+    @Test
+    public void testBetween() throws Exception {
+        for (Inclusion inclusion : Inclusion.values()) {
+            assertEquals(inclusion.name(), collect(ID.between(3, 9, inclusion)), collect(INT_ID.between(3, 9, inclusion)));
+        }
+        assertEquals(collect(ID.between(3, 9)), collect(INT_ID.between(3, 9)));
+        assertEquals(0, collect(INT_ID.between(9, 3)).size());
+    }
+
+    @Test
+    public void testNegate() throws Exception {
+        assertEquals(collect(ID.greaterThan(7).negate()), collect(INT_ID.greaterThan(7).negate()));
+        assertEquals(collect(ID.between(3, 9).negate()), collect(INT_ID.between(3, 9).negate()));
+    }
+
+    @Test
+    public void testOperands() throws Exception {
+        final SpeedmentPredicate<Entity, Integer> predicate = INT_ID.greaterOrEqual(42);
+        assertEquals(PredicateType.GREATER_OR_EQUAL, predicate.getPredicateType());
+        assertEquals(42, PredicateUtil.getFirstOperandAsRaw(predicate));
+        assertEquals("id", predicate.getField().getColumnName());
+
+        final SpeedmentPredicate<Entity, Integer> between = INT_ID.between(1, 2, Inclusion.START_INCLUSIVE_END_INCLUSIVE);
+        assertEquals(1, PredicateUtil.getFirstOperandAsRaw(between));
+        assertEquals(2, PredicateUtil.getSecondOperandAsRaw(between));
+        assertEquals(Inclusion.START_INCLUSIVE_END_INCLUSIVE, PredicateUtil.getThirdOperandAsInclusion(between));
+    }
+
+    @Test
+    public void testGetAsInt() throws Exception {
+        final Entity entity = entities.get(5);
+        assertEquals(entity.getId().intValue(), INT_ID.getAsInt(entity));
+        assertEquals(entity.getId(), INT_ID.get(entity));
+    }
+
+}
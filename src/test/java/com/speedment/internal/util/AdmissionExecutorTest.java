@@ -0,0 +1,105 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.internal.util;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ *
+ * @author pemi
+ */
+public class AdmissionExecutorTest {
+
+    @Test
+    public void testMaxInFlight() throws InterruptedException {
+        final ExecutorService threads = Executors.newFixedThreadPool(16);
+        try {
+            final AdmissionExecutor executor = new AdmissionExecutor(threads, 3);
+            final AtomicInteger running = new AtomicInteger();
+            final AtomicInteger maxRunning = new AtomicInteger();
+            final CountDownLatch done = new CountDownLatch(200);
+            for (int i = 0; i < 200; i++) {
+                executor.execute(() -> {
+                    final int current = running.incrementAndGet();
+                    maxRunning.accumulateAndGet(current, Math::max);
+                    Thread.yield();
+                    running.decrementAndGet();
+                    done.countDown();
+                });
+            }
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+            assertTrue(maxRunning.get() <= 3);
+            assertEquals(0, executor.queued());
+        } finally {
+            threads.shutdown();
+        }
+    }
+
+    @Test
+    public void testQueuedInOrder() {
+        final StringBuilder order = new StringBuilder();
+        final AdmissionExecutor executor = new AdmissionExecutor(Runnable::run, 1);
+        executor.execute(() -> {
+            executor.execute(() -> order.append('b'));
+            executor.execute(() -> order.append('c'));
+            assertEquals(2, executor.queued());
+            order.append('a');
+        });
+        assertEquals("abc", order.toString());
+        assertEquals(0, executor.inFlight());
+    }
+
+    @Test
+    public void testShutdownDrainsQueue() {
+        final StringBuilder order = new StringBuilder();
+        final AdmissionExecutor executor = new AdmissionExecutor(Runnable::run, 1);
+        executor.execute(() -> {
+            executor.execute(() -> order.append('b'));
+            executor.shutdown(() -> order.append('!'));
+            try {
+                executor.execute(() -> order.append('x'));
+            } catch (RejectedExecutionException ree) {
+                order.append('r');
+            }
+            order.append('a');
+        });
+        assertEquals("rab!", order.toString());
+        assertTrue(executor.isShutdown());
+    }
+
+    @Test
+    public void testShutdownWhenIdle() {
+        final StringBuilder order = new StringBuilder();
+        final AdmissionExecutor executor = new AdmissionExecutor(Runnable::run, 1);
+        executor.shutdown(() -> order.append('!'));
+        assertEquals("!", order.toString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMaxInFlightMustBePositive() {
+        new AdmissionExecutor(Runnable::run, 0);
+    }
+
+}
@@ -0,0 +1,78 @@
+/**
+ *
+ * Copyright (c) 2006-2015, Speedment, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); You may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.speedment.util;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Optional;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author pemi
+ */
+public class JsonUtilTest {
+
+    @Test
+    public void testAppendString() throws IOException {
+        final StringWriter writer = new StringWriter();
+        JsonUtil.appendString(writer, "a\"b\\c\nd\u0001e");
+        assertEquals("\"a\\\"b\\\\c\\nd\\u0001e\"", writer.toString());
+        assertEquals("\"name\":", JsonUtil.labelOf("name"));
+    }
+
+    @Test
+    public void testAppendNumbers() throws IOException {
+        for (long value : new long[]{0, 7, -7, 9, 10, 99, 100, -100, 1234567890123L, 999_999_999_999_999_999L, 1_000_000_000_000_000_000L, Long.MAX_VALUE, Long.MIN_VALUE}) {
+            final StringWriter writer = new StringWriter();
+            JsonUtil.appendLong(writer, value);
+            assertEquals(Long.toString(value), writer.toString());
+        }
+        final StringWriter writer = new StringWriter();
+        JsonUtil.appendInt(writer, Integer.MIN_VALUE);
+        assertEquals(Integer.toString(Integer.MIN_VALUE), writer.toString());
+    }
+
+    @Test
+    public void testAppendValue() throws IOException {
+        final StringBuilder sb = new StringBuilder();
+        JsonUtil.appendValue(sb, null);
+        sb.append(',');
+        JsonUtil.appendValue(sb, Optional.empty());
+        sb.append(',');
+        JsonUtil.appendValue(sb, Optional.of(1.5));
+        sb.append(',');
+        JsonUtil.appendValue(sb, (short) 3);
+        sb.append(',');
+        JsonUtil.appendValue(sb, true);
+        sb.append(',');
+        JsonUtil.appendValue(sb, 'x');
+        assertEquals("null,null,1.5,3,true,\"x\"", sb.toString());
+    }
+
+    @Test
+    public void testAppendNullableWrappers() throws IOException {
+        final StringWriter writer = new StringWriter();
+        JsonUtil.appendInt(writer, (Integer) null);
+        writer.append(',');
+        JsonUtil.appendLong(writer, Long.valueOf(42));
+        writer.append(',');
+        JsonUtil.appendBoolean(writer, (Boolean) null);
+        assertEquals("null,42,null", writer.toString());
+    }
+}